@@ -36,6 +36,7 @@ import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 
+import org.eclipse.jdt.internal.junit.launcher.TestTypeCache;
 import org.eclipse.jdt.internal.junit.model.JUnitModel;
 
 /**
@@ -133,6 +134,7 @@ public class JUnitCorePlugin extends Plugin {
 		try {
 			InstanceScope.INSTANCE.getNode(JUnitCorePlugin.CORE_PLUGIN_ID).flush();
 			fJUnitModel.stop();
+			TestTypeCache.shutdown();
 		} finally {
 			super.stop(context);
 		}
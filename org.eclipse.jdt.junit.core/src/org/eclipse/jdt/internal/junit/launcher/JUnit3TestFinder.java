@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.junit.launcher;
 
+import java.util.HashSet;
 import java.util.Set;
 
 import org.eclipse.core.runtime.CoreException;
@@ -57,11 +58,18 @@ public class JUnit3TestFinder implements ITestFinder {
 					}
 				}
 			} else {
-				findTestCases(element, result, new SubProgressMonitor(pm, 7));
+				TestTypeCache cache= TestTypeCache.getDefault();
+				if (cache.getTests(this, element, result))
+					return;
+				Set tests= new HashSet();
+				findTestCases(element, tests, new SubProgressMonitor(pm, 7));
 				if (pm.isCanceled()) {
 					return;
 				}
-				CoreTestSearchEngine.findSuiteMethods(element, result, new SubProgressMonitor(pm, 3));
+				CoreTestSearchEngine.findSuiteMethods(element, tests, new SubProgressMonitor(pm, 3));
+				if (!pm.isCanceled())
+					cache.putTests(this, element, tests);
+				result.addAll(tests);
 			}
 			if (pm.isCanceled()) {
 				return;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -121,6 +121,18 @@ public class JUnit4TestFinder implements ITestFinder {
 		if (pm == null)
 			pm= new NullProgressMonitor();
 
+		TestTypeCache cache= TestTypeCache.getDefault();
+		if (cache.getTests(this, element, result))
+			return;
+
+		Set tests= new HashSet();
+		searchTests(element, tests, pm);
+		if (!pm.isCanceled())
+			cache.putTests(this, element, tests);
+		result.addAll(tests);
+	}
+
+	private void searchTests(IJavaElement element, Set result, IProgressMonitor pm) throws CoreException {
 		try {
 			pm.beginTask(JUnitMessages.JUnit4TestFinder_searching_description, 4);
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -54,6 +54,22 @@ public class JUnitLaunchConfigurationConstants {
 
 	public static final String ATTR_TEST_RUNNER_KIND= JUnitCorePlugin.PLUGIN_ID+".TEST_KIND"; //$NON-NLS-1$
 
+	/**
+	 * The number of threads the test classes are run on, default is 1.
+	 */
+	public static final String ATTR_TEST_THREADS= JUnitCorePlugin.PLUGIN_ID+".TEST_THREADS"; //$NON-NLS-1$
+
+	/**
+	 * Whether the test classes are ordered by the failure and duration history of
+	 * previous runs, default is <code>false</code>.
+	 */
+	public static final String ATTR_PRIORITIZE_BY_HISTORY= JUnitCorePlugin.PLUGIN_ID+".PRIORITIZE_BY_HISTORY"; //$NON-NLS-1$
+
+	/**
+	 * The number of failures after which the test run is stopped, default is 0 (run all tests).
+	 */
+	public static final String ATTR_FAIL_FAST= JUnitCorePlugin.PLUGIN_ID+".FAIL_FAST"; //$NON-NLS-1$
+
 	public static ITestKind getTestRunnerKind(ILaunchConfiguration launchConfiguration) {
 		try {
 			String loaderId = launchConfiguration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_RUNNER_KIND, (String) null);
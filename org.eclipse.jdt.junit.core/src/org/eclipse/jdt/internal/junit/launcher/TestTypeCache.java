@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaModel;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * Caches the tests found in containers (projects, source folders and packages), so that
+ * launching the same container again does not search and resolve all types again.
+ * <p>
+ * An entry is kept until a Java element delta reports a change in the project of the
+ * container or in one of the projects it requires. Changes that only open or close a
+ * working copy are ignored; the tests found by the finders are based on saved content
+ * anyway.
+ * </p>
+ */
+public class TestTypeCache {
+
+	private static final int CLASSPATH_CHANGES= IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+			| IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH;
+
+	private static final int IGNORED_CHANGES= IJavaElementDelta.F_PRIMARY_WORKING_COPY | IJavaElementDelta.F_PRIMARY_RESOURCE;
+
+	private static TestTypeCache fgDefault;
+
+	private static class Entry {
+		final Set/*<IType>*/ fTests;
+		final Set/*<String>*/ fProjectNames;
+
+		Entry(Set tests, Set projectNames) {
+			fTests= tests;
+			fProjectNames= projectNames;
+		}
+	}
+
+	private final Map/*<String, Entry>*/ fEntries= new HashMap();
+
+	private final IElementChangedListener fListener= new IElementChangedListener() {
+		public void elementChanged(ElementChangedEvent event) {
+			handleDelta(event.getDelta());
+		}
+	};
+
+	private TestTypeCache() {
+		JavaCore.addElementChangedListener(fListener, ElementChangedEvent.POST_CHANGE);
+	}
+
+	/**
+	 * @return the shared cache
+	 */
+	public static synchronized TestTypeCache getDefault() {
+		if (fgDefault == null)
+			fgDefault= new TestTypeCache();
+		return fgDefault;
+	}
+
+	/**
+	 * Releases the shared cache, if it has been created.
+	 */
+	public static synchronized void shutdown() {
+		if (fgDefault != null) {
+			JavaCore.removeElementChangedListener(fgDefault.fListener);
+			fgDefault= null;
+		}
+	}
+
+	/**
+	 * Adds the cached tests of the given container to <code>result</code>.
+	 *
+	 * @param finder the finder that found the tests
+	 * @param container the container
+	 * @param result the set to add the tests to
+	 * @return <code>true</code> if the tests were cached, <code>false</code> otherwise
+	 */
+	public synchronized boolean getTests(ITestFinder finder, IJavaElement container, Set result) {
+		Entry entry= (Entry) fEntries.get(getKey(finder, container));
+		if (entry == null)
+			return false;
+		result.addAll(entry.fTests);
+		return true;
+	}
+
+	/**
+	 * Caches the tests found in the given container.
+	 *
+	 * @param finder the finder that found the tests
+	 * @param container the container
+	 * @param tests the tests found in <code>container</code>
+	 */
+	public void putTests(ITestFinder finder, IJavaElement container, Set tests) {
+		IJavaProject project= container.getJavaProject();
+		if (project == null)
+			return;
+		Set projectNames= new HashSet();
+		try {
+			collectRequiredProjects(project, projectNames);
+		} catch (JavaModelException e) {
+			return; // don't cache
+		}
+		synchronized (this) {
+			fEntries.put(getKey(finder, container), new Entry(new HashSet(tests), projectNames));
+		}
+	}
+
+	private static void collectRequiredProjects(IJavaProject project, Set result) throws JavaModelException {
+		if (!result.add(project.getElementName()))
+			return;
+		IJavaModel model= project.getJavaModel();
+		String[] required= project.getRequiredProjectNames();
+		for (int i= 0; i < required.length; i++) {
+			collectRequiredProjects(model.getJavaProject(required[i]), result);
+		}
+	}
+
+	private static String getKey(ITestFinder finder, IJavaElement container) {
+		return finder.getClass().getName() + '/' + container.getHandleIdentifier();
+	}
+
+	private void handleDelta(IJavaElementDelta delta) {
+		Set changedProjects= new HashSet();
+		if (collectChangedProjects(delta, changedProjects)) {
+			synchronized (this) {
+				fEntries.clear();
+			}
+			return;
+		}
+		if (changedProjects.isEmpty())
+			return;
+		synchronized (this) {
+			for (Iterator iter= fEntries.values().iterator(); iter.hasNext();) {
+				Entry entry= (Entry) iter.next();
+				for (Iterator names= changedProjects.iterator(); names.hasNext();) {
+					if (entry.fProjectNames.contains(names.next())) {
+						iter.remove();
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collects the names of the projects affected by the given delta.
+	 *
+	 * @param delta the delta
+	 * @param result the set to add the project names to
+	 * @return <code>true</code> if all entries have to be invalidated
+	 */
+	private static boolean collectChangedProjects(IJavaElementDelta delta, Set result) {
+		IJavaElement element= delta.getElement();
+		int flags= delta.getFlags();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				if (delta.getKind() != IJavaElementDelta.CHANGED)
+					return true;
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+			case IJavaElement.CLASS_FILE:
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & ~IGNORED_CHANGES) != 0)
+					result.add(element.getJavaProject().getElementName());
+				return false;
+			default:
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & CLASSPATH_CHANGES) != 0) {
+					result.add(element.getJavaProject().getElementName());
+					return false;
+				}
+				break;
+		}
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (collectChangedProjects(children[i], result))
+				return true;
+		}
+		return false;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,14 +26,9 @@ import java.util.List;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.TransformerFactoryConfigurationError;
-import javax.xml.transform.sax.SAXSource;
-import javax.xml.transform.stream.StreamResult;
 
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -236,6 +231,11 @@ public final class JUnitModel {
 	 */
 	private final LinkedList/*<TestRunSession>*/ fTestRunSessions= new LinkedList();
 	private final ILaunchListener fLaunchListener= new JUnitLaunchListener();
+	/**
+	 * The listener that records finished test runs in the {@link TestHistory}, or
+	 * <code>null</code> if the model is not started.
+	 */
+	private TestRunListener fHistoryUpdater;
 
 	/**
 	 * Starts the model (called by the {@link JUnitCorePlugin} on startup).
@@ -273,6 +273,8 @@ public final class JUnitModel {
 //		}
 
 		addTestRunSessionListener(new LegacyTestRunSessionListener());
+		fHistoryUpdater= TestHistory.getDefault().createUpdater();
+		JUnitCorePlugin.getDefault().getNewTestRunListeners().add(fHistoryUpdater);
 	}
 
 	/**
@@ -281,6 +283,10 @@ public final class JUnitModel {
 	public void stop() {
 		ILaunchManager launchManager= DebugPlugin.getDefault().getLaunchManager();
 		launchManager.removeLaunchListener(fLaunchListener);
+		if (fHistoryUpdater != null) {
+			JUnitCorePlugin.getDefault().getNewTestRunListeners().remove(fHistoryUpdater);
+			fHistoryUpdater= null;
+		}
 
 		File historyDirectory= JUnitCorePlugin.getHistoryDirectory();
 		File[] swapFiles= historyDirectory.listFiles();
@@ -503,28 +509,29 @@ public final class JUnitModel {
 		}
 	}
 
+	/**
+	 * Writes the given test run session as XML to the given stream. The session is
+	 * serialized while it is written, so the memory needed does not depend on the size
+	 * of the session.
+	 *
+	 * @param testRunSession the test run session
+	 * @param out the stream, will not be closed
+	 * @throws TransformerFactoryConfigurationError not thrown any more
+	 * @throws TransformerException if the session could not be written
+	 */
 	public static void exportTestRunSession(TestRunSession testRunSession, OutputStream out)
 			throws TransformerFactoryConfigurationError, TransformerException {
 
-		Transformer transformer= TransformerFactory.newInstance().newTransformer();
-		InputSource inputSource= new InputSource();
-		SAXSource source= new SAXSource(new TestRunSessionSerializer(testRunSession), inputSource);
-		StreamResult result= new StreamResult(out);
-		transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8"); //$NON-NLS-1$
-		transformer.setOutputProperty(OutputKeys.INDENT, "yes"); //$NON-NLS-1$
-		/*
-		 * Bug in Xalan: Only indents if proprietary property
-		 * org.apache.xalan.templates.OutputProperties.S_KEY_INDENT_AMOUNT is set.
-		 *
-		 * Bug in Xalan as shipped with J2SE 5.0:
-		 * Does not read the indent-amount property at all >:-(.
-		 */
+		TestRunSessionSerializer serializer= new TestRunSessionSerializer(testRunSession);
+		serializer.setContentHandler(new StreamingXMLWriter(out));
 		try {
-			transformer.setOutputProperty("{http://xml.apache.org/xalan}indent-amount", "2"); //$NON-NLS-1$ //$NON-NLS-2$
-		} catch (IllegalArgumentException e) {
-			// no indentation today...
+			serializer.parse(new InputSource());
+		} catch (IOException e) {
+			throw new TransformerException(e);
+		} catch (SAXException e) {
+			Exception cause= e.getException();
+			throw new TransformerException(cause != null ? cause : e);
 		}
-		transformer.transform(source, result);
 	}
 
 	private static void throwExportError(File file, Exception e) throws CoreException {
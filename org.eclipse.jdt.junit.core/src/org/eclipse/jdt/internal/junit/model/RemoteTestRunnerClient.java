@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,8 +12,12 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.junit.model;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -22,11 +26,13 @@ import java.io.UnsupportedEncodingException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.util.ArrayList;
 
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.SafeRunner;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.runner.BinaryMessageWriter;
 import org.eclipse.jdt.internal.junit.runner.MessageIds;
 import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
 
@@ -240,6 +246,15 @@ public class RemoteTestRunnerClient {
 
 	private boolean fDebug= false;
 
+	/**
+	 * The interned test names of the binary protocol
+	 */
+	private final ArrayList fNames= new ArrayList();
+	/**
+	 * The interned class names of the binary protocol
+	 */
+	private final ArrayList fClassNames= new ArrayList();
+
 	/**
 	 * Reads the message stream from the RemoteTestRunner
 	 */
@@ -257,19 +272,24 @@ public class RemoteTestRunnerClient {
 					System.out.println("Creating server socket "+fServerPort); //$NON-NLS-1$
 				fServerSocket= new ServerSocket(fServerPort);
 				fSocket= fServerSocket.accept();
-				try {
-				    fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(fSocket.getInputStream(), "UTF-8"))); //$NON-NLS-1$
-				} catch (UnsupportedEncodingException e) {
-				    fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(fSocket.getInputStream())));
-				}
+				InputStream in= new BufferedInputStream(fSocket.getInputStream());
 				try {
 				    fWriter= new PrintWriter(new OutputStreamWriter(fSocket.getOutputStream(), "UTF-8"), true); //$NON-NLS-1$
 	            } catch (UnsupportedEncodingException e1) {
 	                fWriter= new PrintWriter(new OutputStreamWriter(fSocket.getOutputStream()), true);
 	            }
-				String message;
-				while(fPushbackReader != null && (message= readMessage(fPushbackReader)) != null)
-					receiveMessage(message);
+				if (readBinaryProtocolHeader(in)) {
+					readBinaryMessages(new DataInputStream(in));
+				} else {
+					try {
+					    fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(in, "UTF-8"))); //$NON-NLS-1$
+					} catch (UnsupportedEncodingException e) {
+					    fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(in)));
+					}
+					String message;
+					while(fPushbackReader != null && (message= readMessage(fPushbackReader)) != null)
+						receiveMessage(message);
+				}
 			} catch (SocketException e) {
 				notifyTestRunTerminated();
 			} catch (IOException e) {
@@ -375,6 +395,124 @@ public class RemoteTestRunnerClient {
 	    fCurrentState= fCurrentState.readMessage(message);
 	}
 
+	/**
+	 * Reads the protocol announcement of a runner that uses the binary protocol.
+	 * If the stream doesn't start with the announcement, it is reset to its start.
+	 *
+	 * @param in the stream from the runner
+	 * @return <code>true</code> if the runner uses the binary protocol
+	 * @throws IOException if reading fails
+	 */
+	private boolean readBinaryProtocolHeader(InputStream in) throws IOException {
+		String header= MessageIds.PROTOCOL + MessageIds.BINARY_PROTOCOL_VERSION + '\n';
+		in.mark(header.length());
+		for (int i= 0; i < header.length(); i++) {
+			if (in.read() != header.charAt(i)) {
+				in.reset();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the messages of the binary protocol. See {@link BinaryMessageWriter} for
+	 * the format.
+	 *
+	 * @param in the stream from the runner
+	 * @throws IOException if reading fails
+	 */
+	private void readBinaryMessages(DataInputStream in) throws IOException {
+		fVersion= "v2"; //$NON-NLS-1$
+		int op;
+		while (fSocket != null && (op= in.read()) != -1) {
+			switch (op) {
+				case BinaryMessageWriter.MESSAGE:
+					receiveMessage(readString(in));
+					break;
+				case BinaryMessageWriter.TEST_START:
+					notifyTestStarted(String.valueOf(readVarInt(in)), readName(in));
+					break;
+				case BinaryMessageWriter.TEST_END:
+					notifyTestEnded(String.valueOf(readVarInt(in)), readName(in));
+					break;
+				case BinaryMessageWriter.TEST_ERROR:
+				case BinaryMessageWriter.TEST_FAILED:
+					fFailedTestId= String.valueOf(readVarInt(in));
+					fFailedTest= readName(in);
+					fFailureKind= op == BinaryMessageWriter.TEST_ERROR ? ITestRunListener2.STATUS_ERROR : ITestRunListener2.STATUS_FAILURE;
+					break;
+				case BinaryMessageWriter.TEST_TREE:
+					int id= readVarInt(in);
+					String name= readName(in);
+					boolean isSuite= in.readBoolean();
+					int count= readVarInt(in);
+					notifyTestTreeEntry(id + "," + name + ',' + isSuite + ',' + count); //$NON-NLS-1$
+					break;
+				case BinaryMessageWriter.TRACE:
+					fFailedTrace.setLength(0);
+					fFailedTrace.append(readString(in));
+					notifyTestFailed();
+					fFailedTrace.setLength(0);
+					fActualResult.setLength(0);
+					fExpectedResult.setLength(0);
+					break;
+				case BinaryMessageWriter.EXPECTED:
+					fExpectedResult.setLength(0);
+					fExpectedResult.append(readString(in));
+					break;
+				case BinaryMessageWriter.ACTUAL:
+					fActualResult.setLength(0);
+					fActualResult.append(readString(in));
+					break;
+				case BinaryMessageWriter.RERUN_TRACE:
+					fFailedRerunTrace.setLength(0);
+					fFailedRerunTrace.append(readString(in));
+					break;
+				default:
+					throw new IOException("Unknown message: " + op); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private String readName(DataInputStream in) throws IOException {
+		int ref= readVarInt(in);
+		if (ref != BinaryMessageWriter.NEW_NAME)
+			return (String) fNames.get(ref - 1);
+		String name= readString(in);
+		int classRef= readVarInt(in);
+		if (classRef != BinaryMessageWriter.NO_CLASS) {
+			String className;
+			if (classRef == BinaryMessageWriter.NEW_CLASS) {
+				className= readString(in);
+				fClassNames.add(className);
+			} else {
+				className= (String) fClassNames.get(classRef - 2);
+			}
+			name= name + '(' + className + ')';
+		}
+		fNames.add(name);
+		return name;
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes= new byte[readVarInt(in)];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8"); //$NON-NLS-1$
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int value= 0;
+		for (int shift= 0; ; shift+= 7) {
+			int b= in.read();
+			if (b == -1)
+				throw new EOFException();
+			value|= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+	}
+
 	private void scanOldReranMessage(String arg) {
 		// OLD V1 format
 		// format: className" "testName" "status
@@ -510,29 +648,37 @@ public class RemoteTestRunnerClient {
 		}
 	}
 
-	private void notifyTestEnded(final String test) {
+	private void notifyTestEnded(String test) {
+		String s[]= extractTestId(test);
+		notifyTestEnded(s[0], s[1]);
+	}
+
+	private void notifyTestEnded(final String testId, final String testName) {
 		if (JUnitCorePlugin.isStopped())
 			return;
 		for (int i= 0; i < fListeners.length; i++) {
 			final ITestRunListener2 listener= fListeners[i];
 			SafeRunner.run(new ListenerSafeRunnable() {
 				public void run() {
-					String s[]= extractTestId(test);
-					listener.testEnded(s[0], s[1]);
+					listener.testEnded(testId, testName);
 				}
 			});
 		}
 	}
 
-	private void notifyTestStarted(final String test) {
+	private void notifyTestStarted(String test) {
+		String s[]= extractTestId(test);
+		notifyTestStarted(s[0], s[1]);
+	}
+
+	private void notifyTestStarted(final String testId, final String testName) {
 		if (JUnitCorePlugin.isStopped())
 			return;
 		for (int i= 0; i < fListeners.length; i++) {
 			final ITestRunListener2 listener= fListeners[i];
 			SafeRunner.run(new ListenerSafeRunnable() {
 				public void run() {
-					String s[]= extractTestId(test);
-					listener.testStarted(s[0], s[1]);
+					listener.testStarted(testId, testName);
 				}
 			});
 		}
@@ -612,4 +758,25 @@ public class RemoteTestRunnerClient {
 			fWriter.flush();
 		}
 	}
+
+	/**
+	 * Requests the test runner to run the given test classes again. The runner loads the
+	 * classes again, so that changes since the last run are picked up.
+	 *
+	 * @param classNames the fully qualified names of the test classes
+	 */
+	public void runTestClasses(String[] classNames) {
+		if (isRunning()) {
+			fActualResult.setLength(0);
+			fExpectedResult.setLength(0);
+			StringBuffer message= new StringBuffer(MessageIds.TEST_RUN_CLASSES);
+			for (int i= 0; i < classNames.length; i++) {
+				if (i > 0)
+					message.append(' ');
+				message.append(classNames[i]);
+			}
+			fWriter.println(message.toString());
+			fWriter.flush();
+		}
+	}
 }
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+
+/**
+ * A {@link ContentHandler} that writes the received events as UTF-8 encoded XML to a stream.
+ * <p>
+ * Unlike an identity {@link javax.xml.transform.Transformer}, the writer does not buffer
+ * the document, so the memory needed to export a test run session does not depend on the
+ * size of the session. The output is indented by two spaces like the output of the
+ * transformer used before. Elements with text content are not indented, so that no
+ * whitespace is added to failure traces.
+ * </p>
+ */
+public class StreamingXMLWriter implements ContentHandler {
+
+	private static final String INDENT= "  "; //$NON-NLS-1$
+
+	private final Writer fWriter;
+	private int fDepth;
+
+	/** <code>true</code> iff the start tag of the current element has not been closed yet */
+	private boolean fStartTagOpen;
+
+	/** Per open element: <code>true</code> iff the element has text content */
+	private boolean[] fHasText= new boolean[16];
+
+	/** Per open element: <code>true</code> iff the element has child elements */
+	private boolean[] fHasChildren= new boolean[16];
+
+	/**
+	 * @param out the stream to write to, will not be closed by this writer
+	 */
+	public StreamingXMLWriter(OutputStream out) {
+		try {
+			fWriter= new BufferedWriter(new OutputStreamWriter(out, "UTF-8")); //$NON-NLS-1$
+		} catch (IOException e) {
+			// UTF-8 is always supported
+			throw new IllegalStateException(e.getMessage());
+		}
+	}
+
+	public void startDocument() throws SAXException {
+		write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"); //$NON-NLS-1$
+	}
+
+	public void endDocument() throws SAXException {
+		write("\n"); //$NON-NLS-1$
+		try {
+			fWriter.flush();
+		} catch (IOException e) {
+			throw new SAXException(e);
+		}
+	}
+
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		closeStartTag();
+		if (fDepth > 0) {
+			if (!fHasText[fDepth - 1])
+				newLine();
+			fHasChildren[fDepth - 1]= true;
+		} else {
+			newLine();
+		}
+		write("<"); //$NON-NLS-1$
+		write(qName);
+		for (int i= 0; i < atts.getLength(); i++) {
+			write(" "); //$NON-NLS-1$
+			write(atts.getQName(i));
+			write("=\""); //$NON-NLS-1$
+			writeEscaped(atts.getValue(i), true);
+			write("\""); //$NON-NLS-1$
+		}
+		fStartTagOpen= true;
+		if (fDepth == fHasText.length) {
+			boolean[] hasText= new boolean[fDepth * 2];
+			System.arraycopy(fHasText, 0, hasText, 0, fDepth);
+			fHasText= hasText;
+			boolean[] hasChildren= new boolean[fDepth * 2];
+			System.arraycopy(fHasChildren, 0, hasChildren, 0, fDepth);
+			fHasChildren= hasChildren;
+		}
+		fHasText[fDepth]= false;
+		fHasChildren[fDepth]= false;
+		fDepth++;
+	}
+
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		fDepth--;
+		if (fStartTagOpen) {
+			write("/>"); //$NON-NLS-1$
+			fStartTagOpen= false;
+		} else {
+			if (fHasChildren[fDepth] && !fHasText[fDepth])
+				newLine();
+			write("</"); //$NON-NLS-1$
+			write(qName);
+			write(">"); //$NON-NLS-1$
+		}
+	}
+
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		if (length == 0)
+			return;
+		closeStartTag();
+		if (fDepth > 0)
+			fHasText[fDepth - 1]= true;
+		writeEscaped(new String(ch, start, length), false);
+	}
+
+	public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+		// not written, the writer indents on its own
+	}
+
+	public void processingInstruction(String target, String data) throws SAXException {
+		closeStartTag();
+		write("<?"); //$NON-NLS-1$
+		write(target);
+		if (data != null && data.length() > 0) {
+			write(" "); //$NON-NLS-1$
+			write(data);
+		}
+		write("?>"); //$NON-NLS-1$
+	}
+
+	// ignored:
+
+	public void setDocumentLocator(Locator locator) {
+	}
+
+	public void startPrefixMapping(String prefix, String uri) throws SAXException {
+	}
+
+	public void endPrefixMapping(String prefix) throws SAXException {
+	}
+
+	public void skippedEntity(String name) throws SAXException {
+	}
+
+	private void closeStartTag() throws SAXException {
+		if (fStartTagOpen) {
+			write(">"); //$NON-NLS-1$
+			fStartTagOpen= false;
+		}
+	}
+
+	private void newLine() throws SAXException {
+		write("\n"); //$NON-NLS-1$
+		for (int i= 0; i < fDepth; i++) {
+			write(INDENT);
+		}
+	}
+
+	private void writeEscaped(String string, boolean isAttribute) throws SAXException {
+		try {
+			int length= string.length();
+			int written= 0;
+			for (int i= 0; i < length; i++) {
+				String replacement= getReplacement(string.charAt(i), isAttribute);
+				if (replacement != null) {
+					fWriter.write(string, written, i - written);
+					fWriter.write(replacement);
+					written= i + 1;
+				}
+			}
+			fWriter.write(string, written, length - written);
+		} catch (IOException e) {
+			throw new SAXException(e);
+		}
+	}
+
+	private static String getReplacement(char ch, boolean isAttribute) {
+		switch (ch) {
+			case '&':
+				return "&amp;"; //$NON-NLS-1$
+			case '<':
+				return "&lt;"; //$NON-NLS-1$
+			case '>':
+				return "&gt;"; //$NON-NLS-1$
+			case '\r':
+				return "&#13;"; //$NON-NLS-1$
+			case '"':
+				return isAttribute ? "&quot;" : null; //$NON-NLS-1$
+			case '\n':
+				return isAttribute ? "&#10;" : null; //$NON-NLS-1$
+			case '\t':
+				return isAttribute ? "&#9;" : null; //$NON-NLS-1$
+			default:
+				return null;
+		}
+	}
+
+	private void write(String string) throws SAXException {
+		try {
+			fWriter.write(string);
+		} catch (IOException e) {
+			throw new SAXException(e);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -172,6 +172,13 @@ public abstract class TestElement implements ITestElement {
 	private String fExpected;
 	private String fActual;
 
+	/**
+	 * Handle of the failure in the {@link TraceStore} of the session, or <code>-1</code>
+	 * if the failure is held by {@link #fTrace}, {@link #fExpected} and {@link #fActual}.
+	 */
+	private long fFailureHandle= -1;
+	private boolean fStoredComparisonFailure;
+
 	private boolean fAssumptionFailed;
 
 	/**
@@ -241,8 +248,9 @@ public abstract class TestElement implements ITestElement {
 	public FailureTrace getFailureTrace() {
 		Result testResult= getTestResult(false);
 		if (testResult == Result.ERROR || testResult == Result.FAILURE
-				|| (testResult == Result.IGNORED && fTrace != null)) {
-			return new FailureTrace(fTrace, fExpected, fActual);
+				|| (testResult == Result.IGNORED && hasTrace())) {
+			String[] failure= getFailure();
+			return new FailureTrace(failure[0], failure[1], failure[2]);
 		}
 		return null;
 	}
@@ -283,15 +291,53 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public void setStatus(Status status, String trace, String expected, String actual) {
-		if (trace != null && fTrace != null) {
+		if (trace != null && hasTrace()) {
 			//don't overwrite first trace if same test run logs multiple errors
-			fTrace= fTrace + trace;
+			String[] failure= getFailure();
+			setFailure(failure[0] + trace, failure[1], failure[2]);
+		} else {
+			setFailure(trace, expected, actual);
+		}
+		setStatus(status);
+	}
+
+	private void setFailure(String trace, String expected, String actual) {
+		TraceStore store= trace != null ? getTraceStore() : null;
+		long handle= store != null ? store.add(trace, expected, actual) : -1;
+		fFailureHandle= handle;
+		if (handle != -1) {
+			fTrace= null;
+			fExpected= null;
+			fActual= null;
+			fStoredComparisonFailure= expected != null && actual != null;
 		} else {
 			fTrace= trace;
 			fExpected= expected;
 			fActual= actual;
 		}
-		setStatus(status);
+	}
+
+	/**
+	 * @return the trace, expected and actual values of the failure, elements can be <code>null</code>
+	 */
+	private String[] getFailure() {
+		if (fFailureHandle != -1) {
+			TraceStore store= getTraceStore();
+			String[] failure= store != null ? store.get(fFailureHandle) : null;
+			if (failure != null)
+				return failure;
+			return new String[3];
+		}
+		return new String[] { fTrace, fExpected, fActual };
+	}
+
+	private boolean hasTrace() {
+		return fFailureHandle != -1 || fTrace != null;
+	}
+
+	private TraceStore getTraceStore() {
+		ITestRunSession session= getRoot().getTestRunSession();
+		return session instanceof TestRunSession ? ((TestRunSession) session).getTraceStore() : null;
 	}
 
 	public Status getStatus() {
@@ -299,18 +345,20 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public String getTrace() {
-		return fTrace;
+		return fFailureHandle != -1 ? getFailure()[0] : fTrace;
 	}
 
 	public String getExpected() {
-		return fExpected;
+		return fFailureHandle != -1 ? getFailure()[1] : fExpected;
 	}
 
 	public String getActual() {
-		return fActual;
+		return fFailureHandle != -1 ? getFailure()[2] : fActual;
 	}
 
 	public boolean isComparisonFailure() {
+		if (fFailureHandle != -1)
+			return fStoredComparisonFailure;
 		return fExpected != null && fActual != null;
 	}
 
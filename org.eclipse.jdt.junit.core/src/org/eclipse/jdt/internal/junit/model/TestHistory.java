@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.junit.TestRunListener;
+import org.eclipse.jdt.junit.model.ITestElement;
+import org.eclipse.jdt.junit.model.ITestElement.ProgressState;
+import org.eclipse.jdt.junit.model.ITestElement.Result;
+import org.eclipse.jdt.junit.model.ITestRunSession;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+
+/**
+ * The duration and failure history of the top-level test suites of past test runs.
+ * <p>
+ * For every suite, the history keeps the running time of the last completed run and a
+ * failure score, which is an exponentially decaying average of its failures: 1 if the
+ * suite failed in all recent runs, close to 0 if it passed in all recent runs. The
+ * history is persisted in the state location and is passed to the test runner, which
+ * uses it to run likely failures first and to balance the suites across its threads
+ * (see <code>org.eclipse.jdt.internal.junit.runner.FailureHistorySorter</code>).
+ * </p>
+ */
+public class TestHistory {
+
+	private static final String HISTORY_FILE_NAME= "testHistory.txt"; //$NON-NLS-1$
+
+	/** Weight of the previous score when a new result is recorded */
+	private static final double DECAY= 0.5;
+
+	/** Maximal number of suites kept; the least recently run suites are dropped first */
+	private static final int MAX_ENTRIES= 10000;
+
+	private static TestHistory fgDefault;
+
+	private static class Entry {
+		double fScore;
+		double fTime;
+	}
+
+	/** Suite name -> Entry, in access order */
+	private final Map fEntries= new LinkedHashMap(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private final File fFile;
+
+	/**
+	 * Listener that records finished test runs.
+	 */
+	private class HistoryUpdater extends TestRunListener {
+		public void sessionFinished(ITestRunSession session) {
+			if (session instanceof TestRunSession)
+				record((TestRunSession) session);
+		}
+	}
+
+	/**
+	 * Creates a history that is loaded from and saved to the given file. Clients other than
+	 * tests use the shared history returned by {@link #getDefault()}.
+	 *
+	 * @param file the history file
+	 */
+	public TestHistory(File file) {
+		fFile= file;
+		load();
+	}
+
+	/**
+	 * @return the shared test history
+	 */
+	public static synchronized TestHistory getDefault() {
+		if (fgDefault == null)
+			fgDefault= new TestHistory(JUnitCorePlugin.getDefault().getStateLocation().append(HISTORY_FILE_NAME).toFile());
+		return fgDefault;
+	}
+
+	/**
+	 * @return a listener that records finished test runs in this history
+	 */
+	public TestRunListener createUpdater() {
+		return new HistoryUpdater();
+	}
+
+	/**
+	 * Records the results of the completed top-level suites of the given session and
+	 * saves the history.
+	 *
+	 * @param session the test run session
+	 */
+	public void record(TestRunSession session) {
+		TestRoot root= session.getTestRoot();
+		if (root == null)
+			return;
+		ITestElement[] suites= root.getChildren();
+		synchronized (this) {
+			for (int i= 0; i < suites.length; i++) {
+				TestElement suite= (TestElement) suites[i];
+				if (suite.getProgressState() != ProgressState.COMPLETED)
+					continue;
+				Result result= suite.getTestResult(true);
+				recordSuite(suite.getTestName(), result == Result.ERROR || result == Result.FAILURE, suite.getElapsedTimeInSeconds());
+			}
+			try {
+				write(fFile);
+			} catch (IOException e) {
+				JUnitCorePlugin.log(e);
+			}
+		}
+	}
+
+	/**
+	 * Records the result of a completed top-level suite. The history is not saved.
+	 *
+	 * @param name the name of the suite
+	 * @param failed <code>true</code> if the suite had failures or errors
+	 * @param time the running time in seconds, or {@link Double#NaN} if it is not known
+	 */
+	public synchronized void recordSuite(String name, boolean failed, double time) {
+		Entry entry= (Entry) fEntries.get(name);
+		if (entry == null) {
+			entry= new Entry();
+			entry.fScore= failed ? 1 : 0;
+			fEntries.put(name, entry);
+		} else {
+			entry.fScore= entry.fScore * DECAY + (failed ? 1 - DECAY : 0);
+		}
+		if (!Double.isNaN(time))
+			entry.fTime= time;
+	}
+
+	/**
+	 * Returns the failure score of a suite. Like recording a result, this makes the suite
+	 * the most recently used one.
+	 *
+	 * @param name the name of the suite
+	 * @return the failure score, or {@link Double#NaN} if the suite has no history
+	 */
+	public synchronized double getScore(String name) {
+		Entry entry= (Entry) fEntries.get(name);
+		return entry != null ? entry.fScore : Double.NaN;
+	}
+
+	/**
+	 * Writes the history in the format read by the test runner. The history is written to a
+	 * temporary file first, which then replaces the given file.
+	 *
+	 * @param file the file to write to
+	 * @throws IOException if the file cannot be written
+	 */
+	public synchronized void write(File file) throws IOException {
+		File temp= File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile()); //$NON-NLS-1$
+		boolean written= false;
+		try {
+			BufferedWriter bw= new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), "UTF-8")); //$NON-NLS-1$
+			try {
+				for (Iterator iter= fEntries.entrySet().iterator(); iter.hasNext();) {
+					Map.Entry mapEntry= (Map.Entry) iter.next();
+					Entry entry= (Entry) mapEntry.getValue();
+					bw.write(Double.toString(entry.fScore));
+					bw.write('\t');
+					bw.write(Double.toString(entry.fTime));
+					bw.write('\t');
+					bw.write((String) mapEntry.getKey());
+					bw.newLine();
+				}
+			} finally {
+				bw.close();
+			}
+			// renameTo() does not replace an existing file on all platforms
+			if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file)))
+				throw new IOException("Cannot replace " + file); //$NON-NLS-1$
+			written= true;
+		} finally {
+			if (!written)
+				temp.delete();
+		}
+	}
+
+	private void load() {
+		if (!fFile.isFile())
+			return;
+		try {
+			BufferedReader br= new BufferedReader(new InputStreamReader(new FileInputStream(fFile), "UTF-8")); //$NON-NLS-1$
+			try {
+				String line;
+				while ((line= br.readLine()) != null) {
+					int first= line.indexOf('\t');
+					int second= line.indexOf('\t', first + 1);
+					if (first == -1 || second == -1)
+						continue;
+					Entry entry= new Entry();
+					entry.fScore= Double.parseDouble(line.substring(0, first));
+					entry.fTime= Double.parseDouble(line.substring(first + 1, second));
+					fEntries.put(line.substring(second + 1), entry);
+				}
+			} finally {
+				br.close();
+			}
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+		} catch (NumberFormatException e) {
+			JUnitCorePlugin.log(e);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -109,6 +109,7 @@ public class TestRunHandler extends DefaultHandler {
 			} else {
 				fTestRunSession.reset();
 			}
+			fTestRunSession.useTraceStore();
 			fTestSuite= fTestRunSession.getTestRoot();
 
 		} else if (qName.equals(IXMLTags.NODE_TESTSUITES)) {
@@ -120,6 +121,7 @@ public class TestRunHandler extends DefaultHandler {
 			if (fTestRunSession == null) {
 				// support standalone suites and Ant's 'junitreport' task:
 				fTestRunSession= new TestRunSession(name, null);
+				fTestRunSession.useTraceStore();
 				fTestSuite= fTestRunSession.getTestRoot();
 			}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,7 +19,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jdt.junit.model.ITestElement;
 import org.eclipse.jdt.junit.model.ITestElementContainer;
@@ -95,6 +97,12 @@ public class TestRunSession implements ITestRunSession {
 	 */
 	private TestSuiteElement fUnrootedSuite;
 
+	/**
+	 * Store for the failure traces of imported sessions, or <code>null</code>
+	 * if the traces are kept in memory.
+	 */
+	private TraceStore fTraceStore;
+
  	/**
  	 * Number of tests started during this test run.
  	 */
@@ -364,6 +372,7 @@ public class TestRunSession implements ITestRunSession {
 			JUnitModel.exportTestRunSession(this, swapFile);
 			fTestResult= fTestRoot.getTestResult(true);
 			fTestRoot= null;
+			disposeTraceStore();
 			fTestRunnerClient= null;
 			fIdToTest= new HashMap();
 			fIncompleteTestSuites= null;
@@ -385,6 +394,31 @@ public class TestRunSession implements ITestRunSession {
 		File swapFile= getSwapFile();
 		if (swapFile.exists())
 			swapFile.delete();
+		disposeTraceStore();
+	}
+
+	/**
+	 * Moves the failure traces of test elements created from now on to a
+	 * {@link TraceStore}. Used when importing sessions, so that the memory needed
+	 * does not grow with the size of the traces.
+	 */
+	void useTraceStore() {
+		disposeTraceStore();
+		fTraceStore= new TraceStore();
+	}
+
+	/**
+	 * @return the trace store of this session, or <code>null</code> if traces are kept in memory
+	 */
+	TraceStore getTraceStore() {
+		return fTraceStore;
+	}
+
+	private synchronized void disposeTraceStore() {
+		if (fTraceStore != null) {
+			fTraceStore.dispose();
+			fTraceStore= null;
+		}
 	}
 
 	private File getSwapFile() throws IllegalStateException {
@@ -469,6 +503,51 @@ public class TestRunSession implements ITestRunSession {
 		return false;
 	}
 
+	/**
+	 * Runs the test classes of the last run again in the test runner VM that has been kept
+	 * alive. The results of the previous run are discarded. The runner loads the test classes
+	 * again, but does not need to start a new VM.
+	 *
+	 * @return <code>true</code> if the run has been requested, <code>false</code> if the
+	 *         runner has not been kept alive, is still running, or only runs a single test
+	 *         method
+	 */
+	public boolean rerunTestClasses() {
+		if (! isKeptAlive() || isRunning() || isSingleTestMethodRun())
+			return false;
+		String[] classNames= getTestClassNames();
+		if (classNames.length == 0)
+			return false;
+
+		reset();
+		fUnrootedSuite= null;
+		fIsStopped= false;
+		fTestRunnerClient.runTestClasses(classNames);
+		return true;
+	}
+
+	private boolean isSingleTestMethodRun() {
+		ILaunchConfiguration config= fLaunch.getLaunchConfiguration();
+		try {
+			return config.getAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_METHOD_NAME, "").length() != 0; //$NON-NLS-1$
+		} catch (CoreException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * @return the names of the test classes at the top level of the test tree
+	 */
+	private String[] getTestClassNames() {
+		Set/*<String>*/ classNames= new LinkedHashSet();
+		ITestElement[] children= fTestRoot.getChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (children[i] != fUnrootedSuite)
+				classNames.add(((TestElement) children[i]).getClassName());
+		}
+		return (String[]) classNames.toArray(new String[classNames.size()]);
+	}
+
 	public TestElement getTestElement(String id) {
 		return (TestElement) fIdToTest.get(id);
 	}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+
+/**
+ * An append-only file that holds the failure traces of a test run session.
+ * <p>
+ * Traces make up most of the size of a large test run. Imported sessions keep only
+ * the offset of a failure in this file, and the trace, expected and actual values are
+ * read back when they are requested. The file is created lazily in the history directory
+ * and is removed by {@link #dispose()}.
+ * </p>
+ */
+public class TraceStore {
+
+	private static final int HAS_TRACE= 1;
+	private static final int HAS_EXPECTED= 2;
+	private static final int HAS_ACTUAL= 4;
+
+	private RandomAccessFile fFile;
+	private File fLocation;
+	private boolean fDisposed;
+
+	/**
+	 * Appends a failure to the store.
+	 *
+	 * @param trace the trace, can be <code>null</code>
+	 * @param expected the expected value, can be <code>null</code>
+	 * @param actual the actual value, can be <code>null</code>
+	 * @return the handle of the failure, or <code>-1</code> if the failure could not be stored
+	 */
+	public synchronized long add(String trace, String expected, String actual) {
+		if (fDisposed)
+			return -1;
+		try {
+			if (fFile == null) {
+				fLocation= File.createTempFile("traces", ".bin", JUnitCorePlugin.getHistoryDirectory()); //$NON-NLS-1$ //$NON-NLS-2$
+				fFile= new RandomAccessFile(fLocation, "rw"); //$NON-NLS-1$
+			}
+			ByteArrayOutputStream bytes= new ByteArrayOutputStream();
+			DataOutputStream out= new DataOutputStream(bytes);
+			out.writeByte((trace != null ? HAS_TRACE : 0) | (expected != null ? HAS_EXPECTED : 0) | (actual != null ? HAS_ACTUAL : 0));
+			writeString(out, trace);
+			writeString(out, expected);
+			writeString(out, actual);
+			out.flush();
+
+			long handle= fFile.length();
+			fFile.seek(handle);
+			fFile.write(bytes.toByteArray());
+			return handle;
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+			return -1;
+		} catch (IllegalStateException e) {
+			// no history directory
+			return -1;
+		}
+	}
+
+	/**
+	 * Reads a failure back from the store.
+	 *
+	 * @param handle a handle returned by {@link #add(String, String, String)}
+	 * @return an array with the trace, expected and actual values, or <code>null</code>
+	 *         if the failure could not be read
+	 */
+	public synchronized String[] get(long handle) {
+		if (fFile == null)
+			return null;
+		try {
+			fFile.seek(handle);
+			int flags= fFile.readByte();
+			String trace= (flags & HAS_TRACE) != 0 ? readString(fFile) : null;
+			String expected= (flags & HAS_EXPECTED) != 0 ? readString(fFile) : null;
+			String actual= (flags & HAS_ACTUAL) != 0 ? readString(fFile) : null;
+			return new String[] { trace, expected, actual };
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Closes and deletes the store. Handles become invalid.
+	 */
+	public synchronized void dispose() {
+		fDisposed= true;
+		if (fFile == null)
+			return;
+		try {
+			fFile.close();
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+		}
+		fFile= null;
+		fLocation.delete();
+	}
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		if (string == null)
+			return;
+		// writeUTF(..) is limited to 64k, which is too short for traces
+		out.writeInt(string.length());
+		out.writeChars(string);
+	}
+
+	private static String readString(RandomAccessFile in) throws IOException {
+		char[] chars= new char[in.readInt()];
+		byte[] bytes= new byte[chars.length * 2];
+		in.readFully(bytes);
+		for (int i= 0; i < chars.length; i++) {
+			chars[i]= (char) (((bytes[2 * i] & 0xFF) << 8) | (bytes[2 * i + 1] & 0xFF));
+		}
+		return new String(chars);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -57,6 +57,7 @@ import org.eclipse.jdt.internal.junit.launcher.ITestKind;
 import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
 import org.eclipse.jdt.internal.junit.launcher.JUnitRuntimeClasspathEntry;
 import org.eclipse.jdt.internal.junit.launcher.TestKindRegistry;
+import org.eclipse.jdt.internal.junit.model.TestHistory;
 import org.eclipse.jdt.internal.junit.util.CoreTestSearchEngine;
 import org.eclipse.jdt.internal.junit.util.IJUnitStatusConstants;
 
@@ -299,9 +300,18 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 		programArguments.add("-port"); //$NON-NLS-1$
 		programArguments.add(String.valueOf(fPort));
 
+		// older runners ignore this argument and use the text protocol
+		programArguments.add("-binaryprotocol"); //$NON-NLS-1$
+
 		if (fKeepAlive)
 			programArguments.add(0, "-keepalive"); //$NON-NLS-1$
 
+		int threadCount= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_THREADS, 1);
+		if (threadCount > 1) {
+			programArguments.add("-threads"); //$NON-NLS-1$
+			programArguments.add(String.valueOf(threadCount));
+		}
+
 		ITestKind testRunnerKind= getTestRunnerKind(configuration);
 
 		programArguments.add("-testLoaderClass"); //$NON-NLS-1$
@@ -333,6 +343,26 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 			programArguments.add("-testfailures"); //$NON-NLS-1$
 			programArguments.add(testFailureNames);
 		}
+		if (configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_PRIORITIZE_BY_HISTORY, false)) {
+			programArguments.add("-testhistory"); //$NON-NLS-1$
+			programArguments.add(createTestHistoryFile());
+		}
+		int maxFailures= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_FAIL_FAST, 0);
+		if (maxFailures > 0) {
+			programArguments.add("-failfast"); //$NON-NLS-1$
+			programArguments.add(String.valueOf(maxFailures));
+		}
+	}
+
+	private String createTestHistoryFile() throws CoreException {
+		try {
+			File file= File.createTempFile("testHistory", ".txt"); //$NON-NLS-1$ //$NON-NLS-2$
+			file.deleteOnExit();
+			TestHistory.getDefault().write(file);
+			return file.getAbsolutePath();
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR, JUnitCorePlugin.CORE_PLUGIN_ID, IStatus.ERROR, "", e)); //$NON-NLS-1$
+		}
 	}
 
 	private String createTestNamesFile(IMember[] testElements) throws CoreException {
@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+
+/**
+ * Encodes the messages of the text protocol (see {@link MessageIds}) in a compact
+ * binary form.
+ * <p>
+ * Every message is a record starting with one of the operation codes defined
+ * below. Integers are written as variable-length quantities and strings are
+ * length-prefixed UTF-8. Test names are interned: a name that has already been
+ * sent is referred to by its index, and the class part of a name of the form
+ * <code>method(class)</code> is interned separately. Multi-line blocks like traces
+ * and compared values are sent as a single string instead of one message per line.
+ * </p>
+ * <p>
+ * Messages are buffered. Requests to flush are throttled, buffered messages are
+ * written at the latest after {@link #FLUSH_DELAY} milliseconds. Messages that end
+ * a run are flushed immediately.
+ * </p>
+ */
+public class BinaryMessageWriter implements MessageSender {
+	/** A message of the text protocol: string */
+	public static final int MESSAGE= 0;
+	/** {@link MessageIds#TEST_START}: id, name */
+	public static final int TEST_START= 1;
+	/** {@link MessageIds#TEST_END}: id, name */
+	public static final int TEST_END= 2;
+	/** {@link MessageIds#TEST_ERROR}: id, name */
+	public static final int TEST_ERROR= 3;
+	/** {@link MessageIds#TEST_FAILED}: id, name */
+	public static final int TEST_FAILED= 4;
+	/** {@link MessageIds#TEST_TREE}: id, name (escaped as in the text protocol), isSuite, count */
+	public static final int TEST_TREE= 5;
+	/** The lines between {@link MessageIds#TRACE_START} and {@link MessageIds#TRACE_END}: string */
+	public static final int TRACE= 6;
+	/** The lines between {@link MessageIds#EXPECTED_START} and {@link MessageIds#EXPECTED_END}: string */
+	public static final int EXPECTED= 7;
+	/** The lines between {@link MessageIds#ACTUAL_START} and {@link MessageIds#ACTUAL_END}: string */
+	public static final int ACTUAL= 8;
+	/** The lines between {@link MessageIds#RTRACE_START} and {@link MessageIds#RTRACE_END}: string */
+	public static final int RERUN_TRACE= 9;
+
+	/**
+	 * The name reference of a name that is sent for the first time. Other
+	 * references are the index of the name plus one.
+	 */
+	public static final int NEW_NAME= 0;
+	/**
+	 * The class reference of a name without class part.
+	 */
+	public static final int NO_CLASS= 0;
+	/**
+	 * The class reference of a class that is sent for the first time. Other
+	 * references are the index of the class plus two.
+	 */
+	public static final int NEW_CLASS= 1;
+
+	/**
+	 * The maximal delay in milliseconds before a buffered message is written.
+	 */
+	public static final int FLUSH_DELAY= 100;
+
+	private static final String LINE_SEPARATOR= System.getProperty("line.separator"); //$NON-NLS-1$
+
+	private static final String[] BLOCK_STARTS= { MessageIds.TRACE_START, MessageIds.EXPECTED_START, MessageIds.ACTUAL_START, MessageIds.RTRACE_START };
+	private static final String[] BLOCK_ENDS= { MessageIds.TRACE_END, MessageIds.EXPECTED_END, MessageIds.ACTUAL_END, MessageIds.RTRACE_END };
+	private static final int[] BLOCK_KINDS= { TRACE, EXPECTED, ACTUAL, RERUN_TRACE };
+
+	private final DataOutputStream fOut;
+
+	/** Interned names: String -> Integer */
+	private final HashMap fNames= new HashMap();
+	/** Interned class names: String -> Integer */
+	private final HashMap fClasses= new HashMap();
+
+	private StringBuffer fBlock;
+	private int fBlockKind;
+	private String fBlockEnd;
+
+	private boolean fDirty;
+	private boolean fClosed;
+	private long fLastFlush;
+
+	/**
+	 * Flushes buffered messages that have not been flushed by the
+	 * throttled {@link BinaryMessageWriter#flush()}.
+	 */
+	private class FlushThread extends Thread {
+		public FlushThread() {
+			super("FlushThread"); //$NON-NLS-1$
+			setDaemon(true);
+		}
+
+		public void run() {
+			synchronized (BinaryMessageWriter.this) {
+				while (!fClosed) {
+					try {
+						BinaryMessageWriter.this.wait(FLUSH_DELAY);
+					} catch (InterruptedException e) {
+					}
+					if (fDirty && !fClosed)
+						flushNow();
+				}
+			}
+		}
+	}
+
+	public BinaryMessageWriter(OutputStream out) {
+		fOut= new DataOutputStream(new BufferedOutputStream(out, 8192));
+		new FlushThread().start();
+	}
+
+	public synchronized void sendMessage(String msg) {
+		if (fClosed)
+			return;
+		try {
+			if (fBlock != null) {
+				if (msg.startsWith(fBlockEnd)) {
+					fOut.writeByte(fBlockKind);
+					writeString(fBlock.toString());
+					fBlock= null;
+					fDirty= true;
+				} else {
+					fBlock.append(msg).append(LINE_SEPARATOR);
+				}
+				return;
+			}
+			for (int i= 0; i < BLOCK_STARTS.length; i++) {
+				if (msg.startsWith(BLOCK_STARTS[i])) {
+					fBlock= new StringBuffer();
+					fBlockKind= BLOCK_KINDS[i];
+					fBlockEnd= BLOCK_ENDS[i];
+					return;
+				}
+			}
+			if (!writeTestMessage(msg)) {
+				fOut.writeByte(MESSAGE);
+				writeString(msg);
+			}
+			fDirty= true;
+			if (msg.startsWith(MessageIds.TEST_RUN_END) || msg.startsWith(MessageIds.TEST_STOPPED) || msg.startsWith(MessageIds.TEST_RERAN))
+				flushNow();
+		} catch (IOException e) {
+			// like a PrintWriter, stop writing once the connection is broken
+			fClosed= true;
+		}
+	}
+
+	private boolean writeTestMessage(String msg) throws IOException {
+		int op;
+		if (msg.startsWith(MessageIds.TEST_START))
+			op= TEST_START;
+		else if (msg.startsWith(MessageIds.TEST_END))
+			op= TEST_END;
+		else if (msg.startsWith(MessageIds.TEST_ERROR))
+			op= TEST_ERROR;
+		else if (msg.startsWith(MessageIds.TEST_FAILED))
+			op= TEST_FAILED;
+		else if (msg.startsWith(MessageIds.TEST_TREE))
+			op= TEST_TREE;
+		else
+			return false;
+
+		// format: testId "," testName [ "," isSuite "," testCount ]
+		int start= MessageIds.MSG_HEADER_LENGTH;
+		int c0= msg.indexOf(',', start);
+		if (c0 == -1)
+			return false;
+		int id;
+		try {
+			id= Integer.parseInt(msg.substring(start, c0));
+		} catch (NumberFormatException e) {
+			return false;
+		}
+		if (op != TEST_TREE) {
+			fOut.writeByte(op);
+			writeVarInt(id);
+			writeName(msg.substring(c0 + 1));
+			return true;
+		}
+		int c2= msg.lastIndexOf(',');
+		int c1= msg.lastIndexOf(',', c2 - 1);
+		if (c1 <= c0)
+			return false;
+		int count;
+		try {
+			count= Integer.parseInt(msg.substring(c2 + 1));
+		} catch (NumberFormatException e) {
+			return false;
+		}
+		fOut.writeByte(op);
+		writeVarInt(id);
+		writeName(msg.substring(c0 + 1, c1));
+		fOut.writeBoolean(Boolean.valueOf(msg.substring(c1 + 1, c2)).booleanValue());
+		writeVarInt(count);
+		return true;
+	}
+
+	private void writeName(String name) throws IOException {
+		Integer index= (Integer) fNames.get(name);
+		if (index != null) {
+			writeVarInt(index.intValue() + 1);
+			return;
+		}
+		fNames.put(name, new Integer(fNames.size()));
+		writeVarInt(NEW_NAME);
+		int paren= name.lastIndexOf('(');
+		if (paren == -1 || !name.endsWith(")")) { //$NON-NLS-1$
+			writeString(name);
+			writeVarInt(NO_CLASS);
+			return;
+		}
+		writeString(name.substring(0, paren));
+		String className= name.substring(paren + 1, name.length() - 1);
+		Integer classIndex= (Integer) fClasses.get(className);
+		if (classIndex != null) {
+			writeVarInt(classIndex.intValue() + 2);
+		} else {
+			fClasses.put(className, new Integer(fClasses.size()));
+			writeVarInt(NEW_CLASS);
+			writeString(className);
+		}
+	}
+
+	private void writeString(String s) throws IOException {
+		byte[] bytes= s.getBytes("UTF-8"); //$NON-NLS-1$
+		writeVarInt(bytes.length);
+		fOut.write(bytes);
+	}
+
+	private void writeVarInt(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			fOut.writeByte((value & 0x7F) | 0x80);
+			value>>>= 7;
+		}
+		fOut.writeByte(value);
+	}
+
+	public synchronized void flush() {
+		if (fDirty && System.currentTimeMillis() - fLastFlush >= FLUSH_DELAY)
+			flushNow();
+	}
+
+	private void flushNow() {
+		try {
+			fOut.flush();
+		} catch (IOException e) {
+			fClosed= true;
+		}
+		fDirty= false;
+		fLastFlush= System.currentTimeMillis();
+	}
+
+	/**
+	 * Flushes all buffered messages and closes the stream.
+	 */
+	public synchronized void close() {
+		if (!fClosed)
+			flushNow();
+		fClosed= true;
+		notifyAll();
+		try {
+			fOut.close();
+		} catch (IOException e) {
+		}
+	}
+}
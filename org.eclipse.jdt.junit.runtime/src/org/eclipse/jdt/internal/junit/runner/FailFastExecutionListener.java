@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.runner;
+
+/**
+ * Stops a test execution after a given number of failures and errors.
+ * Assumption failures are not counted.
+ */
+public class FailFastExecutionListener implements IListensToTestExecutions {
+	private final IListensToTestExecutions fListener;
+
+	private final int fMaxFailures;
+
+	private int fFailures;
+
+	private TestExecution fExecution;
+
+	/**
+	 * @param listener the listener to forward all notifications to
+	 * @param maxFailures the number of failures after which the execution is stopped
+	 */
+	public FailFastExecutionListener(IListensToTestExecutions listener, int maxFailures) {
+		fListener= listener;
+		fMaxFailures= maxFailures;
+	}
+
+	/**
+	 * @param execution the execution to stop
+	 */
+	public void setExecution(TestExecution execution) {
+		fExecution= execution;
+	}
+
+	public void notifyTestFailed(TestReferenceFailure failure) {
+		fListener.notifyTestFailed(failure);
+		if (failure.getTest().getName().startsWith(MessageIds.ASSUMPTION_FAILED_TEST_PREFIX))
+			return;
+		boolean stop;
+		synchronized (this) {
+			// every later failure stops too, so that no parallel worker starts another suite
+			stop= ++fFailures >= fMaxFailures;
+		}
+		if (stop && fExecution != null)
+			fExecution.stop();
+	}
+
+	public void notifyTestStarted(ITestIdentifier test) {
+		fListener.notifyTestStarted(test);
+	}
+
+	public void notifyTestEnded(ITestIdentifier test) {
+		fListener.notifyTestEnded(test);
+	}
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Orders the top-level test suites by the history of previous runs.
+ * <p>
+ * Suites that are likely to fail come first, ordered by their failure score. Suites
+ * without history are treated as moderately likely to fail, since new tests often do.
+ * Among suites with the same score, longer running suites come first. Since the worker
+ * threads of a {@link TestExecution} always take the next suite, running the long
+ * suites first balances the total time across the workers.
+ * </p>
+ * <p>
+ * The history file has one line per suite: <code>score&lt;tab&gt;time&lt;tab&gt;name</code>,
+ * where the score is between 0 and 1 and the time is in seconds.
+ * </p>
+ */
+public class FailureHistorySorter {
+
+	/** Failure score assumed for suites without history */
+	private static final double NEW_SUITE_SCORE= 0.5;
+
+	/** Scores below this threshold are treated as "passed last time" */
+	private static final double MIN_SCORE= 0.01;
+
+	private static class History {
+		final double fScore;
+		final double fTime;
+
+		History(double score, double time) {
+			fScore= score;
+			fTime= time;
+		}
+	}
+
+	private final HashMap fHistory= new HashMap();
+
+	/**
+	 * @param historyFile the history file
+	 * @throws IOException if the file cannot be read
+	 */
+	public FailureHistorySorter(File historyFile) throws IOException {
+		BufferedReader br= new BufferedReader(new InputStreamReader(new FileInputStream(historyFile), "UTF-8")); //$NON-NLS-1$
+		try {
+			String line;
+			while ((line= br.readLine()) != null) {
+				int first= line.indexOf('\t');
+				int second= line.indexOf('\t', first + 1);
+				if (first == -1 || second == -1)
+					continue;
+				try {
+					double score= Double.parseDouble(line.substring(0, first));
+					double time= Double.parseDouble(line.substring(first + 1, second));
+					fHistory.put(line.substring(second + 1), new History(score, time));
+				} catch (NumberFormatException e) {
+					// skip malformed line
+				}
+			}
+		} finally {
+			br.close();
+		}
+	}
+
+	/**
+	 * Sorts the given suites in place.
+	 *
+	 * @param suites the top-level suites
+	 */
+	public void sort(ITestReference[] suites) {
+		Arrays.sort(suites, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				History h1= getHistory((ITestReference) o1);
+				History h2= getHistory((ITestReference) o2);
+				double score1= getScore(h1);
+				double score2= getScore(h2);
+				if (score1 != score2)
+					return score1 > score2 ? -1 : 1;
+				double time1= h1 != null ? h1.fTime : 0;
+				double time2= h2 != null ? h2.fTime : 0;
+				if (time1 != time2)
+					return time1 > time2 ? -1 : 1;
+				return 0;
+			}
+		});
+	}
+
+	private History getHistory(ITestReference suite) {
+		if (suite == null)
+			return null;
+		return (History) fHistory.get(suite.getIdentifier().getName());
+	}
+
+	private static double getScore(History history) {
+		if (history == null)
+			return NEW_SUITE_SCORE;
+		return history.fScore < MIN_SCORE ? 0 : history.fScore;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -110,6 +110,17 @@ public class MessageIds {
 	 * isSuite = "true" or "false"
 	 */
 	public static final String TEST_TREE="%TSTTREE"; //$NON-NLS-1$
+	/**
+	 * Announces the protocol of the rest of the session. Sent as the first
+	 * line by a runner that has been started with -binaryprotocol.
+	 * PROTOCOL + BINARY_PROTOCOL_VERSION
+	 * All following messages are encoded by a {@link BinaryMessageWriter}.
+	 */
+	public static final String PROTOCOL=	"%PROTO  "; //$NON-NLS-1$
+	/**
+	 * The version of the binary protocol, see {@link #PROTOCOL}.
+	 */
+	public static final String BINARY_PROTOCOL_VERSION= "binary1"; //$NON-NLS-1$
 	/**
 	 * Request to stop the current test run.
 	 */
@@ -119,6 +130,12 @@ public class MessageIds {
 	 * TEST_RERUN + testId + " " + testClass + " "+testName
 	 */
 	public static final String TEST_RERUN=	">RERUN  "; //$NON-NLS-1$
+	/**
+	 * Request to run test classes again in a runner that has been kept alive.
+	 * The classes are loaded again, so that changes since the last run are picked up.
+	 * TEST_RUN_CLASSES + testClass + " " + testClass ...
+	 */
+	public static final String TEST_RUN_CLASSES=	">RUNCLS "; //$NON-NLS-1$
 
 	/**
 	 * MessageFormat to encode test method identifiers:
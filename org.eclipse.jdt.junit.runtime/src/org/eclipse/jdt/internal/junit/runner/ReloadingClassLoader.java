@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.StringTokenizer;
+import java.util.Vector;
+
+/**
+ * A class loader that loads the classes on the class path of the VM again, so that a
+ * test runner which is kept alive can run the current versions of the test classes.
+ * <p>
+ * Classes of the Java runtime, of JUnit and of the test runner itself are loaded by the
+ * parent class loader. They must be shared with the runner and stay loaded and compiled
+ * across runs. All other classes are loaded by this class loader first.
+ * </p>
+ */
+public class ReloadingClassLoader extends URLClassLoader {
+
+	private static final String[] PARENT_FIRST_PREFIXES= {
+		"java.", //$NON-NLS-1$
+		"javax.", //$NON-NLS-1$
+		"sun.", //$NON-NLS-1$
+		"junit.", //$NON-NLS-1$
+		"org.junit.", //$NON-NLS-1$
+		"org.hamcrest.", //$NON-NLS-1$
+		"org.eclipse.jdt.internal.junit", //$NON-NLS-1$
+	};
+
+	/**
+	 * @param parent the class loader for the shared classes
+	 */
+	public ReloadingClassLoader(ClassLoader parent) {
+		super(getClassPath(), parent);
+	}
+
+	private static URL[] getClassPath() {
+		Vector urls= new Vector();
+		StringTokenizer tokenizer= new StringTokenizer(System.getProperty("java.class.path", ""), File.pathSeparator); //$NON-NLS-1$ //$NON-NLS-2$
+		while (tokenizer.hasMoreTokens()) {
+			try {
+				urls.add(new File(tokenizer.nextToken()).toURL());
+			} catch (MalformedURLException e) {
+				// skip entry
+			}
+		}
+		return (URL[]) urls.toArray(new URL[urls.size()]);
+	}
+
+	protected synchronized Class loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		if (isParentFirst(name))
+			return super.loadClass(name, resolve);
+		Class clazz= findLoadedClass(name);
+		if (clazz == null) {
+			try {
+				clazz= findClass(name);
+			} catch (ClassNotFoundException e) {
+				return super.loadClass(name, resolve);
+			}
+		}
+		if (resolve)
+			resolveClass(clazz);
+		return clazz;
+	}
+
+	private static boolean isParentFirst(String name) {
+		for (int i= 0; i < PARENT_FIRST_PREFIXES.length; i++) {
+			if (name.startsWith(PARENT_FIRST_PREFIXES[i]))
+				return true;
+		}
+		return false;
+	}
+}
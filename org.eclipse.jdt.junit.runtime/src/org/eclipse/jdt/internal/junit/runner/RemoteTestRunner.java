@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,11 +17,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.Socket;
+import java.util.StringTokenizer;
 import java.util.Vector;
 
 import org.eclipse.jdt.internal.junit.runner.junit3.JUnit3TestLoader;
@@ -38,6 +40,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		String fRerunClassName;
 		String fRerunTestName;
 		int fRerunTestId;
+		/**
+		 * The classes to run in a fresh class loader, or <code>null</code> to rerun a single test
+		 */
+		String[] fRunClassNames;
 
 		public RerunRequest(int testId, String className, String testName) {
 			fRerunTestId= testId;
@@ -45,6 +51,11 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			fRerunTestName= testName;
 		}
 
+		public RerunRequest(String[] classNames) {
+			this(-1, null, null);
+			fRunClassNames= classNames;
+		}
+
 	}
 
 	public static final String RERAN_FAILURE = "FAILURE"; //$NON-NLS-1$
@@ -74,6 +85,15 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * Print writer for sending messages
 	 */
 	private PrintWriter fWriter;
+	/**
+	 * Writer for sending messages in the binary protocol, or <code>null</code>
+	 * if the text protocol is used
+	 */
+	private BinaryMessageWriter fBinaryWriter;
+	/**
+	 * Use the binary protocol (argument -binaryprotocol)?
+	 */
+	private boolean fBinaryProtocol= false;
 	/**
 	 * Reader for incoming messages
 	 */
@@ -120,6 +140,29 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 
 	private boolean fConsoleMode = false;
 
+	/**
+	 * The number of threads to run the test classes on (argument -threads)
+	 */
+	private int fThreadCount= 1;
+
+	/**
+	 * Sorts the suites by the failure history of previous runs (argument -testhistory),
+	 * or <code>null</code>
+	 */
+	private FailureHistorySorter fHistorySorter;
+
+	/**
+	 * The number of failures after which the run is stopped (argument -failfast),
+	 * or 0 to run all tests
+	 */
+	private int fMaxFailures= 0;
+
+	/**
+	 * The class loader of the last run requested by {@link MessageIds#TEST_RUN_CLASSES},
+	 * also used for later reruns, or <code>null</code> to use {@link #getTestClassLoader()}
+	 */
+	private ClassLoader fReloadingClassLoader;
+
 	/**
 	 * Reader thread that processes messages from the client.
 	 */
@@ -157,6 +200,19 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 								RemoteTestRunner.this.notifyAll();
 							}
 						}
+
+						else if (message.startsWith(MessageIds.TEST_RUN_CLASSES)) {
+							//format: className className ...
+							StringTokenizer tokenizer= new StringTokenizer(message.substring(MessageIds.MSG_HEADER_LENGTH));
+							String[] classNames= new String[tokenizer.countTokens()];
+							for (int i= 0; i < classNames.length; i++) {
+								classNames[i]= tokenizer.nextToken();
+							}
+							synchronized(RemoteTestRunner.this) {
+								fRerunRequests.add(new RerunRequest(classNames));
+								RemoteTestRunner.this.notifyAll();
+							}
+						}
 					}
 				}
 			} catch (Exception e) {
@@ -182,7 +238,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * -test: the test method name (format classname testname)
 	 * -host: the host to connect to default local host
 	 * -port: the port to connect to, mandatory argument
-	 * -keepalive: keep the process alive after a test run
+	 * -keepalive: keep the process alive after a test run, to rerun tests or
+	 *             to run test classes again, see {@link MessageIds#TEST_RUN_CLASSES}
+	 * -threads: the number of threads to run the test classes on, default is 1
+	 * -binaryprotocol: send the messages in the binary protocol, see {@link BinaryMessageWriter}
      * </pre>
      */
 	public static void main(String[] args) {
@@ -273,6 +332,25 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			else if(args[i].toLowerCase().equals("-keepalive")) { //$NON-NLS-1$
 				fKeepAlive= true;
 			}
+			else if(args[i].toLowerCase().equals("-binaryprotocol")) { //$NON-NLS-1$
+				fBinaryProtocol= true;
+			}
+			else if(args[i].toLowerCase().equals("-threads")) { //$NON-NLS-1$
+				fThreadCount= Math.max(1, Integer.parseInt(args[i+1]));
+				i++;
+			}
+			else if(args[i].toLowerCase().equals("-testhistory")) { //$NON-NLS-1$
+				try {
+					fHistorySorter= new FailureHistorySorter(new File(args[i+1]));
+				} catch (IOException e) {
+					throw new IllegalArgumentException("Cannot read testhistory file."); //$NON-NLS-1$
+				}
+				i++;
+			}
+			else if(args[i].toLowerCase().equals("-failfast")) { //$NON-NLS-1$
+				fMaxFailures= Math.max(0, Integer.parseInt(args[i+1]));
+				i++;
+			}
 			else if(args[i].toLowerCase().equals("-debugging") || args[i].toLowerCase().equals("-debug")){ //$NON-NLS-1$ //$NON-NLS-2$
 			    fDebugMode= true;
 
@@ -377,8 +455,7 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			return;
 		}
 
-		FirstRunExecutionListener listener= firstRunExecutionListener();
-		fExecution= new TestExecution(listener, getClassifier());
+		fExecution= createFirstRunExecution();
 		runTests(fExecution);
 		if (fKeepAlive)
 			waitForReruns();
@@ -387,6 +464,19 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 
 	}
 
+	private TestExecution createFirstRunExecution() {
+		IListensToTestExecutions listener= firstRunExecutionListener();
+		FailFastExecutionListener failFastListener= null;
+		if (fMaxFailures > 0)
+			listener= failFastListener= new FailFastExecutionListener(listener, fMaxFailures);
+		if (fThreadCount > 1)
+			listener= new SynchronizedExecutionListener(listener, fSender);
+		TestExecution execution= new TestExecution(listener, getClassifier());
+		if (failFastListener != null)
+			failFastListener.setExecution(execution);
+		return execution;
+	}
+
 	public FirstRunExecutionListener firstRunExecutionListener() {
 		return new FirstRunExecutionListener(fSender, fIds);
 	}
@@ -400,13 +490,29 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 				wait();
 				if (!fStopped && fRerunRequests.size() > 0) {
 					RerunRequest r= (RerunRequest)fRerunRequests.remove(0);
-					rerunTest(r);
+					if (r.fRunClassNames != null)
+						runTestsInNewClassLoader(r.fRunClassNames);
+					else
+						rerunTest(r);
 				}
 			} catch (InterruptedException e) {
 			}
 		}
 	}
 
+	/**
+	 * Runs the given test classes like the first run, but loads them with a new
+	 * {@link ReloadingClassLoader}. The VM, the JUnit classes and the runner stay loaded,
+	 * so the run starts without the startup costs of a new launch.
+	 *
+	 * @param classNames the names of the test classes
+	 */
+	private void runTestsInNewClassLoader(String[] classNames) {
+		fReloadingClassLoader= new ReloadingClassLoader(getTestClassLoader());
+		fExecution= createFirstRunExecution();
+		runTests(classNames, null, fExecution);
+	}
+
 	public void runFailed(String message, Exception exception) {
 		//TODO: remove System.err.println?
 		System.err.println(message);
@@ -453,10 +559,13 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			return;
 		}
 
+		if (fHistorySorter != null)
+			fHistorySorter.sort(suites);
+
 		sendTrees(suites);
 
 		long testStartTime= System.currentTimeMillis();
-		execution.run(suites);
+		execution.run(suites, fThreadCount);
 		notifyListenersOfTestEnd(execution, testStartTime);
 	}
 
@@ -560,11 +669,17 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		for (int i= 1; i < 20; i++) {
 			try{
 				fClientSocket= new Socket(fHost, fPort);
-				try {
-				    fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream(), "UTF-8")), false/*true*/); //$NON-NLS-1$
-	            } catch (UnsupportedEncodingException e1) {
-	                fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream())), false/*true*/);
-	            }
+				if (fBinaryProtocol) {
+					OutputStream out= fClientSocket.getOutputStream();
+					out.write((MessageIds.PROTOCOL + MessageIds.BINARY_PROTOCOL_VERSION + '\n').getBytes("UTF-8")); //$NON-NLS-1$
+					fBinaryWriter= new BinaryMessageWriter(out);
+				} else {
+					try {
+					    fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream(), "UTF-8")), false/*true*/); //$NON-NLS-1$
+		            } catch (UnsupportedEncodingException e1) {
+		                fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream())), false/*true*/);
+		            }
+				}
 				try {
 				    fReader= new BufferedReader(new InputStreamReader(fClientSocket.getInputStream(), "UTF-8")); //$NON-NLS-1$
                 } catch (UnsupportedEncodingException e1) {
@@ -593,6 +708,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			fWriter.close();
 			fWriter= null;
 		}
+		if (fBinaryWriter != null) {
+			fBinaryWriter.close();
+			fBinaryWriter= null;
+		}
 		try {
 			if (fReaderThread != null)   {
 				// interrupt reader thread so that we don't block on close
@@ -624,6 +743,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * @see org.eclipse.jdt.internal.junit.runner.MessageSender#sendMessage(java.lang.String)
 	 */
 	public void sendMessage(String msg) {
+		if (fBinaryWriter != null) {
+			fBinaryWriter.sendMessage(msg);
+			return;
+		}
 		if(fWriter == null)
 			return;
 		fWriter.println(msg);
@@ -663,7 +786,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	}
 
 	public void flush() {
-	    fWriter.flush();
+		if (fBinaryWriter != null)
+			fBinaryWriter.flush();
+		else
+			fWriter.flush();
 	}
 
 	/*
@@ -682,7 +808,8 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	public Class loadClass(String className, RemoteTestRunner listener) {
 		Class clazz= null;
 		try {
-			clazz= getTestClassLoader().loadClass(className);
+			ClassLoader loader= fReloadingClassLoader != null ? fReloadingClassLoader : getTestClassLoader();
+			clazz= loader.loadClass(className);
 		} catch (ClassNotFoundException e) {
 			listener.runFailed(JUnitMessages.getFormattedString("RemoteTestRunner.error.classnotfound", className), e); //$NON-NLS-1$
 		}
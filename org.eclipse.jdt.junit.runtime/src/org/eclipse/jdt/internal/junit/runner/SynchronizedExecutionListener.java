@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.runner;
+
+/**
+ * Serializes the notifications of tests running on several threads, so that the
+ * messages sent for one notification (e.g. a failure and its trace) are never
+ * interleaved with the messages of another one.
+ */
+public class SynchronizedExecutionListener implements IListensToTestExecutions {
+	private final IListensToTestExecutions fListener;
+
+	private final Object fLock;
+
+	public SynchronizedExecutionListener(IListensToTestExecutions listener, Object lock) {
+		fListener = listener;
+		fLock = lock;
+	}
+
+	public void notifyTestFailed(TestReferenceFailure failure) {
+		synchronized (fLock) {
+			fListener.notifyTestFailed(failure);
+		}
+	}
+
+	public void notifyTestStarted(ITestIdentifier test) {
+		synchronized (fLock) {
+			fListener.notifyTestStarted(test);
+		}
+	}
+
+	public void notifyTestEnded(ITestIdentifier test) {
+		synchronized (fLock) {
+			fListener.notifyTestEnded(test);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,7 +17,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 
 public class TestExecution {
-	private boolean fShouldStop = false;
+	private volatile boolean fShouldStop = false;
 
 	private IListensToTestExecutions fExecutionListener;
 
@@ -39,13 +39,59 @@ public class TestExecution {
 		}
 	}
 
+	/**
+	 * Runs the given suites on up to <code>threadCount</code> threads. Each thread
+	 * takes the next suite that has not been started yet, so that long running
+	 * suites do not hold up the others. The listener of this execution must be
+	 * thread-safe if more than one thread is used.
+	 *
+	 * @param suites the suites to run
+	 * @param threadCount the maximal number of threads
+	 */
+	public void run(final ITestReference[] suites, int threadCount) {
+		if (threadCount <= 1 || suites.length <= 1) {
+			run(suites);
+			return;
+		}
+		final int[] next = { 0 };
+		Thread[] workers = new Thread[Math.min(threadCount, suites.length)];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Thread("TestWorker-" + i) { //$NON-NLS-1$
+				public void run() {
+					while (true) {
+						ITestReference suite;
+						synchronized (next) {
+							if (fShouldStop || next[0] == suites.length)
+								return;
+							suite = suites[next[0]++];
+						}
+						suite.run(TestExecution.this);
+					}
+				}
+			};
+			workers[i].start();
+		}
+		for (int i = 0; i < workers.length; i++) {
+			try {
+				workers[i].join();
+			} catch (InterruptedException e) {
+				stop();
+				i--;
+			}
+		}
+	}
+
 	public boolean shouldStop() {
 		return fShouldStop;
 	}
 
 	public void stop() {
 		fShouldStop = true;
-		for (Iterator iter = fStopListeners.iterator(); iter.hasNext();) {
+		ArrayList stopListeners;
+		synchronized (fStopListeners) {
+			stopListeners = new ArrayList(fStopListeners);
+		}
+		for (Iterator iter = stopListeners.iterator(); iter.hasNext();) {
 			IStopListener listener = (IStopListener) iter.next();
 			listener.stop();
 		}
@@ -60,6 +106,8 @@ public class TestExecution {
 	}
 
 	public void addStopListener(IStopListener listener) {
-		fStopListeners.add(listener);
+		synchronized (fStopListeners) {
+			fStopListeners.add(listener);
+		}
 	}
 }
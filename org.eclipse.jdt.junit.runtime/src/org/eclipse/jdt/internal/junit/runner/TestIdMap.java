@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,7 +20,12 @@ public class TestIdMap {
 
 	private int fNextId= 1;
 
-	public String getTestId(ITestIdentifier identifier) {
+	/*
+	 * Synchronized since tests may run on several threads. The ids of the tests
+	 * in the tree are all assigned before the tests are run, so they don't depend
+	 * on the order in which the tests are executed.
+	 */
+	public synchronized String getTestId(ITestIdentifier identifier) {
 		Object id= fIdMap.get(identifier);
 		if (id != null)
 			return (String) id;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -1298,10 +1298,14 @@ public class TestRunnerViewPart extends ViewPart {
 	}
 
 	/**
-	 * Stops the currently running test and shuts down the RemoteTestRunner
+	 * Runs the test classes again in the RemoteTestRunner if it has been kept alive. Otherwise,
+	 * stops the currently running test, shuts down the RemoteTestRunner and relaunches.
 	 */
 	public void rerunTestRun() {
 		if (lastLaunchIsKeptAlive()) {
+			// run the test classes again in the VM that has been kept alive, no need to relaunch
+			if (fTestRunSession.rerunTestClasses())
+				return;
 			// prompt for terminating the existing run
 			if (MessageDialog.openQuestion(getSite().getShell(), JUnitMessages.TestRunnerViewPart_terminate_title, JUnitMessages.TestRunnerViewPart_terminate_message)) {
 				stopTest(); // TODO: wait for termination
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,10 +19,12 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -35,7 +37,6 @@ import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Menu;
-import org.eclipse.swt.widgets.TableItem;
 
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IMenuListener;
@@ -278,6 +279,21 @@ public class TestViewer {
 	private boolean fTreeNeedsRefresh;
 	private boolean fTableNeedsRefresh;
 	private HashSet<TestElement> fNeedUpdate;
+	/**
+	 * Elements added since the last refresh, grouped by their parent. Parents come before
+	 * their children, since elements are added in pre-order.
+	 */
+	private LinkedHashMap<TestSuiteElement, List<TestElement>> fNeedAdd;
+	/**
+	 * The elements shown in the table while it has a failures or ignored filter, in the order of
+	 * the rows. The items of the virtual table cannot be used to find out whether an element is
+	 * shown, since rows that have not been visible have no data.
+	 */
+	private final ArrayList<TestElement> fTableElements= new ArrayList<TestElement>();
+	/**
+	 * The elements of {@link #fTableElements}, for fast membership checks.
+	 */
+	private final HashSet<TestElement> fTableElementSet= new HashSet<TestElement>();
 	private TestCaseElement fAutoScrollTarget;
 
 	private LinkedList<TestSuiteElement> fAutoClose;
@@ -307,7 +323,8 @@ public class TestViewer {
 		fTreeLabelProvider= new TestSessionLabelProvider(fTestRunnerPart, TestRunnerViewPart.LAYOUT_HIERARCHICAL);
 		fTreeViewer.setLabelProvider(new ColoringLabelProvider(fTreeLabelProvider));
 
-		fTableViewer= new TableViewer(fViewerbook, SWT.V_SCROLL | SWT.H_SCROLL | SWT.SINGLE);
+		// virtual: only the visible rows of the flat layout are realized and labeled
+		fTableViewer= new TableViewer(fViewerbook, SWT.V_SCROLL | SWT.H_SCROLL | SWT.SINGLE | SWT.VIRTUAL);
 		fTableViewer.setUseHashlookup(true);
 		fTableContentProvider= new TestSessionTableContentProvider();
 		fTableViewer.setContentProvider(fTableContentProvider);
@@ -461,15 +478,6 @@ public class TestViewer {
 			boolean switchLayout= layoutMode != fLayoutMode;
 			if (switchLayout) {
 				selection= (IStructuredSelection) fSelectionProvider.getSelection();
-				if (layoutMode == TestRunnerViewPart.LAYOUT_HIERARCHICAL) {
-					if (fTreeNeedsRefresh) {
-						clearUpdateAndExpansion();
-					}
-				} else {
-					if (fTableNeedsRefresh) {
-						clearUpdateAndExpansion();
-					}
-				}
 				fLayoutMode= layoutMode;
 				fViewerbook.showPage(getActiveViewer().getControl());
 			}
@@ -573,6 +581,13 @@ public class TestViewer {
 			fTableNeedsRefresh= needsRefresh;
 	}
 
+	private void setInactiveViewerNeedsRefresh() {
+		if (fLayoutMode == TestRunnerViewPart.LAYOUT_HIERARCHICAL)
+			fTableNeedsRefresh= true;
+		else
+			fTreeNeedsRefresh= true;
+	}
+
 	/**
 	 * To be called periodically by the TestRunnerViewPart (in the UI thread).
 	 */
@@ -584,6 +599,8 @@ public class TestViewer {
 			fTableNeedsRefresh= false;
 			fTreeViewer.setInput(null);
 			fTableViewer.setInput(null);
+			fTableElements.clear();
+			fTableElementSet.clear();
 			return;
 		}
 
@@ -591,16 +608,28 @@ public class TestViewer {
 
 		StructuredViewer viewer= getActiveViewer();
 		if (getActiveViewerNeedsRefresh()) {
-			clearUpdateAndExpansion();
 			setActiveViewerNeedsRefresh(false);
 			viewer.setInput(testRoot);
+			if (viewer == fTableViewer)
+				resetTableElements(testRoot);
+			// clear afterwards: tests that have been registered before setInput() are already shown
+			synchronized (this) {
+				if (! fNeedAdd.isEmpty()) // the pending additions are dropped for the other viewer, too
+					setInactiveViewerNeedsRefresh();
+				clearUpdateAndExpansion();
+			}
 
 		} else {
 			Object[] toUpdate;
+			Map<TestSuiteElement, List<TestElement>> toAdd;
 			synchronized (this) {
 				toUpdate= fNeedUpdate.toArray();
 				fNeedUpdate.clear();
+				toAdd= fNeedAdd;
+				fNeedAdd= new LinkedHashMap<TestSuiteElement, List<TestElement>>();
 			}
+			if (! toAdd.isEmpty())
+				addElementsInUI(toAdd);
 			if (! fTreeNeedsRefresh && toUpdate.length > 0) {
 				if (fTreeHasFailureFilter || fTreeHasIgnoreFilter)
 					for (Object element : toUpdate)
@@ -610,8 +639,8 @@ public class TestViewer {
 					toUpdateWithParents.addAll(Arrays.asList(toUpdate));
 					for (Object element : toUpdate) {
 						TestElement parent= ((TestElement) element).getParent();
-						while (parent != null) {
-							toUpdateWithParents.add(parent);
+						// stop at the first parent that is already scheduled, its ancestors are too
+						while (parent != null && toUpdateWithParents.add(parent)) {
 							parent= parent.getParent();
 						}
 					}
@@ -629,6 +658,46 @@ public class TestViewer {
 		autoScrollInUI();
 	}
 
+	/**
+	 * Adds the given elements to the viewers that are not going to be refreshed anyway.
+	 * The viewers only create items for added elements whose parent is expanded (tree)
+	 * or visible (virtual table), so the cost does not depend on the size of the session.
+	 *
+	 * @param toAdd the added elements, grouped by parent
+	 */
+	private void addElementsInUI(Map<TestSuiteElement, List<TestElement>> toAdd) {
+		ArrayList<TestElement> addedTestCases= new ArrayList<TestElement>();
+		for (Map.Entry<TestSuiteElement, List<TestElement>> entry : toAdd.entrySet()) {
+			List<TestElement> children= entry.getValue();
+			if (! fTreeNeedsRefresh)
+				fTreeViewer.add(entry.getKey(), children.toArray());
+			for (TestElement child : children) {
+				if (child instanceof TestCaseElement)
+					addedTestCases.add(child);
+			}
+		}
+		if (! fTableNeedsRefresh && ! addedTestCases.isEmpty()) {
+			fTableViewer.add(addedTestCases.toArray());
+			if (fTableHasFailureFilter || fTableHasIgnoreFilter) {
+				for (TestElement testCase : addedTestCases) {
+					if (isShownInTable(testCase) && fTableElementSet.add(testCase))
+						fTableElements.add(testCase);
+				}
+			}
+		}
+	}
+
+	private void resetTableElements(TestRoot testRoot) {
+		fTableElements.clear();
+		fTableElementSet.clear();
+		if (fTableHasFailureFilter || fTableHasIgnoreFilter) {
+			for (Object element : fTableContentProvider.getElements(testRoot)) {
+				if (isShownInTable((TestElement) element) && fTableElementSet.add((TestElement) element))
+					fTableElements.add((TestElement) element);
+			}
+		}
+	}
+
 	private void updateElementInTree(final TestElement testElement) {
 		if (isShownInTree(testElement)) {
 			updateShownElementInTree(testElement);
@@ -663,19 +732,21 @@ public class TestViewer {
 
 	private void updateElementInTable(TestElement element) {
 		if (isShownInTable(element)) {
-			if (fTableViewer.testFindItem(element) == null) {
+			if (fTableElementSet.add(element)) {
 				TestElement previous= getNextFailure(element, false);
 				int insertionIndex= -1;
-				if (previous != null) {
-					TableItem item= (TableItem) fTableViewer.testFindItem(previous);
-					if (item != null)
-						insertionIndex= fTableViewer.getTable().indexOf(item);
-				}
+				if (previous != null && fTableElementSet.contains(previous))
+					insertionIndex= fTableElements.lastIndexOf(previous); // usually one of the last rows
 				fTableViewer.insert(element, insertionIndex);
+				if (insertionIndex == -1)
+					fTableElements.add(element);
+				else
+					fTableElements.add(insertionIndex, element);
 			} else  {
 				fTableViewer.update(element, null);
 			}
-		} else {
+		} else if (fTableElementSet.remove(element)) {
+			fTableElements.remove(element);
 			fTableViewer.remove(element);
 		}
 	}
@@ -815,6 +886,7 @@ public class TestViewer {
 
 	private void clearUpdateAndExpansion() {
 		fNeedUpdate= new LinkedHashSet<TestElement>();
+		fNeedAdd= new LinkedHashMap<TestSuiteElement, List<TestElement>>();
 		fAutoClose= new LinkedList<TestSuiteElement>();
 		fAutoExpand= new HashSet<TestSuiteElement>();
 	}
@@ -823,9 +895,13 @@ public class TestViewer {
 	 * @param testElement the added test
 	 */
 	public synchronized void registerTestAdded(TestElement testElement) {
-		//TODO: performance: would only need to refresh parent of added element
-		fTreeNeedsRefresh= true;
-		fTableNeedsRefresh= true;
+		TestSuiteElement parent= testElement.getParent();
+		List<TestElement> added= fNeedAdd.get(parent);
+		if (added == null) {
+			added= new ArrayList<TestElement>();
+			fNeedAdd.put(parent, added);
+		}
+		added.add(testElement);
 	}
 
 	public synchronized void registerViewerUpdate(final TestElement testElement) {
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import java.util.Iterator;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.text.tests.performance.DisplayHelper;
+import org.eclipse.jdt.text.tests.performance.EditorTestHelper;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.source.projection.ProjectionAnnotationModel;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+
+
+/**
+ * Tests that the folding structure of the Java editor follows the edits.
+ */
+public class FoldingTest extends TestCase {
+
+	private static final String SRC= "src";
+	private static final String CU_NAME= "A.java";
+	private static final String CU_CONTENTS= "package p;\n" +
+			"\n" +
+			"public class A {\n" +
+			"	void a() {\n" +
+			"		int i= 0;\n" +
+			"	}\n" +
+			"\n" +
+			"	void b() { }\n" +
+			"}\n";
+
+	private static final long TIMEOUT= 10000;
+
+	public static Test suite() {
+		return new TestSuite(FoldingTest.class);
+	}
+
+	private IJavaProject fProject;
+	private JavaEditor fEditor;
+	private IDocument fDocument;
+	private boolean fWasFoldingEnabled;
+
+	@Override
+	protected void setUp() throws Exception {
+		fWasFoldingEnabled= EditorTestHelper.enableFolding(true);
+		fProject= JavaProjectHelper.createJavaProject(getName(), "bin");
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fProject, SRC);
+		IPackageFragment fragment= root.createPackageFragment("p", true, null);
+		fragment.createCompilationUnit(CU_NAME, CU_CONTENTS, true, new NullProgressMonitor());
+
+		IFile file= ResourcesPlugin.getWorkspace().getRoot().getFile(new Path("/" + getName() + "/" + SRC + "/p/" + CU_NAME));
+		fEditor= (JavaEditor) EditorTestHelper.openInEditor(file, true);
+		fDocument= fEditor.getDocumentProvider().getDocument(fEditor.getEditorInput());
+		assertTrue(EditorTestHelper.joinReconciler(EditorTestHelper.getSourceViewer(fEditor), 0, TIMEOUT, 100));
+		waitForFoldingRegions(1);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		EditorTestHelper.closeEditor(fEditor);
+		fEditor= null;
+		if (fProject != null) {
+			JavaProjectHelper.delete(fProject);
+			fProject= null;
+		}
+		EditorTestHelper.enableFolding(fWasFoldingEnabled);
+	}
+
+	private int getFoldingRegionCount() {
+		ProjectionAnnotationModel model= (ProjectionAnnotationModel) fEditor.getAdapter(ProjectionAnnotationModel.class);
+		int count= 0;
+		for (Iterator<?> iter= model.getAnnotationIterator(); iter.hasNext(); iter.next())
+			count++;
+		return count;
+	}
+
+	private void waitForFoldingRegions(final int count) {
+		boolean found= new DisplayHelper() {
+			@Override
+			protected boolean condition() {
+				return getFoldingRegionCount() == count;
+			}
+		}.waitForCondition(EditorTestHelper.getActiveDisplay(), TIMEOUT);
+		assertTrue("expected " + count + " folding regions, found " + getFoldingRegionCount(), found);
+	}
+
+	public void testTypeJavadoc() throws Exception {
+		fDocument.replace(CU_CONTENTS.indexOf("	void a()"), 0, "	/**\n	 * Doc.\n	 */\n");
+		waitForFoldingRegions(2);
+	}
+
+	public void testTypeComment() throws Exception {
+		fDocument.replace(CU_CONTENTS.indexOf("		int i"), 0, "		/*\n		 * Comment.\n		 */\n");
+		waitForFoldingRegions(2);
+	}
+
+	public void testTypeBody() throws Exception {
+		fDocument.replace(CU_CONTENTS.indexOf("{ }") + 1, 0, "\n		return;\n	");
+		waitForFoldingRegions(2);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 IBM Corporation and others.
+ * Copyright (c) 2009, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -416,6 +416,51 @@ public class JavaAutoIndentStrategyTest extends TestCase implements ILogListener
 		assertEquals(buf.toString(), fDocument.get());
 	}
 
+	public void testSmartIndentAfterNewLineInClosedBlock() {
+		fDocument.setInitialLineDelimiter("\r\n");
+		fDocument.set("class A {\r\n\tvoid foo() {}\r\n}");
+		fDocumentCommand.doit= true;
+		fDocumentCommand.offset= 24;
+		fDocumentCommand.text= "\r\n";
+		performSmartIndentAfterNewLine();
+		String result= fDocument.get();
+		assertEquals(result, 2, result.length() - result.replaceAll("}", "").length());
+	}
+
+	public void testSmartIndentAfterNewLineInUnclosedBlock() {
+		fDocument.setInitialLineDelimiter("\r\n");
+		fDocument.set("class A {\r\n\tvoid foo() {\r\n}");
+		fDocumentCommand.doit= true;
+		fDocumentCommand.offset= 24;
+		fDocumentCommand.text= "\r\n";
+		performSmartIndentAfterNewLine();
+		String result= fDocument.get();
+		assertEquals(result, 2, result.length() - result.replaceAll("}", "").length());
+	}
+
+	public void testPasteLargeBlock() {
+		fDocument.set("public class Test2 {\n}");
+
+		StringBuffer pasted= new StringBuffer("void foo() {\n");
+		StringBuffer result= new StringBuffer("\tvoid foo() {\n");
+		for (int i= 0; i < 1000; i++) {
+			pasted.append("\tbar(" + i + ");\n");
+			result.append("\t\tbar(" + i + ");\n");
+			if (i % 100 == 0) {
+				pasted.append("\n");
+				result.append("\n");
+			}
+		}
+		pasted.append("}\n");
+		result.append("\t}\n");
+
+		fDocumentCommand.doit= true;
+		fDocumentCommand.offset= 21;
+		fDocumentCommand.text= pasted.toString();
+		performPaste();
+		assertEquals(result.toString(), fDocumentCommand.text);
+	}
+
 	/*
 	 * @see junit.framework.TestCase#setUp()
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -28,6 +28,7 @@ import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
 import org.eclipse.jdt.ui.text.IJavaPartitions;
 
 import org.eclipse.jdt.internal.ui.text.FastJavaPartitionScanner;
+import org.eclipse.jdt.internal.ui.text.JavaBracketIndex;
 import org.eclipse.jdt.internal.ui.text.JavaHeuristicScanner;
 import org.eclipse.jdt.internal.ui.text.JavaIndenter;
 
@@ -1105,4 +1106,91 @@ public class JavaHeuristicScannerTest extends TestCase {
 		indent= fScanner.computeIndentation(offset).toString();
 		Assert.assertEquals("\t\t\t", indent);
 	}
+
+	public void testBracketIndex() throws Exception {
+		String s= "class A {\n" +
+				"	/* { ( [ */\n" +
+				"	int[] a= { 1, 2 };\n" +
+				"	void foo(String s) {\n" +
+				"		if (s.equals(\"}\") || s.charAt(0) == ')') {\n" +
+				"			a[(a.length - 1)]= 0; // ]\n" +
+				"		}\n" +
+				"	}}\n" +
+				"}\n" +
+				"	void bar() {\n" +
+				"		foo(\"(\")\n";
+
+		fDocument.set(s);
+		JavaBracketIndex index= new JavaBracketIndex(fDocument);
+
+		char[] openingPeers= { '{', '(', '[' };
+		char[] closingPeers= { '}', ')', ']' };
+		for (int i= 0; i < openingPeers.length; i++) {
+			for (int position= 1; position <= s.length(); position++) {
+				int expected= fHeuristicScanner.findOpeningPeer(position - 1, openingPeers[i], closingPeers[i]);
+				Assert.assertEquals("'" + openingPeers[i] + "' at " + position, expected, index.findOpeningPeer(position, openingPeers[i]));
+			}
+		}
+	}
+
+	public void testIndentationWithBracketIndex() throws Exception {
+		String s= "class A {\n" +
+				"void foo(int a,\n" +
+				"int b) {\n" +
+				"int[] c= {\n" +
+				"1, 2,\n" +
+				"3 };\n" +
+				"if (a > b\n" +
+				"&& b > 0) {\n" +
+				"foo(a, new int[] {\n" +
+				"b });\n" +
+				"} else\n" +
+				"b++;\n" +
+				"switch (a) {\n" +
+				"case 1:\n" +
+				"return;\n" +
+				"}\n" +
+				"}\n" +
+				"}\n";
+
+		fDocument.set(s);
+		JavaIndenter indexed= new JavaIndenter(fDocument, fHeuristicScanner, null, new JavaBracketIndex(fDocument));
+
+		for (int line= 0; line < fDocument.getNumberOfLines(); line++) {
+			int offset= fDocument.getLineOffset(line);
+			StringBuffer expected= fScanner.computeIndentation(offset);
+			StringBuffer actual= indexed.computeIndentation(offset);
+			Assert.assertEquals("line " + line, String.valueOf(expected), String.valueOf(actual));
+		}
+	}
+
+	public void testSnapshot() throws Exception {
+		StringBuffer buffer= new StringBuffer("class A {\n");
+		for (int i= 0; i < 200; i++) {
+			buffer.append("\t/** {@link A} */\n");
+			buffer.append("\tvoid foo" + i + "(int a, String b) {\n");
+			buffer.append("\t\tif (a > 0) { // }\n");
+			buffer.append("\t\t\tb= \"(\" + b + ')';\n");
+			buffer.append("\t\t}\n");
+			buffer.append("\t}\n");
+		}
+		buffer.append("}\n");
+		String s= buffer.toString();
+		fDocument.set(s);
+
+		JavaHeuristicScanner snapshotScanner= new JavaHeuristicScanner(fDocument, true);
+		for (int position= 0; position < s.length(); position += 7) {
+			Assert.assertEquals("previous token at " + position, fHeuristicScanner.previousToken(position, JavaHeuristicScanner.UNBOUND), snapshotScanner.previousToken(position, JavaHeuristicScanner.UNBOUND));
+			Assert.assertEquals("position after previous token at " + position, fHeuristicScanner.getPosition(), snapshotScanner.getPosition());
+			Assert.assertEquals("next token at " + position, fHeuristicScanner.nextToken(position, JavaHeuristicScanner.UNBOUND), snapshotScanner.nextToken(position, JavaHeuristicScanner.UNBOUND));
+			Assert.assertEquals("opening peer at " + position, fHeuristicScanner.findOpeningPeer(position, '{', '}'), snapshotScanner.findOpeningPeer(position, '{', '}'));
+			Assert.assertEquals("closing peer at " + position, fHeuristicScanner.findClosingPeer(position, '(', ')'), snapshotScanner.findClosingPeer(position, '(', ')'));
+		}
+
+		JavaIndenter indenter= new JavaIndenter(fDocument, new JavaHeuristicScanner(fDocument, true));
+		for (int line= 0; line < fDocument.getNumberOfLines(); line += 5) {
+			int offset= fDocument.getLineOffset(line);
+			Assert.assertEquals("line " + line, String.valueOf(fScanner.computeIndentation(offset)), String.valueOf(indenter.computeIndentation(offset)));
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -796,4 +796,50 @@ public class JavaPartitionerTest extends TestCase {
 			assertTrue(false);
 		}
 	}
+
+	public void testIncrementalPartitioning() {
+		try {
+			StringBuffer buffer= new StringBuffer();
+			for (int i= 0; i < 500; i++)
+				buffer.append("/** Doc */\nint x= 'x'; // comment\nString s= \"/*\";\n/*\n * comment\n */\n");
+			fDocument.set(buffer.toString());
+			int middle= fDocument.getLineOffset(fDocument.getNumberOfLines() / 2);
+
+			// open a comment that extends to the end of the document
+			fDocument.replace(middle, 0, "/*");
+			checkIncrementalPartitioning();
+			// type inside of it
+			fDocument.replace(middle + 10, 0, "x");
+			checkIncrementalPartitioning();
+			fDocument.replace(middle + 10, 1, "");
+			checkIncrementalPartitioning();
+			// close it again
+			fDocument.replace(middle + 2, 0, "*/");
+			checkIncrementalPartitioning();
+			fDocument.replace(middle, 4, "");
+			checkIncrementalPartitioning();
+			// open and close a string
+			fDocument.replace(middle, 0, "\"");
+			checkIncrementalPartitioning();
+			fDocument.replace(middle, 1, "");
+			checkIncrementalPartitioning();
+			assertEquals(buffer.toString(), fDocument.get());
+		} catch (BadLocationException x) {
+			assertTrue(false);
+		}
+	}
+
+	private void checkIncrementalPartitioning() {
+		Document expected= new Document(fDocument.get());
+		IDocumentPartitioner partitioner= fTextTools.createDocumentPartitioner();
+		partitioner.connect(expected);
+		expected.setDocumentPartitioner(partitioner);
+		try {
+			checkPartitioning(expected.computePartitioning(0, expected.getLength()), fDocument.computePartitioning(0, fDocument.getLength()));
+		} catch (BadLocationException x) {
+			assertTrue(false);
+		} finally {
+			partitioner.disconnect();
+		}
+	}
 }
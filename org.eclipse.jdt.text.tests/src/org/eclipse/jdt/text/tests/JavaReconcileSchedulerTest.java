@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.internal.ui.text.JavaReconcileScheduler;
+
+
+/**
+ * Tests for the {@link JavaReconcileScheduler}.
+ */
+public class JavaReconcileSchedulerTest extends TestCase {
+
+	private static final long TIMEOUT= 10000;
+
+	public static Test suite() {
+		return new TestSuite(JavaReconcileSchedulerTest.class);
+	}
+
+	private JavaReconcileScheduler fScheduler;
+
+	@Override
+	protected void setUp() throws Exception {
+		fScheduler= new JavaReconcileScheduler(1);
+	}
+
+	private Thread startWaiting(final boolean priority, final List<String> order, final String name) {
+		Thread thread= new Thread(name) {
+			@Override
+			public void run() {
+				if (fScheduler.acquire(priority, null)) {
+					order.add(name);
+					fScheduler.release();
+				}
+			}
+		};
+		thread.start();
+		return thread;
+	}
+
+	private void waitForQueueDepth(int depth) throws InterruptedException {
+		long end= System.currentTimeMillis() + TIMEOUT;
+		while (fScheduler.getQueueDepth() != depth) {
+			assertTrue("timed out", System.currentTimeMillis() < end);
+			Thread.sleep(10);
+		}
+	}
+
+	public void testBoundsConcurrency() throws Exception {
+		assertTrue(fScheduler.acquire(false, null));
+		assertEquals(1, fScheduler.getRunningCount());
+
+		List<String> order= Collections.synchronizedList(new ArrayList<String>());
+		Thread waiting= startWaiting(false, order, "inactive");
+		waitForQueueDepth(1);
+		assertTrue(order.isEmpty());
+
+		fScheduler.release();
+		waiting.join(TIMEOUT);
+		assertEquals(Collections.singletonList("inactive"), order);
+		assertEquals(0, fScheduler.getRunningCount());
+		assertEquals(0, fScheduler.getQueueDepth());
+		assertEquals(1, fScheduler.getMaxQueueDepth());
+		assertEquals(2, fScheduler.getGrantCount());
+	}
+
+	public void testActiveEditorFirst() throws Exception {
+		assertTrue(fScheduler.acquire(false, null));
+
+		List<String> order= Collections.synchronizedList(new ArrayList<String>());
+		Thread first= startWaiting(false, order, "inactive1");
+		waitForQueueDepth(1);
+		Thread second= startWaiting(false, order, "inactive2");
+		waitForQueueDepth(2);
+		Thread active= startWaiting(true, order, "active");
+		waitForQueueDepth(3);
+
+		fScheduler.release();
+		first.join(TIMEOUT);
+		second.join(TIMEOUT);
+		active.join(TIMEOUT);
+		assertEquals("[active, inactive1, inactive2]", order.toString());
+		assertEquals(3, fScheduler.getMaxQueueDepth());
+	}
+
+	public void testCancelWhileWaiting() throws Exception {
+		assertTrue(fScheduler.acquire(false, null));
+
+		NullProgressMonitor monitor= new NullProgressMonitor();
+		monitor.setCanceled(true);
+		assertFalse(fScheduler.acquire(false, monitor));
+		assertEquals(0, fScheduler.getQueueDepth());
+		assertEquals(1, fScheduler.getRunningCount());
+
+		fScheduler.release();
+		assertEquals(0, fScheduler.getRunningCount());
+	}
+}
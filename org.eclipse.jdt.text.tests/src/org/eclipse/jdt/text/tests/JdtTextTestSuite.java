@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -39,11 +39,14 @@ public class JdtTextTestSuite {
 		suite.addTest(JavaColoringTest.suite());
 		suite.addTest(SmartSemicolonAutoEditStrategyTest.suite());
 		suite.addTest(JavaPartitionerTest.suite());
+		suite.addTest(JavaReconcileSchedulerTest.suite());
+		suite.addTest(FoldingTest.suite());
 		suite.addTest(PropertiesFilePartitionerTest.suite());
 		suite.addTest(PropertiesFileAutoEditStrategyTest.suite());
 //		suite.addTest(PartitionTokenScannerTest.suite());
 		suite.addTest(MarkOccurrenceTest.suite());
 		suite.addTest(MarkOccurrenceTest17.suite());
+		suite.addTest(OverrideIndicatorManagerTest.suite());
 		suite.addTest(PluginsNotLoadedTest.suite());
 		PluginsNotLoadedTest.addLoadedPlugIns(
 				new String[] {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011 IBM Corporation and others.
+ * Copyright (c) 2011, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.text.tests;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -25,7 +27,9 @@ import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.SimpleName;
 
 import org.eclipse.jdt.ui.PreferenceConstants;
 import org.eclipse.jdt.ui.tests.core.Java17ProjectTestSetup;
@@ -36,6 +40,7 @@ import org.eclipse.jdt.internal.ui.search.ExceptionOccurrencesFinder;
 import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder;
 import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder.OccurrenceLocation;
 import org.eclipse.jdt.internal.ui.search.MethodExitsFinder;
+import org.eclipse.jdt.internal.ui.search.OccurrencesFinder;
 
 /**
  * Tests the Java Editor's occurrence marking feature.
@@ -519,4 +524,64 @@ public class MarkOccurrenceTest17 extends TestCase {
 		OccurrenceLocation[] ranges= { find(s, "Exception", 2), find(s, "URL", 3) };
 		checkSelection(s, offset, length, ranges);
 	}
+
+	public void testIndexMatchesVisitor() throws Exception {
+		StringBuffer s= new StringBuffer();
+		s.append("import java.util.List;\n");
+		s.append("class E<T> {\n");
+		s.append("   static int COUNT;\n");
+		s.append("   private int fField= 1;\n");
+		s.append("   private List<E<T>> fList;\n");
+		s.append("   E() { this(0); }\n");
+		s.append("   E(int value) { fField= value; COUNT++; }\n");
+		s.append("   int foo(int param) {\n");
+		s.append("      int local= param;\n");
+		s.append("      local += fField;\n");
+		s.append("      this.fField= local--;\n");
+		s.append("      ++E.COUNT;\n");
+		s.append("      E<String> other= new E<String>(local);\n");
+		s.append("      other.fField= other.foo(other.fField);\n");
+		s.append("      fList.add(new E<T>());\n");
+		s.append("      return foo(local) + bar(\"\").length();\n");
+		s.append("   }\n");
+		s.append("   static String bar(String s) { return s; }\n");
+		s.append("   class Inner extends E<T> {\n");
+		s.append("      int foo(int param) { return super.foo(param) + fField; }\n");
+		s.append("   }\n");
+		s.append("}\n");
+		CompilationUnit root= createCompilationUnit(s);
+
+		final List names= new ArrayList();
+		root.accept(new ASTVisitor() {
+			public boolean visit(SimpleName node) {
+				names.add(node);
+				return true;
+			}
+		});
+
+		int writes= 0;
+		for (int i= 0; i < names.size(); i++) {
+			SimpleName name= (SimpleName) names.get(i);
+			OccurrencesFinder finder= new OccurrencesFinder();
+			if (finder.initialize(root, name) != null)
+				continue;
+			OccurrenceLocation[] expected= finder.testGetOccurrencesByVisitor();
+			OccurrenceLocation[] actual= finder.getOccurrences();
+			String message= name.getIdentifier() + " at " + name.getStartPosition();
+			assertNotNull(message, expected);
+			assertNotNull(message, actual);
+			assertEquals(message, expected.length, actual.length);
+			sortByStartIndex(expected);
+			sortByStartIndex(actual);
+			for (int j= 0; j < expected.length; j++) {
+				assertEquals(message, expected[j].getOffset(), actual[j].getOffset());
+				assertEquals(message, expected[j].getLength(), actual[j].getLength());
+				assertEquals(message, expected[j].getFlags(), actual[j].getFlags());
+				assertEquals(message, expected[j].getDescription(), actual[j].getDescription());
+				if ((actual[j].getFlags() & IOccurrencesFinder.F_WRITE_OCCURRENCE) != 0)
+					writes++;
+			}
+		}
+		assertTrue(writes > 0);
+	}
 }
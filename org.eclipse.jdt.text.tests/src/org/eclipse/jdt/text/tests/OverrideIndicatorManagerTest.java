@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.text.tests.Accessor;
+
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.AnnotationModel;
+import org.eclipse.jface.text.source.IAnnotationModel;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
+
+import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
+
+/**
+ * Tests the caching and the annotation updates of the override indicator manager.
+ */
+public class OverrideIndicatorManagerTest extends TestCase {
+
+	private static final String OVERRIDE_INDICATOR_ANNOTATION= "org.eclipse.jdt.ui.overrideIndicator";
+
+	private static final String A=
+			"package p;\n" +
+			"public class A {\n" +
+			"    void m() { }\n" +
+			"}\n";
+
+	private static final String ABSTRACT_A=
+			"package p;\n" +
+			"public abstract class A {\n" +
+			"    abstract void m();\n" +
+			"}\n";
+
+	private static final String B=
+			"package p;\n" +
+			"public class B extends A {\n" +
+			"    void m() { }\n" +
+			"    public String toString() { return null; }\n" +
+			"}\n";
+
+	private IJavaProject fJProject1;
+	private IPackageFragment fPackage;
+	private ICompilationUnit fA;
+	private ICompilationUnit fB;
+	private AnnotationModel fAnnotationModel;
+	private Accessor fManager;
+
+	public OverrideIndicatorManagerTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new ProjectTestSetup(new TestSuite(OverrideIndicatorManagerTest.class));
+	}
+
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		fPackage= JavaProjectHelper.addSourceContainer(fJProject1, "src").createPackageFragment("p", false, null);
+		fA= fPackage.createCompilationUnit("A.java", A, false, null);
+		fB= fPackage.createCompilationUnit("B.java", B, false, null);
+
+		fAnnotationModel= new AnnotationModel();
+		fManager= new Accessor("org.eclipse.jdt.internal.ui.javaeditor.OverrideIndicatorManager", getClass().getClassLoader(),
+				new Class[] { IAnnotationModel.class, ITypeRoot.class, CompilationUnit.class },
+				new Object[] { fAnnotationModel, fB, createAST(fB) });
+	}
+
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private static CompilationUnit createAST(ICompilationUnit cu) {
+		ASTParser parser= ASTParser.newParser(ASTProvider.SHARED_AST_LEVEL);
+		parser.setSource(cu);
+		parser.setResolveBindings(true);
+		return (CompilationUnit) parser.createAST(null);
+	}
+
+	private void reconciled(boolean forced) {
+		fManager.invoke("reconciled", new Class[] { CompilationUnit.class, boolean.class, IProgressMonitor.class },
+				new Object[] { createAST(fB), Boolean.valueOf(forced), new NullProgressMonitor() });
+	}
+
+	private void setContents(ICompilationUnit cu, String contents) throws Exception {
+		cu.getBuffer().setContents(contents);
+		cu.save(null, true);
+	}
+
+	/**
+	 * @return text -> annotation of the override indicators in the annotation model
+	 */
+	private Map getIndicators() {
+		Map result= new HashMap();
+		for (Iterator iter= fAnnotationModel.getAnnotationIterator(); iter.hasNext();) {
+			Annotation annotation= (Annotation) iter.next();
+			if (OVERRIDE_INDICATOR_ANNOTATION.equals(annotation.getType()))
+				assertNull(result.put(annotation.getText(), annotation));
+		}
+		return result;
+	}
+
+	private Object getTypeOverrides(String typeName) throws Exception {
+		Map typeOverrides= (Map) fManager.get("fTypeOverrides");
+		return typeOverrides.get(fPackage.getCompilationUnit(typeName + ".java").getType(typeName).getKey());
+	}
+
+	public void testInitialIndicators() throws Exception {
+		Map indicators= getIndicators();
+		assertEquals(2, indicators.size());
+		assertTrue(indicators.containsKey("overrides p.A.m"));
+		assertTrue(indicators.containsKey("overrides java.lang.Object.toString"));
+	}
+
+	public void testChangedSupertypeIsRecomputed() throws Exception {
+		Object typeOverrides= getTypeOverrides("B");
+		assertNotNull(typeOverrides);
+
+		setContents(fA, ABSTRACT_A);
+		reconciled(false);
+
+		assertNotSame(typeOverrides, getTypeOverrides("B"));
+		Map indicators= getIndicators();
+		assertEquals(2, indicators.size());
+		assertTrue(indicators.containsKey("implements p.A.m"));
+		assertTrue(indicators.containsKey("overrides java.lang.Object.toString"));
+	}
+
+	public void testCacheIsKeptOnReconcile() throws Exception {
+		Object typeOverrides= getTypeOverrides("B");
+		reconciled(false);
+		assertSame(typeOverrides, getTypeOverrides("B"));
+	}
+
+	public void testCacheIsClearedOnForcedReconcile() throws Exception {
+		Object typeOverrides= getTypeOverrides("B");
+		reconciled(true);
+		assertNotNull(getTypeOverrides("B"));
+		assertNotSame(typeOverrides, getTypeOverrides("B"));
+		assertEquals(2, getIndicators().size());
+	}
+
+	public void testUnchangedAnnotationsAreKept() throws Exception {
+		Map before= getIndicators();
+		reconciled(false);
+		Map after= getIndicators();
+		assertEquals(before.size(), after.size());
+		for (Iterator iter= before.keySet().iterator(); iter.hasNext();) {
+			Object text= iter.next();
+			assertSame(before.get(text), after.get(text));
+		}
+	}
+
+	public void testChangedAnnotationsAreReplaced() throws Exception {
+		Map before= getIndicators();
+		Annotation toString= (Annotation) before.get("overrides java.lang.Object.toString");
+
+		setContents(fA, ABSTRACT_A);
+		reconciled(false);
+
+		Map after= getIndicators();
+		assertEquals(2, after.size());
+		assertSame(toString, after.get("overrides java.lang.Object.toString"));
+		assertFalse(after.containsValue(before.get("overrides p.A.m")));
+		assertNotNull(after.get("implements p.A.m"));
+	}
+
+	public void testRemovedMethodLosesAnnotation() throws Exception {
+		Annotation toString= (Annotation) getIndicators().get("overrides java.lang.Object.toString");
+
+		// same length, so that the position of toString() does not change
+		setContents(fB, B.replaceAll("void m\\(\\)", "void k()"));
+		reconciled(false);
+
+		Map after= getIndicators();
+		assertEquals(1, after.size());
+		assertSame(toString, after.get("overrides java.lang.Object.toString"));
+	}
+}
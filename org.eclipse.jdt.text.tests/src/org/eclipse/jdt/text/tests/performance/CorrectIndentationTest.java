@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.jface.action.IAction;
+
+import org.eclipse.ui.texteditor.ITextEditor;
+import org.eclipse.ui.texteditor.ITextEditorActionConstants;
+
+/**
+ * Measures the time to correct the indentation of a large compilation unit.
+ *
+ * @since 3.10
+ */
+public class CorrectIndentationTest extends TextPerformanceTestCase {
+
+	private static final Class THIS= CorrectIndentationTest.class;
+
+	private static final String FILE= PerformanceTestSetup.STYLED_TEXT;
+
+	private static final int WARM_UP_RUNS= 2;
+
+	private static final int MEASURED_RUNS= 3;
+
+	private ITextEditor fEditor;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		fEditor= (ITextEditor) EditorTestHelper.openInEditor(ResourceTestHelper.findFile(FILE), true);
+		runAction(fEditor.getAction(ITextEditorActionConstants.SELECT_ALL));
+		// unindent all lines, so that every line has to be corrected
+		runAction(fEditor.getAction(ITextEditorActionConstants.SHIFT_LEFT));
+		runAction(fEditor.getAction(ITextEditorActionConstants.SHIFT_LEFT));
+		runAction(fEditor.getAction(ITextEditorActionConstants.SELECT_ALL));
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		EditorTestHelper.closeAllEditors();
+	}
+
+	/**
+	 * Measures the time to correct the indentation of all lines of a large compilation unit.
+	 */
+	public void testCorrectIndentation() {
+		measureCorrectIndentation(getNullPerformanceMeter(), getWarmUpRuns());
+		measureCorrectIndentation(createPerformanceMeter(), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measureCorrectIndentation(PerformanceMeter performanceMeter, int runs) {
+		IAction indent= fEditor.getAction("Indent");
+		IAction undo= fEditor.getAction(ITextEditorActionConstants.UNDO);
+		for (int i= 0; i < runs; i++) {
+			performanceMeter.start();
+			runAction(indent);
+			performanceMeter.stop();
+			runAction(undo);
+			runAction(fEditor.getAction(ITextEditorActionConstants.SELECT_ALL));
+		}
+	}
+
+	private void runAction(IAction action) {
+		action.run();
+		EditorTestHelper.runEventQueue();
+	}
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+
+import org.eclipse.jdt.ui.text.IJavaPartitions;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.text.JavaHeuristicScanner;
+import org.eclipse.jdt.internal.ui.text.JavaIndenter;
+
+/**
+ * Measures the time to compute the indentation of every line of a large compilation unit,
+ * as done by the auto indent strategy for each typed new line, with a scanner that reads
+ * the document and with a scanner that reads a snapshot of it.
+ *
+ * @since 3.10
+ */
+public class JavaHeuristicScannerSnapshotTest extends TextPerformanceTestCase {
+
+	private static final Class THIS= JavaHeuristicScannerSnapshotTest.class;
+
+	private static final String FILE= PerformanceTestSetup.STYLED_TEXT;
+
+	private static final int WARM_UP_RUNS= 3;
+
+	private static final int MEASURED_RUNS= 5;
+
+	private IDocument fDocument;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		fDocument= new Document(ResourceTestHelper.read(FILE).toString());
+		JavaPlugin.getDefault().getJavaTextTools().setupJavaDocumentPartitioner(fDocument, IJavaPartitions.JAVA_PARTITIONING);
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		fDocument= null;
+	}
+
+	/**
+	 * Measures the indentation with a scanner that reads the document.
+	 *
+	 * @throws BadLocationException if the document is accessed at an invalid location
+	 */
+	public void testDocumentScanner() throws BadLocationException {
+		measureIndentation(getNullPerformanceMeter(), false, getWarmUpRuns());
+		measureIndentation(createPerformanceMeter(), false, getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	/**
+	 * Measures the indentation with a scanner that reads a snapshot of the document.
+	 *
+	 * @throws BadLocationException if the document is accessed at an invalid location
+	 */
+	public void testSnapshotScanner() throws BadLocationException {
+		measureIndentation(getNullPerformanceMeter(), true, getWarmUpRuns());
+		measureIndentation(createPerformanceMeter(), true, getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measureIndentation(PerformanceMeter performanceMeter, boolean snapshot, int runs) throws BadLocationException {
+		int lines= fDocument.getNumberOfLines();
+		for (int i= 0; i < runs; i++) {
+			performanceMeter.start();
+			for (int line= 0; line < lines; line++) {
+				// a new scanner for every line, like for every document command
+				JavaHeuristicScanner scanner= new JavaHeuristicScanner(fDocument, snapshot);
+				JavaIndenter indenter= new JavaIndenter(fDocument, scanner);
+				indenter.computeIndentation(fDocument.getLineOffset(line));
+			}
+			performanceMeter.stop();
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentPartitioner;
+import org.eclipse.jface.text.rules.FastPartitioner;
+
+import org.eclipse.jdt.ui.text.IJavaPartitions;
+
+import org.eclipse.jdt.internal.ui.text.FastJavaPartitionScanner;
+import org.eclipse.jdt.internal.ui.text.FastJavaPartitioner;
+
+/**
+ * Measures the time to re-partition a large compilation unit while a comment is opened in its
+ * middle, typed into and closed again, with the generic partitioner and with the Java
+ * partitioner that stops re-partitioning at checkpoints.
+ *
+ * @since 3.10
+ */
+public class JavaPartitionerTypingTest extends TextPerformanceTestCase {
+
+	private static final Class THIS= JavaPartitionerTypingTest.class;
+
+	private static final String FILE= PerformanceTestSetup.STYLED_TEXT;
+
+	/** The number of copies of the file in the document */
+	private static final int COPIES= 5;
+
+	private static final String TYPED_TEXT= "Commented out code";
+
+	private static final int WARM_UP_RUNS= 3;
+
+	private static final int MEASURED_RUNS= 5;
+
+	private static final String[] LEGAL_CONTENT_TYPES= new String[] {
+		IJavaPartitions.JAVA_DOC,
+		IJavaPartitions.JAVA_MULTI_LINE_COMMENT,
+		IJavaPartitions.JAVA_SINGLE_LINE_COMMENT,
+		IJavaPartitions.JAVA_STRING,
+		IJavaPartitions.JAVA_CHARACTER
+	};
+
+	private String fContent;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		String content= ResourceTestHelper.read(FILE).toString();
+		StringBuffer buffer= new StringBuffer();
+		for (int i= 0; i < COPIES; i++)
+			buffer.append(content);
+		fContent= buffer.toString();
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		fContent= null;
+	}
+
+	/**
+	 * Measures typing with the generic partitioner.
+	 *
+	 * @throws BadLocationException if the document is accessed at an invalid location
+	 */
+	public void testFastPartitioner() throws BadLocationException {
+		measureTyping(getNullPerformanceMeter(), false, getWarmUpRuns());
+		measureTyping(createPerformanceMeter(), false, getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	/**
+	 * Measures typing with the Java partitioner.
+	 *
+	 * @throws BadLocationException if the document is accessed at an invalid location
+	 */
+	public void testFastJavaPartitioner() throws BadLocationException {
+		measureTyping(getNullPerformanceMeter(), true, getWarmUpRuns());
+		measureTyping(createPerformanceMeter(), true, getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measureTyping(PerformanceMeter performanceMeter, boolean java, int runs) throws BadLocationException {
+		for (int i= 0; i < runs; i++) {
+			IDocument document= new Document(fContent);
+			IDocumentPartitioner partitioner= java ? (IDocumentPartitioner) new FastJavaPartitioner(new FastJavaPartitionScanner(), LEGAL_CONTENT_TYPES) : new FastPartitioner(new FastJavaPartitionScanner(), LEGAL_CONTENT_TYPES);
+			partitioner.connect(document);
+			document.setDocumentPartitioner(partitioner);
+			int offset= document.getLineOffset(document.getNumberOfLines() / 2);
+
+			performanceMeter.start();
+			document.replace(offset, 0, "/");
+			document.replace(offset + 1, 0, "*");
+			int position= offset + 2;
+			for (int j= 0; j < TYPED_TEXT.length(); j++)
+				document.replace(position++, 0, String.valueOf(TYPED_TEXT.charAt(j)));
+			document.replace(position, 0, "*");
+			document.replace(position + 1, 0, "/");
+			performanceMeter.stop();
+
+			partitioner.disconnect();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -28,6 +28,9 @@ public class PerformanceTestSuite extends TestSuite {
 		addTest(RevertTextEditorTest.suite());
 		addTest(RevertJavaEditorTest.suite());
 		addTest(ToggleCommentTest.suite());
+		addTest(CorrectIndentationTest.suite());
+		addTest(JavaHeuristicScannerSnapshotTest.suite());
+		addTest(JavaPartitionerTypingTest.suite());
 		addTest(UndoTextEditorTest.suite());
 		addTest(UndoJavaEditorTest.suite());
 		addTest(OpenQuickOutlineTest.suite());
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+
+import org.eclipse.jdt.internal.corext.refactoring.util.QualifiedNameIndex;
+
+
+public class QualifiedNameIndexTests extends RefactoringTest {
+
+	private static final Class clazz= QualifiedNameIndexTests.class;
+
+	private static final Pattern XML_FILES= Pattern.compile(".*\\.xml");
+
+	private File fStoreFile;
+	private QualifiedNameIndex fIndex;
+
+	public QualifiedNameIndexTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new RefactoringTestSetup(new TestSuite(clazz));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new RefactoringTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		fStoreFile= File.createTempFile("qualifiedNameIndex", ".dat");
+		assertTrue(fStoreFile.delete());
+	}
+
+	protected void tearDown() throws Exception {
+		if (fIndex != null)
+			fIndex.dispose();
+		File[] files= fStoreFile.getParentFile().listFiles();
+		for (int i= 0; i < files.length; i++) {
+			if (files[i].getName().startsWith(fStoreFile.getName()))
+				files[i].delete();
+		}
+		super.tearDown();
+	}
+
+	private IProject getProject() {
+		return getRoot().getJavaProject().getProject();
+	}
+
+	private IFile createFile(String name, String contents) throws Exception {
+		IFile file= getProject().getFile(name);
+		file.create(new ByteArrayInputStream(contents.getBytes()), true, null);
+		return file;
+	}
+
+	private QualifiedNameIndex reload() {
+		if (fIndex != null)
+			fIndex.dispose();
+		fIndex= new QualifiedNameIndex(fStoreFile);
+		return fIndex;
+	}
+
+	private Set findCandidates(String qualifiedName) throws Exception {
+		IFile[] files= fIndex.findCandidates(qualifiedName, new IProject[] { getProject() }, XML_FILES, new NullProgressMonitor());
+		Set result= new HashSet();
+		for (int i= 0; i < files.length; i++)
+			result.add(files[i].getName());
+		return result;
+	}
+
+	private static Set set(String[] names) {
+		Set result= new HashSet();
+		for (int i= 0; i < names.length; i++)
+			result.add(names[i]);
+		return result;
+	}
+
+	public void testFindCandidates() throws Exception {
+		createFile("a.xml", "<bean class=\"p.A.Inner\"/>");
+		createFile("b.xml", "<bean class=\"q.B\"/>");
+		reload();
+
+		assertEquals(set(new String[] { "a.xml" }), findCandidates("p.A"));
+		assertEquals(set(new String[] { "a.xml" }), findCandidates("p.A.Inner"));
+		assertEquals(set(new String[] { "a.xml" }), findCandidates("p"));
+		assertEquals(set(new String[] { "b.xml" }), findCandidates("q.B"));
+		assertEquals(set(new String[0]), findCandidates("p.Ab"));
+		// names that are not dotted identifiers are never looked up in the index
+		assertEquals(set(new String[] { "a.xml", "b.xml" }), findCandidates("p.A-Inner"));
+	}
+
+	public void testChangedFileIsDropped() throws Exception {
+		IFile a= createFile("a.xml", "<bean class=\"p.A\"/>");
+		reload();
+		assertEquals(set(new String[] { "a.xml" }), findCandidates("p.A"));
+		assertTrue(fIndex.testHasEntry(a));
+
+		a.setContents(new ByteArrayInputStream("<bean class=\"q.B\"/>".getBytes()), true, false, null);
+		assertFalse(fIndex.testHasEntry(a));
+		assertEquals(set(new String[0]), findCandidates("p.A"));
+		assertEquals(set(new String[] { "a.xml" }), findCandidates("q.B"));
+	}
+
+	public void testStoreAndLoad() throws Exception {
+		IFile a= createFile("a.xml", "<bean class=\"p.A\"/>");
+		IFile b= createFile("b.xml", "<bean class=\"q.B\"/>");
+		reload();
+		assertEquals(set(new String[] { "a.xml" }), findCandidates("p.A"));
+
+		reload();
+		assertTrue(fIndex.testHasEntry(a));
+		assertTrue(fIndex.testHasEntry(b));
+		assertEquals(set(new String[] { "a.xml" }), findCandidates("p.A"));
+		assertEquals(set(new String[] { "b.xml" }), findCandidates("q.B"));
+
+		// the store file has been replaced, not accompanied by temporary files
+		assertEquals(1, fStoreFile.getParentFile().listFiles(new FilenameFilter() {
+			public boolean accept(File dir, String name) {
+				return name.startsWith(fStoreFile.getName());
+			}
+		}).length);
+	}
+
+	public void testStaleEntry() throws Exception {
+		IFile a= createFile("a.xml", "<bean class=\"p.A\"/>");
+		reload();
+		assertEquals(set(new String[] { "a.xml" }), findCandidates("p.A"));
+		fIndex.dispose();
+		fIndex= null;
+
+		// changed while the index is not listening
+		a.setContents(new ByteArrayInputStream("<bean class=\"q.B\"/>".getBytes()), true, false, null);
+
+		reload();
+		assertTrue(fIndex.testHasEntry(a));
+		assertEquals(set(new String[0]), findCandidates("p.A"));
+		assertEquals(set(new String[] { "a.xml" }), findCandidates("q.B"));
+	}
+
+	public void testCorruptCounts() throws Exception {
+		IFile a= createFile("a.xml", "<bean class=\"p.A\"/>");
+
+		writeStoreFile(-1, null, 0);
+		reload();
+		assertFalse(fIndex.testHasEntry(a));
+
+		writeStoreFile(Integer.MAX_VALUE, null, 0);
+		reload();
+		assertFalse(fIndex.testHasEntry(a));
+
+		writeStoreFile(1, a, -1);
+		reload();
+		assertFalse(fIndex.testHasEntry(a));
+
+		writeStoreFile(1, a, Integer.MAX_VALUE);
+		reload();
+		assertFalse(fIndex.testHasEntry(a));
+		assertEquals(set(new String[] { "a.xml" }), findCandidates("p.A"));
+	}
+
+	public void testTruncatedStoreFile() throws Exception {
+		IFile a= createFile("a.xml", "<bean class=\"p.A\"/>");
+		IFile b= createFile("b.xml", "<bean class=\"q.B\"/>");
+		reload();
+		findCandidates("p.A");
+		fIndex.dispose();
+		fIndex= null;
+
+		RandomAccessFile file= new RandomAccessFile(fStoreFile, "rw");
+		try {
+			file.setLength(file.length() - 3);
+		} finally {
+			file.close();
+		}
+		reload();
+		assertFalse(fIndex.testHasEntry(a));
+		assertFalse(fIndex.testHasEntry(b));
+		assertEquals(set(new String[] { "a.xml" }), findCandidates("p.A"));
+	}
+
+	private void writeStoreFile(int entryCount, IFile file, int tokenCount) throws IOException {
+		if (fIndex != null) {
+			fIndex.dispose();
+			fIndex= null;
+		}
+		DataOutputStream out= new DataOutputStream(new FileOutputStream(fStoreFile));
+		try {
+			out.writeInt(1);
+			out.writeInt(entryCount);
+			if (file != null) {
+				out.writeUTF(file.getFullPath().toString());
+				out.writeLong(file.getModificationStamp());
+				out.writeInt(tokenCount);
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
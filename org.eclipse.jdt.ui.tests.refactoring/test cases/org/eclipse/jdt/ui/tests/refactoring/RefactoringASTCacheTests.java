@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTCache;
+
+import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
+
+
+public class RefactoringASTCacheTests extends RefactoringTest {
+
+	private static final Class clazz= RefactoringASTCacheTests.class;
+
+	private static final String SOURCE_A= "package p;\nclass A {\n	void m() { }\n}\n";
+	private static final String SOURCE_B= "package p;\nclass B extends A {\n	void m() { }\n}\n";
+
+	public RefactoringASTCacheTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new RefactoringTestSetup(new TestSuite(clazz));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new RefactoringTestSetup(test);
+	}
+
+	private static CompilationUnit getAST(RefactoringASTCache cache, ICompilationUnit cu) {
+		return cache.getAST(cu, null, true, false, false, null);
+	}
+
+	public void testHitOnUnchangedSource() throws Exception {
+		ICompilationUnit cu= createCU(getPackageP(), "A.java", SOURCE_A);
+		RefactoringASTCache cache= new RefactoringASTCache(ASTProvider.SHARED_AST_LEVEL);
+
+		CompilationUnit ast= getAST(cache, cu);
+		assertNotNull(ast);
+		assertSame(ast, getAST(cache, cu));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		// other parser settings need another AST
+		CompilationUnit withoutBindings= cache.getAST(cu, null, false, false, false, null);
+		assertNotSame(ast, withoutBindings);
+		assertEquals(2, cache.getMissCount());
+	}
+
+	public void testMissAfterEdit() throws Exception {
+		ICompilationUnit cu= createCU(getPackageP(), "A.java", SOURCE_A);
+		RefactoringASTCache cache= new RefactoringASTCache(ASTProvider.SHARED_AST_LEVEL);
+
+		CompilationUnit ast= getAST(cache, cu);
+		cu.getBuffer().replace(SOURCE_A.indexOf("m()"), 1, "n");
+		cu.save(null, true);
+
+		CompilationUnit edited= getAST(cache, cu);
+		assertNotSame(ast, edited);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertSame(edited, getAST(cache, cu));
+		assertEquals(1, cache.getHitCount());
+	}
+
+	public void testEvictionBySize() throws Exception {
+		ICompilationUnit cuA= createCU(getPackageP(), "A.java", SOURCE_A);
+		ICompilationUnit cuB= createCU(getPackageP(), "B.java", SOURCE_B);
+		// room for one of the ASTs only
+		RefactoringASTCache cache= new RefactoringASTCache(ASTProvider.SHARED_AST_LEVEL, SOURCE_B.length());
+
+		CompilationUnit astA= getAST(cache, cuA);
+		CompilationUnit astB= getAST(cache, cuB);
+		assertEquals(1, cache.getEvictionCount());
+		assertSame(astB, getAST(cache, cuB));
+		assertEquals(1, cache.getHitCount());
+
+		assertNotSame(astA, getAST(cache, cuA));
+		assertEquals(3, cache.getMissCount());
+		assertEquals(2, cache.getEvictionCount());
+	}
+
+	public void testClear() throws Exception {
+		ICompilationUnit cu= createCU(getPackageP(), "A.java", SOURCE_A);
+		RefactoringASTCache cache= new RefactoringASTCache(ASTProvider.SHARED_AST_LEVEL);
+
+		CompilationUnit ast= getAST(cache, cu);
+		cache.clear();
+		assertNotSame(ast, getAST(cache, cu));
+		assertEquals(2, cache.getMissCount());
+	}
+}
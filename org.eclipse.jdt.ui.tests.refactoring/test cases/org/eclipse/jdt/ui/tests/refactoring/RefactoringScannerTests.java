@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -93,6 +93,21 @@ public class RefactoringScannerTests extends RefactoringTest{
 		helper("A.java", 8);
 	}
 
+	public void testNameNotContained() throws Exception{
+		fScanner.scan("/* TestPatter */ class A { String s= \"estPattern\"; }");
+		assertEquals("results.length", 0, fScanner.getMatches().size());
+	}
+
+	public void testScannerReuse() throws Exception{
+		String text= getFileContents(getRefactoringPath() + "A.java");
+		fScanner.scan(text);
+		assertEquals("results.length", 8, fScanner.getMatches().size());
+		fScanner.scan("class B {}");
+		assertEquals("results.length", 0, fScanner.getMatches().size());
+		fScanner.scan(text.toCharArray());
+		assertEquals("results.length", 8, fScanner.getMatches().size());
+	}
+
 	public void testWord1() throws Exception{
 		helper("B.java", 6);
 	}
@@ -1704,4 +1704,20 @@ public class RenameTypeTests extends RefactoringTest {
 		// Test references in annotations and type parameters
 		helper3("Try", "Bla", true, false, true);
 	}
+
+	public void testTextualMatchesInManyUnits() throws Exception {
+		// enough units to have the text matches scanned in parallel on multi-core machines
+		int count= 4 * 50;
+		ICompilationUnit[] cus= new ICompilationUnit[count];
+		IType classA= getType(createCU(getPackageP(), "A.java", "package p;\nclass A {\n}\n"), "A");
+		for (int i= 0; i < count; i++)
+			cus[i]= createCU(getPackageP(), "C" + i + ".java", "package p;\n/* see A */\nclass C" + i + " {\n}\n");
+
+		RenameJavaElementDescriptor descriptor= createRefactoringDescriptor(classA, "B");
+		descriptor.setUpdateTextualOccurrences(true);
+		assertEquals("was supposed to pass", null, performRefactoring(descriptor));
+
+		for (int i= 0; i < count; i++)
+			assertEqualLines("invalid renaming", "package p;\n/* see B */\nclass C" + i + " {\n}\n", cus[i].getSource());
+	}
 }
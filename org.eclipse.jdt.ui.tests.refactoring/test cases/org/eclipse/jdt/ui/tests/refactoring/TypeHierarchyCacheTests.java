@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+
+import org.eclipse.jdt.internal.corext.refactoring.rename.MethodChecks;
+import org.eclipse.jdt.internal.corext.refactoring.util.TypeHierarchyCache;
+
+
+public class TypeHierarchyCacheTests extends RefactoringTest {
+
+	private static final Class clazz= TypeHierarchyCacheTests.class;
+
+	private static final String CU_CONTENTS= "package p;\n" +
+			"class A {\n" +
+			"	public void m() { }\n" +
+			"}\n" +
+			"class B extends A {\n" +
+			"}\n" +
+			"class C extends A implements J {\n" +
+			"}\n" +
+			"interface J extends I {\n" +
+			"}\n" +
+			"interface I {\n" +
+			"	void m();\n" +
+			"}\n";
+
+	private IType fTypeA;
+	private IType fTypeC;
+
+	public TypeHierarchyCacheTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new RefactoringTestSetup(new TestSuite(clazz));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new RefactoringTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		ICompilationUnit cu= createCU(getPackageP(), "A.java", CU_CONTENTS);
+		fTypeA= cu.getType("A");
+		fTypeC= cu.getType("C");
+	}
+
+	public void testFullHierarchyIsCached() throws Exception {
+		TypeHierarchyCache cache= new TypeHierarchyCache(null);
+		ITypeHierarchy hierarchy= cache.getTypeHierarchy(fTypeA, new NullProgressMonitor());
+		assertSame(hierarchy, cache.getTypeHierarchy(fTypeA, new NullProgressMonitor()));
+		assertSame(hierarchy, cache.getSupertypeHierarchy(fTypeA, new NullProgressMonitor()));
+		assertEquals(1, cache.getMissCount());
+		assertEquals(2, cache.getHitCount());
+	}
+
+	public void testSubtypesFromSharedHierarchy() throws Exception {
+		TypeHierarchyCache cache= new TypeHierarchyCache(null);
+		ITypeHierarchy hierarchy= cache.getTypeHierarchy(fTypeA, new NullProgressMonitor());
+		assertSame(hierarchy, cache.getHierarchyContaining(fTypeC, new NullProgressMonitor()));
+		assertEquals(0, cache.getAllSubtypes(fTypeC, new NullProgressMonitor()).length);
+		assertEquals(1, cache.getMissCount());
+	}
+
+	public void testIndirectInterfaceOfSiblingSubtype() throws Exception {
+		TypeHierarchyCache cache= new TypeHierarchyCache(null);
+		cache.getTypeHierarchy(fTypeA, new NullProgressMonitor());
+
+		ITypeHierarchy supertypes= cache.getSupertypeHierarchy(fTypeC, new NullProgressMonitor());
+		assertEquals(fTypeC, supertypes.getType());
+
+		List interfaces= Arrays.asList(cache.getAllSuperInterfaces(fTypeC, new NullProgressMonitor()));
+		assertEquals(2, interfaces.size());
+		assertTrue(interfaces.contains(getType(fTypeA, "J")));
+		assertTrue(interfaces.contains(getType(fTypeA, "I")));
+	}
+
+	public void testDeclaredInInterfaceOfSiblingSubtype() throws Exception {
+		TypeHierarchyCache cache= new TypeHierarchyCache(null);
+		IMethod method= fTypeA.getMethod("m", new String[0]);
+		ITypeHierarchy hierarchy= cache.getTypeHierarchy(fTypeA, new NullProgressMonitor());
+
+		IMethod expected= getType(fTypeA, "I").getMethod("m", new String[0]);
+		assertEquals(expected, MethodChecks.isDeclaredInInterface(method, hierarchy, cache, new NullProgressMonitor()));
+		assertEquals(expected, MethodChecks.getTopmostMethod(method, hierarchy, cache, new NullProgressMonitor()));
+	}
+
+	private static IType getType(IType sibling, String name) {
+		return sibling.getCompilationUnit().getType(name);
+	}
+}
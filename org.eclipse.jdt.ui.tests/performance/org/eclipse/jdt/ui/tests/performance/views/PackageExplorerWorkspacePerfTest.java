@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,20 +11,34 @@
 
 package org.eclipse.jdt.ui.tests.performance.views;
 
+import java.io.ByteArrayInputStream;
+
 import junit.extensions.TestSetup;
 import junit.framework.Test;
 
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
 import org.eclipse.test.OrderedTestSuite;
 
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
 import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.tests.performance.JdtPerformanceTestCase;
 
+import org.eclipse.jdt.internal.ui.packageview.PackageExplorerPart;
+
 public class PackageExplorerWorkspacePerfTest extends JdtPerformanceTestCase {
 
 	private static class MyTestSetup extends TestSetup {
@@ -54,7 +68,7 @@ public class PackageExplorerWorkspacePerfTest extends JdtPerformanceTestCase {
 
 	public static Test suite() {
 		OrderedTestSuite suite= new OrderedTestSuite(PackageExplorerWorkspacePerfTest.class, new String[] {
-			"testOpen"
+			"testOpen", "testRefreshManyChanges"
 		});
 		return new MyTestSetup(suite);
 	}
@@ -77,4 +91,56 @@ public class PackageExplorerWorkspacePerfTest extends JdtPerformanceTestCase {
 		page.showView(JavaUI.ID_PACKAGES);
 		finishMeasurements();
 	}
+
+	/*
+	 * Changes and adds many files in one operation, like a checkout of another branch does,
+	 * and measures until the Package Explorer has processed the deltas.
+	 */
+	public void testRefreshManyChanges() throws Exception {
+		final int packages= 20;
+		final int filesPerPackage= 100;
+		IJavaProject project= JavaProjectHelper.createJavaProject("Checkout", "bin");
+		try {
+			IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(project, "src");
+			final IFolder src= (IFolder) root.getResource();
+			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+				public void run(IProgressMonitor monitor) throws CoreException {
+					for (int i= 0; i < packages; i++) {
+						IFolder folder= src.getFolder("p" + i);
+						folder.create(true, true, null);
+						for (int j= 0; j < filesPerPackage; j++)
+							folder.getFile("A" + j + ".java").create(getContents(i, j, ""), true, null);
+					}
+				}
+			}, null);
+
+			PackageExplorerPart view= (PackageExplorerPart) PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage().showView(JavaUI.ID_PACKAGES);
+			view.getTreeViewer().expandToLevel(project, 3);
+			view.selectAndReveal(project); // runs pending updates
+			joinBackgroudActivities();
+
+			startMeasuring();
+			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+				public void run(IProgressMonitor monitor) throws CoreException {
+					for (int i= 0; i < packages; i++) {
+						IFolder folder= src.getFolder("p" + i);
+						for (int j= 0; j < filesPerPackage; j++) {
+							IFile file= folder.getFile("A" + j + ".java");
+							file.setContents(getContents(i, j, "int f;"), true, false, null);
+						}
+						folder.getFile("B.java").create(getContents(i, -1, ""), true, null);
+					}
+				}
+			}, null);
+			view.selectAndReveal(project); // runs pending updates
+			finishMeasurements();
+		} finally {
+			JavaProjectHelper.delete(project);
+		}
+	}
+
+	private static ByteArrayInputStream getContents(int pack, int type, String body) {
+		String typeName= type < 0 ? "B" : "A" + type;
+		return new ByteArrayInputStream(("package p" + pack + ";\npublic class " + typeName + " {" + body + "}\n").getBytes());
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -98,6 +98,10 @@ public class AbstractTestRunListenerTest extends TestCase {
 		}
 	}
 
+	protected static ILaunchConfigurationWorkingCopy createLaunchConfiguration(IJavaElement element) throws CoreException {
+		return TestJUnitLaunchShortcut.createConfiguration(element);
+	}
+
 	protected IType createType(String source, String packageName, String typeName) throws CoreException, JavaModelException {
 		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fProject, "src");
 		IPackageFragment pack= root.createPackageFragment(packageName, true, null);
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.junit.tests.AbstractTestRunListenerTest.TestRunLog;
+
+import org.eclipse.jdt.internal.junit.model.ITestRunListener2;
+import org.eclipse.jdt.internal.junit.model.RemoteTestRunnerClient;
+import org.eclipse.jdt.internal.junit.runner.BinaryMessageWriter;
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
+import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
+
+/**
+ * Sends the messages of a test run with a {@link BinaryMessageWriter} and checks that the
+ * {@link RemoteTestRunnerClient} decodes them like the messages of the text protocol.
+ */
+public class BinaryProtocolTest extends TestCase {
+
+	private static final String LINE_SEPARATOR= System.getProperty("line.separator");
+
+	private static final String CLASS= "pack.Kl\u00e4ss\u20ac";
+	private static final String TEST= "test\u00c4(" + CLASS + ")";
+	private static final String TEST_WITH_COMMA= "test,comma(" + CLASS + ")";
+	private static final String EXPECTED= "expected" + "\n" + "line";
+	private static final String ACTUAL= "actual \u00fc";
+	private static final String TRACE= "junit.framework.ComparisonFailure: \u00fc\n\tat " + CLASS + ".test\u00c4(Kl\u00e4ss\u20ac.java:5)";
+	private static final String ERROR_TRACE= "java.lang.NullPointerException\r\n\tat " + CLASS + ".test(Kl\u00e4ss\u20ac.java:9)";
+	private static final String RERUN_TRACE= "junit.framework.AssertionFailedError\n\tat " + CLASS + ".test\u00c4(Kl\u00e4ss\u20ac.java:5)";
+
+	/** The messages of a test run that uses every message ID */
+	private static final String[] MESSAGES= {
+		MessageIds.TEST_RUN_START + "2 v2",
+		MessageIds.TEST_TREE + "1," + CLASS + ",true,2",
+		MessageIds.TEST_TREE + "2," + TEST + ",false,1",
+		MessageIds.TEST_TREE + "3,test\\,comma(" + CLASS + "),false,1",
+		MessageIds.TEST_START + "2," + TEST,
+		MessageIds.TEST_FAILED + "2," + TEST,
+		MessageIds.EXPECTED_START,
+		EXPECTED,
+		MessageIds.EXPECTED_END,
+		MessageIds.ACTUAL_START,
+		ACTUAL,
+		MessageIds.ACTUAL_END,
+		MessageIds.TRACE_START,
+		TRACE,
+		MessageIds.TRACE_END,
+		MessageIds.TEST_END + "2," + TEST,
+		MessageIds.TEST_START + "3," + TEST_WITH_COMMA,
+		MessageIds.TEST_ERROR + "3," + TEST_WITH_COMMA,
+		MessageIds.TRACE_START,
+		ERROR_TRACE,
+		MessageIds.TRACE_END,
+		MessageIds.TEST_END + "3," + TEST_WITH_COMMA,
+		MessageIds.TEST_RUN_END + "1234",
+		MessageIds.RTRACE_START,
+		RERUN_TRACE,
+		MessageIds.RTRACE_END,
+		MessageIds.TEST_RERAN + "2 " + CLASS + " test\u00c4 " + RemoteTestRunner.RERAN_FAILURE,
+		MessageIds.TEST_STOPPED + "5678",
+	};
+
+	private static final String[] EXPECTED_LOG= {
+		"runStarted 2",
+		"treeEntry 1," + CLASS + ",true,2",
+		"treeEntry 2," + TEST + ",false,1",
+		"treeEntry 3,test\\,comma(" + CLASS + "),false,1",
+		"started 2 " + TEST,
+		"failed " + ITestRunListener2.STATUS_FAILURE + " 2 " + TEST + " trace=" + TRACE + LINE_SEPARATOR + " expected=" + EXPECTED + " actual=" + ACTUAL,
+		"ended 2 " + TEST,
+		"started 3 " + TEST_WITH_COMMA,
+		"failed " + ITestRunListener2.STATUS_ERROR + " 3 " + TEST_WITH_COMMA + " trace=" + ERROR_TRACE + LINE_SEPARATOR + " expected=null actual=null",
+		"ended 3 " + TEST_WITH_COMMA,
+		"runEnded 1234",
+		"reran 2 " + CLASS + " test\u00c4 " + ITestRunListener2.STATUS_FAILURE + " trace=" + RERUN_TRACE + LINE_SEPARATOR + " expected=null actual=null",
+		"runStopped 5678",
+	};
+
+	private static class LoggingListener implements ITestRunListener2 {
+		private final TestRunLog fLog;
+
+		public LoggingListener(TestRunLog log) {
+			fLog= log;
+		}
+
+		public void testRunStarted(int testCount) {
+			fLog.add("runStarted " + testCount);
+		}
+
+		public void testRunEnded(long elapsedTime) {
+			fLog.add("runEnded " + elapsedTime);
+		}
+
+		public void testRunStopped(long elapsedTime) {
+			fLog.add("runStopped " + elapsedTime);
+			fLog.setDone();
+		}
+
+		public void testStarted(String testId, String testName) {
+			fLog.add("started " + testId + " " + testName);
+		}
+
+		public void testEnded(String testId, String testName) {
+			fLog.add("ended " + testId + " " + testName);
+		}
+
+		public void testRunTerminated() {
+			fLog.add("terminated");
+			fLog.setDone();
+		}
+
+		public void testTreeEntry(String description) {
+			fLog.add("treeEntry " + description);
+		}
+
+		public void testFailed(int status, String testId, String testName, String trace, String expected, String actual) {
+			fLog.add("failed " + status + " " + testId + " " + testName + " trace=" + trace + " expected=" + expected + " actual=" + actual);
+		}
+
+		public void testReran(String testId, String testClass, String testName, int status, String trace, String expected, String actual) {
+			fLog.add("reran " + testId + " " + testClass + " " + testName + " " + status + " trace=" + trace + " expected=" + expected + " actual=" + actual);
+		}
+	}
+
+	public void testBinaryProtocol() throws Exception {
+		AbstractTestRunListenerTest.assertEqualLog(EXPECTED_LOG, receive(true));
+	}
+
+	public void testTextProtocol() throws Exception {
+		AbstractTestRunListenerTest.assertEqualLog(EXPECTED_LOG, receive(false));
+	}
+
+	public void testNamesAreInterned() throws Exception {
+		// the second message refers to the name and the class of the first one
+		int first= getEncodedLength(new String[] { MessageIds.TEST_START + "2," + TEST });
+		int both= getEncodedLength(new String[] { MessageIds.TEST_START + "2," + TEST, MessageIds.TEST_END + "2," + TEST });
+		assertEquals(3, both - first);
+
+		int otherMethod= getEncodedLength(new String[] { MessageIds.TEST_START + "2," + TEST, MessageIds.TEST_END + "3,testOther(" + CLASS + ")" });
+		assertEquals(3 + 1 + "testOther".length() + 1, otherMethod - first);
+	}
+
+	private static int getEncodedLength(String[] messages) {
+		final int[] length= new int[1];
+		BinaryMessageWriter writer= new BinaryMessageWriter(new OutputStream() {
+			public void write(int b) {
+				length[0]++;
+			}
+		});
+		for (int i= 0; i < messages.length; i++)
+			writer.sendMessage(messages[i]);
+		writer.close();
+		return length[0];
+	}
+
+	/**
+	 * Sends {@link #MESSAGES} to a {@link RemoteTestRunnerClient} and returns the
+	 * notifications of its listener.
+	 *
+	 * @param binary <code>true</code> to use the binary protocol, <code>false</code> to
+	 *            use the text protocol
+	 * @return the log of the listener
+	 * @throws Exception if the messages cannot be sent
+	 */
+	private String[] receive(boolean binary) throws Exception {
+		int port= findFreePort();
+		TestRunLog log= new TestRunLog();
+		RemoteTestRunnerClient client= new RemoteTestRunnerClient();
+		client.startListening(new ITestRunListener2[] { new LoggingListener(log) }, port);
+		try {
+			Socket socket= connect(port);
+			OutputStream out= socket.getOutputStream();
+			if (binary) {
+				out.write((MessageIds.PROTOCOL + MessageIds.BINARY_PROTOCOL_VERSION + '\n').getBytes("UTF-8"));
+				BinaryMessageWriter writer= new BinaryMessageWriter(out);
+				for (int i= 0; i < MESSAGES.length; i++)
+					writer.sendMessage(MESSAGES[i]);
+				writer.close();
+			} else {
+				PrintWriter writer= new PrintWriter(new OutputStreamWriter(out, "UTF-8"));
+				for (int i= 0; i < MESSAGES.length; i++)
+					writer.println(MESSAGES[i]);
+				writer.close();
+			}
+
+			long end= System.currentTimeMillis() + 10 * 1000;
+			while (!log.isDone() && System.currentTimeMillis() < end)
+				Thread.sleep(50);
+			assertTrue("test run has not been stopped", log.isDone());
+			return log.getLog();
+		} finally {
+			client.stopWaiting();
+		}
+	}
+
+	private static int findFreePort() throws IOException {
+		ServerSocket socket= new ServerSocket(0);
+		try {
+			return socket.getLocalPort();
+		} finally {
+			socket.close();
+		}
+	}
+
+	private static Socket connect(int port) throws Exception {
+		// the client opens its server socket in a separate thread
+		for (int i= 0; i < 100; i++) {
+			try {
+				return new Socket("localhost", port);
+			} catch (IOException e) {
+				Thread.sleep(50);
+			}
+		}
+		fail("cannot connect to port " + port);
+		return null;
+	}
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.internal.junit.runner.FailFastExecutionListener;
+import org.eclipse.jdt.internal.junit.runner.IListensToTestExecutions;
+import org.eclipse.jdt.internal.junit.runner.ITestIdentifier;
+import org.eclipse.jdt.internal.junit.runner.ITestReference;
+import org.eclipse.jdt.internal.junit.runner.IVisitsTestTrees;
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
+import org.eclipse.jdt.internal.junit.runner.TestExecution;
+import org.eclipse.jdt.internal.junit.runner.TestReferenceFailure;
+
+/**
+ * Tests that a {@link FailFastExecutionListener} stops the {@link TestExecution} after the
+ * given number of failures.
+ */
+public class FailFastExecutionListenerTest extends TestCase {
+
+	private static class LoggingListener implements IListensToTestExecutions {
+		private final List/*<String>*/ fLog= new ArrayList();
+
+		public synchronized void notifyTestFailed(TestReferenceFailure failure) {
+			fLog.add("failed " + failure.getTest().getName());
+		}
+
+		public synchronized void notifyTestStarted(ITestIdentifier test) {
+			fLog.add("started " + test.getName());
+		}
+
+		public synchronized void notifyTestEnded(ITestIdentifier test) {
+			fLog.add("ended " + test.getName());
+		}
+
+		public synchronized String[] getLog() {
+			return (String[]) fLog.toArray(new String[fLog.size()]);
+		}
+	}
+
+	/**
+	 * A suite with a single test, which passes or fails.
+	 */
+	private static class Suite implements ITestReference, ITestIdentifier {
+		private final String fName;
+		private final boolean fFails;
+
+		public Suite(String name, boolean fails) {
+			fName= name;
+			fFails= fails;
+		}
+
+		public String getName() {
+			return fName;
+		}
+
+		public ITestIdentifier getIdentifier() {
+			return this;
+		}
+
+		public int countTestCases() {
+			return 1;
+		}
+
+		public void sendTree(IVisitsTestTrees notified) {
+		}
+
+		public void run(TestExecution execution) {
+			IListensToTestExecutions listener= execution.getListener();
+			listener.notifyTestStarted(this);
+			if (fFails)
+				listener.notifyTestFailed(new TestReferenceFailure((ITestIdentifier) this, MessageIds.TEST_FAILED, "trace"));
+			listener.notifyTestEnded(this);
+		}
+	}
+
+	private static String[] run(ITestReference[] suites, int maxFailures, int threadCount) {
+		LoggingListener log= new LoggingListener();
+		FailFastExecutionListener listener= new FailFastExecutionListener(log, maxFailures);
+		TestExecution execution= new TestExecution(listener, null);
+		listener.setExecution(execution);
+		execution.run(suites, threadCount);
+		return log.getLog();
+	}
+
+	public void testStopAfterFirstFailure() throws Exception {
+		ITestReference[] suites= {
+				new Suite("passed", false),
+				new Suite("failed1", true),
+				new Suite("failed2", true),
+				new Suite("passed2", false),
+		};
+		String[] expected= {
+				"started passed",
+				"ended passed",
+				"started failed1",
+				"failed failed1",
+				"ended failed1",
+		};
+		AbstractTestRunListenerTest.assertEqualLog(expected, run(suites, 1, 1));
+	}
+
+	public void testAssumptionFailuresAreNotCounted() throws Exception {
+		String assumption= MessageIds.ASSUMPTION_FAILED_TEST_PREFIX + "assumption";
+		ITestReference[] suites= {
+				new Suite("failed1", true),
+				new Suite(assumption, true),
+				new Suite("failed2", true),
+				new Suite("failed3", true),
+		};
+		String[] expected= {
+				"started failed1",
+				"failed failed1",
+				"ended failed1",
+				"started " + assumption,
+				"failed " + assumption,
+				"ended " + assumption,
+				"started failed2",
+				"failed failed2",
+				"ended failed2",
+		};
+		AbstractTestRunListenerTest.assertEqualLog(expected, run(suites, 2, 1));
+	}
+
+	public void testStopParallelRun() throws Exception {
+		int count= 100;
+		ITestReference[] suites= new ITestReference[count];
+		for (int i= 0; i < count; i++)
+			suites[i]= new Suite("failed" + i, true);
+
+		// each of the two workers runs at most one suite
+		String[] log= run(suites, 1, 2);
+		assertTrue(log.length == 3 || log.length == 2 * 3);
+	}
+}
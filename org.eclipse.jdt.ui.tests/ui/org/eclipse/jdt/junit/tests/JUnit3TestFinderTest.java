@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,6 +22,7 @@ import org.eclipse.jdt.testplugin.StringAsserts;
 import org.eclipse.core.runtime.CoreException;
 
 import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
@@ -370,6 +371,48 @@ public class JUnit3TestFinderTest extends TestCase {
 	}
 
 
+	public void testContainerChanges() throws Exception {
+		IPackageFragment p= fRoot.createPackageFragment("p", true, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("import junit.framework.TestCase;\n");
+		buf.append("\n");
+		buf.append("public class MyTest extends TestCase {\n");
+		buf.append("        public void testFoo() {\n");
+		buf.append("        }\n");
+		buf.append("}\n");
+		p.createCompilationUnit("MyTest.java", buf.toString(), false, null);
+
+		assertTestFound(p, new String[] { "p.MyTest" });
+		assertTestFound(fProject, new String[] { "p.MyTest" });
+
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("\n");
+		buf.append("public class MyOtherTest extends MyTest {\n");
+		buf.append("}\n");
+		ICompilationUnit other= p.createCompilationUnit("MyOtherTest.java", buf.toString(), false, null);
+
+		// found tests are cached per container and must be updated on changes
+		assertTestFound(p, new String[] { "p.MyTest", "p.MyOtherTest" });
+		assertTestFound(fProject, new String[] { "p.MyTest", "p.MyOtherTest" });
+
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("\n");
+		buf.append("public abstract class MyOtherTest extends MyTest {\n");
+		buf.append("}\n");
+		other.getBuffer().setContents(buf.toString());
+		other.save(null, true);
+
+		assertTestFound(p, new String[] { "p.MyTest" });
+
+		other.delete(true, null);
+		p.getCompilationUnit("MyTest.java").delete(true, null);
+
+		assertTestFound(p, new String[0]);
+		assertTestFound(fProject, new String[0]);
+	}
 
 	private void assertTestFound(IJavaElement container, String[] expectedValidTests) throws CoreException {
 		ITestKind testKind= TestKindRegistry.getContainerTestKind(container);
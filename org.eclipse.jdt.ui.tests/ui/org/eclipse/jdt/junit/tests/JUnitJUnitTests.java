@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2010 IBM Corporation and others.
+ * Copyright (c) 2005, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -31,6 +31,11 @@ public class JUnitJUnitTests {
 		addDeprecatedTests(suite);
 
 		suite.addTestSuite(TestRunListenerTest.class);
+		suite.addTestSuite(TestRerunKeptAlive.class);
+		suite.addTestSuite(BinaryProtocolTest.class);
+		suite.addTestSuite(TestHistoryTest.class);
+		suite.addTestSuite(FailFastExecutionListenerTest.class);
+		suite.addTestSuite(TestRunInThreads.class);
 
 		suite.addTest(TestRunSessionSerializationTests3.suite());
 		suite.addTest(TestRunSessionSerializationTests4.suite());
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.internal.junit.model.TestHistory;
+import org.eclipse.jdt.internal.junit.runner.FailureHistorySorter;
+import org.eclipse.jdt.internal.junit.runner.ITestIdentifier;
+import org.eclipse.jdt.internal.junit.runner.ITestReference;
+import org.eclipse.jdt.internal.junit.runner.IVisitsTestTrees;
+import org.eclipse.jdt.internal.junit.runner.TestExecution;
+
+/**
+ * Tests the {@link TestHistory} of the JUnit view and the {@link FailureHistorySorter} that
+ * reads it in the test runner.
+ */
+public class TestHistoryTest extends TestCase {
+
+	private static final double DELTA= 1e-9;
+
+	private File fDir;
+	private File fFile;
+
+	private static class Suite implements ITestReference, ITestIdentifier {
+		private final String fName;
+
+		public Suite(String name) {
+			fName= name;
+		}
+
+		public String getName() {
+			return fName;
+		}
+
+		public ITestIdentifier getIdentifier() {
+			return this;
+		}
+
+		public int countTestCases() {
+			return 1;
+		}
+
+		public void sendTree(IVisitsTestTrees notified) {
+		}
+
+		public void run(TestExecution execution) {
+		}
+	}
+
+	protected void setUp() throws Exception {
+		fDir= File.createTempFile("history", "");
+		assertTrue(fDir.delete());
+		assertTrue(fDir.mkdir());
+		fFile= new File(fDir, "testHistory.txt");
+	}
+
+	protected void tearDown() throws Exception {
+		File[] files= fDir.listFiles();
+		for (int i= 0; i < files.length; i++)
+			files[i].delete();
+		fDir.delete();
+	}
+
+	public void testDecayingScore() throws Exception {
+		TestHistory history= new TestHistory(fFile);
+		assertTrue(Double.isNaN(history.getScore("A")));
+
+		history.recordSuite("A", true, 1);
+		assertEquals(1, history.getScore("A"), DELTA);
+		history.recordSuite("A", false, 1);
+		assertEquals(0.5, history.getScore("A"), DELTA);
+		history.recordSuite("A", false, 1);
+		assertEquals(0.25, history.getScore("A"), DELTA);
+		history.recordSuite("A", true, 1);
+		assertEquals(0.625, history.getScore("A"), DELTA);
+
+		history.recordSuite("B", false, 1);
+		assertEquals(0, history.getScore("B"), DELTA);
+	}
+
+	public void testWriteAndLoad() throws Exception {
+		TestHistory history= new TestHistory(fFile);
+		history.recordSuite("A", true, 1.5);
+		history.recordSuite("B", false, 2);
+		history.write(fFile);
+		history.write(fFile);
+		assertEquals(1, fDir.listFiles().length);
+
+		TestHistory loaded= new TestHistory(fFile);
+		assertEquals(1, loaded.getScore("A"), DELTA);
+		assertEquals(0, loaded.getScore("B"), DELTA);
+		assertTrue(Double.isNaN(loaded.getScore("C")));
+	}
+
+	public void testLeastRecentlyRunSuitesAreDropped() throws Exception {
+		// must match TestHistory.MAX_ENTRIES
+		int maxEntries= 10000;
+		TestHistory history= new TestHistory(fFile);
+		for (int i= 0; i < maxEntries; i++)
+			history.recordSuite("S" + i, true, 1);
+		// S0 becomes the most recently run suite, S1 the least recently run one
+		history.recordSuite("S0", true, 1);
+
+		history.recordSuite("new", true, 1);
+		assertFalse(Double.isNaN(history.getScore("S0")));
+		assertTrue(Double.isNaN(history.getScore("S1")));
+		assertFalse(Double.isNaN(history.getScore("S2")));
+		assertFalse(Double.isNaN(history.getScore("new")));
+	}
+
+	public void testSortOrder() throws Exception {
+		TestHistory history= new TestHistory(fFile);
+		history.recordSuite("passedShort", false, 1);
+		history.recordSuite("passedLong", false, 10);
+		history.recordSuite("failedLong", true, 10);
+		history.recordSuite("failedShort", true, 1);
+		history.recordSuite("flaky", true, 5);
+		history.recordSuite("flaky", false, 5);
+		history.recordSuite("flaky", false, 5);
+		history.write(fFile);
+
+		assertSortOrder(new String[] { "failedLong", "failedShort", "new", "flaky", "passedLong", "passedShort" },
+				new String[] { "passedShort", "new", "flaky", "failedShort", "passedLong", "failedLong" });
+	}
+
+	public void testSortMalformedHistory() throws Exception {
+		Writer writer= new OutputStreamWriter(new FileOutputStream(fFile), "UTF-8");
+		try {
+			writer.write("1.0\t1.0\tfailed\n");
+			writer.write("no score\n");
+			writer.write("x\t1.0\tmalformed\n");
+			writer.write("0.0\t1.0\tpassed\n");
+		} finally {
+			writer.close();
+		}
+
+		assertSortOrder(new String[] { "failed", "malformed", "passed" },
+				new String[] { "passed", "malformed", "failed" });
+	}
+
+	private void assertSortOrder(String[] expected, String[] names) throws Exception {
+		ITestReference[] suites= new ITestReference[names.length];
+		for (int i= 0; i < names.length; i++)
+			suites[i]= new Suite(names[i]);
+		new FailureHistorySorter(fFile).sort(suites);
+
+		StringBuffer expectedOrder= new StringBuffer();
+		StringBuffer actualOrder= new StringBuffer();
+		for (int i= 0; i < suites.length; i++) {
+			expectedOrder.append(expected[i]).append('\n');
+			actualOrder.append(suites[i].getIdentifier().getName()).append('\n');
+		}
+		assertEquals(expectedOrder.toString(), actualOrder.toString());
+	}
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.junit.JUnitCore;
+import org.eclipse.jdt.junit.TestRunListener;
+import org.eclipse.jdt.junit.model.ITestElement.Result;
+import org.eclipse.jdt.junit.model.ITestRunSession;
+import org.eclipse.jdt.testplugin.util.DisplayHelper;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunch;
+import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.debug.core.ILaunchManager;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
+import org.eclipse.jdt.internal.junit.launcher.TestKindRegistry;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+
+/**
+ * Tests that a test runner which is kept alive runs the current versions of the test classes
+ * again, without a new launch.
+ */
+public class TestRerunKeptAlive extends AbstractTestRunListenerTest {
+
+	private static final String SOURCE_OK=
+			"package pack;\n" +
+			"import junit.framework.TestCase;\n" +
+			"public class ATestCase extends TestCase {\n" +
+			"    public void testChanged() { }\n" +
+			"}";
+
+	private static final String SOURCE_FAIL=
+			"package pack;\n" +
+			"import junit.framework.TestCase;\n" +
+			"public class ATestCase extends TestCase {\n" +
+			"    public void testChanged() { fail(); }\n" +
+			"}";
+
+	private final List/*<TestRunSession>*/ fFinishedSessions= new ArrayList();
+	private final List/*<Result>*/ fResults= new ArrayList();
+
+	public void testRerunTestClasses() throws Exception {
+		IType aTestCase= createType(SOURCE_OK, "pack", "ATestCase.java");
+		ResourcesPlugin.getWorkspace().build(IncrementalProjectBuilder.FULL_BUILD, null);
+
+		TestRunListener listener= new TestRunListener() {
+			public void sessionFinished(ITestRunSession session) {
+				synchronized (fResults) {
+					fFinishedSessions.add(session);
+					fResults.add(session.getTestResult(true));
+				}
+			}
+		};
+		JUnitCore.addTestRunListener(listener);
+
+		ILaunchManager lm= DebugPlugin.getDefault().getLaunchManager();
+		lm.removeLaunches(lm.getLaunches());
+		ILaunchConfigurationWorkingCopy configuration= createLaunchConfiguration(aTestCase);
+		configuration.setAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_RUNNER_KIND, TestKindRegistry.JUNIT3_TEST_KIND_ID);
+		configuration.setAttribute(JUnitLaunchConfigurationConstants.ATTR_KEEPRUNNING, true);
+		ILaunch launch= null;
+		try {
+			// the runner is only kept alive in debug mode
+			launch= configuration.launch(ILaunchManager.DEBUG_MODE, null);
+			waitForFinishedSessions(1);
+			TestRunSession session= (TestRunSession) fFinishedSessions.get(0);
+			assertEquals(Result.OK, fResults.get(0));
+			assertTrue(session.isKeptAlive());
+
+			ICompilationUnit cu= aTestCase.getCompilationUnit();
+			cu.getBuffer().setContents(SOURCE_FAIL);
+			cu.save(null, true);
+			ResourcesPlugin.getWorkspace().build(IncrementalProjectBuilder.INCREMENTAL_BUILD, null);
+
+			assertTrue(session.rerunTestClasses());
+			waitForFinishedSessions(2);
+			assertSame(session, fFinishedSessions.get(1));
+			assertEquals(Result.FAILURE, fResults.get(1));
+			assertFalse(launch.isTerminated());
+			assertTrue(session.isKeptAlive());
+
+		} finally {
+			JUnitCore.removeTestRunListener(listener);
+			if (launch != null)
+				launch.terminate();
+			lm.removeLaunches(lm.getLaunches());
+			configuration.delete();
+		}
+	}
+
+	private void waitForFinishedSessions(final int count) {
+		boolean finished= new DisplayHelper() {
+			protected boolean condition() {
+				synchronized (fResults) {
+					return fResults.size() >= count;
+				}
+			}
+		}.waitForCondition(Display.getCurrent(), 30 * 1000, 100);
+		assertTrue("test run " + count + " has not finished", finished);
+	}
+}
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.junit.tests.AbstractTestRunListenerTest.TestRunLog;
+
+import org.eclipse.jdt.internal.junit.model.ITestRunListener2;
+import org.eclipse.jdt.internal.junit.model.RemoteTestRunnerClient;
+import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
+
+/**
+ * Runs test classes with the <code>-threads</code> argument of the {@link RemoteTestRunner} and
+ * checks the messages received by a {@link RemoteTestRunnerClient}.
+ */
+public class TestRunInThreads extends TestCase {
+
+	/** The names of the threads that have run the tests of {@link ATestCase} and {@link BTestCase} */
+	private static final Set/*<String>*/ fgThreadNames= new HashSet();
+
+	private static void recordThread() {
+		synchronized (fgThreadNames) {
+			fgThreadNames.add(Thread.currentThread().getName());
+		}
+	}
+
+	public static class ATestCase extends TestCase {
+		public static Test suite() {
+			// ensure ordering:
+			TestSuite result= new TestSuite(ATestCase.class.getName());
+			result.addTest(new ATestCase("test1"));
+			result.addTest(new ATestCase("test2"));
+			return result;
+		}
+
+		public ATestCase(String name) {
+			super(name);
+		}
+
+		public void test1() {
+			recordThread();
+		}
+
+		public void test2() {
+			recordThread();
+		}
+	}
+
+	public static class BTestCase extends TestCase {
+		public static Test suite() {
+			// ensure ordering:
+			TestSuite result= new TestSuite(BTestCase.class.getName());
+			result.addTest(new BTestCase("test1"));
+			result.addTest(new BTestCase("test2"));
+			return result;
+		}
+
+		public BTestCase(String name) {
+			super(name);
+		}
+
+		public void test1() {
+			recordThread();
+		}
+
+		public void test2() {
+			recordThread();
+		}
+	}
+
+	private static final String A= ATestCase.class.getName();
+	private static final String B= BTestCase.class.getName();
+
+	/** The log of a run of {@link ATestCase} and {@link BTestCase} in a single thread */
+	private static final String[] EXPECTED_LOG= {
+		"runStarted 4",
+		"treeEntry 1," + A + ",true,2",
+		"treeEntry 2,test1(" + A + "),false,1",
+		"treeEntry 3,test2(" + A + "),false,1",
+		"treeEntry 4," + B + ",true,2",
+		"treeEntry 5,test1(" + B + "),false,1",
+		"treeEntry 6,test2(" + B + "),false,1",
+		"started 2 test1(" + A + ")",
+		"ended 2 test1(" + A + ")",
+		"started 3 test2(" + A + ")",
+		"ended 3 test2(" + A + ")",
+		"started 5 test1(" + B + ")",
+		"ended 5 test1(" + B + ")",
+		"started 6 test2(" + B + ")",
+		"ended 6 test2(" + B + ")",
+		"runEnded",
+	};
+
+	private static class InProcessTestRunner extends RemoteTestRunner {
+		protected ClassLoader getTestClassLoader() {
+			return TestRunInThreads.class.getClassLoader();
+		}
+
+		public void run(String[] args) {
+			init(args);
+			run();
+		}
+	}
+
+	private static class LoggingListener implements ITestRunListener2 {
+		private final TestRunLog fLog;
+
+		public LoggingListener(TestRunLog log) {
+			fLog= log;
+		}
+
+		public void testRunStarted(int testCount) {
+			fLog.add("runStarted " + testCount);
+		}
+
+		public void testRunEnded(long elapsedTime) {
+			fLog.add("runEnded");
+			fLog.setDone();
+		}
+
+		public void testRunStopped(long elapsedTime) {
+			fLog.add("runStopped");
+			fLog.setDone();
+		}
+
+		public void testStarted(String testId, String testName) {
+			fLog.add("started " + testId + " " + testName);
+		}
+
+		public void testEnded(String testId, String testName) {
+			fLog.add("ended " + testId + " " + testName);
+		}
+
+		public void testRunTerminated() {
+			fLog.add("terminated");
+			fLog.setDone();
+		}
+
+		public void testTreeEntry(String description) {
+			fLog.add("treeEntry " + description);
+		}
+
+		public void testFailed(int status, String testId, String testName, String trace, String expected, String actual) {
+			fLog.add("failed " + status + " " + testId + " " + testName);
+		}
+
+		public void testReran(String testId, String testClass, String testName, int status, String trace, String expected, String actual) {
+			fLog.add("reran " + testId + " " + testName);
+		}
+	}
+
+	protected void setUp() throws Exception {
+		fgThreadNames.clear();
+	}
+
+	public void testSingleThread() throws Exception {
+		AbstractTestRunListenerTest.assertEqualLog(EXPECTED_LOG, run(1));
+		assertThreadNames(new String[] { Thread.currentThread().getName() });
+	}
+
+	public void testTwoThreads() throws Exception {
+		String[] log= run(2);
+
+		// the tree is sent before the tests are run
+		String[] prefix= new String[7];
+		System.arraycopy(log, 0, prefix, 0, Math.min(prefix.length, log.length));
+		String[] expectedPrefix= new String[prefix.length];
+		System.arraycopy(EXPECTED_LOG, 0, expectedPrefix, 0, expectedPrefix.length);
+		AbstractTestRunListenerTest.assertEqualLog(expectedPrefix, prefix);
+		assertEquals("runEnded", log[log.length - 1]);
+
+		// the tests of the two classes may be interleaved, but each test has been started
+		// once and ended once after it has been started
+		String[] sorted= (String[]) log.clone();
+		String[] expectedSorted= (String[]) EXPECTED_LOG.clone();
+		Arrays.sort(sorted);
+		Arrays.sort(expectedSorted);
+		AbstractTestRunListenerTest.assertEqualLog(expectedSorted, sorted);
+		for (int i= 0; i < log.length; i++) {
+			if (log[i].startsWith("ended ")) {
+				String started= "started " + log[i].substring("ended ".length());
+				assertTrue(log[i], Arrays.asList(log).subList(0, i).contains(started));
+			}
+		}
+
+		assertThreadNames(new String[] { "TestWorker-0", "TestWorker-1" });
+	}
+
+	/**
+	 * Asserts that the tests have been run on some of the given threads.
+	 *
+	 * @param names the names of the threads
+	 */
+	private static void assertThreadNames(String[] names) {
+		synchronized (fgThreadNames) {
+			assertFalse(fgThreadNames.isEmpty());
+			for (Iterator iter= fgThreadNames.iterator(); iter.hasNext();) {
+				String name= (String) iter.next();
+				assertTrue(name, Arrays.asList(names).contains(name));
+			}
+		}
+	}
+
+	/**
+	 * Runs {@link ATestCase} and {@link BTestCase} with a {@link RemoteTestRunner} in this VM
+	 * and returns the notifications of the listener of a {@link RemoteTestRunnerClient}.
+	 *
+	 * @param threadCount the value of the <code>-threads</code> argument
+	 * @return the log of the listener
+	 * @throws Exception if the tests cannot be run
+	 */
+	private static String[] run(int threadCount) throws Exception {
+		int port= findFreePort();
+		TestRunLog log= new TestRunLog();
+		RemoteTestRunnerClient client= new RemoteTestRunnerClient();
+		client.startListening(new ITestRunListener2[] { new LoggingListener(log) }, port);
+		try {
+			new InProcessTestRunner().run(new String[] {
+					"-port", String.valueOf(port),
+					"-classnames", A, B,
+					"-threads", String.valueOf(threadCount) });
+
+			long end= System.currentTimeMillis() + 10 * 1000;
+			while (!log.isDone() && System.currentTimeMillis() < end)
+				Thread.sleep(50);
+			assertTrue("test run has not ended", log.isDone());
+			return log.getLog();
+		} finally {
+			client.stopWaiting();
+		}
+	}
+
+	private static int findFreePort() throws IOException {
+		ServerSocket socket= new ServerSocket(0);
+		try {
+			return socket.getLocalPort();
+		} finally {
+			socket.close();
+		}
+	}
+}
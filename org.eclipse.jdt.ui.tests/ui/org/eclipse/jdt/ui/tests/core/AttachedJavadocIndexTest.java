@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.ui.text.javadoc.AttachedJavadocIndex;
+
+public class AttachedJavadocIndexTest extends TestCase {
+
+	private static final String LOCATION= "file:/C:/doc/api/";
+	private static final int MAX_SIZE= 1000;
+
+	private File fDir;
+	private File fFile;
+
+	public static Test suite() {
+		return new TestSuite(AttachedJavadocIndexTest.class);
+	}
+
+	protected void setUp() throws Exception {
+		fDir= File.createTempFile("javadoc", "");
+		assertTrue(fDir.delete());
+		assertTrue(fDir.mkdir());
+		fFile= new File(fDir, "index.cache");
+	}
+
+	protected void tearDown() throws Exception {
+		File[] files= fDir.listFiles();
+		for (int i= 0; i < files.length; i++)
+			files[i].delete();
+		fDir.delete();
+	}
+
+	public void testWriteAndRead() throws Exception {
+		AttachedJavadocIndex index= new AttachedJavadocIndex(LOCATION, 42, MAX_SIZE);
+		index.put("p.A", "A", "Type A\nwith \u00e4 line break");
+		index.put("p.A", "m()V", "");
+		index.put("p.A$B", "f", "Field f");
+		assertTrue(index.isDirty());
+
+		index.write(fFile);
+		assertFalse(index.isDirty());
+		assertEquals(1, fDir.listFiles().length);
+
+		AttachedJavadocIndex read= AttachedJavadocIndex.read(fFile, LOCATION, MAX_SIZE);
+		assertNotNull(read);
+		assertFalse(read.isDirty());
+		assertEquals(42, read.getStamp());
+		assertEquals(index.getSize(), read.getSize());
+		assertEquals("Type A\nwith \u00e4 line break", read.get("p.A", "A"));
+		assertEquals("", read.get("p.A", "m()V"));
+		assertEquals("Field f", read.get("p.A$B", "f"));
+		assertNull(read.get("p.A", "n()V"));
+		assertFalse(read.containsType("p.C"));
+	}
+
+	public void testRewrite() throws Exception {
+		AttachedJavadocIndex index= new AttachedJavadocIndex(LOCATION, 42, MAX_SIZE);
+		index.put("p.A", "A", "Type A");
+		index.write(fFile);
+		index.put("p.A", "A", "Changed");
+		index.write(fFile);
+
+		assertEquals(1, fDir.listFiles().length);
+		assertEquals("Changed", AttachedJavadocIndex.read(fFile, LOCATION, MAX_SIZE).get("p.A", "A"));
+	}
+
+	public void testReadOtherLocation() throws Exception {
+		AttachedJavadocIndex index= new AttachedJavadocIndex(LOCATION, 42, MAX_SIZE);
+		index.put("p.A", "A", "Type A");
+		index.write(fFile);
+
+		assertNull(AttachedJavadocIndex.read(fFile, "file:/C:/other/api/", MAX_SIZE));
+		assertNull(AttachedJavadocIndex.read(new File(fDir, "missing.cache"), LOCATION, MAX_SIZE));
+	}
+
+	public void testReadTruncated() throws Exception {
+		AttachedJavadocIndex index= new AttachedJavadocIndex(LOCATION, 42, MAX_SIZE);
+		index.put("p.A", "A", "Type A");
+		index.write(fFile);
+
+		RandomAccessFile file= new RandomAccessFile(fFile, "rw");
+		try {
+			file.setLength(file.length() - 3);
+		} finally {
+			file.close();
+		}
+		assertNull(AttachedJavadocIndex.read(fFile, LOCATION, MAX_SIZE));
+	}
+
+	public void testReadCorruptLengths() throws Exception {
+		writeHeader(-1);
+		assertNull(AttachedJavadocIndex.read(fFile, LOCATION, MAX_SIZE));
+
+		writeHeader(Integer.MAX_VALUE);
+		assertNull(AttachedJavadocIndex.read(fFile, LOCATION, MAX_SIZE));
+	}
+
+	public void testStampChange() throws Exception {
+		AttachedJavadocIndex index= new AttachedJavadocIndex(LOCATION, 42, MAX_SIZE);
+		index.put("p.A", "A", "Type A");
+		index.write(fFile);
+
+		index.setStamp(42);
+		assertFalse(index.isDirty());
+		assertEquals("Type A", index.get("p.A", "A"));
+
+		index.setStamp(43);
+		assertTrue(index.isDirty());
+		assertEquals(43, index.getStamp());
+		assertEquals(0, index.getSize());
+		assertFalse(index.containsType("p.A"));
+		assertNull(index.get("p.A", "A"));
+	}
+
+	public void testTrimLeastRecentlyUsed() throws Exception {
+		AttachedJavadocIndex index= new AttachedJavadocIndex(LOCATION, 42, 10);
+		index.put("p.A", "A", "aaaa");
+		index.put("p.B", "B", "bbbb");
+		// make p.A the most recently used type
+		assertEquals("aaaa", index.get("p.A", "A"));
+
+		index.put("p.C", "C", "cccc");
+		assertEquals(8, index.getSize());
+		assertTrue(index.containsType("p.A"));
+		assertFalse(index.containsType("p.B"));
+		assertTrue(index.containsType("p.C"));
+
+		// the type that is added is kept even if it is too large
+		index.put("p.D", "D", "dddddddddddd");
+		assertEquals(12, index.getSize());
+		assertFalse(index.containsType("p.A"));
+		assertFalse(index.containsType("p.C"));
+		assertTrue(index.containsType("p.D"));
+	}
+
+	public void testTrimOnRead() throws Exception {
+		AttachedJavadocIndex index= new AttachedJavadocIndex(LOCATION, 42, MAX_SIZE);
+		index.put("p.A", "A", "aaaa");
+		index.put("p.B", "B", "bbbb");
+		index.write(fFile);
+
+		AttachedJavadocIndex read= AttachedJavadocIndex.read(fFile, LOCATION, 6);
+		assertEquals(4, read.getSize());
+		assertFalse(read.containsType("p.A"));
+		assertTrue(read.containsType("p.B"));
+	}
+
+	private void writeHeader(int typeCount) throws IOException {
+		DataOutputStream out= new DataOutputStream(new FileOutputStream(fFile));
+		try {
+			out.writeInt(1);
+			out.writeInt(LOCATION.length());
+			out.writeChars(LOCATION);
+			out.writeLong(42);
+			out.writeInt(typeCount);
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -35,6 +35,7 @@ public class CoreTests extends TestCase {
 
 		TestSuite suite= new TestSuite(CoreTests.class.getName());
 		suite.addTest(AddImportTest.suite());
+		suite.addTest(AttachedJavadocIndexTest.suite());
 		suite.addTest(SourceActionTests.suite());
 		suite.addTest(ASTNodesInsertTest.suite());
 		suite.addTest(BindingsNameTest.suite());
@@ -44,6 +45,7 @@ public class CoreTests extends TestCase {
 		suite.addTest(CodeFormatterTest.suite());
 		suite.addTest(HierarchicalASTVisitorTest.suite());
 		suite.addTest(ImportOrganizeTest.suite());
+		suite.addTest(InheritedJavadocCacheTest.suite());
 		suite.addTest(JavaElementLabelsTest.suite());
 		suite.addTest(JavaElementLabelsTest17.suite());
 		suite.addTest(JavaElementPropertyTesterTest.suite());
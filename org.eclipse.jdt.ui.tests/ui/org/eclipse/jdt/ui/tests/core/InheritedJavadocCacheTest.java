@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.text.javadoc.InheritedJavadocCache;
+import org.eclipse.jdt.internal.ui.text.javadoc.JavadocContentAccess2;
+
+public class InheritedJavadocCacheTest extends TestCase {
+
+	private static final Class THIS= InheritedJavadocCacheTest.class;
+
+	private static final String MAIN= "main";
+
+	private static final String BASE=
+			"package p;\n" +
+			"public class Base {\n" +
+			"    /** Base doc */\n" +
+			"    public void m() { }\n" +
+			"}\n";
+
+	private static final String MID=
+			"package p;\n" +
+			"public class Mid extends Base {\n" +
+			"    /** Mid: {@inheritDoc} */\n" +
+			"    public void m() { }\n" +
+			"}\n";
+
+	private static final String SUB=
+			"package p;\n" +
+			"public class Sub extends Mid {\n" +
+			"    /** Sub: {@inheritDoc} */\n" +
+			"    public void m() { }\n" +
+			"}\n";
+
+	private IJavaProject fJProject1;
+	private IPackageFragment fPackage;
+	private InheritedJavadocCache fCache;
+
+	public InheritedJavadocCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fPackage= sourceFolder.createPackageFragment("p", false, null);
+		fCache= JavaPlugin.getDefault().getInheritedJavadocCache();
+	}
+
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private IMethod createMethod(String typeName, String contents) throws Exception {
+		ICompilationUnit cu= fPackage.createCompilationUnit(typeName + ".java", contents, false, null);
+		return cu.getType(typeName).getMethod("m", new String[0]);
+	}
+
+	private static String getContent(IMethod method) throws Exception {
+		return JavadocContentAccess2.getHTMLContent(method, false);
+	}
+
+	public void testCacheHit() throws Exception {
+		createMethod("Base", BASE);
+		IMethod mid= createMethod("Mid", MID);
+
+		String content= getContent(mid);
+		assertTrue(content, content.indexOf("Base doc") != -1);
+		InheritedJavadocCache.Description description= fCache.get(mid, MAIN);
+		assertNotNull(description);
+		assertTrue(description.getDescription(), description.getDescription().indexOf("Base doc") != -1);
+
+		assertEquals(content, getContent(mid));
+		assertSame(description, fCache.get(mid, MAIN));
+	}
+
+	public void testInvalidationOnEditOfOverriddenMethod() throws Exception {
+		IMethod base= createMethod("Base", BASE);
+		IMethod mid= createMethod("Mid", MID);
+		getContent(mid);
+		assertNotNull(fCache.get(mid, MAIN));
+
+		ICompilationUnit cu= base.getCompilationUnit();
+		cu.getBuffer().setContents(BASE.replaceAll("Base doc", "Changed doc"));
+		cu.save(null, true);
+
+		assertNull(fCache.get(mid, MAIN));
+		String content= getContent(mid);
+		assertTrue(content, content.indexOf("Changed doc") != -1);
+		assertTrue(content, content.indexOf("Base doc") == -1);
+	}
+
+	public void testNestedSourcesArePropagated() throws Exception {
+		IMethod base= createMethod("Base", BASE);
+		IMethod mid= createMethod("Mid", MID);
+		IMethod sub= createMethod("Sub", SUB);
+
+		// the description of Mid.m() is resolved first, so that Sub.m() takes it from the cache
+		getContent(mid);
+		String content= getContent(sub);
+		assertTrue(content, content.indexOf("Mid: Base doc") != -1);
+
+		List sources= Arrays.asList(fCache.get(sub, MAIN).getSources());
+		assertTrue(sources.contains(base.getCompilationUnit()));
+		assertTrue(sources.contains(mid.getCompilationUnit()));
+
+		ICompilationUnit cu= base.getCompilationUnit();
+		cu.getBuffer().setContents(BASE.replaceAll("Base doc", "Changed doc"));
+		cu.save(null, true);
+
+		assertNull(fCache.get(mid, MAIN));
+		assertNull(fCache.get(sub, MAIN));
+		content= getContent(sub);
+		assertTrue(content, content.indexOf("Mid: Changed doc") != -1);
+	}
+
+	public void testInvalidationOnAddedSupertype() throws Exception {
+		IMethod mid= createMethod("Mid", MID);
+		getContent(mid);
+		InheritedJavadocCache.Description description= fCache.get(mid, MAIN);
+		assertNotNull(description);
+		assertNull(description.getDescription());
+
+		createMethod("Base", BASE);
+
+		assertNull(fCache.get(mid, MAIN));
+		String content= getContent(mid);
+		assertTrue(content, content.indexOf("Base doc") != -1);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,6 +27,7 @@ import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeParameter;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 
 import org.eclipse.jdt.ui.JavaElementLabels;
@@ -621,6 +622,56 @@ public class JavaElementLabelsTest extends CoreTests {
 		lab= JavaElementLabels.getTextLabel(elem, JavaElementLabels.M_PARAMETER_TYPES | JavaElementLabels.USE_RESOLVED);
 		assertEqualString(lab, "asList(Integer...)");
 	}
+
+	public void testMethodLabelTwoParameterizations() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("org.test", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package org.test;\n");
+		buf.append("import java.util.Arrays;\n");
+		buf.append("public class Varargs {\n");
+		buf.append("    void foo() {\n");
+		buf.append("        Arrays.asList(1);\n");
+		buf.append("        Arrays.asList(\"a\");\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		String content= buf.toString();
+		ICompilationUnit cu= pack1.createCompilationUnit("Varargs.java", content, false, null);
+
+		IJavaElement integers= cu.codeSelect(content.indexOf("asList"), 0)[0];
+		IJavaElement strings= cu.codeSelect(content.lastIndexOf("asList"), 0)[0];
+		IJavaElement unresolved= JavaCore.create(strings.getHandleIdentifier());
+
+		long flags= JavaElementLabels.M_PARAMETER_TYPES | JavaElementLabels.USE_RESOLVED;
+		assertExpectedLabel(integers, "asList(Integer...)", flags);
+		assertExpectedLabel(strings, "asList(String...)", flags);
+		assertExpectedLabel(unresolved, "asList(T...)", flags);
+		assertExpectedLabel(integers, "asList(Integer...)", flags);
+	}
+
+	public void testTypeLabelTwoParameterizations() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("org.test", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package org.test;\n");
+		buf.append("import java.util.List;\n");
+		buf.append("public class Lists {\n");
+		buf.append("    List<String> strings;\n");
+		buf.append("    List<Integer> integers;\n");
+		buf.append("}\n");
+		String content= buf.toString();
+		ICompilationUnit cu= pack1.createCompilationUnit("Lists.java", content, false, null);
+
+		IJavaElement strings= cu.codeSelect(content.indexOf("List<String>"), 0)[0];
+		IJavaElement integers= cu.codeSelect(content.indexOf("List<Integer>"), 0)[0];
+
+		long flags= JavaElementLabels.T_TYPE_PARAMETERS | JavaElementLabels.USE_RESOLVED;
+		assertExpectedLabel(strings, "List<String>", flags);
+		assertExpectedLabel(integers, "List<Integer>", flags);
+		assertExpectedLabel(strings, "List<String>", flags);
+	}
 	
 	
 	public void testMethodLabelAnnotatedParameters() throws Exception {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.jdt.internal.corext.util;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.Assert;
@@ -38,6 +39,7 @@ import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJarEntryResource;
 import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
@@ -107,6 +109,12 @@ public final class JavaModelUtil {
 	 */
 	public static final String PACKAGE_HTML= "package.html"; //$NON-NLS-1$
 
+	/**
+	 * The flags of a delta that only reports changes of the children of its element.
+	 * @since 3.10
+	 */
+	private static final int CHILDREN_DELTA_FLAGS= IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_FINE_GRAINED | IJavaElementDelta.F_AST_AFFECTED;
+
 	/**
 	 * Finds a type container by container name. The returned element will be of type
 	 * <code>IType</code> or a <code>IPackageFragment</code>. <code>null</code> is returned if the
@@ -947,4 +955,27 @@ public final class JavaModelUtil {
 		return method.getAnnotation("java.lang.invoke.MethodHandle$PolymorphicSignature").exists(); //$NON-NLS-1$
 	}
 
+	/**
+	 * Collects the topmost deltas of the given delta tree that report more than changes of the
+	 * children of their element, i.e. the deltas of the elements that have been added, removed or
+	 * changed themselves. Deltas of elements of the given leaf type or of a higher type, i.e.
+	 * further down the Java model, are collected whatever they report, without their children.
+	 *
+	 * @param delta the root of the delta tree
+	 * @param leafType the element type below which the tree is not walked, see
+	 *            {@link IJavaElement#getElementType()}, or {@link Integer#MAX_VALUE} to walk
+	 *            the whole tree
+	 * @param result the list to add the collected deltas to
+	 * @since 3.10
+	 */
+	public static void collectChangedDeltas(IJavaElementDelta delta, int leafType, List<IJavaElementDelta> result) {
+		if (delta.getElement().getElementType() >= leafType || delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & ~CHILDREN_DELTA_FLAGS) != 0) {
+			result.add(delta);
+			return;
+		}
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++)
+			collectChangedDeltas(children[i], leafType, result);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,7 @@ import org.eclipse.jdt.internal.corext.refactoring.RefactoringCoreMessages;
 import org.eclipse.jdt.internal.corext.refactoring.base.JavaStatusContext;
 import org.eclipse.jdt.internal.corext.refactoring.base.RefactoringStatusCodes;
 import org.eclipse.jdt.internal.corext.refactoring.util.JavaElementUtil;
+import org.eclipse.jdt.internal.corext.refactoring.util.TypeHierarchyCache;
 import org.eclipse.jdt.internal.corext.util.JdtFlags;
 import org.eclipse.jdt.internal.corext.util.Messages;
 import org.eclipse.jdt.internal.corext.util.MethodOverrideTester;
@@ -101,6 +102,23 @@ public class MethodChecks {
 	}
 
 	public static IMethod isDeclaredInInterface(IMethod method, ITypeHierarchy hierarchy, IProgressMonitor monitor) throws JavaModelException {
+		return isDeclaredInInterface(method, hierarchy, null, monitor);
+	}
+
+	/**
+	 * Finds a method in a super interface of a class in the given hierarchy that is
+	 * implemented by the given method.
+	 *
+	 * @param method the method
+	 * @param hierarchy the type hierarchy of the declaring type of the method
+	 * @param hierarchyCache the hierarchy cache of the current refactoring session, used
+	 *            to look up the super interfaces of the classes in the hierarchy, or
+	 *            <code>null</code> to compute a new supertype hierarchy for each class
+	 * @param monitor the progress monitor
+	 * @return the interface method, or <code>null</code> if none
+	 * @throws JavaModelException if a hierarchy could not be computed
+	 */
+	public static IMethod isDeclaredInInterface(IMethod method, ITypeHierarchy hierarchy, TypeHierarchyCache hierarchyCache, IProgressMonitor monitor) throws JavaModelException {
 		Assert.isTrue(isVirtual(method));
 		IProgressMonitor subMonitor= new SubProgressMonitor(monitor, 1);
 		try {
@@ -111,6 +129,8 @@ public class MethodChecks {
 				IType[] superinterfaces= null;
 				if (clazz.equals(hierarchy.getType()))
 					superinterfaces= hierarchy.getAllSuperInterfaces(clazz);
+				else if (hierarchyCache != null)
+					superinterfaces= hierarchyCache.getAllSuperInterfaces(clazz, new SubProgressMonitor(subMonitor, 1));
 				else
 					superinterfaces= clazz.newSupertypeHierarchy(new SubProgressMonitor(subMonitor, 1)).getAllSuperInterfaces(clazz);
 				for (int j= 0; j < superinterfaces.length; j++) {
@@ -147,6 +167,21 @@ public class MethodChecks {
 	 * @throws JavaModelException
 	 */
 	public static IMethod getTopmostMethod(IMethod method, ITypeHierarchy typeHierarchy, IProgressMonitor monitor) throws JavaModelException {
+		return getTopmostMethod(method, typeHierarchy, null, monitor);
+	}
+
+	/**
+	 * Locates the topmost method of an override ripple and returns it. If none
+	 * is found, null is returned.
+	 *
+	 * @param method the IMethod which may be part of a ripple
+	 * @param typeHierarchy a ITypeHierarchy of the declaring type of the method. May be null
+	 * @param hierarchyCache the hierarchy cache of the current refactoring session. May be null
+	 * @param monitor an IProgressMonitor
+	 * @return the topmost method of the ripple, or null if none
+	 * @throws JavaModelException
+	 */
+	public static IMethod getTopmostMethod(IMethod method, ITypeHierarchy typeHierarchy, TypeHierarchyCache hierarchyCache, IProgressMonitor monitor) throws JavaModelException {
 
 		Assert.isNotNull(method);
 
@@ -154,16 +189,24 @@ public class MethodChecks {
 		IMethod topmostMethod= null;
 		final IType declaringType= method.getDeclaringType();
 		if (!declaringType.isInterface()) {
-			if ((hierarchy == null) || !declaringType.equals(hierarchy.getType()))
-				hierarchy= declaringType.newTypeHierarchy(monitor);
+			if ((hierarchy == null) || !declaringType.equals(hierarchy.getType())) {
+				if (hierarchyCache != null)
+					hierarchy= hierarchyCache.getTypeHierarchy(declaringType, monitor);
+				else
+					hierarchy= declaringType.newTypeHierarchy(monitor);
+			}
 
-			IMethod inInterface= isDeclaredInInterface(method, hierarchy, monitor);
+			IMethod inInterface= isDeclaredInInterface(method, hierarchy, hierarchyCache, monitor);
 			if (inInterface != null && !inInterface.equals(method))
 				topmostMethod= inInterface;
 		}
 		if (topmostMethod == null) {
-			if (hierarchy == null)
-				hierarchy= declaringType.newSupertypeHierarchy(monitor);
+			if (hierarchy == null) {
+				if (hierarchyCache != null)
+					hierarchy= hierarchyCache.getSupertypeHierarchy(declaringType, monitor);
+				else
+					hierarchy= declaringType.newSupertypeHierarchy(monitor);
+			}
 			IMethod overrides= overridesAnotherMethod(method, hierarchy);
 			if (overrides != null && !overrides.equals(method))
 				topmostMethod= overrides;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.rename;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -52,8 +53,14 @@ public class RefactoringScanner {
 	}
 
 	private final String fName;
+	private final char[] fNameChars;
 	private final String fQualifier;
 
+	/**
+	 * The Java scanner, created lazily and reused for all units scanned by this
+	 * refactoring scanner. Instances of this class must therefore not be shared
+	 * between threads.
+	 */
 	private IScanner fScanner;
 	private Set<TextMatch> fMatches; //Set<TextMatch>
 
@@ -62,14 +69,12 @@ public class RefactoringScanner {
 		Assert.isNotNull(name);
 		Assert.isNotNull(qualifier);
 		fName= name;
+		fNameChars= name.toCharArray();
 		fQualifier= qualifier;
 	}
 
 	public void scan(ICompilationUnit cu)	throws JavaModelException {
 		char[] chars= cu.getBuffer().getCharacters();
-		fMatches= new HashSet<TextMatch>();
-		fScanner= ToolFactory.createScanner(true, true, false, true);
-		fScanner.setSource(chars);
 
 //		IImportContainer importContainer= cu.getImportContainer();
 //		if (importContainer.exists())
@@ -77,8 +82,26 @@ public class RefactoringScanner {
 //		else
 //			fNoFlyZone= null;
 
+		scan(chars);
+	}
+
+	/**
+	 * Scans the given source. Sources that do not contain the name at all are
+	 * skipped without tokenizing them.
+	 *
+	 * @param chars the source to scan, or <code>null</code>
+	 */
+	public void scan(char[] chars) {
+		if (chars == null || fNameChars.length > 0 && indexOf(chars, fNameChars, 0) == -1) {
+			fMatches= Collections.emptySet();
+			return;
+		}
+		fMatches= new HashSet<TextMatch>();
+		if (fScanner == null)
+			fScanner= ToolFactory.createScanner(true, true, false, true);
+		fScanner.setSource(chars);
 		doScan();
-		fScanner= null;
+		fScanner.setSource(null);
 	}
 
 	/**
@@ -90,12 +113,31 @@ public class RefactoringScanner {
 	 * @param text the text
 	 */
 	public void scan(String text) {
-		char[] chars= text.toCharArray();
-		fMatches= new HashSet<TextMatch>();
-		fScanner= ToolFactory.createScanner(true, true, false, true);
-		fScanner.setSource(chars);
-		doScan();
-		fScanner= null;
+		scan(text.toCharArray());
+	}
+
+	/**
+	 * Returns the index of the first occurrence of <code>pattern</code> in <code>source</code>,
+	 * starting at <code>from</code>.
+	 *
+	 * @param source the characters to search
+	 * @param pattern the characters to find, must not be empty
+	 * @param from the index to start searching from
+	 * @return the index of the first occurrence, or -1 if the pattern does not occur
+	 */
+	static int indexOf(char[] source, char[] pattern, int from) {
+		char first= pattern[0];
+		int last= source.length - pattern.length;
+		for (int i= from; i <= last; i++) {
+			if (source[i] != first)
+				continue;
+			int j= 1;
+			while (j < pattern.length && source[i + j] == pattern[j])
+				j++;
+			if (j == pattern.length)
+				return i;
+		}
+		return -1;
 	}
 
 	private void doScan() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -83,6 +83,7 @@ import org.eclipse.jdt.internal.corext.refactoring.tagging.IDelegateUpdating;
 import org.eclipse.jdt.internal.corext.refactoring.tagging.IReferenceUpdating;
 import org.eclipse.jdt.internal.corext.refactoring.util.ResourceUtil;
 import org.eclipse.jdt.internal.corext.refactoring.util.TextChangeManager;
+import org.eclipse.jdt.internal.corext.refactoring.util.TypeHierarchyCache;
 import org.eclipse.jdt.internal.corext.util.JavaConventionsUtil;
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
 import org.eclipse.jdt.internal.corext.util.JdtFlags;
@@ -111,6 +112,7 @@ public abstract class RenameMethodProcessor extends JavaRenameProcessor implemen
 	private GroupCategorySet fCategorySet;
 	private boolean fDelegateUpdating;
 	private boolean fDelegateDeprecation;
+	private TypeHierarchyCache fHierarchyCache;
 	protected boolean fInitialized= false;
 
 	/**
@@ -239,9 +241,27 @@ public abstract class RenameMethodProcessor extends JavaRenameProcessor implemen
 		return fMethod;
 	}
 
+	/**
+	 * Returns the type hierarchy cache that is shared by all checks of this processor.
+	 *
+	 * @return the hierarchy cache
+	 */
+	protected TypeHierarchyCache getHierarchyCache() {
+		if (fHierarchyCache == null)
+			fHierarchyCache= new TypeHierarchyCache(null);
+		return fHierarchyCache;
+	}
+
+	/**
+	 * Releases the hierarchies computed by the checks of this processor.
+	 */
+	protected void clearHierarchyCache() {
+		fHierarchyCache= null;
+	}
+
 	private void initializeMethodsToRename(IProgressMonitor pm, ReferencesInBinaryContext binaryRefs) throws CoreException {
 		if (fMethodsToRename == null) {
-			IMethod[] rippleMethods= RippleMethodFinder2.getRelatedMethods(getMethod(), binaryRefs, pm, null);
+			IMethod[] rippleMethods= RippleMethodFinder2.getRelatedMethods(getMethod(), binaryRefs, getHierarchyCache(), pm);
 			fMethodsToRename= new HashSet<IMethod>(Arrays.asList(rippleMethods));
 		}
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -96,7 +96,7 @@ public class RenameVirtualMethodProcessor extends RenameMethodProcessor {
 	private ITypeHierarchy getCachedHierarchy(IType declaring, IProgressMonitor monitor) throws JavaModelException {
 		if (fCachedHierarchy != null && declaring.equals(fCachedHierarchy.getType()))
 			return fCachedHierarchy;
-		fCachedHierarchy= declaring.newTypeHierarchy(new SubProgressMonitor(monitor, 1));
+		fCachedHierarchy= getHierarchyCache().getTypeHierarchy(declaring, new SubProgressMonitor(monitor, 1));
 		return fCachedHierarchy;
 	}
 
@@ -126,7 +126,7 @@ public class RenameVirtualMethodProcessor extends RenameMethodProcessor {
 
 				IMethod topmost= getMethod();
 				if (MethodChecks.isVirtual(topmost))
-					topmost= MethodChecks.getTopmostMethod(getMethod(), hierarchy, monitor);
+					topmost= MethodChecks.getTopmostMethod(getMethod(), hierarchy, getHierarchyCache(), monitor);
 				if (topmost != null)
 					initialize(topmost);
 				fActivationChecked= true;
@@ -184,6 +184,7 @@ public class RenameVirtualMethodProcessor extends RenameMethodProcessor {
 				}
 			}
 			fCachedHierarchy= null;
+			clearHierarchyCache();
 			return result;
 		} finally{
 			pm.done();
@@ -200,7 +201,7 @@ public class RenameVirtualMethodProcessor extends RenameMethodProcessor {
 			for (Iterator<IType> iter= types.iterator(); iter.hasNext(); ) {
 				final IMethod found= Checks.findMethod(method, iter.next());
 				final IType declaring= found.getDeclaringType();
-				result.addAll(Arrays.asList(hierarchyDeclaresMethodName(new SubProgressMonitor(pm, 1), declaring.newTypeHierarchy(new SubProgressMonitor(pm, 1)), found, newName)));
+				result.addAll(Arrays.asList(hierarchyDeclaresMethodName(new SubProgressMonitor(pm, 1), getHierarchyCache().getTypeHierarchy(declaring, new SubProgressMonitor(pm, 1)), found, newName)));
 			}
 			return result.toArray(new IMethod[result.size()]);
 		} finally {
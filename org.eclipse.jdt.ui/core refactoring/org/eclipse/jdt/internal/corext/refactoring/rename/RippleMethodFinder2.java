@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -44,6 +44,7 @@ import org.eclipse.jdt.core.search.SearchRequestor;
 
 import org.eclipse.jdt.internal.corext.refactoring.RefactoringScopeFactory;
 import org.eclipse.jdt.internal.corext.refactoring.base.ReferencesInBinaryContext;
+import org.eclipse.jdt.internal.corext.refactoring.util.TypeHierarchyCache;
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
 import org.eclipse.jdt.internal.corext.util.SearchUtils;
 
@@ -55,8 +56,8 @@ public class RippleMethodFinder2 {
 	private Map<IType, IMethod> fTypeToMethod;
 	private Set<IType> fRootTypes;
 	private MultiMap<IType, IType> fRootReps;
-	private Map<IType, ITypeHierarchy> fRootHierarchies;
 	private UnionFind fUnionFind;
+	private TypeHierarchyCache fHierarchyCache;
 
 	private final boolean fExcludeBinaries;
 	private final ReferencesInBinaryContext fBinaryRefs;
@@ -126,17 +127,19 @@ public class RippleMethodFinder2 {
 	}
 
 
-	private RippleMethodFinder2(IMethod method, boolean excludeBinaries){
+	private RippleMethodFinder2(IMethod method, boolean excludeBinaries, TypeHierarchyCache hierarchyCache){
 		fMethod= method;
 		fExcludeBinaries= excludeBinaries;
 		fBinaryRefs= null;
+		fHierarchyCache= hierarchyCache;
 	}
 
-	private RippleMethodFinder2(IMethod method, ReferencesInBinaryContext binaryRefs) {
+	private RippleMethodFinder2(IMethod method, ReferencesInBinaryContext binaryRefs, TypeHierarchyCache hierarchyCache) {
 		fMethod= method;
 		fExcludeBinaries= true;
 		fDeclarationToMatch= new HashMap<IMethod, SearchMatch>();
 		fBinaryRefs= binaryRefs;
+		fHierarchyCache= hierarchyCache;
 	}
 
 	public static IMethod[] getRelatedMethods(IMethod method, boolean excludeBinaries, IProgressMonitor pm, WorkingCopyOwner owner) throws CoreException {
@@ -144,7 +147,7 @@ public class RippleMethodFinder2 {
 			if (! MethodChecks.isVirtual(method))
 				return new IMethod[]{ method };
 
-			return new RippleMethodFinder2(method, excludeBinaries).getAllRippleMethods(pm, owner);
+			return new RippleMethodFinder2(method, excludeBinaries, new TypeHierarchyCache(owner)).getAllRippleMethods(pm, owner);
 		} finally{
 			pm.done();
 		}
@@ -154,11 +157,26 @@ public class RippleMethodFinder2 {
 	}
 
 	public static IMethod[] getRelatedMethods(IMethod method, ReferencesInBinaryContext binaryRefs, IProgressMonitor pm, WorkingCopyOwner owner) throws CoreException {
+		return getRelatedMethods(method, binaryRefs, new TypeHierarchyCache(owner), pm);
+	}
+
+	/**
+	 * Finds all methods that have to be changed together with the given method.
+	 *
+	 * @param method the method
+	 * @param binaryRefs the context to collect references in binaries
+	 * @param hierarchyCache the hierarchy cache of the current refactoring session; hierarchies
+	 *            computed while finding the ripple methods are added to this cache
+	 * @param pm the progress monitor
+	 * @return the related methods
+	 * @throws CoreException if the search failed
+	 */
+	public static IMethod[] getRelatedMethods(IMethod method, ReferencesInBinaryContext binaryRefs, TypeHierarchyCache hierarchyCache, IProgressMonitor pm) throws CoreException {
 		try {
 			if (! MethodChecks.isVirtual(method))
 				return new IMethod[]{ method };
 
-			return new RippleMethodFinder2(method, binaryRefs).getAllRippleMethods(pm, owner);
+			return new RippleMethodFinder2(method, binaryRefs, hierarchyCache).getAllRippleMethods(pm, hierarchyCache.getOwner());
 		} finally{
 			pm.done();
 		}
@@ -256,9 +274,9 @@ public class RippleMethodFinder2 {
 				if (pm.isCanceled())
 					throw new OperationCanceledException();
 				IType relatedType= iter.next();
-				ITypeHierarchy hierarchy= getCachedHierarchy(relatedType, owner, new SubProgressMonitor(pm, 1));
+				ITypeHierarchy hierarchy= getCachedHierarchy(relatedType, new SubProgressMonitor(pm, 1));
 				if (hierarchy == null)
-					hierarchy= relatedType.newTypeHierarchy(owner, new SubProgressMonitor(pm, 1));
+					hierarchy= fHierarchyCache.getHierarchyContaining(relatedType, new SubProgressMonitor(pm, 1));
 				IType[] allSubTypes= hierarchy.getAllSubtypes(relatedType);
 				for (int i= 0; i < allSubTypes.length; i++)
 					relatedSubTypes.add(allSubTypes[i]);
@@ -271,9 +289,9 @@ public class RippleMethodFinder2 {
 					throw new OperationCanceledException();
 				IType alienType= iter.next();
 				IMethod alienMethod= fTypeToMethod.get(alienType);
-				ITypeHierarchy hierarchy= getCachedHierarchy(alienType, owner, new SubProgressMonitor(pm, 1));
+				ITypeHierarchy hierarchy= getCachedHierarchy(alienType, new SubProgressMonitor(pm, 1));
 				if (hierarchy == null)
-					hierarchy= alienType.newTypeHierarchy(owner, new SubProgressMonitor(pm, 1));
+					hierarchy= fHierarchyCache.getHierarchyContaining(alienType, new SubProgressMonitor(pm, 1));
 				IType[] allSubtypes= hierarchy.getAllSubtypes(alienType);
 				for (int i= 0; i < allSubtypes.length; i++) {
 					IType subtype= allSubtypes[i];
@@ -303,24 +321,19 @@ public class RippleMethodFinder2 {
 		}
 
 		fRootReps= null;
-		fRootHierarchies= null;
 		fTypeToMethod= null;
 		fUnionFind= null;
 
 		return relatedMethods.toArray(new IMethod[relatedMethods.size()]);
 	}
 
-	private ITypeHierarchy getCachedHierarchy(IType type, WorkingCopyOwner owner, IProgressMonitor monitor) throws JavaModelException {
+	private ITypeHierarchy getCachedHierarchy(IType type, IProgressMonitor monitor) throws JavaModelException {
 		IType rep= fUnionFind.find(type);
 		if (rep != null) {
 			Collection<IType> collection= fRootReps.get(rep);
 			for (Iterator<IType> iter= collection.iterator(); iter.hasNext();) {
 				IType root= iter.next();
-				ITypeHierarchy hierarchy= fRootHierarchies.get(root);
-				if (hierarchy == null) {
-					hierarchy= root.newTypeHierarchy(owner, new SubProgressMonitor(monitor, 1));
-					fRootHierarchies.put(root, hierarchy);
-				}
+				ITypeHierarchy hierarchy= fHierarchyCache.getTypeHierarchy(root, new SubProgressMonitor(monitor, 1));
 				if (hierarchy.contains(type))
 					return hierarchy;
 			}
@@ -391,7 +404,6 @@ public class RippleMethodFinder2 {
 			if (rep != null)
 				fRootReps.put(rep, type);
 		}
-		fRootHierarchies= new HashMap<IType, ITypeHierarchy>();
 	}
 
 	private void uniteWithSupertypes(IType anchor, IType type) throws JavaModelException {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,14 +14,22 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
@@ -37,6 +45,7 @@ import org.eclipse.ltk.core.refactoring.GroupCategorySet;
 
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaModelStatusConstants;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
@@ -58,6 +67,72 @@ class TextMatchUpdater {
 			RefactoringCoreMessages.TextMatchUpdater_textualMatches_name,
 			RefactoringCoreMessages.TextMatchUpdater_textualMatches_description));
 
+	/**
+	 * Minimum number of compilation units each scanner job should process. Below this,
+	 * the units are scanned sequentially.
+	 */
+	private static final int MIN_UNITS_PER_THREAD= 50;
+
+	/**
+	 * Milliseconds to wait for a scan result before checking for cancellation again.
+	 */
+	private static final long POLL_INTERVAL= 100;
+
+	/**
+	 * The matches found in a compilation unit by a scanner job.
+	 */
+	private static class UnitMatches {
+		final ICompilationUnit fUnit;
+		final Set<TextMatch> fMatches;
+		final Throwable fFailure;
+
+		UnitMatches(ICompilationUnit unit, Set<TextMatch> matches, Throwable failure) {
+			fUnit= unit;
+			fMatches= matches;
+			fFailure= failure;
+		}
+	}
+
+	/**
+	 * Scans compilation units taken from a shared queue with its own {@link RefactoringScanner}
+	 * and reports the matches to the result queue. Every unit taken from the queue is reported,
+	 * also if scanning it fails with an error.
+	 */
+	private class ScannerJob extends Job {
+		private final ConcurrentLinkedQueue<ICompilationUnit> fUnits;
+		private final BlockingQueue<UnitMatches> fResults;
+		private final RefactoringScanner fJobScanner;
+
+		ScannerJob(ConcurrentLinkedQueue<ICompilationUnit> units, BlockingQueue<UnitMatches> results) {
+			super("Text match scanner"); //$NON-NLS-1$
+			setSystem(true);
+			fUnits= units;
+			fResults= results;
+			fJobScanner= new RefactoringScanner(fCurrentName, fCurrentQualifier);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			ICompilationUnit cu;
+			while (!monitor.isCanceled() && (cu= fUnits.poll()) != null) {
+				Set<TextMatch> matches= null;
+				Throwable failure= null;
+				try {
+					fJobScanner.scan(cu);
+					matches= fJobScanner.getMatches();
+				} catch (Throwable e) {
+					// passed to the caller, which rethrows it
+					failure= e;
+				} finally {
+					fResults.add(new UnitMatches(cu, matches, failure));
+				}
+				if (failure != null)
+					break;
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
 	private final IJavaSearchScope fScope;
 	private final TextChangeManager fManager;
 	private final SearchResultGroup[] fReferences;
@@ -65,6 +140,8 @@ class TextMatchUpdater {
 
 	private final RefactoringScanner fScanner;
 	private final String fNewName;
+	private final String fCurrentName;
+	private final String fCurrentQualifier;
 	private final int fCurrentNameLength;
 
 	private TextMatchUpdater(TextChangeManager manager, IJavaSearchScope scope, String currentName, String currentQualifier, String newName, SearchResultGroup[] references, boolean onlyQualified){
@@ -77,6 +154,8 @@ class TextMatchUpdater {
 		fOnlyQualified= onlyQualified;
 
 		fNewName= newName;
+		fCurrentName= currentName;
+		fCurrentQualifier= currentQualifier;
 		fCurrentNameLength= currentName.length();
 		fScanner= new RefactoringScanner(currentName, currentQualifier);
 	}
@@ -93,13 +172,15 @@ class TextMatchUpdater {
 		try{
 			IProject[] projectsInScope= getProjectsInScope();
 
-			pm.beginTask("", projectsInScope.length); //$NON-NLS-1$
+			pm.beginTask("", 2 * projectsInScope.length); //$NON-NLS-1$
 
+			List<ICompilationUnit> units= new ArrayList<ICompilationUnit>();
 			for (int i =0 ; i < projectsInScope.length; i++){
 				if (pm.isCanceled())
 					throw new OperationCanceledException();
-				addTextMatches(projectsInScope[i], new SubProgressMonitor(pm, 1));
+				collectCompilationUnits(projectsInScope[i], units, new SubProgressMonitor(pm, 1));
 			}
+			addTextMatches(units, new SubProgressMonitor(pm, projectsInScope.length));
 		} finally{
 			pm.done();
 		}
@@ -120,7 +201,7 @@ class TextMatchUpdater {
 		return projectsInScope.toArray(new IProject[projectsInScope.size()]);
 	}
 
-	private void addTextMatches(IResource resource, IProgressMonitor pm) throws JavaModelException{
+	private void collectCompilationUnits(IResource resource, List<ICompilationUnit> units, IProgressMonitor pm) throws JavaModelException{
 		try{
 			String task= RefactoringCoreMessages.TextMatchUpdater_searching + resource.getFullPath();
 			if (resource instanceof IFile){
@@ -132,7 +213,7 @@ class TextMatchUpdater {
 					return;
 				if (! fScope.encloses(element))
 					return;
-				addCuTextMatches((ICompilationUnit) element);
+				units.add((ICompilationUnit) element);
 
 			} else if (resource instanceof IContainer){
 				IResource[] members= ((IContainer) resource).members();
@@ -142,7 +223,7 @@ class TextMatchUpdater {
 					if (pm.isCanceled())
 						throw new OperationCanceledException();
 
-					addTextMatches(members[i], new SubProgressMonitor(pm, 1));
+					collectCompilationUnits(members[i], units, new SubProgressMonitor(pm, 1));
 				}
 			}
 		} catch (JavaModelException e){
@@ -154,9 +235,96 @@ class TextMatchUpdater {
 		}
 	}
 
-	private void addCuTextMatches(ICompilationUnit cu) throws JavaModelException{
-		fScanner.scan(cu);
-		Set<TextMatch> matches= fScanner.getMatches(); //Set of TextMatch
+	private void addTextMatches(List<ICompilationUnit> units, IProgressMonitor pm) throws JavaModelException {
+		try {
+			pm.beginTask("", units.size()); //$NON-NLS-1$
+			int threadCount= Math.min(Runtime.getRuntime().availableProcessors(), units.size() / MIN_UNITS_PER_THREAD);
+			if (threadCount <= 1) {
+				for (Iterator<ICompilationUnit> iter= units.iterator(); iter.hasNext();) {
+					if (pm.isCanceled())
+						throw new OperationCanceledException();
+					ICompilationUnit cu= iter.next();
+					fScanner.scan(cu);
+					addCuTextMatches(cu, fScanner.getMatches());
+					pm.worked(1);
+				}
+			} else {
+				addTextMatchesInParallel(units, threadCount, pm);
+			}
+		} finally {
+			pm.done();
+		}
+	}
+
+	/**
+	 * Scans the given units with <code>jobCount</code> jobs, each with its own scanner.
+	 * The matches are added to the text change manager on the calling thread as soon as
+	 * a unit has been scanned, since the manager is not thread-safe. Units that are left
+	 * when the jobs end early, e.g. because they have been canceled by someone else, are
+	 * scanned on the calling thread.
+	 *
+	 * @param units the compilation units to scan
+	 * @param jobCount the number of scanner jobs
+	 * @param pm the progress monitor
+	 * @throws JavaModelException if a unit could not be read
+	 */
+	private void addTextMatchesInParallel(List<ICompilationUnit> units, int jobCount, IProgressMonitor pm) throws JavaModelException {
+		ConcurrentLinkedQueue<ICompilationUnit> queue= new ConcurrentLinkedQueue<ICompilationUnit>(units);
+		BlockingQueue<UnitMatches> results= new LinkedBlockingQueue<UnitMatches>();
+		ScannerJob[] jobs= new ScannerJob[jobCount];
+		for (int i= 0; i < jobCount; i++) {
+			jobs[i]= new ScannerJob(queue, results);
+			jobs[i].schedule();
+		}
+		try {
+			int remaining= units.size();
+			while (remaining > 0) {
+				if (pm.isCanceled())
+					throw new OperationCanceledException();
+				UnitMatches result= results.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				if (result == null) {
+					if (isDone(jobs) && results.isEmpty()) {
+						ICompilationUnit cu= queue.poll();
+						if (cu != null) {
+							fScanner.scan(cu);
+							results.add(new UnitMatches(cu, fScanner.getMatches(), null));
+						}
+					}
+					continue;
+				}
+				remaining--;
+				if (result.fFailure != null)
+					rethrow(result.fFailure);
+				addCuTextMatches(result.fUnit, result.fMatches);
+				pm.worked(1);
+			}
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		} finally {
+			for (int i= 0; i < jobCount; i++)
+				jobs[i].cancel();
+		}
+	}
+
+	private static boolean isDone(Job[] jobs) {
+		for (int i= 0; i < jobs.length; i++) {
+			if (jobs[i].getState() != Job.NONE)
+				return false;
+		}
+		return true;
+	}
+
+	private static void rethrow(Throwable failure) throws JavaModelException {
+		if (failure instanceof JavaModelException)
+			throw (JavaModelException) failure;
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+		throw new JavaModelException(failure, IJavaModelStatusConstants.INTERNAL_ERROR);
+	}
+
+	private void addCuTextMatches(ICompilationUnit cu, Set<TextMatch> matches) {
 		if (matches.size() == 0)
 			return;
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -150,6 +150,7 @@ import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
 import org.eclipse.jdt.internal.corext.refactoring.util.ResourceUtil;
 import org.eclipse.jdt.internal.corext.refactoring.util.TextChangeManager;
 import org.eclipse.jdt.internal.corext.refactoring.util.TightSourceRangeComputer;
+import org.eclipse.jdt.internal.corext.refactoring.util.TypeHierarchyCache;
 import org.eclipse.jdt.internal.corext.util.JdtFlags;
 import org.eclipse.jdt.internal.corext.util.Messages;
 import org.eclipse.jdt.internal.corext.util.SearchUtils;
@@ -194,7 +195,7 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 	private BodyUpdater fBodyUpdater;
 	private IDefaultValueAdvisor fDefaultValueAdvisor;
 
-	private ITypeHierarchy fCachedTypeHierarchy= null;
+	private final TypeHierarchyCache fHierarchyCache= new TypeHierarchyCache(null);
 	private boolean fDelegateUpdating;
 	private boolean fDelegateDeprecation;
 
@@ -708,9 +709,7 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 	}
 
 	private ITypeHierarchy getCachedTypeHierarchy(IProgressMonitor monitor) throws JavaModelException {
-		if (fCachedTypeHierarchy == null)
-			fCachedTypeHierarchy= fMethod.getDeclaringType().newTypeHierarchy(new SubProgressMonitor(monitor, 1));
-		return fCachedTypeHierarchy;
+		return fHierarchyCache.getTypeHierarchy(fMethod.getDeclaringType(), new SubProgressMonitor(monitor, 1));
 	}
 
 	/* (non-Javadoc)
@@ -728,11 +727,11 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 				return RefactoringStatus.createFatalErrorStatus(message);
 			}
 			if (fMethod.getDeclaringType().isInterface()) {
-				fTopMethod= MethodChecks.overridesAnotherMethod(fMethod, fMethod.getDeclaringType().newSupertypeHierarchy(new SubProgressMonitor(monitor, 1)));
+				fTopMethod= MethodChecks.overridesAnotherMethod(fMethod, fHierarchyCache.getSupertypeHierarchy(fMethod.getDeclaringType(), new SubProgressMonitor(monitor, 1)));
 				monitor.worked(1);
 			} else if (MethodChecks.isVirtual(fMethod)) {
 				ITypeHierarchy hierarchy= getCachedTypeHierarchy(new SubProgressMonitor(monitor, 1));
-				fTopMethod= MethodChecks.isDeclaredInInterface(fMethod, hierarchy, new SubProgressMonitor(monitor, 1));
+				fTopMethod= MethodChecks.isDeclaredInInterface(fMethod, hierarchy, fHierarchyCache, new SubProgressMonitor(monitor, 1));
 				if (fTopMethod == null)
 					fTopMethod= MethodChecks.overridesAnotherMethod(fMethod, hierarchy);
 			}
@@ -822,7 +821,7 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 			String binaryRefsDescription= Messages.format(RefactoringCoreMessages.ReferencesInBinaryContext_ref_in_binaries_description , BasicElementLabels.getJavaElementName(getMethodName()));
 			ReferencesInBinaryContext binaryRefs= new ReferencesInBinaryContext(binaryRefsDescription);
 
-			fRippleMethods= RippleMethodFinder2.getRelatedMethods(fMethod, binaryRefs, new SubProgressMonitor(pm, 1), null);
+			fRippleMethods= RippleMethodFinder2.getRelatedMethods(fMethod, binaryRefs, fHierarchyCache, new SubProgressMonitor(pm, 1));
 			result.merge(checkVarargs());
 			if (result.hasFatalError())
 				return result;
@@ -856,7 +855,7 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 //			resolveTypesWithoutBindings(new SubProgressMonitor(pm, 1)); // already done in checkSignature(true)
 
 			createChangeManager(new SubProgressMonitor(pm, 1), result);
-			fCachedTypeHierarchy= null;
+			fHierarchyCache.clear();
 
 			if (mustAnalyzeAstOfDeclaringCu())
 				result.merge(checkCompilationofDeclaringCu()); //TODO: should also check in ripple methods (move into createChangeManager)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -38,6 +38,7 @@ import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
 
 import org.eclipse.jdt.internal.corext.codemanipulation.StubUtility;
 import org.eclipse.jdt.internal.corext.refactoring.RefactoringCoreMessages;
+import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTCache;
 import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
 import org.eclipse.jdt.internal.corext.util.JDTUIHelperClasses;
 
@@ -70,6 +71,7 @@ public class CompilationUnitRewrite {
 	private boolean fStatementsRecovery= true;
 	private boolean fBindingsRecovery= false;
 	private final WorkingCopyOwner fOwner;
+	private RefactoringASTCache fASTCache= null;
 	private IDocument fRememberContent= null;
 
 
@@ -117,6 +119,20 @@ public class CompilationUnitRewrite {
 		fResolveBindings= resolve;
 	}
 
+	/**
+	 * Sets the AST cache of the current refactoring session. If set, the AST is taken
+	 * from the cache instead of being parsed again if the compilation unit has already
+	 * been parsed with the same settings. To be effective, this method must be called
+	 * before any of {@link #getRoot()},{@link #getASTRewrite()},
+	 * {@link #getImportRemover()}.
+	 *
+	 * @param cache the AST cache, or <code>null</code> to always parse a new AST
+	 * @since 3.10
+	 */
+	public void setASTCache(RefactoringASTCache cache) {
+		fASTCache= cache;
+	}
+
 	/**
 	 * Controls whether the compiler should perform statements recovery.
 	 * To be effective, this method must be called before any
@@ -318,8 +334,12 @@ public class CompilationUnitRewrite {
 	}
 
 	public CompilationUnit getRoot() {
-		if (fRoot == null)
-			fRoot= new RefactoringASTParser(ASTProvider.SHARED_AST_LEVEL).parse(fCu, fOwner, fResolveBindings, fStatementsRecovery, fBindingsRecovery, null);
+		if (fRoot == null) {
+			if (fASTCache != null)
+				fRoot= fASTCache.getAST(fCu, fOwner, fResolveBindings, fStatementsRecovery, fBindingsRecovery, null);
+			else
+				fRoot= new RefactoringASTParser(ASTProvider.SHARED_AST_LEVEL).parse(fCu, fOwner, fResolveBindings, fStatementsRecovery, fBindingsRecovery, null);
+		}
 		return fRoot;
 	}
 
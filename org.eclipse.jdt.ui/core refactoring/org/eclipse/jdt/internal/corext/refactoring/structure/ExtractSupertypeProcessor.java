@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -205,6 +205,7 @@ public final class ExtractSupertypeProcessor extends PullUpRefactoringProcessor
 		CompilationUnitRewrite rewrite= rewrites.get(unit);
 		if (rewrite == null) {
 			rewrite= new CompilationUnitRewrite(fOwner, unit);
+			rewrite.setASTCache(fASTCache);
 			rewrite.rememberContent();
 			rewrites.put(unit, rewrite);
 		}
@@ -337,6 +338,7 @@ public final class ExtractSupertypeProcessor extends PullUpRefactoringProcessor
 		} finally {
 			monitor.done();
 			clearCaches();
+			fASTCache.clear();
 		}
 	}
 
@@ -773,6 +775,8 @@ public final class ExtractSupertypeProcessor extends PullUpRefactoringProcessor
 		final RefactoringStatus status= new RefactoringStatus();
 		try {
 			monitor.beginTask(RefactoringCoreMessages.ExtractSupertypeProcessor_preparing, 70);
+			// the extracted supertype is created again, cached ASTs would have stale bindings
+			fASTCache.clear();
 			status.merge(super.createWorkingCopyLayer(new SubProgressMonitor(monitor, 10)));
 			final IType declaring= getDeclaringType();
 			status.merge(createExtractedSuperType(getDeclaringSuperTypeHierarchy(new SubProgressMonitor(monitor, 10)).getSuperclass(declaring), new SubProgressMonitor(monitor, 10)));
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2013 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -124,6 +124,7 @@ import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TType;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ISourceConstraintVariable;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ITypeConstraintVariable;
 import org.eclipse.jdt.internal.corext.refactoring.util.JavaElementUtil;
+import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTCache;
 import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
 import org.eclipse.jdt.internal.corext.refactoring.util.ResourceUtil;
 import org.eclipse.jdt.internal.corext.refactoring.util.TextEditBasedChangeManager;
@@ -375,6 +376,9 @@ public class PullUpRefactoringProcessor extends HierarchyProcessor {
 	/** The map of compilation units to compilation unit rewrites */
 	protected Map<ICompilationUnit, CompilationUnitRewrite> fCompilationUnitRewrites;
 
+	/** The ASTs shared by the compilation unit rewrites of repeated condition checks */
+	protected final RefactoringASTCache fASTCache= new RefactoringASTCache(ASTProvider.SHARED_AST_LEVEL);
+
 	/** Should method stubs be generated in subtypes? */
 	protected boolean fCreateMethodStubs= true;
 
@@ -1080,6 +1084,7 @@ public class PullUpRefactoringProcessor extends HierarchyProcessor {
 		} finally {
 			monitor.done();
 			clearCaches();
+			fASTCache.clear();
 		}
 	}
 
@@ -1486,6 +1491,7 @@ public class PullUpRefactoringProcessor extends HierarchyProcessor {
 		CompilationUnitRewrite rewrite= rewrites.get(unit);
 		if (rewrite == null) {
 			rewrite= new CompilationUnitRewrite(fOwner, unit);
+			rewrite.setASTCache(fASTCache);
 			rewrites.put(unit, rewrite);
 		}
 		return rewrite;
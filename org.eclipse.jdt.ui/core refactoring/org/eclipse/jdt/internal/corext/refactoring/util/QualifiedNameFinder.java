@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,10 +20,10 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
 
 import org.eclipse.core.filebuffers.FileBuffers;
 
@@ -44,6 +44,7 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.internal.corext.refactoring.RefactoringCoreMessages;
 import org.eclipse.jdt.internal.corext.refactoring.changes.TextChangeCompatibility;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.util.PatternConstructor;
 
 public class QualifiedNameFinder {
@@ -129,21 +130,47 @@ public class QualifiedNameFinder {
 			return;
 		}
 
-		ResultCollector collector= new ResultCollector(result, newValue);
-		TextSearchEngine engine= TextSearchEngine.create();
-		Pattern searchPattern= PatternConstructor.createPattern(pattern, true, false);
-
-		engine.search(createScope(filePatterns, root), collector, searchPattern, monitor);
+		monitor.beginTask("", 10); //$NON-NLS-1$
+		try {
+			ResultCollector collector= new ResultCollector(result, newValue);
+			TextSearchEngine engine= TextSearchEngine.create();
+			Pattern searchPattern= PatternConstructor.createPattern(pattern, true, false);
+
+			TextSearchScope scope= createScope(pattern, filePatterns, root, new SubProgressMonitor(monitor, 3));
+			if (scope != null)
+				engine.search(scope, collector, searchPattern, new SubProgressMonitor(monitor, 7));
+		} finally {
+			monitor.done();
+		}
 	}
 
-	private static TextSearchScope createScope(String filePatterns, IProject root) {
+	/**
+	 * Creates the scope to search for the qualified name. The scope only contains the files
+	 * that the {@link QualifiedNameIndex} reports as candidates for the qualified name.
+	 *
+	 * @param qualifiedName the qualified name to search for
+	 * @param filePatterns the file name patterns
+	 * @param root the project of the refactored element
+	 * @param monitor the progress monitor
+	 * @return the scope, or <code>null</code> if no file can contain the qualified name
+	 */
+	private static TextSearchScope createScope(String qualifiedName, String filePatterns, IProject root, IProgressMonitor monitor) {
 		HashSet<IProject> res= new HashSet<IProject>();
 		res.add(root);
 		addReferencingProjects(root, res);
-		IResource[] resArr= res.toArray(new IResource[res.size()]);
+		IProject[] projects= res.toArray(new IProject[res.size()]);
 		Pattern filePattern= getFilePattern(filePatterns);
 
-		return TextSearchScope.newSearchScope(resArr, filePattern, false);
+		try {
+			IFile[] candidates= QualifiedNameIndex.getDefault().findCandidates(qualifiedName, projects, filePattern, monitor);
+			if (candidates.length == 0)
+				return null;
+			return TextSearchScope.newSearchScope(candidates, filePattern, false);
+		} catch (CoreException e) {
+			// fall back to searching all files
+			JavaPlugin.log(e);
+			return TextSearchScope.newSearchScope(projects, filePattern, false);
+		}
 	}
 
 	private static Pattern getFilePattern(String filePatterns) {
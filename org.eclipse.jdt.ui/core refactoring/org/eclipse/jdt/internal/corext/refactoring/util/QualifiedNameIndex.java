@@ -0,0 +1,437 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.LocationKind;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * A persistent index of the dotted identifiers (e.g. <code>org.eclipse.Foo</code>) contained in
+ * non-Java text files. The index is used to restrict the text search for qualified names to
+ * the files that actually contain a given name.
+ * <p>
+ * Files are indexed lazily when they are first queried. Entries of files that change are dropped
+ * by a resource change listener and re-indexed on the next query. The index is stored in the
+ * plug-in state location on shutdown and validated against the modification stamps of the
+ * files when it is used again.
+ * </p>
+ *
+ * @since 3.10
+ */
+public final class QualifiedNameIndex {
+
+	private static final String STORE_FILE= "qualifiedNameIndex.dat"; //$NON-NLS-1$
+	private static final int STORE_VERSION= 1;
+	private static final String TEMP_FILE_EXTENSION= ".tmp"; //$NON-NLS-1$
+
+	/**
+	 * Files larger than this are not indexed; they are always considered to contain a name.
+	 */
+	private static final long MAX_FILE_SIZE= 4 * 1024 * 1024;
+
+	/**
+	 * Files containing longer tokens are not indexed; they are always considered to contain a name.
+	 */
+	private static final int MAX_TOKEN_LENGTH= 1024;
+
+	private static final String[] NO_TOKENS= new String[0];
+
+	private static class FileEntry {
+		final long fModificationStamp;
+		/** the distinct tokens of the file, sorted */
+		final String[] fTokens;
+
+		FileEntry(long modificationStamp, String[] tokens) {
+			fModificationStamp= modificationStamp;
+			fTokens= tokens;
+		}
+
+		/**
+		 * Tells whether a token of this file starts with the given name, followed by a '.' or
+		 * the end of the token.
+		 *
+		 * @param name the name to look up
+		 * @return <code>true</code> if the file may contain a qualified name match
+		 */
+		boolean contains(String name) {
+			int index= Arrays.binarySearch(fTokens, name);
+			if (index >= 0)
+				return true;
+			for (int i= -(index + 1); i < fTokens.length && fTokens[i].startsWith(name); i++) {
+				if (fTokens[i].charAt(name.length()) == '.')
+					return true;
+			}
+			return false;
+		}
+	}
+
+	private class DeltaListener implements IResourceChangeListener, IResourceDeltaVisitor {
+
+		public void resourceChanged(IResourceChangeEvent event) {
+			IResourceDelta delta= event.getDelta();
+			if (delta == null)
+				return;
+			try {
+				delta.accept(this);
+			} catch (CoreException e) {
+				JavaPlugin.log(e);
+			}
+		}
+
+		public boolean visit(IResourceDelta delta) throws CoreException {
+			IResource resource= delta.getResource();
+			switch (resource.getType()) {
+				case IResource.FILE:
+					if (delta.getKind() != IResourceDelta.CHANGED || (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED | IResourceDelta.ENCODING)) != 0)
+						removeEntry(resource.getFullPath());
+					return false;
+				case IResource.PROJECT:
+					if (delta.getKind() == IResourceDelta.REMOVED || (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+						removeEntries(resource.getFullPath());
+						return false;
+					}
+					return true;
+				default:
+					return true;
+			}
+		}
+	}
+
+	private static QualifiedNameIndex fgInstance;
+
+	/**
+	 * Returns the shared index.
+	 *
+	 * @return the shared index
+	 */
+	public static synchronized QualifiedNameIndex getDefault() {
+		if (fgInstance == null)
+			fgInstance= new QualifiedNameIndex(JavaPlugin.getDefault().getStateLocation().append(STORE_FILE).toFile());
+		return fgInstance;
+	}
+
+	/**
+	 * Stores the shared index, if it has been created, and stops listening to resource changes.
+	 */
+	public static synchronized void shutdown() {
+		if (fgInstance == null)
+			return;
+		fgInstance.dispose();
+		fgInstance= null;
+	}
+
+	private final Map<IPath, FileEntry> fEntries= new HashMap<IPath, FileEntry>();
+	private final File fStoreFile;
+	private final DeltaListener fListener;
+
+	/**
+	 * Creates an index that is loaded from and stored to the given file. Clients other than
+	 * tests use the shared index returned by {@link #getDefault()}.
+	 *
+	 * @param storeFile the file that stores the index
+	 */
+	public QualifiedNameIndex(File storeFile) {
+		fStoreFile= storeFile;
+		fListener= new DeltaListener();
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(fListener, IResourceChangeEvent.POST_CHANGE);
+		load();
+	}
+
+	/**
+	 * Returns the files in the given projects whose names match the file name pattern and that
+	 * may contain the given qualified name at the start of a dotted identifier. Stale and
+	 * missing index entries of the matching files are updated.
+	 *
+	 * @param qualifiedName the qualified name to look up
+	 * @param projects the projects to search in
+	 * @param fileNamePattern the pattern that the file names must match
+	 * @param monitor the progress monitor
+	 * @return the candidate files
+	 * @throws CoreException if the projects could not be traversed
+	 */
+	public IFile[] findCandidates(String qualifiedName, IProject[] projects, final Pattern fileNamePattern, IProgressMonitor monitor) throws CoreException {
+		final List<IFile> files= new ArrayList<IFile>();
+		IResourceProxyVisitor visitor= new IResourceProxyVisitor() {
+			public boolean visit(IResourceProxy proxy) throws CoreException {
+				if (proxy.isDerived())
+					return false;
+				if (proxy.getType() == IResource.FILE) {
+					if (fileNamePattern.matcher(proxy.getName()).matches())
+						files.add((IFile) proxy.requestResource());
+					return false;
+				}
+				return true;
+			}
+		};
+		for (int i= 0; i < projects.length; i++) {
+			if (projects[i].isAccessible())
+				projects[i].accept(visitor, IResource.NONE);
+		}
+
+		boolean indexable= isIndexable(qualifiedName);
+		List<IFile> result= new ArrayList<IFile>();
+		try {
+			monitor.beginTask("", files.size()); //$NON-NLS-1$
+			for (Iterator<IFile> iter= files.iterator(); iter.hasNext();) {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				IFile file= iter.next();
+				if (!indexable || isDirty(file)) {
+					result.add(file);
+				} else {
+					FileEntry entry= getEntry(file);
+					if (entry == null || entry.contains(qualifiedName))
+						result.add(file);
+				}
+				monitor.worked(1);
+			}
+		} finally {
+			monitor.done();
+		}
+		return result.toArray(new IFile[result.size()]);
+	}
+
+	/**
+	 * Returns the up-to-date entry of the given file, indexing the file if necessary.
+	 *
+	 * @param file the file
+	 * @return the entry, or <code>null</code> if the file cannot be indexed
+	 */
+	private FileEntry getEntry(IFile file) {
+		long stamp= file.getModificationStamp();
+		IPath path= file.getFullPath();
+		synchronized (this) {
+			FileEntry entry= fEntries.get(path);
+			if (entry != null && entry.fModificationStamp == stamp)
+				return entry;
+		}
+		String[] tokens= computeTokens(file);
+		if (tokens == null)
+			return null;
+		FileEntry entry= new FileEntry(stamp, tokens);
+		synchronized (this) {
+			fEntries.put(path, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Tells whether the index has an entry for the given file, up-to-date or not.
+	 * Used by tests only.
+	 *
+	 * @param file the file
+	 * @return <code>true</code> if the file has an entry
+	 */
+	public synchronized boolean testHasEntry(IFile file) {
+		return fEntries.containsKey(file.getFullPath());
+	}
+
+	private synchronized void removeEntry(IPath path) {
+		fEntries.remove(path);
+	}
+
+	private synchronized void removeEntries(IPath projectPath) {
+		for (Iterator<IPath> iter= fEntries.keySet().iterator(); iter.hasNext();) {
+			if (projectPath.isPrefixOf(iter.next()))
+				iter.remove();
+		}
+	}
+
+	private static boolean isIndexable(String qualifiedName) {
+		if (qualifiedName.length() == 0)
+			return false;
+		for (int i= 0; i < qualifiedName.length(); i++) {
+			if (!isTokenPart(qualifiedName.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isTokenPart(char ch) {
+		return ch == '.' || Character.isJavaIdentifierPart(ch);
+	}
+
+	private static boolean isDirty(IFile file) {
+		ITextFileBuffer buffer= FileBuffers.getTextFileBufferManager().getTextFileBuffer(file.getFullPath(), LocationKind.IFILE);
+		return buffer != null && buffer.isDirty();
+	}
+
+	private static String[] computeTokens(IFile file) {
+		File localFile= file.getLocation() != null ? file.getLocation().toFile() : null;
+		if (localFile == null || localFile.length() > MAX_FILE_SIZE)
+			return null;
+		BufferedReader reader= null;
+		try {
+			InputStream stream= file.getContents(true);
+			reader= new BufferedReader(new InputStreamReader(stream, file.getCharset()));
+			Set<String> tokens= new HashSet<String>();
+			StringBuffer token= new StringBuffer();
+			int ch;
+			while ((ch= reader.read()) != -1) {
+				if (isTokenPart((char) ch)) {
+					if (token.length() == MAX_TOKEN_LENGTH)
+						return null;
+					token.append((char) ch);
+				} else if (token.length() > 0) {
+					tokens.add(token.toString());
+					token.setLength(0);
+				}
+			}
+			if (token.length() > 0)
+				tokens.add(token.toString());
+			if (tokens.isEmpty())
+				return NO_TOKENS;
+			String[] result= tokens.toArray(new String[tokens.size()]);
+			Arrays.sort(result);
+			return result;
+		} catch (CoreException e) {
+			return null;
+		} catch (IOException e) {
+			return null;
+		} finally {
+			try {
+				if (reader != null)
+					reader.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Loads the entries from the store file. A store file that cannot be read, e.g. because it
+	 * has been truncated or corrupted, results in an empty index.
+	 */
+	private synchronized void load() {
+		if (!fStoreFile.isFile())
+			return;
+		// no count can be larger than the file
+		int maxCount= (int) Math.min(Integer.MAX_VALUE, fStoreFile.length() / 2);
+		DataInputStream in= null;
+		try {
+			in= new DataInputStream(new BufferedInputStream(new FileInputStream(fStoreFile)));
+			if (in.readInt() != STORE_VERSION)
+				return;
+			int entryCount= readCount(in, maxCount);
+			for (int i= 0; i < entryCount; i++) {
+				IPath path= new Path(in.readUTF());
+				long stamp= in.readLong();
+				String[] tokens= new String[readCount(in, maxCount)];
+				for (int k= 0; k < tokens.length; k++)
+					tokens[k]= in.readUTF();
+				fEntries.put(path, new FileEntry(stamp, tokens));
+			}
+		} catch (IOException e) {
+			fEntries.clear();
+		} catch (RuntimeException e) {
+			fEntries.clear();
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Stores the index and stops listening to resource changes. The index is written to a
+	 * temporary file first, which then replaces the store file.
+	 */
+	public synchronized void dispose() {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(fListener);
+		File temp= null;
+		DataOutputStream out= null;
+		try {
+			temp= File.createTempFile(fStoreFile.getName(), TEMP_FILE_EXTENSION, fStoreFile.getParentFile());
+			out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			out.writeInt(STORE_VERSION);
+			out.writeInt(fEntries.size());
+			for (Iterator<Map.Entry<IPath, FileEntry>> iter= fEntries.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<IPath, FileEntry> entry= iter.next();
+				FileEntry fileEntry= entry.getValue();
+				out.writeUTF(entry.getKey().toString());
+				out.writeLong(fileEntry.fModificationStamp);
+				out.writeInt(fileEntry.fTokens.length);
+				for (int k= 0; k < fileEntry.fTokens.length; k++)
+					out.writeUTF(fileEntry.fTokens[k]);
+			}
+			out.close();
+			out= null;
+
+			// renameTo() does not replace an existing file on all platforms
+			if (!temp.renameTo(fStoreFile) && !(fStoreFile.delete() && temp.renameTo(fStoreFile)))
+				throw new IOException("Cannot replace " + fStoreFile); //$NON-NLS-1$
+			temp= null;
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+		} finally {
+			close(out);
+			if (temp != null)
+				temp.delete();
+		}
+		fEntries.clear();
+	}
+
+	private static int readCount(DataInputStream in, int max) throws IOException {
+		int count= in.readInt();
+		if (count < 0 || count > max)
+			throw new IOException("Corrupt count: " + count); //$NON-NLS-1$
+		return count;
+	}
+
+	private static void close(Closeable closeable) {
+		try {
+			if (closeable != null)
+				closeable.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+}
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.WorkingCopyOwner;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * A cache for the ASTs created during one refactoring session, e.g. in
+ * <code>checkInitialConditions</code>, <code>checkFinalConditions</code> and
+ * <code>createChange</code>.
+ * <p>
+ * ASTs are cached per type root, working copy owner and parser settings, and are only
+ * returned again if the source of the type root has not changed since the AST has been
+ * created. The cache is bounded by the total length of the sources of the cached ASTs;
+ * least recently used ASTs are evicted first. All ASTs are created by a single
+ * {@link RefactoringASTParser}, which also caches the compiler options of the projects.
+ * </p>
+ * <p>
+ * Clients must not modify the returned ASTs; they may only be rewritten with an
+ * {@link org.eclipse.jdt.core.dom.rewrite.ASTRewrite}. This class is not thread-safe.
+ * </p>
+ *
+ * @since 3.10
+ */
+public final class RefactoringASTCache {
+
+	/**
+	 * Default budget in source characters. An AST with resolved bindings takes roughly
+	 * a hundred bytes per character of source.
+	 */
+	private static final int DEFAULT_BUDGET= (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 200);
+
+	private static class Key {
+		private final ITypeRoot fTypeRoot;
+		private final WorkingCopyOwner fOwner;
+		private final int fFlags;
+
+		Key(ITypeRoot typeRoot, WorkingCopyOwner owner, boolean resolveBindings, boolean statementsRecovery, boolean bindingsRecovery) {
+			fTypeRoot= typeRoot;
+			fOwner= owner;
+			fFlags= (resolveBindings ? 1 : 0) | (statementsRecovery ? 2 : 0) | (bindingsRecovery ? 4 : 0);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			return fTypeRoot.equals(other.fTypeRoot) && fFlags == other.fFlags
+					&& (fOwner == null ? other.fOwner == null : fOwner.equals(other.fOwner));
+		}
+
+		@Override
+		public int hashCode() {
+			return fTypeRoot.hashCode() * 31 + fFlags;
+		}
+	}
+
+	private static class Entry {
+		final CompilationUnit fAST;
+		final String fSource;
+
+		Entry(CompilationUnit ast, String source) {
+			fAST= ast;
+			fSource= source;
+		}
+	}
+
+	private final RefactoringASTParser fParser;
+	private final Map<Key, Entry> fEntries= new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+	private final int fBudget;
+	private int fSize;
+
+	private int fHits;
+	private int fMisses;
+	private int fEvictions;
+
+	/**
+	 * Creates a new AST cache with a budget derived from the available memory.
+	 *
+	 * @param level the AST level
+	 */
+	public RefactoringASTCache(int level) {
+		this(level, DEFAULT_BUDGET);
+	}
+
+	/**
+	 * Creates a new AST cache.
+	 *
+	 * @param level the AST level
+	 * @param budget the maximal total length of the sources of the cached ASTs
+	 */
+	public RefactoringASTCache(int level, int budget) {
+		fParser= new RefactoringASTParser(level);
+		fBudget= budget;
+	}
+
+	/**
+	 * Returns an AST for the given type root, creating it if it is not cached or if the
+	 * source of the type root has changed.
+	 *
+	 * @param typeRoot the type root
+	 * @param owner the working copy owner, or <code>null</code>
+	 * @param resolveBindings whether bindings are to be resolved
+	 * @param statementsRecovery whether statements recovery should be enabled
+	 * @param bindingsRecovery whether bindings recovery should be enabled
+	 * @param pm the progress monitor, or <code>null</code>
+	 * @return the AST
+	 */
+	public CompilationUnit getAST(ITypeRoot typeRoot, WorkingCopyOwner owner, boolean resolveBindings, boolean statementsRecovery, boolean bindingsRecovery, IProgressMonitor pm) {
+		String source= getSource(typeRoot);
+		Key key= new Key(typeRoot, owner, resolveBindings, statementsRecovery, bindingsRecovery);
+		Entry entry= fEntries.get(key);
+		if (entry != null) {
+			if (source != null && source.equals(entry.fSource)) {
+				fHits++;
+				return entry.fAST;
+			}
+			remove(key);
+		}
+		fMisses++;
+		CompilationUnit ast= fParser.parse(typeRoot, owner, resolveBindings, statementsRecovery, bindingsRecovery, pm);
+		if (ast != null && source != null && source.length() <= fBudget) {
+			fEntries.put(key, new Entry(ast, source));
+			fSize+= source.length();
+			evict();
+		}
+		return ast;
+	}
+
+	/**
+	 * Returns the number of requests answered from the cache.
+	 *
+	 * @return the number of cache hits
+	 */
+	public int getHitCount() {
+		return fHits;
+	}
+
+	/**
+	 * Returns the number of requests that required a new AST.
+	 *
+	 * @return the number of cache misses
+	 */
+	public int getMissCount() {
+		return fMisses;
+	}
+
+	/**
+	 * Returns the number of ASTs that have been evicted to stay within the budget.
+	 *
+	 * @return the number of evictions
+	 */
+	public int getEvictionCount() {
+		return fEvictions;
+	}
+
+	/**
+	 * Releases all cached ASTs and compiler options.
+	 */
+	public void clear() {
+		fEntries.clear();
+		fSize= 0;
+		fParser.clearCompilerOptions();
+	}
+
+	private void evict() {
+		for (Iterator<Entry> iter= fEntries.values().iterator(); fSize > fBudget && iter.hasNext();) {
+			fSize-= iter.next().fSource.length();
+			iter.remove();
+			fEvictions++;
+		}
+	}
+
+	private void remove(Key key) {
+		Entry entry= fEntries.remove(key);
+		if (entry != null)
+			fSize-= entry.fSource.length();
+	}
+
+	private static String getSource(ITypeRoot typeRoot) {
+		try {
+			return typeRoot.getSource();
+		} catch (JavaModelException e) {
+			return null;
+		}
+	}
+}
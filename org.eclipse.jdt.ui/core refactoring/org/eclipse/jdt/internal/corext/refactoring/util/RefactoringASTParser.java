@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.util;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -36,6 +37,12 @@ public class RefactoringASTParser {
 
 	private ASTParser fParser;
 
+	/**
+	 * The compiler options of the projects parsed so far. A parser that is reused for
+	 * several units of the same project only resolves the project options once.
+	 */
+	private final Map<IJavaProject, Map<String, String>> fCompilerOptions= new HashMap<IJavaProject, Map<String, String>>();
+
 	public RefactoringASTParser(int level) {
 		fParser= ASTParser.newParser(level);
 	}
@@ -59,7 +66,7 @@ public class RefactoringASTParser {
 		fParser.setSource(typeRoot);
 		if (owner != null)
 			fParser.setWorkingCopyOwner(owner);
-		fParser.setCompilerOptions(getCompilerOptions(typeRoot));
+		fParser.setCompilerOptions(getCachedCompilerOptions(typeRoot));
 		CompilationUnit result= (CompilationUnit) fParser.createAST(pm);
 		return result;
 	}
@@ -79,7 +86,7 @@ public class RefactoringASTParser {
 		fParser.setSource(newCuSource.toCharArray());
 		fParser.setUnitName(originalCu.getElementName());
 		fParser.setProject(originalCu.getJavaProject());
-		fParser.setCompilerOptions(getCompilerOptions(originalCu));
+		fParser.setCompilerOptions(getCachedCompilerOptions(originalCu));
 		CompilationUnit newCUNode= (CompilationUnit) fParser.createAST(pm);
 		return newCUNode;
 	}
@@ -100,7 +107,7 @@ public class RefactoringASTParser {
 		String cfName= originalCf.getElementName();
 		fParser.setUnitName(cfName.substring(0, cfName.length() - 6) + JavaModelUtil.DEFAULT_CU_SUFFIX);
 		fParser.setProject(originalCf.getJavaProject());
-		fParser.setCompilerOptions(getCompilerOptions(originalCf));
+		fParser.setCompilerOptions(getCachedCompilerOptions(originalCf));
 		CompilationUnit newCUNode= (CompilationUnit) fParser.createAST(pm);
 		return newCUNode;
 	}
@@ -124,6 +131,23 @@ public class RefactoringASTParser {
 		}
 	}
 
+	/**
+	 * Forgets the compiler options that have been cached by this parser.
+	 */
+	public void clearCompilerOptions() {
+		fCompilerOptions.clear();
+	}
+
+	private Map<String, String> getCachedCompilerOptions(IJavaElement element) {
+		IJavaProject project= element.getJavaProject();
+		Map<String, String> options= fCompilerOptions.get(project);
+		if (options == null) {
+			options= getCompilerOptions(project);
+			fCompilerOptions.put(project, options);
+		}
+		return options;
+	}
+
 	public static ICompilationUnit getCompilationUnit(ASTNode node) {
 		ASTNode root= node.getRoot();
 		if (root instanceof CompilationUnit) {
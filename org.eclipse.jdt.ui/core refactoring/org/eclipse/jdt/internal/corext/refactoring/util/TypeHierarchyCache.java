@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.WorkingCopyOwner;
+
+/**
+ * A cache for type hierarchies that lives as long as a single refactoring session.
+ * <p>
+ * Every hierarchy is computed at most once per focus type. Queries for the subtypes
+ * of a type are answered from an already computed full hierarchy if the type is the
+ * focus or a subtype of the focus of that hierarchy, since such a hierarchy already
+ * contains the complete subgraph below the type. Queries for the supertypes of a type
+ * are only answered from a hierarchy whose focus is the type, since a full hierarchy
+ * does not contain the super interfaces of subtypes that are unrelated to its focus.
+ * </p>
+ * <p>
+ * The cache does not listen to Java model changes. Clients must call {@link #clear()}
+ * when the hierarchies may have become stale, e.g. after the change has been
+ * created. This class is not thread-safe.
+ * </p>
+ *
+ * @since 3.10
+ */
+public final class TypeHierarchyCache {
+
+	private final WorkingCopyOwner fOwner;
+
+	/** Full type hierarchies, keyed by their focus type */
+	private final Map<IType, ITypeHierarchy> fTypeHierarchies= new HashMap<IType, ITypeHierarchy>();
+
+	/** Supertype hierarchies, keyed by their focus type */
+	private final Map<IType, ITypeHierarchy> fSupertypeHierarchies= new HashMap<IType, ITypeHierarchy>();
+
+	/** Full type hierarchies in creation order, used to look up shared subgraphs */
+	private final List<ITypeHierarchy> fRoots= new ArrayList<ITypeHierarchy>();
+
+	private int fHits;
+	private int fMisses;
+
+	/**
+	 * Creates a new hierarchy cache.
+	 *
+	 * @param owner the working copy owner to compute the hierarchies with, or <code>null</code>
+	 *            for the primary owner
+	 */
+	public TypeHierarchyCache(WorkingCopyOwner owner) {
+		fOwner= owner;
+	}
+
+	/**
+	 * Returns the working copy owner of this cache.
+	 *
+	 * @return the working copy owner, or <code>null</code> for the primary owner
+	 */
+	public WorkingCopyOwner getOwner() {
+		return fOwner;
+	}
+
+	/**
+	 * Returns a full type hierarchy whose focus is the given type.
+	 *
+	 * @param type the focus type
+	 * @param monitor the progress monitor, or <code>null</code>
+	 * @return the type hierarchy of <code>type</code>
+	 * @throws JavaModelException if the hierarchy could not be computed
+	 */
+	public ITypeHierarchy getTypeHierarchy(IType type, IProgressMonitor monitor) throws JavaModelException {
+		ITypeHierarchy hierarchy= fTypeHierarchies.get(type);
+		if (hierarchy != null) {
+			fHits++;
+			return hierarchy;
+		}
+		fMisses++;
+		hierarchy= type.newTypeHierarchy(fOwner, getMonitor(monitor));
+		fTypeHierarchies.put(type, hierarchy);
+		fRoots.add(hierarchy);
+		return hierarchy;
+	}
+
+	/**
+	 * Returns a hierarchy that contains all subtypes of the given type. The focus of the
+	 * returned hierarchy is either the given type or one of its supertypes, so the
+	 * hierarchy must not be used to look up the supertypes of <code>type</code>.
+	 *
+	 * @param type the type
+	 * @param monitor the progress monitor, or <code>null</code>
+	 * @return a hierarchy containing all subtypes of <code>type</code>
+	 * @throws JavaModelException if the hierarchy could not be computed
+	 */
+	public ITypeHierarchy getHierarchyContaining(IType type, IProgressMonitor monitor) throws JavaModelException {
+		ITypeHierarchy hierarchy= fTypeHierarchies.get(type);
+		if (hierarchy == null)
+			hierarchy= findSharedHierarchy(type);
+		if (hierarchy != null) {
+			fHits++;
+			return hierarchy;
+		}
+		return getTypeHierarchy(type, monitor);
+	}
+
+	/**
+	 * Returns a hierarchy that contains all supertypes of the given type. If a full
+	 * hierarchy whose focus is the type has already been computed, that hierarchy is returned.
+	 *
+	 * @param type the type
+	 * @param monitor the progress monitor, or <code>null</code>
+	 * @return a hierarchy containing all supertypes of <code>type</code>
+	 * @throws JavaModelException if the hierarchy could not be computed
+	 */
+	public ITypeHierarchy getSupertypeHierarchy(IType type, IProgressMonitor monitor) throws JavaModelException {
+		ITypeHierarchy hierarchy= fTypeHierarchies.get(type);
+		if (hierarchy == null)
+			hierarchy= fSupertypeHierarchies.get(type);
+		if (hierarchy != null) {
+			fHits++;
+			return hierarchy;
+		}
+		fMisses++;
+		hierarchy= type.newSupertypeHierarchy(fOwner, getMonitor(monitor));
+		fSupertypeHierarchies.put(type, hierarchy);
+		return hierarchy;
+	}
+
+	/**
+	 * Returns all subtypes of the given type.
+	 *
+	 * @param type the type
+	 * @param monitor the progress monitor, or <code>null</code>
+	 * @return all subtypes of <code>type</code>
+	 * @throws JavaModelException if the hierarchy could not be computed
+	 */
+	public IType[] getAllSubtypes(IType type, IProgressMonitor monitor) throws JavaModelException {
+		return getHierarchyContaining(type, monitor).getAllSubtypes(type);
+	}
+
+	/**
+	 * Returns all super interfaces of the given type.
+	 *
+	 * @param type the type
+	 * @param monitor the progress monitor, or <code>null</code>
+	 * @return all super interfaces of <code>type</code>
+	 * @throws JavaModelException if the hierarchy could not be computed
+	 */
+	public IType[] getAllSuperInterfaces(IType type, IProgressMonitor monitor) throws JavaModelException {
+		return getSupertypeHierarchy(type, monitor).getAllSuperInterfaces(type);
+	}
+
+	/**
+	 * Returns the number of queries that have been answered without computing a new hierarchy.
+	 *
+	 * @return the number of cache hits
+	 */
+	public int getHitCount() {
+		return fHits;
+	}
+
+	/**
+	 * Returns the number of hierarchies that have been computed by this cache.
+	 *
+	 * @return the number of cache misses
+	 */
+	public int getMissCount() {
+		return fMisses;
+	}
+
+	/**
+	 * Releases all cached hierarchies.
+	 */
+	public void clear() {
+		fTypeHierarchies.clear();
+		fSupertypeHierarchies.clear();
+		fRoots.clear();
+	}
+
+	private ITypeHierarchy findSharedHierarchy(IType type) {
+		for (Iterator<ITypeHierarchy> iter= fRoots.iterator(); iter.hasNext();) {
+			ITypeHierarchy hierarchy= iter.next();
+			if (hierarchy.contains(type) && isSubtypeOfFocus(hierarchy, type))
+				return hierarchy;
+		}
+		return null;
+	}
+
+	private static boolean isSubtypeOfFocus(ITypeHierarchy hierarchy, IType type) {
+		IType focus= hierarchy.getType();
+		if (type.equals(focus))
+			return true;
+		IType[] supertypes= hierarchy.getAllSupertypes(type);
+		for (int i= 0; i < supertypes.length; i++) {
+			if (focus.equals(supertypes[i]))
+				return true;
+		}
+		return false;
+	}
+
+	private static IProgressMonitor getMonitor(IProgressMonitor monitor) {
+		return monitor != null ? monitor : new NullProgressMonitor();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -76,6 +76,7 @@ import org.eclipse.jdt.core.manipulation.JavaManipulation;
 
 import org.eclipse.jdt.internal.corext.fix.CleanUpRegistry;
 import org.eclipse.jdt.internal.corext.javadoc.JavaDocLocations;
+import org.eclipse.jdt.internal.corext.refactoring.util.QualifiedNameIndex;
 import org.eclipse.jdt.internal.corext.template.java.AbstractJavaContextType;
 import org.eclipse.jdt.internal.corext.template.java.CodeTemplateContextType;
 import org.eclipse.jdt.internal.corext.template.java.JavaContextType;
@@ -103,9 +104,12 @@ import org.eclipse.jdt.internal.ui.text.PreferencesAdapter;
 import org.eclipse.jdt.internal.ui.text.folding.JavaFoldingStructureProviderRegistry;
 import org.eclipse.jdt.internal.ui.text.java.ContentAssistHistory;
 import org.eclipse.jdt.internal.ui.text.java.hover.JavaEditorTextHoverDescriptor;
+import org.eclipse.jdt.internal.ui.text.javadoc.AttachedJavadocCache;
+import org.eclipse.jdt.internal.ui.text.javadoc.InheritedJavadocCache;
 import org.eclipse.jdt.internal.ui.text.spelling.SpellCheckEngine;
 import org.eclipse.jdt.internal.ui.viewsupport.ImageDescriptorRegistry;
 import org.eclipse.jdt.internal.ui.viewsupport.ImagesOnFileSystemRegistry;
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementLabelCache;
 import org.eclipse.jdt.internal.ui.viewsupport.ProblemMarkerManager;
 import org.eclipse.jdt.internal.ui.wizards.buildpaths.ClasspathAttributeConfigurationDescriptors;
 
@@ -197,6 +201,21 @@ public class JavaPlugin extends AbstractUIPlugin {
 	private ImageDescriptorRegistry fImageDescriptorRegistry;
 
 	private MembersOrderPreferenceCache fMembersOrderPreferenceCache;
+	/**
+	 * The cache of Java element labels.
+	 * @since 3.10
+	 */
+	private JavaElementLabelCache fJavaElementLabelCache;
+	/**
+	 * The cache of attached Javadoc.
+	 * @since 3.10
+	 */
+	private AttachedJavadocCache fAttachedJavadocCache;
+	/**
+	 * The cache of inherited Javadoc descriptions.
+	 * @since 3.10
+	 */
+	private InheritedJavadocCache fInheritedJavadocCache;
 	private IPropertyChangeListener fFontPropertyChangeListener;
 
 	/**
@@ -593,6 +612,21 @@ public class JavaPlugin extends AbstractUIPlugin {
 				fMembersOrderPreferenceCache= null;
 			}
 
+			synchronized (this) {
+				if (fJavaElementLabelCache != null) {
+					fJavaElementLabelCache.dispose();
+					fJavaElementLabelCache= null;
+				}
+				if (fAttachedJavadocCache != null) {
+					fAttachedJavadocCache.dispose();
+					fAttachedJavadocCache= null;
+				}
+				if (fInheritedJavadocCache != null) {
+					fInheritedJavadocCache.dispose();
+					fInheritedJavadocCache= null;
+				}
+			}
+
 			if (fSaveParticipantRegistry != null) {
 				fSaveParticipantRegistry.dispose();
 				fSaveParticipantRegistry= null;
@@ -617,6 +651,8 @@ public class JavaPlugin extends AbstractUIPlugin {
 
 			QualifiedTypeNameHistory.getDefault().save();
 
+			QualifiedNameIndex.shutdown();
+
 			// must add here to guarantee that it is the first in the listener list
 
 			OpenTypeHistory.shutdown();
@@ -712,6 +748,45 @@ public class JavaPlugin extends AbstractUIPlugin {
 		return fASTProvider;
 	}
 
+	/**
+	 * Returns the cache of Java element labels.
+	 *
+	 * @return the label cache
+	 * @since 3.10
+	 */
+	public synchronized JavaElementLabelCache getJavaElementLabelCache() {
+		if (fJavaElementLabelCache == null)
+			fJavaElementLabelCache= new JavaElementLabelCache(getPreferenceStore());
+
+		return fJavaElementLabelCache;
+	}
+
+	/**
+	 * Returns the cache of Javadoc attached to libraries.
+	 *
+	 * @return the attached Javadoc cache
+	 * @since 3.10
+	 */
+	public synchronized AttachedJavadocCache getAttachedJavadocCache() {
+		if (fAttachedJavadocCache == null)
+			fAttachedJavadocCache= new AttachedJavadocCache();
+
+		return fAttachedJavadocCache;
+	}
+
+	/**
+	 * Returns the cache of the descriptions that replace <code>{&#64;inheritDoc}</code> tags.
+	 *
+	 * @return the inherited Javadoc cache
+	 * @since 3.10
+	 */
+	public synchronized InheritedJavadocCache getInheritedJavadocCache() {
+		if (fInheritedJavadocCache == null)
+			fInheritedJavadocCache= new InheritedJavadocCache();
+
+		return fInheritedJavadocCache;
+	}
+
 	public synchronized MembersOrderPreferenceCache getMemberOrderPreferenceCache() {
 		// initialized on startup
 		return fMembersOrderPreferenceCache;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -56,6 +56,7 @@ import org.eclipse.jdt.ui.text.IJavaPartitions;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+import org.eclipse.jdt.internal.ui.text.JavaBracketIndex;
 import org.eclipse.jdt.internal.ui.text.JavaHeuristicScanner;
 import org.eclipse.jdt.internal.ui.text.JavaIndenter;
 
@@ -165,9 +166,10 @@ public class IndentAction extends TextEditorAction {
 						target.beginCompoundChange();
 
 					try {
-						JavaHeuristicScanner scanner= new JavaHeuristicScanner(document);
-						JavaIndenter indenter= new JavaIndenter(document, scanner, getJavaProject());
 						final boolean multiLine= nLines > 1;
+						JavaHeuristicScanner scanner= new JavaHeuristicScanner(document);
+						JavaBracketIndex bracketIndex= multiLine ? new JavaBracketIndex(document) : null;
+						JavaIndenter indenter= new JavaIndenter(document, scanner, getJavaProject(), bracketIndex);
 						boolean hasChanged= false;
 						for (int i= 0; i < nLines; i++) {
 							hasChanged |= indentLine(document, firstLine + i, offset, indenter, scanner, multiLine);
@@ -252,9 +254,6 @@ public class IndentAction extends TextEditorAction {
 		int offset= 0;
 		int length= document.getLength();
 
-		JavaHeuristicScanner scanner= new JavaHeuristicScanner(document);
-		JavaIndenter indenter= new JavaIndenter(document, scanner, project);
-
 		ArrayList<ReplaceEdit> edits= new ArrayList<ReplaceEdit>();
 
 		int firstLine= document.getLineOfOffset(offset);
@@ -262,6 +261,10 @@ public class IndentAction extends TextEditorAction {
 		int minusOne= length == 0 ? 0 : 1;
 		int numberOfLines= document.getLineOfOffset(offset + length - minusOne) - firstLine + 1;
 
+		JavaHeuristicScanner scanner= new JavaHeuristicScanner(document);
+		JavaBracketIndex bracketIndex= numberOfLines > 1 ? new JavaBracketIndex(document) : null;
+		JavaIndenter indenter= new JavaIndenter(document, scanner, project, bracketIndex);
+
 		int shift= 0;
 		for (int i= 0; i < numberOfLines; i++) {
 			ReplaceData data= computeReplaceData(document, firstLine + i, indenter, scanner, numberOfLines > 1, false, project);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,10 +11,14 @@
 
 package org.eclipse.jdt.internal.ui.javaeditor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
@@ -54,6 +58,11 @@ import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
 /**
  * Manages the override and overwrite indicators for
  * the given Java element and annotation model.
+ * <p>
+ * The overridden methods are cached per declaring type between reconciles. The cache of a
+ * type is only computed again if the type or its supertypes have changed. Only the annotations
+ * of methods whose indicator has changed are replaced in the annotation model.
+ * </p>
  *
  * @since 3.0
  */
@@ -123,12 +132,61 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 		}
 	}
 
+	/**
+	 * The override indicator of a method, or no indicator if <code>fText</code> is
+	 * <code>null</code>.
+	 *
+	 * @since 3.10
+	 */
+	private static class MethodOverride {
+		final int fModifiers;
+		final boolean fIsImplements;
+		final String fText;
+
+		MethodOverride(int modifiers, boolean isImplements, String text) {
+			fModifiers= modifiers;
+			fIsImplements= isImplements;
+			fText= text;
+		}
+	}
+
+	/**
+	 * The override indicators of the methods of a type.
+	 *
+	 * @since 3.10
+	 */
+	private static class TypeOverrides {
+		/** The key of the type and of its supertypes, and the methods of the supertypes in source */
+		final String fSignature;
+		/** Method binding key -> MethodOverride */
+		final Map<String, MethodOverride> fMethods= new HashMap<String, MethodOverride>();
+
+		TypeOverrides(String signature) {
+			fSignature= signature;
+		}
+	}
+
 	static final String ANNOTATION_TYPE= "org.eclipse.jdt.ui.overrideIndicator"; //$NON-NLS-1$
 
 	private IAnnotationModel fAnnotationModel;
 	private Object fAnnotationModelLockObject;
-	private Annotation[] fOverrideAnnotations;
+	/**
+	 * Method binding key and occurrence -> OverrideIndicator, or <code>null</code> if there are
+	 * no annotations.
+	 */
+	private Map<String, OverrideIndicator> fOverrideAnnotations;
 	private ITypeRoot fJavaElement;
+	/**
+	 * Type binding key -> TypeOverrides, of the types of the last AST.
+	 * @since 3.10
+	 */
+	private Map<String, TypeOverrides> fTypeOverrides= new HashMap<String, TypeOverrides>();
+	/**
+	 * The lock for {@link #fTypeOverrides}, as the indicators are updated on creation and after
+	 * each reconcile.
+	 * @since 3.10
+	 */
+	private final Object fTypeOverridesLock= new Object();
 
 
 	public OverrideIndicatorManager(IAnnotationModel annotationModel, ITypeRoot javaElement, CompilationUnit ast) {
@@ -171,58 +229,184 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 		if (ast == null || progressMonitor.isCanceled())
 			return;
 
-		final Map<Annotation, Position> annotationMap= new HashMap<Annotation, Position>(50);
-
-		ast.accept(new ASTVisitor(false) {
-			/*
-			 * @see org.eclipse.jdt.core.dom.ASTVisitor#visit(org.eclipse.jdt.core.dom.MethodDeclaration)
-			 */
-			@Override
-			public boolean visit(MethodDeclaration node) {
-				IMethodBinding binding= node.resolveBinding();
-				if (binding != null) {
-					IMethodBinding definingMethod= Bindings.findOverriddenMethod(binding, true);
-					if (definingMethod != null) {
-
-						ITypeBinding definingType= definingMethod.getDeclaringClass();
-						String qualifiedMethodName= definingType.getQualifiedName() + "." + binding.getName(); //$NON-NLS-1$
-
-						boolean isImplements= JdtFlags.isAbstract(definingMethod);
-						String text;
-						if (isImplements)
-							text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_implements, BasicElementLabels.getJavaElementName(qualifiedMethodName));
-						else
-							text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_overrides, BasicElementLabels.getJavaElementName(qualifiedMethodName));
-
-						SimpleName name= node.getName();
-						Position position= new Position(name.getStartPosition(), name.getLength());
-
-						annotationMap.put(
-								new OverrideIndicator(isImplements, text, binding.getKey()),
-								position);
-
+		final Map<String, TypeOverrides> typeOverrides= new HashMap<String, TypeOverrides>();
+		final Map<String, OverrideIndicator> annotations= new HashMap<String, OverrideIndicator>();
+		final Map<OverrideIndicator, Position> positions= new HashMap<OverrideIndicator, Position>();
+
+		synchronized (fTypeOverridesLock) {
+			ast.accept(new ASTVisitor(false) {
+				/*
+				 * @see org.eclipse.jdt.core.dom.ASTVisitor#visit(org.eclipse.jdt.core.dom.MethodDeclaration)
+				 */
+				@Override
+				public boolean visit(MethodDeclaration node) {
+					IMethodBinding binding= node.resolveBinding();
+					if (binding != null) {
+						MethodOverride override= getMethodOverride(binding, typeOverrides);
+						if (override.fText != null) {
+							String key= binding.getKey();
+							String id= key;
+							for (int i= 1; annotations.containsKey(id); i++)
+								id= key + '#' + i;
+
+							SimpleName name= node.getName();
+							OverrideIndicator annotation= new OverrideIndicator(override.fIsImplements, override.fText, key);
+							annotations.put(id, annotation);
+							positions.put(annotation, new Position(name.getStartPosition(), name.getLength()));
+						}
 					}
+					return true;
 				}
-				return true;
-			}
-		});
+			});
+
+			fTypeOverrides= typeOverrides;
+		}
 
 		if (progressMonitor.isCanceled())
 			return;
 
 		synchronized (fAnnotationModelLockObject) {
-			if (fAnnotationModel instanceof IAnnotationModelExtension) {
-				((IAnnotationModelExtension)fAnnotationModel).replaceAnnotations(fOverrideAnnotations, annotationMap);
-			} else {
-				removeAnnotations();
-				Iterator<Entry<Annotation, Position>> iter= annotationMap.entrySet().iterator();
-				while (iter.hasNext()) {
-					Entry<Annotation, Position> mapEntry= iter.next();
-					fAnnotationModel.addAnnotation(mapEntry.getKey(), mapEntry.getValue());
+			List<Annotation> removed= new ArrayList<Annotation>();
+			Map<Annotation, Position> added= new HashMap<Annotation, Position>();
+			if (fOverrideAnnotations != null) {
+				for (Iterator<Entry<String, OverrideIndicator>> iter= fOverrideAnnotations.entrySet().iterator(); iter.hasNext();) {
+					Entry<String, OverrideIndicator> entry= iter.next();
+					if (!annotations.containsKey(entry.getKey()))
+						removed.add(entry.getValue());
+				}
+			}
+			for (Iterator<Entry<String, OverrideIndicator>> iter= annotations.entrySet().iterator(); iter.hasNext();) {
+				Entry<String, OverrideIndicator> entry= iter.next();
+				OverrideIndicator annotation= entry.getValue();
+				Position position= positions.get(annotation);
+				OverrideIndicator existing= fOverrideAnnotations != null ? fOverrideAnnotations.get(entry.getKey()) : null;
+				if (existing != null) {
+					if (isEqual(existing, annotation, position)) {
+						entry.setValue(existing);
+						continue;
+					}
+					removed.add(existing);
 				}
+				added.put(annotation, position);
 			}
-			fOverrideAnnotations= annotationMap.keySet().toArray(new Annotation[annotationMap.keySet().size()]);
+
+			if (!removed.isEmpty() || !added.isEmpty()) {
+				Annotation[] removedArray= removed.toArray(new Annotation[removed.size()]);
+				if (fAnnotationModel instanceof IAnnotationModelExtension) {
+					((IAnnotationModelExtension)fAnnotationModel).replaceAnnotations(removedArray, added);
+				} else {
+					for (int i= 0; i < removedArray.length; i++)
+						fAnnotationModel.removeAnnotation(removedArray[i]);
+					Iterator<Entry<Annotation, Position>> iter= added.entrySet().iterator();
+					while (iter.hasNext()) {
+						Entry<Annotation, Position> mapEntry= iter.next();
+						fAnnotationModel.addAnnotation(mapEntry.getKey(), mapEntry.getValue());
+					}
+				}
+			}
+			fOverrideAnnotations= annotations;
+		}
+	}
+
+	/**
+	 * Tells whether an annotation of the model shows the same indicator at the same position as
+	 * a new annotation.
+	 *
+	 * @param existing the annotation in the annotation model
+	 * @param annotation the new annotation
+	 * @param position the position of the new annotation
+	 * @return <code>true</code> if the existing annotation can be kept
+	 * @since 3.10
+	 */
+	private boolean isEqual(OverrideIndicator existing, OverrideIndicator annotation, Position position) {
+		if (existing.isOverwriteIndicator() != annotation.isOverwriteIndicator() || !existing.getText().equals(annotation.getText()))
+			return false;
+		return position.equals(fAnnotationModel.getPosition(existing));
+	}
+
+	/**
+	 * Returns the override indicator of the given method. It is taken from the cache of the
+	 * previous update if the declaring type and its supertypes have not changed.
+	 *
+	 * @param binding the method binding
+	 * @param typeOverrides the caches of the types of the current update
+	 * @return the override indicator of the method
+	 * @since 3.10
+	 */
+	private MethodOverride getMethodOverride(IMethodBinding binding, Map<String, TypeOverrides> typeOverrides) {
+		ITypeBinding type= binding.getDeclaringClass();
+		String typeKey= type.getKey();
+		TypeOverrides overrides= typeOverrides.get(typeKey);
+		if (overrides == null) {
+			String signature= computeSignature(type);
+			overrides= fTypeOverrides.get(typeKey);
+			if (overrides == null || !overrides.fSignature.equals(signature))
+				overrides= new TypeOverrides(signature);
+			typeOverrides.put(typeKey, overrides);
+		}
+
+		String key= binding.getKey();
+		MethodOverride override= overrides.fMethods.get(key);
+		if (override != null && override.fModifiers == binding.getModifiers())
+			return override;
+
+		override= computeMethodOverride(binding);
+		overrides.fMethods.put(key, override);
+		return override;
+	}
+
+	private static MethodOverride computeMethodOverride(IMethodBinding binding) {
+		IMethodBinding definingMethod= Bindings.findOverriddenMethod(binding, true);
+		if (definingMethod == null)
+			return new MethodOverride(binding.getModifiers(), false, null);
+
+		ITypeBinding definingType= definingMethod.getDeclaringClass();
+		String qualifiedMethodName= definingType.getQualifiedName() + "." + binding.getName(); //$NON-NLS-1$
+
+		boolean isImplements= JdtFlags.isAbstract(definingMethod);
+		String text;
+		if (isImplements)
+			text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_implements, BasicElementLabels.getJavaElementName(qualifiedMethodName));
+		else
+			text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_overrides, BasicElementLabels.getJavaElementName(qualifiedMethodName));
+		return new MethodOverride(binding.getModifiers(), isImplements, text);
+	}
+
+	/**
+	 * Computes the signature of a type on which the overridden methods of its methods depend:
+	 * the keys of the type and of all its supertypes, and the methods of the supertypes that are
+	 * in source and may have been changed since the last update.
+	 *
+	 * @param type the type binding
+	 * @return the signature
+	 * @since 3.10
+	 */
+	private static String computeSignature(ITypeBinding type) {
+		StringBuffer buf= new StringBuffer(type.getKey());
+		appendSupertypes(type, buf, new HashSet<String>());
+		return buf.toString();
+	}
+
+	private static void appendSupertypes(ITypeBinding type, StringBuffer buf, Set<String> visited) {
+		ITypeBinding superclass= type.getSuperclass();
+		if (superclass != null)
+			appendType(superclass, buf, visited);
+		ITypeBinding[] interfaces= type.getInterfaces();
+		for (int i= 0; i < interfaces.length; i++)
+			appendType(interfaces[i], buf, visited);
+	}
+
+	private static void appendType(ITypeBinding type, StringBuffer buf, Set<String> visited) {
+		String key= type.getKey();
+		if (!visited.add(key))
+			return;
+		buf.append(';').append(key);
+		if (type.isFromSource()) {
+			IMethodBinding[] methods= type.getTypeDeclaration().getDeclaredMethods();
+			for (int i= 0; i < methods.length; i++)
+				buf.append(',').append(methods[i].getKey()).append(':').append(methods[i].getModifiers());
 		}
+		appendSupertypes(type, buf, visited);
 	}
 
 	/**
@@ -233,11 +417,12 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 			return;
 
 		synchronized (fAnnotationModelLockObject) {
+			Annotation[] annotations= fOverrideAnnotations.values().toArray(new Annotation[fOverrideAnnotations.size()]);
 			if (fAnnotationModel instanceof IAnnotationModelExtension) {
-				((IAnnotationModelExtension)fAnnotationModel).replaceAnnotations(fOverrideAnnotations, null);
+				((IAnnotationModelExtension)fAnnotationModel).replaceAnnotations(annotations, null);
 			} else {
-				for (int i= 0, length= fOverrideAnnotations.length; i < length; i++)
-					fAnnotationModel.removeAnnotation(fOverrideAnnotations[i]);
+				for (int i= 0, length= annotations.length; i < length; i++)
+					fAnnotationModel.removeAnnotation(annotations[i]);
 			}
 			fOverrideAnnotations= null;
 		}
@@ -253,6 +438,12 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 	 * @see org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener#reconciled(CompilationUnit, boolean, IProgressMonitor)
 	 */
 	public void reconciled(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
+		// a forced reconcile reports changes of other compilation units, which may be supertypes
+		if (forced) {
+			synchronized (fTypeOverridesLock) {
+				fTypeOverrides= new HashMap<String, TypeOverrides>();
+			}
+		}
 		updateAnnotations(ast, progressMonitor);
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,7 +13,10 @@ package org.eclipse.jdt.internal.ui.packageview;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
@@ -77,6 +80,13 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	protected static final int GRANT_PARENT= 1 << 1;
 	protected static final int PROJECT= 1 << 2;
 
+	/**
+	 * The delay in milliseconds before updates from other threads are run, so that the refreshes
+	 * of the deltas arriving in that time can be merged.
+	 * @since 3.10
+	 */
+	private static final long UPDATE_DELAY= 50;
+
 	private TreeViewer fViewer;
 	private Object fInput;
 	private boolean fIsFlatLayout;
@@ -169,7 +179,7 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 			};
 			fUpdateJob.setSystem(true);
 		}
-		fUpdateJob.schedule();
+		fUpdateJob.schedule(UPDATE_DELAY);
 	}
 
 	/**
@@ -189,13 +199,72 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 		}
 	}
 
+	/**
+	 * Runs the given updates. The refreshes posted by {@link #postRefresh(List, boolean, Collection)}
+	 * are merged and run after the other updates: each element is refreshed at most once, and
+	 * not at all if all its items are refreshed with an ancestor.
+	 *
+	 * @param runnables the updates
+	 */
 	private void runUpdates(Collection<Runnable> runnables) {
+		// element -> whether to update labels, in the order of the refreshes
+		Map<Object, Boolean> toRefresh= new LinkedHashMap<Object, Boolean>();
 		Iterator<Runnable> runnableIterator = runnables.iterator();
 		while (runnableIterator.hasNext()){
-			runnableIterator.next().run();
+			Runnable runnable= runnableIterator.next();
+			if (runnable instanceof RefreshRunnable) {
+				RefreshRunnable refresh= (RefreshRunnable) runnable;
+				for (Iterator<Object> iter= refresh.fToRefresh.iterator(); iter.hasNext();) {
+					Object element= iter.next();
+					Boolean updateLabels= toRefresh.get(element);
+					if (updateLabels == null || !updateLabels.booleanValue() && refresh.fUpdateLabels)
+						toRefresh.put(element, Boolean.valueOf(refresh.fUpdateLabels));
+				}
+			} else {
+				runnable.run();
+			}
+		}
+		if (toRefresh.isEmpty())
+			return;
+
+		if (toRefresh.containsKey(null)) {
+			fViewer.refresh(null, toRefresh.containsValue(Boolean.TRUE));
+			return;
+		}
+		for (Iterator<Entry<Object, Boolean>> iter= toRefresh.entrySet().iterator(); iter.hasNext();) {
+			Entry<Object, Boolean> entry= iter.next();
+			Object element= entry.getKey();
+			boolean updateLabels= entry.getValue().booleanValue();
+			Widget[] items= fViewer.testFindItems(element);
+			if (items.length > 0 && !isRefreshedWithAncestor(items, updateLabels, toRefresh))
+				fViewer.refresh(element, updateLabels);
 		}
 	}
 
+	/**
+	 * Tells whether all the given items are refreshed when one of their ancestors is refreshed.
+	 *
+	 * @param items the items of an element
+	 * @param updateLabels whether the labels of the element are to be updated
+	 * @param toRefresh the elements to refresh, with whether their labels are to be updated
+	 * @return <code>true</code> if refreshing the element is not necessary
+	 * @since 3.10
+	 */
+	private static boolean isRefreshedWithAncestor(Widget[] items, boolean updateLabels, Map<Object, Boolean> toRefresh) {
+		for (int i= 0; i < items.length; i++) {
+			if (!(items[i] instanceof TreeItem))
+				return false;
+			boolean covered= false;
+			for (TreeItem parent= ((TreeItem) items[i]).getParentItem(); parent != null && !covered; parent= parent.getParentItem()) {
+				Boolean parentUpdateLabels= toRefresh.get(parent.getData());
+				covered= parentUpdateLabels != null && (parentUpdateLabels.booleanValue() || !updateLabels);
+			}
+			if (!covered)
+				return false;
+		}
+		return true;
+	}
+
 
 	private boolean inputDeleted(Collection<Runnable> runnables) {
 		if (fInput == null)
@@ -948,17 +1017,33 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	}
 
 	protected void postRefresh(final List<Object> toRefresh, final boolean updateLabels, Collection<Runnable> runnables) {
-		runnables.add(new Runnable() {
-			public void run() {
-				Object[] elements= toRefresh.toArray();
-				for (int i= 0; i < elements.length; i++) {
-					Object element= elements[i];
-					if (element == null || fViewer.testFindItems(element).length > 0) {
-						fViewer.refresh(element, updateLabels);
-					}
+		runnables.add(new RefreshRunnable(toRefresh, updateLabels));
+	}
+
+	/**
+	 * Refreshes elements of the viewer. The refreshes of all updates run together are merged in
+	 * {@link PackageExplorerContentProvider#runUpdates(Collection)}.
+	 *
+	 * @since 3.10
+	 */
+	private class RefreshRunnable implements Runnable {
+		final List<Object> fToRefresh;
+		final boolean fUpdateLabels;
+
+		RefreshRunnable(List<Object> toRefresh, boolean updateLabels) {
+			fToRefresh= toRefresh;
+			fUpdateLabels= updateLabels;
+		}
+
+		public void run() {
+			Object[] elements= fToRefresh.toArray();
+			for (int i= 0; i < elements.length; i++) {
+				Object element= elements[i];
+				if (element == null || fViewer.testFindItems(element).length > 0) {
+					fViewer.refresh(element, fUpdateLabels);
 				}
 			}
-		});
+		}
 	}
 
 	protected void postAdd(final Object parent, final Object element, Collection<Runnable> runnables) {
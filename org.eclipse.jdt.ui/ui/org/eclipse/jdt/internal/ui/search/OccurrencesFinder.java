@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -96,7 +96,10 @@ public class OccurrencesFinder extends ASTVisitor implements IOccurrencesFinder
 		if (fResult == null) {
 			fResult= new ArrayList<OccurrenceLocation>();
 			fWriteUsages= new HashSet<Name>();
-			fRoot.accept(this);
+			if (!fTargetIsStaticMethodImport && OccurrencesIndex.canFind(fTarget))
+				OccurrencesIndex.getIndex(fRoot).addOccurrences(fTarget, fReadDescription, fWriteDescription, fResult);
+			else
+				fRoot.accept(this);
 		}
 	}
 
@@ -107,6 +110,26 @@ public class OccurrencesFinder extends ASTVisitor implements IOccurrencesFinder
 		return fResult.toArray(new OccurrenceLocation[fResult.size()]);
 	}
 
+	/**
+	 * Finds the occurrences by visiting the AST instead of looking them up in the
+	 * {@link OccurrencesIndex}. For testing only.
+	 *
+	 * @return the occurrences or <code>null</code> if there are none
+	 * @since 3.10
+	 */
+	public OccurrenceLocation[] testGetOccurrencesByVisitor() {
+		fResult= new ArrayList<OccurrenceLocation>();
+		fWriteUsages= new HashSet<Name>();
+		try {
+			fRoot.accept(this);
+			if (fResult.isEmpty())
+				return null;
+			return fResult.toArray(new OccurrenceLocation[fResult.size()]);
+		} finally {
+			fResult= null;
+		}
+	}
+
 	public CompilationUnit getASTRoot() {
 		return fRoot;
 	}
@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Assignment;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.FieldAccess;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.Modifier;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.ParameterizedType;
+import org.eclipse.jdt.core.dom.PostfixExpression;
+import org.eclipse.jdt.core.dom.PrefixExpression;
+import org.eclipse.jdt.core.dom.PrefixExpression.Operator;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+import org.eclipse.jdt.core.dom.Type;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+
+import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder.OccurrenceLocation;
+
+/**
+ * Index of the names of a compilation unit AST by the key of their binding declaration. The
+ * index is computed in a single pass over the AST on first use and is then stored as a property
+ * of the AST, so that finding the occurrences of a binding in the same AST again is a hash
+ * lookup.
+ * <p>
+ * The index finds the same occurrences as the visitor of {@link OccurrencesFinder}, except for
+ * static methods, whose occurrences through static imports depend on the selected name. The
+ * finder searches these itself.
+ * </p>
+ *
+ * @since 3.10
+ */
+final class OccurrencesIndex extends ASTVisitor {
+
+	private static final String PROPERTY= "org.eclipse.jdt.ui.occurrencesIndex"; //$NON-NLS-1$
+
+	/**
+	 * Guards the index property of the ASTs, which are shared between the threads of the editor.
+	 * The ASTs themselves are not used as locks, since clients may synchronize on them.
+	 */
+	private static final Object fgLock= new Object();
+
+	/**
+	 * An occurrence of a name.
+	 */
+	private static final class Occurrence {
+		final Name fName;
+		final boolean fIsVariable;
+		final boolean fIsWrite;
+
+		Occurrence(Name name, boolean isVariable, boolean isWrite) {
+			fName= name;
+			fIsVariable= isVariable;
+			fIsWrite= isWrite;
+		}
+	}
+
+	/** Binding key -> List of Occurrence, in the order of the AST */
+	private final Map<String, List<Occurrence>> fOccurrences= new HashMap<String, List<Occurrence>>();
+
+	/** The names that are written to and not yet added */
+	private final Set<Name> fWriteUsages= new HashSet<Name>();
+
+	/**
+	 * The keys added for the enclosing qualified names, which are not added again for the names
+	 * they contain. <code>null</code> for enclosing qualified names which added none.
+	 */
+	private final List<String> fEnclosingKeys= new ArrayList<String>();
+
+	private OccurrencesIndex() {
+		super(true);
+	}
+
+	/**
+	 * Returns the index of the given AST and computes it if it is not yet stored with the AST.
+	 *
+	 * @param root the AST
+	 * @return the index
+	 */
+	public static OccurrencesIndex getIndex(CompilationUnit root) {
+		synchronized (fgLock) {
+			OccurrencesIndex index= (OccurrencesIndex) root.getProperty(PROPERTY);
+			if (index != null)
+				return index;
+		}
+		// computed outside the lock, since another thread may index another AST meanwhile
+		OccurrencesIndex index= new OccurrencesIndex();
+		root.accept(index);
+		index.fWriteUsages.clear();
+		synchronized (fgLock) {
+			OccurrencesIndex stored= (OccurrencesIndex) root.getProperty(PROPERTY);
+			if (stored != null)
+				return stored;
+			root.setProperty(PROPERTY, index);
+			return index;
+		}
+	}
+
+	/**
+	 * Tells whether the occurrences of the given binding can be found with the index.
+	 *
+	 * @param binding the binding declaration
+	 * @return <code>true</code> if the index contains the occurrences of the binding
+	 */
+	public static boolean canFind(IBinding binding) {
+		if (binding.getKey() == null)
+			return false;
+		return !(binding instanceof IMethodBinding) || !Modifier.isStatic(binding.getModifiers());
+	}
+
+	/**
+	 * Adds the occurrences of the given binding to the result.
+	 *
+	 * @param binding the binding declaration, for which {@link #canFind(IBinding)} holds
+	 * @param readDescription the description of read occurrences
+	 * @param writeDescription the description of write occurrences
+	 * @param result the list to add the {@link OccurrenceLocation}s to
+	 */
+	public void addOccurrences(IBinding binding, String readDescription, String writeDescription, List<OccurrenceLocation> result) {
+		List<Occurrence> occurrences= fOccurrences.get(binding.getKey());
+		if (occurrences == null)
+			return;
+		for (int i= 0; i < occurrences.size(); i++) {
+			Occurrence occurrence= occurrences.get(i);
+			int flag= 0;
+			String description= readDescription;
+			if (occurrence.fIsVariable) {
+				flag= occurrence.fIsWrite ? IOccurrencesFinder.F_WRITE_OCCURRENCE : IOccurrencesFinder.F_READ_OCCURRENCE;
+				if (occurrence.fIsWrite)
+					description= writeDescription;
+			}
+			Name name= occurrence.fName;
+			result.add(new OccurrenceLocation(name.getStartPosition(), name.getLength(), flag, description));
+		}
+	}
+
+	@Override
+	public boolean visit(QualifiedName node) {
+		IBinding binding= node.resolveBinding();
+		String key;
+		if (binding instanceof IVariableBinding && ((IVariableBinding) binding).isField()) {
+			SimpleName name= node.getName();
+			key= addUsage(name, name.resolveBinding());
+		} else {
+			key= addUsage(node, binding);
+		}
+		fEnclosingKeys.add(key);
+		return true;
+	}
+
+	@Override
+	public void endVisit(QualifiedName node) {
+		fEnclosingKeys.remove(fEnclosingKeys.size() - 1);
+	}
+
+	@Override
+	public boolean visit(SimpleName node) {
+		addUsage(node, node.resolveBinding());
+		return true;
+	}
+
+	@Override
+	public boolean visit(ClassInstanceCreation node) {
+		Type type= node.getType();
+		if (type instanceof ParameterizedType) {
+			type= ((ParameterizedType) type).getType();
+		}
+		if (type instanceof SimpleType) {
+			Name name= ((SimpleType) type).getName();
+			if (name instanceof QualifiedName)
+				name= ((QualifiedName) name).getName();
+			addUsage(name, node.resolveConstructorBinding());
+		}
+		return true;
+	}
+
+	@Override
+	public boolean visit(Assignment node) {
+		addWrite(getSimpleName(node.getLeftHandSide()));
+		return true;
+	}
+
+	@Override
+	public boolean visit(SingleVariableDeclaration node) {
+		addWrite(node.getName());
+		return true;
+	}
+
+	@Override
+	public boolean visit(VariableDeclarationFragment node) {
+		if (node.getParent() instanceof FieldDeclaration || node.getInitializer() != null)
+			addWrite(node.getName());
+		return true;
+	}
+
+	@Override
+	public boolean visit(PrefixExpression node) {
+		PrefixExpression.Operator operator= node.getOperator();
+		if (operator == Operator.INCREMENT || operator == Operator.DECREMENT)
+			addWrite(getSimpleName(node.getOperand()));
+		return true;
+	}
+
+	@Override
+	public boolean visit(PostfixExpression node) {
+		addWrite(getSimpleName(node.getOperand()));
+		return true;
+	}
+
+	private void addWrite(Name name) {
+		if (name != null)
+			fWriteUsages.add(name);
+	}
+
+	/**
+	 * Adds an occurrence of the binding unless an enclosing qualified name has already been
+	 * added for it.
+	 *
+	 * @param node the name
+	 * @param binding the binding of the name or <code>null</code>
+	 * @return the key the occurrence has been added for, or <code>null</code> if none has been
+	 *         added
+	 */
+	private String addUsage(Name node, IBinding binding) {
+		if (binding == null)
+			return null;
+		IBinding declaration= getBindingDeclaration(binding);
+		String key= declaration.getKey();
+		if (key == null || fEnclosingKeys.contains(key))
+			return null;
+
+		List<Occurrence> occurrences= fOccurrences.get(key);
+		if (occurrences == null) {
+			occurrences= new ArrayList<Occurrence>(4);
+			fOccurrences.put(key, occurrences);
+		}
+		boolean isVariable= declaration instanceof IVariableBinding;
+		occurrences.add(new Occurrence(node, isVariable, isVariable && fWriteUsages.remove(node)));
+		return key;
+	}
+
+	private static SimpleName getSimpleName(Expression expression) {
+		if (expression instanceof SimpleName)
+			return ((SimpleName) expression);
+		else if (expression instanceof QualifiedName)
+			return (((QualifiedName) expression).getName());
+		else if (expression instanceof FieldAccess)
+			return ((FieldAccess) expression).getName();
+		return null;
+	}
+
+	private static IBinding getBindingDeclaration(IBinding binding) {
+		switch (binding.getKind()) {
+			case IBinding.TYPE :
+				return ((ITypeBinding) binding).getTypeDeclaration();
+			case IBinding.METHOD :
+				return ((IMethodBinding) binding).getMethodDeclaration();
+			case IBinding.VARIABLE :
+				return ((IVariableBinding) binding).getVariableDeclaration();
+			default:
+				return binding;
+		}
+	}
+}
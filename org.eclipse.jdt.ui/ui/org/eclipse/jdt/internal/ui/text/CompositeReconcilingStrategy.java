@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,7 @@
 package org.eclipse.jdt.internal.ui.text;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.PerformanceStats;
 
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
@@ -20,7 +21,8 @@ import org.eclipse.jface.text.reconciler.IReconcilingStrategyExtension;
 
 /**
  * A reconciling strategy consisting of a sequence of internal reconciling strategies.
- * By default, all requests are passed on to the contained strategies.
+ * By default, all requests are passed on to the contained strategies. The time each
+ * strategy takes can be traced with {@link ReconcileTimings}.
  *
  * @since 3.0
  */
@@ -71,8 +73,14 @@ public class CompositeReconcilingStrategy  implements IReconcilingStrategy, IRec
 		if (fStrategies == null)
 			return;
 
-		for (int i= 0; i < fStrategies.length; i++)
-			fStrategies[i].reconcile(dirtyRegion, subRegion);
+		for (int i= 0; i < fStrategies.length; i++) {
+			PerformanceStats stats= ReconcileTimings.startRun(fStrategies[i], dirtyRegion);
+			try {
+				fStrategies[i].reconcile(dirtyRegion, subRegion);
+			} finally {
+				ReconcileTimings.endRun(stats);
+			}
+		}
 	}
 
 	/*
@@ -82,8 +90,14 @@ public class CompositeReconcilingStrategy  implements IReconcilingStrategy, IRec
 		if (fStrategies == null)
 			return;
 
-		for (int i= 0; i < fStrategies.length; i++)
-			fStrategies[i].reconcile(partition);
+		for (int i= 0; i < fStrategies.length; i++) {
+			PerformanceStats stats= ReconcileTimings.startRun(fStrategies[i], partition);
+			try {
+				fStrategies[i].reconcile(partition);
+			} finally {
+				ReconcileTimings.endRun(stats);
+			}
+		}
 	}
 
 	/*
@@ -111,7 +125,12 @@ public class CompositeReconcilingStrategy  implements IReconcilingStrategy, IRec
 		for (int i=0; i < fStrategies.length; i++) {
 			if (fStrategies[i] instanceof IReconcilingStrategyExtension) {
 				IReconcilingStrategyExtension extension= (IReconcilingStrategyExtension) fStrategies[i];
-				extension.initialReconcile();
+				PerformanceStats stats= ReconcileTimings.startRun(extension, "initial reconcile"); //$NON-NLS-1$
+				try {
+					extension.initialReconcile();
+				} finally {
+					ReconcileTimings.endRun(stats);
+				}
 			}
 		}
 	}
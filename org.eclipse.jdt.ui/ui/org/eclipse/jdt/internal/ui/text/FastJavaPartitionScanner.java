@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -57,6 +57,11 @@ public class FastJavaPartitionScanner implements IPartitionTokenScanner, IJavaPa
 	private int fLast;
 	/** The amount of characters already read on first call to nextToken(). */
 	private int fPrefixLength;
+	/**
+	 * Tells whether the last returned token has been ended by the end of the range.
+	 * @since 3.10
+	 */
+	private boolean fTokenCutOff;
 
 	// emulate JavaPartitionScanner
 	private boolean fEmulate= false;
@@ -85,6 +90,8 @@ public class FastJavaPartitionScanner implements IPartitionTokenScanner, IJavaPa
 	 */
 	public IToken nextToken() {
 
+		fTokenCutOff= false;
+
 		// emulate JavaPartitionScanner
 		if (fEmulate) {
 			if (fJavaOffset != -1 && fTokenOffset + fTokenLength != fJavaOffset + fJavaLength) {
@@ -106,6 +113,7 @@ public class FastJavaPartitionScanner implements IPartitionTokenScanner, IJavaPa
 	 		switch (ch) {
 	 		case ICharacterScanner.EOF:
 		 		if (fTokenLength > 0) {
+		 			fTokenCutOff= true;
 		 			fLast= NONE; // ignore last
 		 			return preFix(fState, JAVA, NONE, 0);
 
@@ -484,6 +492,7 @@ public class FastJavaPartitionScanner implements IPartitionTokenScanner, IJavaPa
 		fTokenLength= 0;
 		fPrefixLength= offset - partitionOffset;
 		fLast= NONE;
+		fTokenCutOff= false;
 
 		if (offset == partitionOffset) {
 			// restart at beginning of partition
@@ -510,6 +519,7 @@ public class FastJavaPartitionScanner implements IPartitionTokenScanner, IJavaPa
 		fPrefixLength= 0;
 		fLast= NONE;
 		fState= JAVA;
+		fTokenCutOff= false;
 
 		// emulate JavaPartitionScanner
 		if (fEmulate) {
@@ -532,4 +542,18 @@ public class FastJavaPartitionScanner implements IPartitionTokenScanner, IJavaPa
 		return fTokenOffset;
 	}
 
+	/**
+	 * Tells whether the last token returned by {@link #nextToken()} has been ended by the end
+	 * of the range rather than by its content. Such a token may continue behind the range, in
+	 * which case scanning can be resumed with
+	 * {@link #setPartialRange(IDocument, int, int, String, int)} at the end of the range, using
+	 * the content type and offset of the token.
+	 *
+	 * @return <code>true</code> if the last token has been cut off by the end of the range
+	 * @since 3.10
+	 */
+	public boolean isTokenCutOff() {
+		return fTokenCutOff;
+	}
+
 }
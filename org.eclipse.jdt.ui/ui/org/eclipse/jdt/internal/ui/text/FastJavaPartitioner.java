@@ -0,0 +1,542 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.Assert;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.BadPositionCategoryException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.DocumentRewriteSession;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.Region;
+import org.eclipse.jface.text.TypedPosition;
+import org.eclipse.jface.text.rules.FastPartitioner;
+import org.eclipse.jface.text.rules.IToken;
+
+import org.eclipse.jdt.ui.text.IJavaPartitions;
+
+
+/**
+ * A document partitioner for Java, driven by a {@link FastJavaPartitionScanner}. It stores and
+ * queries the partitions like its superclass, but re-partitions changed documents with
+ * checkpoints.
+ * <p>
+ * The generic partitioner scans from the start of the line of a change until a scanned partition
+ * matches an existing one. Inside a long partition, e.g. after typing an opening comment, this
+ * means scanning to the end of the partition, which may be the end of the document, for every
+ * key stroke. This partitioner stops the scanner at checkpoints instead: at the first line start
+ * behind the change, and then at line starts in regular intervals. At each checkpoint, the state
+ * of the scanner is compared with the partition that contained the checkpoint before the change.
+ * If both are in the same partition, the remainder of the document is partitioned as before and
+ * re-partitioning stops.
+ * </p>
+ * <p>
+ * When a change invalidates many partitions at once, they are replaced in one step instead of
+ * removing them from the document one by one, which takes quadratic time.
+ * </p>
+ *
+ * @since 3.10
+ */
+public class FastJavaPartitioner extends FastPartitioner {
+
+	/** The minimal distance between two checkpoints. */
+	private static final int CHECKPOINT_DISTANCE= 1000;
+
+	/**
+	 * The number of changed partitions up to which the positions are updated one by one. Above,
+	 * all positions are replaced at once.
+	 */
+	private static final int MAX_SINGLE_UPDATES= 16;
+
+	/**
+	 * The positions of a re-partitioning in progress. The positions of the previous run are visited
+	 * in order. Each is either kept or removed, and the new positions are inserted between them.
+	 */
+	private final class Update {
+
+		private final Position[] fPositions;
+		private int fNext;
+		private boolean[] fRemoved;
+		private int fRemovedCount;
+		/** The largest end offset of the removed positions */
+		private int fRemovedEnd= -1;
+		private final List<TypedPosition> fAdded= new ArrayList<TypedPosition>();
+
+		Update(Position[] positions, int first) {
+			fPositions= positions;
+			fNext= first;
+		}
+
+		/**
+		 * @return the next position of the previous run or <code>null</code> if there is none
+		 */
+		TypedPosition peek() {
+			return fNext < fPositions.length ? (TypedPosition) fPositions[fNext] : null;
+		}
+
+		void keep() {
+			fNext++;
+		}
+
+		void remove() {
+			Position p= fPositions[fNext];
+			if (fRemoved == null)
+				fRemoved= new boolean[fPositions.length];
+			fRemoved[fNext++]= true;
+			fRemovedCount++;
+			fRemovedEnd= Math.max(fRemovedEnd, p.getOffset() + p.getLength());
+			rememberRegion(p.getOffset(), p.getLength());
+		}
+
+		void removeRemaining() {
+			while (fNext < fPositions.length)
+				remove();
+		}
+
+		void add(TypedPosition position) {
+			fAdded.add(position);
+			rememberRegion(position.getOffset(), position.getLength());
+		}
+
+		/**
+		 * Tells whether the scanner is in the same state at the given checkpoint as the previous
+		 * run, i.e. in the same partition, and removes the positions before the checkpoint that
+		 * do not exist anymore. The checkpoint must be a line start behind the change.
+		 *
+		 * @param checkpoint the checkpoint
+		 * @param partitionOffset the offset of the partition open at the checkpoint, or
+		 *            <code>-1</code> if none is open
+		 * @param contentType the content type of the open partition, or <code>null</code> if it is
+		 *            the default partition
+		 * @return <code>true</code> if the previous partitions are valid from the checkpoint on
+		 */
+		boolean isInSync(int checkpoint, int partitionOffset, String contentType) {
+			if (fRemovedEnd > checkpoint)
+				return false; // was inside a removed partition
+			if (contentType != null && !isMultiLinePartition(contentType))
+				return false;
+
+			TypedPosition p;
+			while ((p= peek()) != null && p.getOffset() < checkpoint) {
+				if (p.getOffset() + p.getLength() > checkpoint)
+					return p.getOffset() == partitionOffset && p.getType().equals(contentType);
+				// the area before the checkpoint has been scanned
+				remove();
+			}
+			return contentType == null;
+		}
+
+		/**
+		 * Applies the changes to the document.
+		 *
+		 * @throws BadLocationException if a position is invalid
+		 * @throws BadPositionCategoryException if the position category is not defined
+		 */
+		void apply() throws BadLocationException, BadPositionCategoryException {
+			if (fRemovedCount + fAdded.size() <= MAX_SINGLE_UPDATES) {
+				for (int i= 0; fRemovedCount > 0 && i < fPositions.length; i++) {
+					if (fRemoved[i]) {
+						fDocument.removePosition(fPositionCategory, fPositions[i]);
+						fRemovedCount--;
+					}
+				}
+				for (int i= 0; i < fAdded.size(); i++)
+					fDocument.addPosition(fPositionCategory, fAdded.get(i));
+			} else {
+				// add all positions in order, each is appended without moving the others
+				fDocument.removePositionCategory(fPositionCategory);
+				fDocument.addPositionCategory(fPositionCategory);
+				int added= 0;
+				for (int i= 0; i < fPositions.length; i++) {
+					if (fRemoved != null && fRemoved[i])
+						continue;
+					Position p= fPositions[i];
+					for (; added < fAdded.size() && fAdded.get(added).getOffset() < p.getOffset(); added++)
+						fDocument.addPosition(fPositionCategory, fAdded.get(added));
+					fDocument.addPosition(fPositionCategory, p);
+				}
+				for (; added < fAdded.size(); added++)
+					fDocument.addPosition(fPositionCategory, fAdded.get(added));
+			}
+		}
+	}
+
+	/** The partitioner's scanner, as a Java partition scanner */
+	private final FastJavaPartitionScanner fJavaScanner;
+	/** The position category this partitioner uses to store the document's partitioning information */
+	private final String fPositionCategory;
+	/** Tells whether the partitions of the document have been computed */
+	private boolean fIsInitialized= false;
+	/** The offset at which the first changed partition starts */
+	private int fStartOffset;
+	/** The offset at which the last changed partition ends */
+	private int fEndOffset;
+	/** The offset at which a partition has been deleted */
+	private int fDeleteOffset;
+
+	/**
+	 * Creates a new partitioner that uses the given scanner and may return partitions of the given
+	 * legal content types.
+	 *
+	 * @param scanner the scanner this partitioner is supposed to use
+	 * @param legalContentTypes the legal content types of this partitioner
+	 */
+	public FastJavaPartitioner(FastJavaPartitionScanner scanner, String[] legalContentTypes) {
+		super(scanner, legalContentTypes);
+		fJavaScanner= scanner;
+		fPositionCategory= getManagingPositionCategories()[0];
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.rules.FastPartitioner#connect(org.eclipse.jface.text.IDocument, boolean)
+	 */
+	@Override
+	public void connect(IDocument document, boolean delayInitialization) {
+		fIsInitialized= false;
+		super.connect(document, delayInitialization);
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.rules.FastPartitioner#initialize()
+	 */
+	@Override
+	protected void initialize() {
+		super.initialize();
+		fIsInitialized= true;
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.rules.FastPartitioner#stopRewriteSession(org.eclipse.jface.text.DocumentRewriteSession)
+	 */
+	@Override
+	public void stopRewriteSession(DocumentRewriteSession session) {
+		// the superclass drops the partitions and computes them again when they are queried
+		if (session == getActiveRewriteSession())
+			fIsInitialized= false;
+		super.stopRewriteSession(session);
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.rules.FastPartitioner#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+	 */
+	@Override
+	public void documentAboutToBeChanged(DocumentEvent e) {
+		super.documentAboutToBeChanged(e);
+		fStartOffset= -1;
+		fEndOffset= -1;
+		fDeleteOffset= -1;
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.rules.FastPartitioner#documentChanged2(org.eclipse.jface.text.DocumentEvent)
+	 */
+	@Override
+	public IRegion documentChanged2(DocumentEvent e) {
+
+		if (!fIsInitialized)
+			return null;
+
+		try {
+			Assert.isTrue(e.getDocument() == fDocument);
+
+			Position[] category= getPositions();
+			IRegion line= fDocument.getLineInformationOfOffset(e.getOffset());
+			int reparseStart= line.getOffset();
+			int partitionStart= 0;
+			String contentType= IDocument.DEFAULT_CONTENT_TYPE;
+			int newLength= e.getText() == null ? 0 : e.getText().length();
+
+			int first= fDocument.computeIndexInCategory(fPositionCategory, reparseStart);
+			if (first > 0)	{
+				TypedPosition partition= (TypedPosition) category[first - 1];
+				if (partition.includes(reparseStart)) {
+					partitionStart= partition.getOffset();
+					contentType= partition.getType();
+					if (e.getOffset() == partition.getOffset() + partition.getLength())
+						reparseStart= partitionStart;
+					-- first;
+				} else if (reparseStart == e.getOffset() && reparseStart == partition.getOffset() + partition.getLength()) {
+					partitionStart= partition.getOffset();
+					contentType= partition.getType();
+					reparseStart= partitionStart;
+					-- first;
+				} else {
+					partitionStart= partition.getOffset() + partition.getLength();
+				}
+			}
+
+			fPositionUpdater.update(e);
+			for (int i= first; i < category.length; i++) {
+				Position p= category[i];
+				if (p.isDeleted) {
+					rememberDeletedOffset(e.getOffset());
+					break;
+				}
+			}
+			clearPositionCache();
+			category= getPositions();
+
+			Update update= new Update(category, first);
+			int changeEnd= e.getOffset() + newLength;
+			int checkpoint= getCheckpoint(changeEnd + 1);
+			fJavaScanner.setPartialRange(fDocument, reparseStart, checkpoint - reparseStart, contentType, partitionStart);
+
+			while (true) {
+				IToken token= fScanner.nextToken();
+				if (token.isEOF()) {
+					if (checkpoint == fDocument.getLength())
+						break;
+					// no partition is open at the checkpoint
+					if (update.isInSync(checkpoint, -1, null)) {
+						update.apply();
+						return createRegion();
+					}
+					int next= getCheckpoint(checkpoint + CHECKPOINT_DISTANCE);
+					fJavaScanner.setPartialRange(fDocument, checkpoint, next - checkpoint, IDocument.DEFAULT_CONTENT_TYPE, checkpoint);
+					checkpoint= next;
+					continue;
+				}
+
+				contentType= getTokenContentType(token);
+				int start= fScanner.getTokenOffset();
+				int length= fScanner.getTokenLength();
+
+				if (start + length == checkpoint && checkpoint < fDocument.getLength() && fJavaScanner.isTokenCutOff()) {
+					// the partition continues behind the checkpoint
+					String openType= isSupportedContentType(contentType) ? contentType : null;
+					if (update.isInSync(checkpoint, start, openType)) {
+						update.apply();
+						return createRegion();
+					}
+					int next= getCheckpoint(checkpoint + CHECKPOINT_DISTANCE);
+					if (openType == null || isMultiLinePartition(openType)) {
+						fJavaScanner.setPartialRange(fDocument, checkpoint, next - checkpoint, contentType, start);
+					} else {
+						// the scanner state at the line start is not reliable, rescan the partition
+						fJavaScanner.setPartialRange(fDocument, start, next - start, IDocument.DEFAULT_CONTENT_TYPE, start);
+					}
+					checkpoint= next;
+					continue;
+				}
+
+				if (!isSupportedContentType(contentType))
+					continue;
+
+				int lastScannedPosition= start + length - 1;
+
+				// remove all affected positions
+				TypedPosition p;
+				while ((p= update.peek()) != null) {
+					if (lastScannedPosition >= p.offset + p.length ||
+							(p.overlapsWith(start, length) && !isSamePartition(p, start, length, contentType)))
+						update.remove();
+					else
+						break;
+				}
+
+				// if position already exists and we have scanned at least the
+				// area covered by the event, we are done
+				if (p != null && isSamePartition(p, start, length, contentType)) {
+					if (lastScannedPosition >= changeEnd) {
+						update.apply();
+						return createRegion();
+					}
+					update.keep();
+				} else {
+					update.add(new TypedPosition(start, length, contentType));
+				}
+			}
+
+			// remove all positions behind the last scanned partition
+			update.removeRemaining();
+			update.apply();
+
+		} catch (BadPositionCategoryException x) {
+			// should never happen on connected documents
+		} catch (BadLocationException x) {
+			// should never happen on connected documents
+		} finally {
+			clearPositionCache();
+		}
+
+		return createRegion();
+	}
+
+	/**
+	 * Returns the first line start at or behind the given offset.
+	 *
+	 * @param offset the offset
+	 * @return the line start, or the document length if there is none
+	 * @throws BadLocationException if the offset is invalid
+	 */
+	private int getCheckpoint(int offset) throws BadLocationException {
+		if (offset >= fDocument.getLength())
+			return fDocument.getLength();
+		int line= fDocument.getLineOfOffset(offset);
+		if (fDocument.getLineOffset(line) == offset)
+			return offset;
+		if (line + 1 == fDocument.getNumberOfLines())
+			return fDocument.getLength();
+		return fDocument.getLineOffset(line + 1);
+	}
+
+	/**
+	 * Tells whether partitions of the given content type can span line delimiters. Only in these,
+	 * the scanner state at a line start is determined by the partition.
+	 *
+	 * @param contentType the content type
+	 * @return <code>true</code> if the partition can span several lines
+	 */
+	private static boolean isMultiLinePartition(String contentType) {
+		return IJavaPartitions.JAVA_MULTI_LINE_COMMENT.equals(contentType) || IJavaPartitions.JAVA_DOC.equals(contentType);
+	}
+
+	private static boolean isSamePartition(TypedPosition p, int offset, int length, String contentType) {
+		return p.offset == offset && p.length == length && contentType.equals(p.getType());
+	}
+
+	/**
+	 * Remembers the given offset as the deletion offset.
+	 *
+	 * @param offset the offset
+	 */
+	private void rememberDeletedOffset(int offset) {
+		fDeleteOffset= offset;
+	}
+
+	/**
+	 * Remembers the given region as changed.
+	 *
+	 * @param offset the offset
+	 * @param length the length
+	 */
+	private void rememberRegion(int offset, int length) {
+		// remember start offset
+		if (fStartOffset == -1)
+			fStartOffset= offset;
+		else if (offset < fStartOffset)
+			fStartOffset= offset;
+
+		// remember end offset
+		int endOffset= offset + length;
+		if (fEndOffset == -1)
+			fEndOffset= endOffset;
+		else if (endOffset > fEndOffset)
+			fEndOffset= endOffset;
+	}
+
+	/**
+	 * Creates the minimal region containing all partition changes using the remembered offsets.
+	 *
+	 * @return the minimal region containing all the partition changes
+	 */
+	private IRegion createRegion() {
+		if (fDeleteOffset == -1) {
+			if (fStartOffset == -1 || fEndOffset == -1)
+				return null;
+			return new Region(fStartOffset, fEndOffset - fStartOffset);
+		} else if (fStartOffset == -1 || fEndOffset == -1) {
+			return new Region(fDeleteOffset, 0);
+		} else {
+			int offset= Math.min(fDeleteOffset, fStartOffset);
+			int endOffset= Math.max(fDeleteOffset, fEndOffset);
+			return new Region(offset, endOffset - offset);
+		}
+	}
+
+	/**
+	 * Returns the first line start at or behind the given offset.
+	 *
+	 * @param offset the offset
+	 * @return the line start, or the document length if there is none
+	 * @throws BadLocationException if the offset is invalid
+	 */
+	private int getCheckpoint(int offset) throws BadLocationException {
+		if (offset >= fDocument.getLength())
+			return fDocument.getLength();
+		int line= fDocument.getLineOfOffset(offset);
+		if (fDocument.getLineOffset(line) == offset)
+			return offset;
+		if (line + 1 == fDocument.getNumberOfLines())
+			return fDocument.getLength();
+		return fDocument.getLineOffset(line + 1);
+	}
+
+	/**
+	 * Tells whether partitions of the given content type can span line delimiters. Only in these,
+	 * the scanner state at a line start is determined by the partition.
+	 *
+	 * @param contentType the content type
+	 * @return <code>true</code> if the partition can span several lines
+	 */
+	private static boolean isMultiLinePartition(String contentType) {
+		return IJavaPartitions.JAVA_MULTI_LINE_COMMENT.equals(contentType) || IJavaPartitions.JAVA_DOC.equals(contentType);
+	}
+
+	private static boolean isSamePartition(TypedPosition p, int offset, int length, String contentType) {
+		return p.offset == offset && p.length == length && contentType.equals(p.getType());
+	}
+
+	/**
+	 * Remembers the given offset as the deletion offset.
+	 *
+	 * @param offset the offset
+	 */
+	private void rememberDeletedOffset(int offset) {
+		fDeleteOffset= offset;
+	}
+
+	/**
+	 * Remembers the given region as changed.
+	 *
+	 * @param offset the offset
+	 * @param length the length
+	 */
+	private void rememberRegion(int offset, int length) {
+		// remember start offset
+		if (fStartOffset == -1)
+			fStartOffset= offset;
+		else if (offset < fStartOffset)
+			fStartOffset= offset;
+
+		// remember end offset
+		int endOffset= offset + length;
+		if (fEndOffset == -1)
+			fEndOffset= endOffset;
+		else if (endOffset > fEndOffset)
+			fEndOffset= endOffset;
+	}
+
+	/**
+	 * Creates the minimal region containing all partition changes using the remembered offsets.
+	 *
+	 * @return the minimal region containing all the partition changes
+	 */
+	private IRegion createRegion() {
+		if (fDeleteOffset == -1) {
+			if (fStartOffset == -1 || fEndOffset == -1)
+				return null;
+			return new Region(fStartOffset, fEndOffset - fStartOffset);
+		} else if (fStartOffset == -1 || fEndOffset == -1) {
+			return new Region(fDeleteOffset, 0);
+		} else {
+			int offset= Math.min(fDeleteOffset, fStartOffset);
+			int endOffset= Math.max(fDeleteOffset, fEndOffset);
+			return new Region(offset, endOffset - offset);
+		}
+	}
+}
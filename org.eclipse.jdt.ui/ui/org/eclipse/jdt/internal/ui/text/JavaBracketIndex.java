@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text;
+
+import org.eclipse.core.runtime.Assert;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITypedRegion;
+import org.eclipse.jface.text.TextUtilities;
+
+import org.eclipse.jdt.ui.text.IJavaPartitions;
+
+
+/**
+ * Index of the braces, parentheses and brackets of a document, computed in a single forward
+ * pass with one stack per kind of bracket. For any position, it answers in logarithmic time
+ * which opening peer is the innermost one not yet closed, which is what
+ * {@link JavaHeuristicScanner#findOpeningPeer(int, char, char)} finds by scanning backwards.
+ * <p>
+ * {@link JavaIndenter} uses the index to skip scopes when indenting many lines in a row,
+ * where scanning backwards over all preceding scopes for every line takes quadratic time.
+ * </p>
+ * <p>
+ * The brackets are recorded by line and by their distance from the end of the line, so the
+ * index stays valid while only the leading whitespace of lines is changed, as done when
+ * correcting the indentation. Any other change of the document invalidates the index.
+ * Queries detect most such changes and then return <code>NOT_FOUND</code>, so that clients
+ * can fall back to scanning.
+ * </p>
+ *
+ * @since 3.10
+ */
+public final class JavaBracketIndex {
+
+	private static final char[] OPENING_PEERS= { '{', '(', '[' };
+	private static final char[] CLOSING_PEERS= { '}', ')', ']' };
+
+	/**
+	 * The brackets of one kind, in document order.
+	 */
+	private static final class Brackets {
+		/** The line of each bracket. */
+		int[] fLines= new int[64];
+		/** The distance of each bracket from the end of its line. */
+		int[] fDistances= new int[64];
+		/**
+		 * The index of the innermost open bracket after each bracket, or <code>-1</code> if all
+		 * brackets are closed.
+		 */
+		int[] fEnclosing= new int[64];
+		int fSize;
+
+		/** The open brackets during the forward pass. */
+		int[] fStack= new int[16];
+		int fDepth;
+
+		void add(int line, int distance, boolean opening) {
+			if (fSize == fLines.length) {
+				fLines= grow(fLines);
+				fDistances= grow(fDistances);
+				fEnclosing= grow(fEnclosing);
+			}
+			fLines[fSize]= line;
+			fDistances[fSize]= distance;
+			if (opening) {
+				if (fDepth == fStack.length)
+					fStack= grow(fStack);
+				fStack[fDepth++]= fSize;
+			} else if (fDepth > 0) {
+				fDepth--;
+			}
+			fEnclosing[fSize]= fDepth > 0 ? fStack[fDepth - 1] : -1;
+			fSize++;
+		}
+
+		/**
+		 * Returns the index of the last bracket before the given location.
+		 *
+		 * @param line the line
+		 * @param distance the distance from the end of <code>line</code>
+		 * @return the index of the last bracket before the location, or <code>-1</code>
+		 */
+		int findPrevious(int line, int distance) {
+			int low= 0;
+			int high= fSize - 1;
+			while (low <= high) {
+				int mid= (low + high) >>> 1;
+				if (fLines[mid] < line || fLines[mid] == line && fDistances[mid] > distance)
+					low= mid + 1;
+				else
+					high= mid - 1;
+			}
+			return high;
+		}
+
+		private static int[] grow(int[] array) {
+			int[] result= new int[array.length * 2];
+			System.arraycopy(array, 0, result, 0, array.length);
+			return result;
+		}
+	}
+
+	private final IDocument fDocument;
+	private final int fNumberOfLines;
+	private final Brackets[] fBrackets= new Brackets[OPENING_PEERS.length];
+
+	/**
+	 * Creates the index of the brackets in the Java partitions of the given document.
+	 *
+	 * @param document the document to index
+	 * @throws BadLocationException if the document is changed concurrently
+	 */
+	public JavaBracketIndex(IDocument document) throws BadLocationException {
+		this(document, IJavaPartitions.JAVA_PARTITIONING, IDocument.DEFAULT_CONTENT_TYPE);
+	}
+
+	/**
+	 * Creates the index of the brackets in the given partitions of the document. The
+	 * partitioning and partition must be the ones of the {@link JavaHeuristicScanner} whose
+	 * results the index replaces.
+	 *
+	 * @param document the document to index
+	 * @param partitioning the partitioning to use
+	 * @param partition the partition to index the brackets of
+	 * @throws BadLocationException if the document is changed concurrently
+	 */
+	public JavaBracketIndex(IDocument document, String partitioning, String partition) throws BadLocationException {
+		Assert.isNotNull(document);
+		fDocument= document;
+		fNumberOfLines= document.getNumberOfLines();
+		for (int i= 0; i < fBrackets.length; i++)
+			fBrackets[i]= new Brackets();
+
+		ITypedRegion[] regions= TextUtilities.computePartitioning(document, partitioning, 0, document.getLength(), false);
+		int line= -1;
+		int lineEnd= -1;
+		for (int i= 0; i < regions.length; i++) {
+			ITypedRegion region= regions[i];
+			if (!partition.equals(region.getType()))
+				continue;
+			int offset= region.getOffset();
+			String content= document.get(offset, region.getLength());
+			for (int j= 0; j < content.length(); j++) {
+				int kind= getKind(content.charAt(j));
+				if (kind == -1)
+					continue;
+				int position= offset + j;
+				if (position >= lineEnd) {
+					line= document.getLineOfOffset(position);
+					IRegion info= document.getLineInformation(line);
+					lineEnd= info.getOffset() + info.getLength();
+				}
+				fBrackets[kind].add(line, lineEnd - position, content.charAt(j) == OPENING_PEERS[kind]);
+			}
+		}
+	}
+
+	private static int getKind(char ch) {
+		for (int i= 0; i < OPENING_PEERS.length; i++) {
+			if (ch == OPENING_PEERS[i] || ch == CLOSING_PEERS[i])
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the position of the innermost opening peer before <code>position</code> that is
+	 * not closed before <code>position</code>. This is the result of
+	 * {@link JavaHeuristicScanner#findOpeningPeer(int, char, char) findOpeningPeer(position - 1, openingPeer, closingPeer)}.
+	 *
+	 * @param position the position to find the enclosing opening peer of
+	 * @param openingPeer the opening peer character, one of '{', '(' or '['
+	 * @return the position of the opening peer, or <code>JavaHeuristicScanner.NOT_FOUND</code>
+	 *         if there is none or if the document has been changed other than in the leading
+	 *         whitespace of lines
+	 */
+	public int findOpeningPeer(int position, char openingPeer) {
+		int kind= getKind(openingPeer);
+		Assert.isLegal(kind != -1);
+		if (fDocument.getNumberOfLines() != fNumberOfLines)
+			return JavaHeuristicScanner.NOT_FOUND;
+
+		try {
+			int line= fDocument.getLineOfOffset(position);
+			Brackets brackets= fBrackets[kind];
+			int previous= brackets.findPrevious(line, getLineEnd(line) - position);
+			if (previous == -1)
+				return JavaHeuristicScanner.NOT_FOUND;
+			int enclosing= brackets.fEnclosing[previous];
+			if (enclosing == -1)
+				return JavaHeuristicScanner.NOT_FOUND;
+
+			int peerLine= brackets.fLines[enclosing];
+			int peer= getLineEnd(peerLine) - brackets.fDistances[enclosing];
+			if (peer < 0 || peer >= position || fDocument.getChar(peer) != openingPeer)
+				return JavaHeuristicScanner.NOT_FOUND;
+			return peer;
+		} catch (BadLocationException e) {
+			return JavaHeuristicScanner.NOT_FOUND;
+		}
+	}
+
+	private int getLineEnd(int line) throws BadLocationException {
+		IRegion info= fDocument.getLineInformation(line);
+		return info.getOffset() + info.getLength();
+	}
+}
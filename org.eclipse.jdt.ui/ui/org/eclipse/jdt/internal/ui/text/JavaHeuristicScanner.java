@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -29,6 +29,11 @@ import org.eclipse.jdt.ui.text.IJavaPartitions;
  *
  * <p>An instance holds some internal position in the document and is therefore not threadsafe.</p>
  *
+ * <p>A scanner created in snapshot mode copies the document content and partitions it scans
+ * into arrays, in chunks that grow as the scan proceeds, instead of querying the document for
+ * every character. Such a scanner must only be used while the document does not change, e.g.
+ * while computing the customization of a single document command.</p>
+ *
  * @since 3.0
  */
 public final class JavaHeuristicScanner implements Symbols {
@@ -44,6 +49,12 @@ public final class JavaHeuristicScanner implements Symbols {
 	 */
 	public static final int UNBOUND= -2;
 
+	/**
+	 * The size of the document chunks copied in snapshot mode.
+	 * @since 3.10
+	 */
+	private static final int SNAPSHOT_CHUNK_SIZE= 4096;
+
 
 	/* character constants */
 	private static final char LBRACE= '{';
@@ -249,6 +260,11 @@ public final class JavaHeuristicScanner implements Symbols {
 	private final String fPartitioning;
 	/** The partition to scan in. */
 	private final String fPartition;
+	/**
+	 * <code>true</code> if the scanner reads from a snapshot of the document.
+	 * @since 3.10
+	 */
+	private final boolean fUseSnapshot;
 
 	/* internal scan state */
 
@@ -261,6 +277,22 @@ public final class JavaHeuristicScanner implements Symbols {
 	 * @since 3.2
 	 */
 	private ITypedRegion fCachedPartition= new TypedRegion(-1, 0, "__no_partition_at_all"); //$NON-NLS-1$
+	/**
+	 * The document content in <code>[fSnapshotOffset, fSnapshotOffset + fSnapshot.length)</code>
+	 * in snapshot mode.
+	 * @since 3.10
+	 */
+	private char[] fSnapshot= new char[0];
+	/**
+	 * The document offset of <code>fSnapshot</code>.
+	 * @since 3.10
+	 */
+	private int fSnapshotOffset;
+	/**
+	 * The partitions of the snapshot range, in document order.
+	 * @since 3.10
+	 */
+	private ITypedRegion[] fSnapshotPartitions= new ITypedRegion[0];
 
 	/* preset stop conditions */
 	private final StopCondition fNonWSDefaultPart= new NonWhitespaceDefaultPartition();
@@ -275,12 +307,27 @@ public final class JavaHeuristicScanner implements Symbols {
 	 * @param partition the partition to scan in
 	 */
 	public JavaHeuristicScanner(IDocument document, String partitioning, String partition) {
+		this(document, partitioning, partition, false);
+	}
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param document the document to scan
+	 * @param partitioning the partitioning to use for scanning
+	 * @param partition the partition to scan in
+	 * @param snapshot <code>true</code> to scan a snapshot of the document, which requires that
+	 *            the document does not change while the scanner is used
+	 * @since 3.10
+	 */
+	public JavaHeuristicScanner(IDocument document, String partitioning, String partition, boolean snapshot) {
 		Assert.isLegal(document != null);
 		Assert.isLegal(partitioning != null);
 		Assert.isLegal(partition != null);
 		fDocument= document;
 		fPartitioning= partitioning;
 		fPartition= partition;
+		fUseSnapshot= snapshot;
 	}
 
 	/**
@@ -292,6 +339,18 @@ public final class JavaHeuristicScanner implements Symbols {
 		this(document, IJavaPartitions.JAVA_PARTITIONING, IDocument.DEFAULT_CONTENT_TYPE);
 	}
 
+	/**
+	 * Calls <code>this(document, IJavaPartitions.JAVA_PARTITIONING, IDocument.DEFAULT_CONTENT_TYPE, snapshot)</code>.
+	 *
+	 * @param document the document to scan
+	 * @param snapshot <code>true</code> to scan a snapshot of the document, which requires that
+	 *            the document does not change while the scanner is used
+	 * @since 3.10
+	 */
+	public JavaHeuristicScanner(IDocument document, boolean snapshot) {
+		this(document, IJavaPartitions.JAVA_PARTITIONING, IDocument.DEFAULT_CONTENT_TYPE, snapshot);
+	}
+
 	/**
 	 * Returns the most recent internal scan position.
 	 *
@@ -361,7 +420,7 @@ public final class JavaHeuristicScanner implements Symbols {
 
 			String identOrKeyword;
 			try {
-				identOrKeyword= fDocument.get(from, to - from);
+				identOrKeyword= getString(from, to);
 			} catch (BadLocationException e) {
 				return TokenEOF;
 			}
@@ -437,7 +496,7 @@ public final class JavaHeuristicScanner implements Symbols {
 
 			String identOrKeyword;
 			try {
-				identOrKeyword= fDocument.get(from, to - from);
+				identOrKeyword= getString(from, to);
 			} catch (BadLocationException e) {
 				return TokenEOF;
 			}
@@ -565,7 +624,7 @@ public final class JavaHeuristicScanner implements Symbols {
 				if (start == NOT_FOUND)
 					return NOT_FOUND;
 
-				if (fDocument.getChar(start) == openingPeer)
+				if (getChar(start) == openingPeer)
 					depth++;
 				else
 					depth--;
@@ -620,7 +679,7 @@ public final class JavaHeuristicScanner implements Symbols {
 				if (start == NOT_FOUND)
 					return NOT_FOUND;
 
-				if (fDocument.getChar(start) == closingPeer)
+				if (getChar(start) == closingPeer)
 					depth++;
 				else
 					depth--;
@@ -733,7 +792,7 @@ public final class JavaHeuristicScanner implements Symbols {
 			fPos= start;
 			while (fPos < bound) {
 
-				fChar= fDocument.getChar(fPos);
+				fChar= getChar(fPos);
 				if (condition.stop(fChar, fPos, true))
 					return fPos;
 
@@ -793,7 +852,7 @@ public final class JavaHeuristicScanner implements Symbols {
 			fPos= start;
 			while (fPos > bound) {
 
-				fChar= fDocument.getChar(fPos);
+				fChar= getChar(fPos);
 				if (condition.stop(fChar, fPos, false))
 					return fPos;
 
@@ -854,14 +913,121 @@ public final class JavaHeuristicScanner implements Symbols {
 			Assert.isTrue(position >= 0);
 			Assert.isTrue(position <= fDocument.getLength());
 
+			ITypedRegion partition= fUseSnapshot ? getSnapshotPartition(position) : null;
+			if (partition != null) {
+				fCachedPartition= partition;
+			} else {
+				try {
+					fCachedPartition= TextUtilities.getPartition(fDocument, fPartitioning, position, false);
+				} catch (BadLocationException e) {
+					fCachedPartition= new TypedRegion(position, 0, "__no_partition_at_all"); //$NON-NLS-1$
+				}
+			}
+		}
+
+		return fCachedPartition;
+	}
+
+	/**
+	 * Returns the character at <code>position</code>, from the snapshot in snapshot mode.
+	 *
+	 * @param position the position
+	 * @return the character at <code>position</code>
+	 * @throws BadLocationException if <code>position</code> is not a valid document position
+	 * @since 3.10
+	 */
+	private char getChar(int position) throws BadLocationException {
+		if (!fUseSnapshot)
+			return fDocument.getChar(position);
+
+		int index= position - fSnapshotOffset;
+		if (index < 0 || index >= fSnapshot.length) {
+			loadSnapshot(position);
+			index= position - fSnapshotOffset;
+		}
+		return fSnapshot[index];
+	}
+
+	/**
+	 * Returns the document content in <code>[from, to)</code>, from the snapshot in snapshot
+	 * mode if it covers the range.
+	 *
+	 * @param from the start offset
+	 * @param to the end offset
+	 * @return the content
+	 * @throws BadLocationException if the range is not valid
+	 * @since 3.10
+	 */
+	private String getString(int from, int to) throws BadLocationException {
+		if (fUseSnapshot && from >= fSnapshotOffset && to <= fSnapshotOffset + fSnapshot.length && from <= to)
+			return new String(fSnapshot, from - fSnapshotOffset, to - from);
+		return fDocument.get(from, to - from);
+	}
+
+	/**
+	 * Returns the partition at <code>position</code> from the snapshot, loading the snapshot
+	 * around <code>position</code> if needed. The returned partition may be clipped to the
+	 * snapshot range.
+	 *
+	 * @param position the position
+	 * @return the partition, or <code>null</code> if it is not known
+	 * @since 3.10
+	 */
+	private ITypedRegion getSnapshotPartition(int position) {
+		if (position < fSnapshotOffset || position >= fSnapshotOffset + fSnapshot.length) {
 			try {
-				fCachedPartition= TextUtilities.getPartition(fDocument, fPartitioning, position, false);
+				loadSnapshot(position);
 			} catch (BadLocationException e) {
-				fCachedPartition= new TypedRegion(position, 0, "__no_partition_at_all"); //$NON-NLS-1$
+				return null;
 			}
 		}
 
-		return fCachedPartition;
+		int low= 0;
+		int high= fSnapshotPartitions.length - 1;
+		while (low <= high) {
+			int mid= (low + high) >>> 1;
+			ITypedRegion partition= fSnapshotPartitions[mid];
+			if (position < partition.getOffset())
+				high= mid - 1;
+			else if (position >= partition.getOffset() + partition.getLength())
+				low= mid + 1;
+			else
+				return partition;
+		}
+		return null;
+	}
+
+	/**
+	 * Loads the snapshot so that it contains <code>position</code>. A scan that leaves the
+	 * snapshot extends it in the scan direction by at least its current size, so that copying
+	 * stays linear in the scanned length.
+	 *
+	 * @param position the position
+	 * @throws BadLocationException if <code>position</code> is not a valid document position
+	 * @since 3.10
+	 */
+	private void loadSnapshot(int position) throws BadLocationException {
+		int length= fDocument.getLength();
+		if (position < 0 || position >= length)
+			throw new BadLocationException();
+
+		int snapshotEnd= fSnapshotOffset + fSnapshot.length;
+		int size= Math.max(SNAPSHOT_CHUNK_SIZE, fSnapshot.length);
+		int start, end;
+		if (fSnapshot.length > 0 && position < fSnapshotOffset && position >= fSnapshotOffset - size) {
+			start= Math.max(0, fSnapshotOffset - size);
+			end= snapshotEnd;
+		} else if (fSnapshot.length > 0 && position >= snapshotEnd && position < snapshotEnd + size) {
+			start= fSnapshotOffset;
+			end= Math.min(length, snapshotEnd + size);
+		} else {
+			start= Math.max(0, position - SNAPSHOT_CHUNK_SIZE / 2);
+			end= Math.min(length, start + SNAPSHOT_CHUNK_SIZE);
+		}
+
+		fSnapshot= fDocument.get(start, end - start).toCharArray();
+		fSnapshotOffset= start;
+		fSnapshotPartitions= TextUtilities.computePartitioning(fDocument, fPartitioning, start, end - start, false);
 	}
 
 	/**
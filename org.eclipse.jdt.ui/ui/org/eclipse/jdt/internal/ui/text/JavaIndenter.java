@@ -383,6 +383,11 @@ public final class JavaIndenter {
 	 * @since 3.2
 	 */
 	private final CorePrefs fPrefs;
+	/**
+	 * The bracket index used to skip scopes, or <code>null</code> to scan them.
+	 * @since 3.10
+	 */
+	private final JavaBracketIndex fBracketIndex;
 
 	/**
 	 * Creates a new instance.
@@ -407,11 +412,31 @@ public final class JavaIndenter {
 	 * @since 3.1
 	 */
 	public JavaIndenter(IDocument document, JavaHeuristicScanner scanner, IJavaProject project) {
+		this(document, scanner, project, null);
+	}
+
+	/**
+	 * Creates a new instance that skips scopes using a bracket index. This is meant for
+	 * computing the indentation of many lines in a row, e.g. of a whole file, where scanning
+	 * backwards over all preceding scopes for every line takes quadratic time. The results
+	 * are the same as without the index.
+	 *
+	 * @param document the document to scan
+	 * @param scanner the {@link JavaHeuristicScanner} to be used for scanning the document. It
+	 *            must be installed on the same <code>IDocument</code>.
+	 * @param project the java project to get the formatter preferences from, or
+	 *            <code>null</code> to use the workspace settings
+	 * @param bracketIndex the index of the brackets in <code>document</code>, or
+	 *            <code>null</code> to scan for matching brackets
+	 * @since 3.10
+	 */
+	public JavaIndenter(IDocument document, JavaHeuristicScanner scanner, IJavaProject project, JavaBracketIndex bracketIndex) {
 		Assert.isNotNull(document);
 		Assert.isNotNull(scanner);
 		fDocument= document;
 		fScanner= scanner;
 		fPrefs= new CorePrefs(project);
+		fBracketIndex= bracketIndex;
 	}
 
 	/**
@@ -1988,6 +2013,9 @@ public final class JavaIndenter {
 	 */
 	private boolean skipScope(int openToken, int closeToken) {
 
+		if (fBracketIndex != null && skipScopeWithIndex(openToken))
+			return true;
+
 		int depth= 1;
 
 		while (true) {
@@ -2004,4 +2032,46 @@ public final class JavaIndenter {
 			}
 		}
 	}
+
+	/**
+	 * Looks up the matching opening peer in the bracket index and leaves the internal state
+	 * as {@link #skipScope(int, int)} does when scanning for it.
+	 *
+	 * @param openToken the opening peer token
+	 * @return <code>true</code> if the index found the opening peer, <code>false</code> if
+	 *         the scope has to be scanned
+	 * @since 3.10
+	 */
+	private boolean skipScopeWithIndex(int openToken) {
+		char openingPeer;
+		switch (openToken) {
+			case Symbols.TokenLBRACE:
+				openingPeer= '{';
+				break;
+			case Symbols.TokenLPAREN:
+				openingPeer= '(';
+				break;
+			case Symbols.TokenLBRACKET:
+				openingPeer= '[';
+				break;
+			default:
+				return false;
+		}
+
+		int peer= fBracketIndex.findOpeningPeer(fPosition, openingPeer);
+		if (peer == JavaHeuristicScanner.NOT_FOUND)
+			return false;
+
+		// the token read before the peer starts at the first Java character after it
+		int next= fScanner.findNonWhitespaceForward(peer + 1, fPosition);
+		fPreviousPos= next == JavaHeuristicScanner.NOT_FOUND ? fPosition : next;
+		fPosition= peer;
+		fToken= openToken;
+		try {
+			fLine= fDocument.getLineOfOffset(fPosition);
+		} catch (BadLocationException e) {
+			fLine= -1;
+		}
+		return true;
+	}
 }
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+
+/**
+ * Schedules the reconciles of all Java editors. Every {@link JavaReconciler} runs in its own
+ * thread, but only a bounded number of them may reconcile at the same time. The others wait in a
+ * queue, where the reconcilers of active editors are served before the ones of inactive editors.
+ * <p>
+ * The scheduler records how many reconcilers are waiting and how long they wait for their turn.
+ * </p>
+ *
+ * @since 3.10
+ */
+public final class JavaReconcileScheduler {
+
+	/**
+	 * The time in milliseconds after which a waiting reconciler checks whether it has been
+	 * canceled.
+	 */
+	private static final long CANCEL_CHECK_INTERVAL= 200;
+
+	private static JavaReconcileScheduler fgDefault;
+
+	/**
+	 * A reconciler waiting for its turn.
+	 */
+	private static final class Ticket {
+		final boolean fPriority;
+		final long fQueued;
+		boolean fGranted;
+
+		Ticket(boolean priority) {
+			fPriority= priority;
+			fQueued= System.currentTimeMillis();
+		}
+	}
+
+	private final int fMaxRunning;
+	private final LinkedList<Ticket> fQueue= new LinkedList<Ticket>();
+	private int fRunning;
+
+	private int fMaxQueueDepth;
+	private int fGrantCount;
+	private long fTotalLatency;
+	private long fMaxLatency;
+
+	/**
+	 * Creates a new scheduler.
+	 *
+	 * @param maxRunning the maximal number of reconcilers that run at the same time
+	 */
+	public JavaReconcileScheduler(int maxRunning) {
+		Assert.isLegal(maxRunning > 0);
+		fMaxRunning= maxRunning;
+	}
+
+	/**
+	 * Returns the scheduler shared by all Java editors. It lets half of the available processors
+	 * reconcile at the same time.
+	 *
+	 * @return the shared scheduler
+	 */
+	public static synchronized JavaReconcileScheduler getDefault() {
+		if (fgDefault == null)
+			fgDefault= new JavaReconcileScheduler(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+		return fgDefault;
+	}
+
+	/**
+	 * Waits until the calling reconciler may run. Each successful call must be followed by a call
+	 * to {@link #release()} once the reconciler is done.
+	 *
+	 * @param priority <code>true</code> if the reconciler belongs to the active editor and is to
+	 *            run before the waiting reconcilers of inactive editors
+	 * @param monitor the progress monitor of the reconciler, or <code>null</code>
+	 * @return <code>true</code> if the reconciler may run, <code>false</code> if it has been
+	 *         canceled or interrupted while waiting
+	 */
+	public synchronized boolean acquire(boolean priority, IProgressMonitor monitor) {
+		Ticket ticket= new Ticket(priority);
+		if (fQueue.isEmpty() && fRunning < fMaxRunning) {
+			grant(ticket);
+			return true;
+		}
+
+		if (priority) {
+			int index= 0;
+			for (Iterator<Ticket> iter= fQueue.iterator(); iter.hasNext() && iter.next().fPriority;)
+				index++;
+			fQueue.add(index, ticket);
+		} else {
+			fQueue.add(ticket);
+		}
+		fMaxQueueDepth= Math.max(fMaxQueueDepth, fQueue.size());
+
+		try {
+			while (!ticket.fGranted) {
+				if (monitor != null && monitor.isCanceled())
+					break;
+				wait(CANCEL_CHECK_INTERVAL);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (ticket.fGranted)
+			return true;
+		fQueue.remove(ticket);
+		return false;
+	}
+
+	/**
+	 * Tells the scheduler that a reconciler which acquired its turn is done and lets the next
+	 * waiting reconciler run.
+	 */
+	public synchronized void release() {
+		Assert.isTrue(fRunning > 0);
+		fRunning--;
+		if (!fQueue.isEmpty() && fRunning < fMaxRunning) {
+			grant(fQueue.removeFirst());
+			notifyAll();
+		}
+	}
+
+	private void grant(Ticket ticket) {
+		ticket.fGranted= true;
+		fRunning++;
+		long latency= System.currentTimeMillis() - ticket.fQueued;
+		fGrantCount++;
+		fTotalLatency+= latency;
+		fMaxLatency= Math.max(fMaxLatency, latency);
+	}
+
+	/**
+	 * @return the number of reconcilers that are currently running
+	 */
+	public synchronized int getRunningCount() {
+		return fRunning;
+	}
+
+	/**
+	 * @return the number of reconcilers that are currently waiting
+	 */
+	public synchronized int getQueueDepth() {
+		return fQueue.size();
+	}
+
+	/**
+	 * @return the maximal number of reconcilers that have been waiting at the same time
+	 */
+	public synchronized int getMaxQueueDepth() {
+		return fMaxQueueDepth;
+	}
+
+	/**
+	 * @return the number of times a reconciler has been allowed to run
+	 */
+	public synchronized int getGrantCount() {
+		return fGrantCount;
+	}
+
+	/**
+	 * @return the average time in milliseconds reconcilers waited before they could run
+	 */
+	public synchronized long getAverageLatency() {
+		return fGrantCount == 0 ? 0 : fTotalLatency / fGrantCount;
+	}
+
+	/**
+	 * @return the maximal time in milliseconds a reconciler waited before it could run
+	 */
+	public synchronized long getMaxLatency() {
+		return fMaxLatency;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -33,6 +33,7 @@ import org.eclipse.jface.util.PropertyChangeEvent;
 
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.reconciler.DirtyRegion;
 import org.eclipse.jface.text.reconciler.MonoReconciler;
 
 import org.eclipse.ui.IEditorInput;
@@ -58,6 +59,12 @@ import org.eclipse.jdt.internal.ui.javaeditor.EditorUtility;
 
 /**
  * A reconciler that is also activated on editor activation.
+ * <p>
+ * The reconciles of all Java editors are scheduled by the {@link JavaReconcileScheduler}, so that
+ * only a few of them run at the same time and the active editor is reconciled first. Inactive
+ * editors do not reconcile on changes of the Java model or of problem markers, but once when
+ * they get activated again.
+ * </p>
  */
 public class JavaReconciler extends MonoReconciler {
 
@@ -220,7 +227,10 @@ public class JavaReconciler extends MonoReconciler {
 					int i= deltas.length;
 					while (--i >= 0) {
 						if (deltas[i].isSubtypeOf(IMarker.PROBLEM)) {
-							forceReconciling();
+							if (isEditorActive())
+								forceReconciling();
+							else
+								setJavaModelChanged(true);
 							return;
 						}
 					}
@@ -402,12 +412,35 @@ public class JavaReconciler extends MonoReconciler {
 	 */
 	@Override
 	protected void initialProcess() {
-		synchronized (fMutex) {
-			super.initialProcess();
+		JavaReconcileScheduler scheduler= JavaReconcileScheduler.getDefault();
+		if (scheduler.acquire(isEditorActive(), getProgressMonitor())) {
+			try {
+				synchronized (fMutex) {
+					super.initialProcess();
+				}
+			} finally {
+				scheduler.release();
+			}
 		}
 		fIninitalProcessDone= true;
 	}
 
+	/*
+	 * @see org.eclipse.jface.text.reconciler.MonoReconciler#process(org.eclipse.jface.text.reconciler.DirtyRegion)
+	 * @since 3.10
+	 */
+	@Override
+	protected void process(DirtyRegion dirtyRegion) {
+		JavaReconcileScheduler scheduler= JavaReconcileScheduler.getDefault();
+		if (!scheduler.acquire(isEditorActive(), getProgressMonitor()))
+			return;
+		try {
+			super.process(dirtyRegion);
+		} finally {
+			scheduler.release();
+		}
+	}
+
 	/**
 	 * Tells whether the Java Model has changed or not.
 	 *
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text;
+
+import org.eclipse.core.runtime.PerformanceStats;
+
+import org.eclipse.jface.text.IRegion;
+
+import org.eclipse.ui.IEditorInput;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+
+/**
+ * Traces how long the participants of a reconcile take: the reconciling strategies of the
+ * {@link CompositeReconcilingStrategy} and the
+ * {@link org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener}s notified with the
+ * reconciled AST.
+ * <p>
+ * If the performance event <code>org.eclipse.jdt.ui/perf/reconcile/participants</code> is
+ * enabled, every run is reported to core's {@link PerformanceStats} service, which shows the
+ * timings per participant in its performance view and reports participants that exceed
+ * the configured threshold. Otherwise nothing is recorded.
+ * </p>
+ *
+ * @since 3.10
+ */
+public final class ReconcileTimings {
+
+	/** The name of the performance event used to trace reconcile participants. */
+	private static final String PERFORMANCE_EVENT= JavaPlugin.getPluginId() + "/perf/reconcile/participants"; //$NON-NLS-1$
+	/**
+	 * If <code>true</code>, the runs of the participants are forwarded to core's
+	 * {@link PerformanceStats} service.
+	 */
+	private static final boolean MEASURE_PERFORMANCE= PerformanceStats.isEnabled(PERFORMANCE_EVENT);
+
+	private ReconcileTimings() {
+	}
+
+	/**
+	 * Starts timing a run of the given participant. The run must be ended with
+	 * {@link #endRun(PerformanceStats)}.
+	 * <p>
+	 * The stats are kept per participant instance. A {@link PerformanceStats} object can only
+	 * time one run at a time, and participants of different editors are reconciled concurrently,
+	 * whereas the runs of a single participant are not.
+	 * </p>
+	 *
+	 * @param participant the reconcile participant
+	 * @param context the context of the run: the reconciled {@link IRegion}, the
+	 *            {@link IEditorInput} of the editor, or a description of the run
+	 * @return the stats of the run, or <code>null</code> if reconcile participants are not traced
+	 */
+	public static PerformanceStats startRun(Object participant, Object context) {
+		if (!MEASURE_PERFORMANCE)
+			return null;
+		PerformanceStats stats= PerformanceStats.getStats(PERFORMANCE_EVENT, participant);
+		stats.startRun(getContextName(context));
+		return stats;
+	}
+
+	/**
+	 * Ends timing a run.
+	 *
+	 * @param stats the stats returned by {@link #startRun(Object, Object)}, or <code>null</code>
+	 */
+	public static void endRun(PerformanceStats stats) {
+		if (stats != null)
+			stats.endRun();
+	}
+
+	private static String getContextName(Object context) {
+		if (context instanceof IRegion) {
+			IRegion region= (IRegion) context;
+			return "offset " + region.getOffset() + ", length " + region.getLength(); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		if (context instanceof IEditorInput)
+			return ((IEditorInput) context).getName();
+		return String.valueOf(context);
+	}
+}
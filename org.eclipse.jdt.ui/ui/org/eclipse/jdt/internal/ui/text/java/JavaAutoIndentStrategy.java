@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ import org.eclipse.jface.preference.IPreferenceStore;
 
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.DefaultIndentLineAutoEditStrategy;
+import org.eclipse.jface.text.DefaultLineTracker;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.DocumentCommand;
 import org.eclipse.jface.text.DocumentRewriteSession;
@@ -75,6 +76,21 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 
 	/** The line comment introducer. Value is "{@value}" */
 	private static final String LINE_COMMENT= "//"; //$NON-NLS-1$
+	/**
+	 * The opening brackets, in the order of their closing brackets in {@link #CLOSING_BRACKETS}.
+	 * @since 3.10
+	 */
+	private static final String OPENING_BRACKETS= "{(["; //$NON-NLS-1$
+	/**
+	 * The closing brackets.
+	 * @since 3.10
+	 */
+	private static final String CLOSING_BRACKETS= "})]"; //$NON-NLS-1$
+	/**
+	 * All brackets, sorted, since the scanner sorts the characters it scans for in place.
+	 * @since 3.10
+	 */
+	private static final char[] BRACKETS= { '(', ')', '[', ']', '{', '}' };
 
 		private static class CompilationUnitInfo {
 
@@ -213,7 +229,7 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 			int start= d.getLineOffset(line);
 			int whiteend= findEndOfWhiteSpace(d, start, c.offset);
 
-			JavaHeuristicScanner scanner= new JavaHeuristicScanner(d);
+			JavaHeuristicScanner scanner= new JavaHeuristicScanner(d, true);
 			JavaIndenter indenter= new JavaIndenter(d, scanner, fProject);
 
 			// shift only when line does not contain any text up to the closing bracket
@@ -242,7 +258,7 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 		if (c.offset < 1 || d.getLength() == 0)
 			return;
 
-		JavaHeuristicScanner scanner= new JavaHeuristicScanner(d);
+		JavaHeuristicScanner scanner= new JavaHeuristicScanner(d, true);
 
 		int p= (c.offset == d.getLength() ? c.offset - 1 : c.offset);
 
@@ -281,7 +297,7 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 	}
 
 	private void smartIndentAfterNewLine(IDocument d, DocumentCommand c) {
-		JavaHeuristicScanner scanner= new JavaHeuristicScanner(d);
+		JavaHeuristicScanner scanner= new JavaHeuristicScanner(d, true);
 		JavaIndenter indenter= new JavaIndenter(d, scanner, fProject);
 		StringBuffer indent= indenter.computeIndentation(c.offset);
 		if (indent == null)
@@ -384,7 +400,7 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 		// return true if it looks like a method declaration
 		// or an expression for an if, while, for, catch statement
 
-		JavaHeuristicScanner scanner= new JavaHeuristicScanner(document);
+		JavaHeuristicScanner scanner= new JavaHeuristicScanner(document, true);
 		int pos= offset;
 		int length= max;
 		int scanTo= scanner.scanForward(pos, length, '}');
@@ -530,6 +546,10 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 
 	private boolean isClosed(IDocument document, int offset, int length) {
 
+		Boolean closed= isClosedAfterOpeningBrace(document, offset, length);
+		if (closed != null)
+			return closed.booleanValue();
+
 		CompilationUnitInfo info= getCompilationUnitForMethod(document, offset);
 		if (info == null)
 			return false;
@@ -620,6 +640,65 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 		return true;
 	}
 
+	/**
+	 * Decides from the tokens whether a closing brace is needed in the common case that
+	 * <code>offset</code> directly follows an opening brace. The AST based check in
+	 * {@link #isClosed(IDocument, int, int)} then finds the block starting at that brace, unless
+	 * the parser reports unmatched brackets, so parsing the rest of the block is only needed if
+	 * the brackets in the block are not properly nested.
+	 *
+	 * @param document the document
+	 * @param offset the offset of the caret
+	 * @param length the length of the selection that is replaced
+	 * @return whether the brace is closed, or <code>null</code> if the AST has to decide
+	 * @since 3.10
+	 */
+	private Boolean isClosedAfterOpeningBrace(IDocument document, int offset, int length) {
+		if (length != 0 || offset < 1 || offset >= document.getLength())
+			return null;
+
+		JavaHeuristicScanner scanner= new JavaHeuristicScanner(document, true);
+		if (scanner.previousToken(offset - 1, JavaHeuristicScanner.UNBOUND) != Symbols.TokenLBRACE)
+			return null;
+		int begin= scanner.getPosition() + 1;
+
+		int end= scanner.findClosingPeer(offset, '{', '}');
+		if (end == JavaHeuristicScanner.NOT_FOUND)
+			return Boolean.FALSE; // no surrounding block to parse
+
+		// the brackets must nest properly, otherwise the parser reports unmatched brackets
+		char[] expected= new char[16];
+		int depth= 0;
+		int position= begin;
+		while (true) {
+			position= scanner.scanForward(position, end + 1, BRACKETS);
+			if (position == JavaHeuristicScanner.NOT_FOUND)
+				break;
+			char ch;
+			try {
+				ch= document.getChar(position);
+			} catch (BadLocationException e) {
+				return null;
+			}
+			int kind= OPENING_BRACKETS.indexOf(ch);
+			if (kind != -1) {
+				if (depth == expected.length) {
+					char[] grown= new char[depth * 2];
+					System.arraycopy(expected, 0, grown, 0, depth);
+					expected= grown;
+				}
+				expected[depth++]= CLOSING_BRACKETS.charAt(kind);
+			} else if (depth == 0 || expected[--depth] != ch) {
+				return null;
+			}
+			position++;
+		}
+		if (depth != 0)
+			return null;
+
+		return Boolean.valueOf(getBlockBalance(document, offset, fPartitioning) <= 0);
+	}
+
 	/**
 	 * Installs a java partitioner with <code>document</code>.
 	 *
@@ -654,7 +733,7 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 		String newText= command.text;
 
 		try {
-			JavaHeuristicScanner scanner= new JavaHeuristicScanner(document);
+			JavaHeuristicScanner scanner= new JavaHeuristicScanner(document, true);
 			JavaIndenter indenter= new JavaIndenter(document, scanner, fProject);
 			int offset= newOffset;
 
@@ -701,6 +780,7 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 			int lines= temp.getNumberOfLines();
 			int tabLength= getVisualTabLengthPreference();
 			boolean changed= false;
+			int tail= lines; // the first line that is shifted without the temporary document
 			for (int l= first; l < lines; l++) { // we don't change the number of lines while adding indents
 
 				IRegion r= temp.getLineInformation(l);
@@ -749,11 +829,23 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 				else if (insertLength < 0)
 					cutIndent(temp, l, -insertLength, tabLength);
 
+				if (isIndentDetected) {
+					// all remaining lines are shifted by the same amount, which does not need
+					// the partitioned document
+					tail= l + 1;
+					break;
+				}
 			}
 
 			removeJavaStuff(temp);
 			temp.stopRewriteSession(session);
-			newText= temp.get(prefix.length(), temp.getLength() - prefix.length());
+			if (tail < lines) {
+				int tailOffset= temp.getLineOffset(tail);
+				String shifted= shiftIndent(temp.get(tailOffset, temp.getLength() - tailOffset), insertLength, addition, tabLength);
+				newText= temp.get(prefix.length(), tailOffset - prefix.length()) + shifted;
+			} else {
+				newText= temp.get(prefix.length(), temp.getLength() - prefix.length());
+			}
 
 			command.offset= newOffset;
 			command.length= newLength;
@@ -845,12 +937,26 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 	 */
 	private void addIndent(Document document, int line, CharSequence indent, int tabLength) throws BadLocationException {
 		IRegion region= document.getLineInformation(line);
-		int insert= region.getOffset();
-		int endOffset= region.getOffset() + region.getLength();
+		String content= document.get(region.getOffset(), region.getLength());
+		document.replace(region.getOffset(), region.getLength(), addIndent(content, indent, tabLength));
+	}
+
+	/**
+	 * Indents <code>line</code> with <code>indent</code>. Leaves leading comment signs alone.
+	 *
+	 * @param line the content of the line, without delimiter
+	 * @param indent the indentation to insert
+	 * @param tabLength the length of a tab
+	 * @return the indented line
+	 * @since 3.10
+	 */
+	private String addIndent(String line, CharSequence indent, int tabLength) {
+		int insert= 0;
+		int endOffset= line.length();
 
 		// Compute insert after all leading line comment markers
 		int newInsert= insert;
-		while (newInsert < endOffset - 2 && document.get(newInsert, 2).equals(LINE_COMMENT))
+		while (newInsert < endOffset - 2 && line.startsWith(LINE_COMMENT, newInsert))
 			newInsert += 2;
 
 		// Heuristic to check whether it is commented code or just a comment
@@ -858,7 +964,7 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 			int whitespaceCount= 0;
 			int i= newInsert;
 			while (i < endOffset - 1) {
-				 char ch= document.get(i, 1).charAt(0);
+				 char ch= line.charAt(i);
 				 if (!Character.isWhitespace(ch))
 					 break;
 				 whitespaceCount= whitespaceCount + computeVisualLength(ch, tabLength);
@@ -870,7 +976,7 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 		}
 
 		// Insert indent
-		document.replace(insert, 0, indent.toString());
+		return line.substring(0, insert) + indent + line.substring(insert);
 	}
 
 	/**
@@ -886,16 +992,31 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 	 */
 	private void cutIndent(Document document, int line, int toDelete, int tabLength) throws BadLocationException {
 		IRegion region= document.getLineInformation(line);
-		int from= region.getOffset();
-		int endOffset= region.getOffset() + region.getLength();
+		String content= document.get(region.getOffset(), region.getLength());
+		document.replace(region.getOffset(), region.getLength(), cutIndent(content, toDelete, tabLength));
+	}
+
+	/**
+	 * Cuts the visual equivalent of <code>toDelete</code> characters out of the indentation of
+	 * <code>line</code>. Leaves leading comment signs alone.
+	 *
+	 * @param line the content of the line, without delimiter
+	 * @param toDelete the number of space equivalents to delete
+	 * @param tabLength the length of a tab
+	 * @return the unindented line
+	 * @since 3.10
+	 */
+	private String cutIndent(String line, int toDelete, int tabLength) {
+		int from= 0;
+		int endOffset= line.length();
 
 		// go behind line comments
-		while (from < endOffset - 2 && document.get(from, 2).equals(LINE_COMMENT))
+		while (from < endOffset - 2 && line.startsWith(LINE_COMMENT, from))
 			from += 2;
 
 		int to= from;
 		while (toDelete > 0 && to < endOffset) {
-			char ch= document.getChar(to);
+			char ch= line.charAt(to);
 			if (!Character.isWhitespace(ch))
 				break;
 			toDelete -= computeVisualLength(ch, tabLength);
@@ -905,7 +1026,44 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 				break;
 		}
 
-		document.replace(from, to - from, ""); //$NON-NLS-1$
+		return line.substring(0, from) + line.substring(to);
+	}
+
+	/**
+	 * Shifts all non-empty lines of <code>text</code> by the same amount. Used for the pasted
+	 * lines after the first ones, whose indentation has been computed, so that the rest of a
+	 * large paste takes time linear in its length.
+	 *
+	 * @param text the lines to shift
+	 * @param insertLength the number of space equivalents to add, or to remove if negative
+	 * @param addition the indentation to add if <code>insertLength</code> is positive
+	 * @param tabLength the length of a tab
+	 * @return the shifted lines
+	 * @throws BadLocationException if the line information is inconsistent
+	 * @since 3.10
+	 */
+	private String shiftIndent(String text, int insertLength, CharSequence addition, int tabLength) throws BadLocationException {
+		if (insertLength == 0)
+			return text;
+
+		DefaultLineTracker tracker= new DefaultLineTracker();
+		tracker.set(text);
+		StringBuffer result= new StringBuffer(text.length());
+		int lines= tracker.getNumberOfLines();
+		for (int l= 0; l < lines; l++) {
+			IRegion region= tracker.getLineInformation(l);
+			String line= text.substring(region.getOffset(), region.getOffset() + region.getLength());
+			if (line.length() == 0) // don't modify empty lines
+				result.append(line);
+			else if (insertLength > 0)
+				result.append(addIndent(line, addition, tabLength));
+			else
+				result.append(cutIndent(line, -insertLength, tabLength));
+			String delimiter= tracker.getLineDelimiter(l);
+			if (delimiter != null)
+				result.append(delimiter);
+		}
+		return result.toString();
 	}
 
 	/**
@@ -994,7 +1152,7 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
     	int firstPeer= command.offset;
 
     	JavaHeuristicScanner pScanner= new JavaHeuristicScanner(pasted);
-    	JavaHeuristicScanner dScanner= new JavaHeuristicScanner(document);
+    	JavaHeuristicScanner dScanner= new JavaHeuristicScanner(document, true);
 
     	// add scope relevant after context to peer search
     	int afterToken= dScanner.nextToken(command.offset + command.length, JavaHeuristicScanner.UNBOUND);
@@ -1139,7 +1297,7 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 		try {
 			String content= d.get(c.offset - 3, 3);
 			if (content.equals("els")) { //$NON-NLS-1$
-				JavaHeuristicScanner scanner= new JavaHeuristicScanner(d);
+				JavaHeuristicScanner scanner= new JavaHeuristicScanner(d, true);
 				int p= c.offset - 3;
 
 				// current line
@@ -1177,7 +1335,7 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 			}
 
 			if (content.equals("cas")) { //$NON-NLS-1$
-				JavaHeuristicScanner scanner= new JavaHeuristicScanner(d);
+				JavaHeuristicScanner scanner= new JavaHeuristicScanner(d, true);
 				int p= c.offset - 3;
 
 				// current line
@@ -1313,7 +1471,7 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 
 	private static CompilationUnitInfo getCompilationUnitForMethod(IDocument document, int offset) {
 		try {
-			JavaHeuristicScanner scanner= new JavaHeuristicScanner(document);
+			JavaHeuristicScanner scanner= new JavaHeuristicScanner(document, true);
 
 			IRegion sourceRange= scanner.findSurroundingBlock(offset);
 			if (sourceRange == null)
@@ -1356,7 +1514,7 @@ public class JavaAutoIndentStrategy extends DefaultIndentLineAutoEditStrategy {
 		int begin= offset;
 		int end= offset - 1;
 
-		JavaHeuristicScanner scanner= new JavaHeuristicScanner(document);
+		JavaHeuristicScanner scanner= new JavaHeuristicScanner(document, true);
 
 		while (true) {
 			begin= scanner.findOpeningPeer(begin - 1, '{', '}');
@@ -0,0 +1,390 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.javadoc;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.corext.javadoc.JavaDocLocations;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+
+/**
+ * Disk-backed cache of the Javadoc that is attached to library members as a local Javadoc
+ * archive or folder.
+ * <p>
+ * Extracting the documentation of a member with {@link IMember#getAttachedJavadoc(IProgressMonitor)}
+ * reads and parses the HTML page of its declaring type. The cache keeps the extracted
+ * documentation per Javadoc location in an index of type name and member signature, which is
+ * loaded from the plug-in's state location on first use and written back after changes. When
+ * the documentation of a type that is not yet in the index is requested, the documentation of all
+ * its members is extracted in the background, so that further hovers over the type's members are
+ * answered from the index.
+ * </p>
+ * <p>
+ * An index is discarded when the time stamp of the Javadoc archive or folder changes. Each index
+ * is bounded in size and drops the least recently used types first, see
+ * {@link AttachedJavadocIndex}. Remote Javadoc locations are not cached.
+ * </p>
+ *
+ * @since 3.10
+ */
+public class AttachedJavadocCache {
+
+	private static final String CACHE_DIR= "javadoc-cache"; //$NON-NLS-1$
+	private static final String CACHE_FILE_EXTENSION= ".cache"; //$NON-NLS-1$
+
+	/** The maximal number of characters kept per Javadoc location */
+	private static final int MAX_LIBRARY_SIZE= 2 * 1024 * 1024;
+	/** The maximal number of indexes kept in memory */
+	private static final int MAX_LOADED_LIBRARIES= 8;
+	/** The maximal number of indexes kept on disk */
+	private static final int MAX_STORED_LIBRARIES= 32;
+
+	/** The file that tells that a Javadoc folder has been regenerated */
+	private static final String PACKAGE_LIST= "package-list"; //$NON-NLS-1$
+
+	/**
+	 * Extracts the documentation of all members of the requested types.
+	 */
+	private final class PrefetchJob extends Job {
+
+		PrefetchJob() {
+			super(JavaDocMessages.AttachedJavadocCache_prefetch_job);
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			while (!monitor.isCanceled()) {
+				IType type;
+				synchronized (AttachedJavadocCache.this) {
+					if (fPrefetchQueue.isEmpty())
+						break;
+					type= fPrefetchQueue.removeFirst();
+				}
+				try {
+					prefetch(type, monitor);
+				} catch (JavaModelException e) {
+					// the Javadoc is extracted again when requested
+				}
+			}
+			save();
+			return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+		}
+	}
+
+	/** Javadoc location -> index, in access order */
+	private final Map<String, AttachedJavadocIndex> fLibraries= new LinkedHashMap<String, AttachedJavadocIndex>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Entry<String, AttachedJavadocIndex> eldest) {
+			if (size() <= MAX_LOADED_LIBRARIES)
+				return false;
+			AttachedJavadocIndex library= eldest.getValue();
+			if (library.isDirty())
+				fEvictedLibraries.put(library.getLocation(), library);
+			return true;
+		}
+	};
+
+	/**
+	 * Javadoc location -> changed index that has been dropped from memory but not yet been written.
+	 * Indexes are not written while the lock of the cache is held.
+	 */
+	private final Map<String, AttachedJavadocIndex> fEvictedLibraries= new HashMap<String, AttachedJavadocIndex>();
+
+	private final LinkedList<IType> fPrefetchQueue= new LinkedList<IType>();
+	/** The types queued or being prefetched, as Javadoc location + '#' + type name */
+	private final Set<String> fPrefetchedTypes= new HashSet<String>();
+	private final PrefetchJob fPrefetchJob= new PrefetchJob();
+	private final File fCacheDir;
+
+	/**
+	 * Creates a new cache that stores its indexes in the state location of the Java UI plug-in.
+	 */
+	public AttachedJavadocCache() {
+		fCacheDir= getCacheDir();
+	}
+
+	private static File getCacheDir() {
+		try {
+			File cacheDir= JavaPlugin.getDefault().getStateLocation().append(CACHE_DIR).toFile();
+			if (!cacheDir.isDirectory() && !cacheDir.mkdir())
+				return null;
+			return cacheDir;
+		} catch (IllegalStateException e) {
+			// no state location
+			return null;
+		}
+	}
+
+	/**
+	 * Stops prefetching and writes the changed indexes to disk.
+	 */
+	public void dispose() {
+		fPrefetchJob.cancel();
+		try {
+			fPrefetchJob.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		save();
+	}
+
+	/**
+	 * Returns the attached Javadoc of the given member, as returned by
+	 * {@link IMember#getAttachedJavadoc(IProgressMonitor)}.
+	 *
+	 * @param member the binary member
+	 * @return the documentation extracted from the attached Javadoc, or <code>null</code> if none
+	 * @throws JavaModelException if the attached Javadoc cannot be accessed
+	 */
+	public String getAttachedJavadoc(IMember member) throws JavaModelException {
+		String memberKey= getMemberKey(member);
+		AttachedJavadocIndex library= memberKey != null ? getLibrary(member) : null;
+		if (library == null)
+			return member.getAttachedJavadoc(null);
+
+		IType type= member instanceof IType ? (IType) member : member.getDeclaringType();
+		String typeKey= type.getFullyQualifiedName('$');
+		String cached= library.get(typeKey, memberKey);
+		if (cached != null)
+			return cached.length() > 0 ? cached : null;
+
+		if (!library.containsType(typeKey)) {
+			synchronized (this) {
+				if (fPrefetchedTypes.add(library.getLocation() + '#' + typeKey)) {
+					fPrefetchQueue.add(type);
+					fPrefetchJob.schedule();
+				}
+			}
+		}
+
+		String javadoc= member.getAttachedJavadoc(null);
+		library.put(typeKey, memberKey, javadoc != null ? javadoc : ""); //$NON-NLS-1$
+		return javadoc;
+	}
+
+	private void prefetch(IType type, IProgressMonitor monitor) throws JavaModelException {
+		AttachedJavadocIndex library= getLibrary(type);
+		String typeKey= type.getFullyQualifiedName('$');
+		try {
+			if (library == null)
+				return;
+
+			List<IMember> members= new ArrayList<IMember>();
+			members.add(type);
+			members.addAll(Arrays.asList(type.getFields()));
+			members.addAll(Arrays.asList(type.getMethods()));
+
+			Map<String, String> docs= new HashMap<String, String>();
+			for (int i= 0; i < members.size() && !monitor.isCanceled(); i++) {
+				IMember member= members.get(i);
+				String javadoc= member.getAttachedJavadoc(monitor);
+				docs.put(getMemberKey(member), javadoc != null ? javadoc : ""); //$NON-NLS-1$
+			}
+
+			for (Iterator<Entry<String, String>> iter= docs.entrySet().iterator(); iter.hasNext();) {
+				Entry<String, String> entry= iter.next();
+				library.put(typeKey, entry.getKey(), entry.getValue());
+			}
+		} finally {
+			synchronized (this) {
+				if (library != null)
+					fPrefetchedTypes.remove(library.getLocation() + '#' + typeKey);
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the local Javadoc location of the given member.
+	 *
+	 * @param member the member
+	 * @return the index or <code>null</code> if the member is not from a library with a local
+	 *         Javadoc location
+	 * @throws JavaModelException if the Javadoc location cannot be accessed
+	 */
+	private AttachedJavadocIndex getLibrary(IMember member) throws JavaModelException {
+		IPackageFragmentRoot root= (IPackageFragmentRoot) member.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+		if (fCacheDir == null || root == null || root.getKind() != IPackageFragmentRoot.K_BINARY)
+			return null;
+		URL location= JavaDocLocations.getJavadocBaseLocation(member);
+		if (location == null)
+			return null;
+		File file= getLocalFile(location);
+		if (file == null || !file.exists())
+			return null;
+
+		String key= location.toExternalForm();
+		long stamp= getStamp(file);
+		AttachedJavadocIndex library;
+		synchronized (this) {
+			library= fLibraries.get(key);
+			if (library == null) {
+				library= fEvictedLibraries.remove(key);
+				if (library == null)
+					library= AttachedJavadocIndex.read(getCacheFile(key), key, MAX_LIBRARY_SIZE);
+				if (library == null)
+					library= new AttachedJavadocIndex(key, stamp, MAX_LIBRARY_SIZE);
+				fLibraries.put(key, library);
+			}
+		}
+		library.setStamp(stamp);
+		writeEvictedLibraries();
+		return library;
+	}
+
+	/**
+	 * Returns the archive or folder of a local Javadoc location.
+	 *
+	 * @param location the Javadoc location
+	 * @return the local archive or folder, or <code>null</code> if the location is not local
+	 */
+	private static File getLocalFile(URL location) {
+		String protocol= location.getProtocol();
+		if ("file".equals(protocol)) //$NON-NLS-1$
+			return JavaDocLocations.toFile(location);
+
+		if ("jar".equals(protocol)) { //$NON-NLS-1$
+			String path= location.getPath();
+			int separator= path.indexOf("!/"); //$NON-NLS-1$
+			if (separator != -1 && path.startsWith("file:")) { //$NON-NLS-1$
+				URL archive= JavaDocLocations.parseURL(path.substring(0, separator));
+				if (archive != null)
+					return JavaDocLocations.toFile(archive);
+			}
+		}
+		return null;
+	}
+
+	private static long getStamp(File file) {
+		if (file.isDirectory())
+			return Math.max(file.lastModified(), new File(file, PACKAGE_LIST).lastModified());
+		return file.lastModified() * 31 + file.length();
+	}
+
+	private static String getMemberKey(IMember member) {
+		switch (member.getElementType()) {
+			case IJavaElement.TYPE:
+				return ""; //$NON-NLS-1$
+			case IJavaElement.FIELD:
+				return ((IField) member).getElementName();
+			case IJavaElement.METHOD:
+				IMethod method= (IMethod) member;
+				StringBuffer buf= new StringBuffer(method.getElementName());
+				buf.append('(');
+				String[] parameterTypes= method.getParameterTypes();
+				for (int i= 0; i < parameterTypes.length; i++) {
+					if (i > 0)
+						buf.append(',');
+					buf.append(parameterTypes[i]);
+				}
+				return buf.append(')').toString();
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Writes the changed indexes to disk.
+	 */
+	private void save() {
+		List<AttachedJavadocIndex> changed= new ArrayList<AttachedJavadocIndex>();
+		synchronized (this) {
+			for (Iterator<AttachedJavadocIndex> iter= fLibraries.values().iterator(); iter.hasNext();) {
+				AttachedJavadocIndex library= iter.next();
+				if (library.isDirty())
+					changed.add(library);
+			}
+		}
+		for (int i= 0; i < changed.size(); i++)
+			write(changed.get(i));
+		writeEvictedLibraries();
+		trimCacheDir();
+	}
+
+	private void writeEvictedLibraries() {
+		List<AttachedJavadocIndex> evicted;
+		synchronized (this) {
+			if (fEvictedLibraries.isEmpty())
+				return;
+			evicted= new ArrayList<AttachedJavadocIndex>(fEvictedLibraries.values());
+			fEvictedLibraries.clear();
+		}
+		for (int i= 0; i < evicted.size(); i++)
+			write(evicted.get(i));
+	}
+
+	private File getCacheFile(String location) {
+		return new File(fCacheDir, Integer.toHexString(location.hashCode()) + CACHE_FILE_EXTENSION);
+	}
+
+	private void write(AttachedJavadocIndex library) {
+		try {
+			library.write(getCacheFile(library.getLocation()));
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+		}
+	}
+
+	/**
+	 * Deletes the least recently written indexes if there are too many.
+	 */
+	private void trimCacheDir() {
+		File[] files= fCacheDir != null ? fCacheDir.listFiles(new FileFilter() {
+			public boolean accept(File file) {
+				return file.getName().endsWith(CACHE_FILE_EXTENSION);
+			}
+		}) : null;
+		if (files == null || files.length <= MAX_STORED_LIBRARIES)
+			return;
+		Arrays.sort(files, new Comparator<File>() {
+			public int compare(File f1, File f2) {
+				long m1= f1.lastModified();
+				long m2= f2.lastModified();
+				return m1 < m2 ? 1 : m1 == m2 ? 0 : -1;
+			}
+		});
+		for (int i= MAX_STORED_LIBRARIES; i < files.length; i++)
+			files[i].delete();
+	}
+}
@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.javadoc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+
+/**
+ * The documentation extracted from one Javadoc location, as cached by
+ * {@link AttachedJavadocCache}.
+ * <p>
+ * The index maps type names and member keys to the extracted documentation. It is bounded by
+ * the total length of the documentation and drops the least recently used types first. All
+ * documentation is discarded when the time stamp of the Javadoc location changes.
+ * </p>
+ * <p>
+ * This class is thread-safe. Writes of an index are serialized and replace the file atomically,
+ * so that a concurrent {@link #read(File, String, int)} sees either the old or the new content.
+ * </p>
+ *
+ * @since 3.10
+ */
+public final class AttachedJavadocIndex {
+
+	private static final int FORMAT_VERSION= 1;
+	private static final String TEMP_FILE_EXTENSION= ".tmp"; //$NON-NLS-1$
+
+	private final String fLocation;
+	private final int fMaxSize;
+	private long fStamp;
+	/** Type name -> (member key -> Javadoc, empty if none), in access order */
+	private final Map<String, Map<String, String>> fTypes= new LinkedHashMap<String, Map<String, String>>(64, 0.75f, true);
+	private int fSize;
+	private boolean fDirty;
+
+	/** Serializes the writes of this index */
+	private final Object fWriteLock= new Object();
+
+	/**
+	 * Creates a new empty index.
+	 *
+	 * @param location the Javadoc location
+	 * @param stamp the time stamp of the Javadoc location
+	 * @param maxSize the maximal total length of the documentation kept
+	 */
+	public AttachedJavadocIndex(String location, long stamp, int maxSize) {
+		fLocation= location;
+		fStamp= stamp;
+		fMaxSize= maxSize;
+	}
+
+	/**
+	 * @return the Javadoc location
+	 */
+	public String getLocation() {
+		return fLocation;
+	}
+
+	/**
+	 * @return the time stamp of the Javadoc location the documentation has been extracted from
+	 */
+	public synchronized long getStamp() {
+		return fStamp;
+	}
+
+	/**
+	 * @return the total length of the documentation kept
+	 */
+	public synchronized int getSize() {
+		return fSize;
+	}
+
+	/**
+	 * @return <code>true</code> if the index has changed since it has been read or written
+	 */
+	public synchronized boolean isDirty() {
+		return fDirty;
+	}
+
+	/**
+	 * Updates the time stamp of the Javadoc location. All documentation is discarded if the
+	 * stamp has changed.
+	 *
+	 * @param stamp the current time stamp of the Javadoc location
+	 */
+	public synchronized void setStamp(long stamp) {
+		if (stamp == fStamp)
+			return;
+		fTypes.clear();
+		fSize= 0;
+		fStamp= stamp;
+		fDirty= true;
+	}
+
+	/**
+	 * @param typeKey the fully qualified name of the type
+	 * @return <code>true</code> if documentation of members of the given type is kept
+	 */
+	public synchronized boolean containsType(String typeKey) {
+		return fTypes.containsKey(typeKey);
+	}
+
+	/**
+	 * Returns the documentation of a member.
+	 *
+	 * @param typeKey the fully qualified name of the declaring type
+	 * @param memberKey the key of the member
+	 * @return the documentation, an empty string if the member has none, or <code>null</code>
+	 *         if the documentation is not kept
+	 */
+	public synchronized String get(String typeKey, String memberKey) {
+		Map<String, String> docs= fTypes.get(typeKey);
+		return docs != null ? docs.get(memberKey) : null;
+	}
+
+	/**
+	 * Keeps the documentation of a member. The least recently used types are dropped if the
+	 * index grows too large.
+	 *
+	 * @param typeKey the fully qualified name of the declaring type
+	 * @param memberKey the key of the member
+	 * @param javadoc the documentation, or an empty string if the member has none
+	 */
+	public synchronized void put(String typeKey, String memberKey, String javadoc) {
+		Map<String, String> docs= fTypes.get(typeKey);
+		if (docs == null) {
+			docs= new HashMap<String, String>();
+			fTypes.put(typeKey, docs);
+		}
+		String old= docs.put(memberKey, javadoc);
+		if (old != null)
+			fSize-= old.length();
+		fSize+= javadoc.length();
+		fDirty= true;
+
+		for (Iterator<Map<String, String>> iter= fTypes.values().iterator(); fSize > fMaxSize && iter.hasNext();) {
+			Map<String, String> eldest= iter.next();
+			if (eldest == docs)
+				break;
+			for (Iterator<String> docIter= eldest.values().iterator(); docIter.hasNext();)
+				fSize-= docIter.next().length();
+			iter.remove();
+		}
+	}
+
+	/**
+	 * Reads an index from disk.
+	 *
+	 * @param file the file to read
+	 * @param location the Javadoc location of the index
+	 * @param maxSize the maximal total length of the documentation kept
+	 * @return the index, or <code>null</code> if the file does not exist, belongs to another
+	 *         location, or cannot be read
+	 */
+	public static AttachedJavadocIndex read(File file, String location, int maxSize) {
+		if (!file.isFile())
+			return null;
+		// no string can be longer than the file
+		int maxLength= (int) Math.min(Integer.MAX_VALUE, file.length() / 2);
+		DataInputStream in= null;
+		try {
+			in= new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() != FORMAT_VERSION || !location.equals(readString(in, maxLength)))
+				return null;
+			AttachedJavadocIndex index= new AttachedJavadocIndex(location, in.readLong(), maxSize);
+			int typeCount= readCount(in, maxLength);
+			for (int i= 0; i < typeCount; i++) {
+				String typeKey= readString(in, maxLength);
+				int memberCount= readCount(in, maxLength);
+				for (int k= 0; k < memberCount; k++)
+					index.put(typeKey, readString(in, maxLength), readString(in, maxLength));
+			}
+			index.fDirty= false;
+			return index;
+		} catch (IOException e) {
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Writes this index to disk. The index is written to a temporary file first, which then
+	 * replaces the given file.
+	 *
+	 * @param file the file to write
+	 * @throws IOException if the index cannot be written
+	 */
+	public void write(File file) throws IOException {
+		synchronized (fWriteLock) {
+			long stamp;
+			Map<String, Map<String, String>> types= new LinkedHashMap<String, Map<String, String>>();
+			synchronized (this) {
+				stamp= fStamp;
+				for (Iterator<Entry<String, Map<String, String>>> iter= fTypes.entrySet().iterator(); iter.hasNext();) {
+					Entry<String, Map<String, String>> type= iter.next();
+					types.put(type.getKey(), new HashMap<String, String>(type.getValue()));
+				}
+				fDirty= false;
+			}
+
+			File temp= File.createTempFile(file.getName(), TEMP_FILE_EXTENSION, file.getParentFile());
+			boolean written= false;
+			DataOutputStream out= null;
+			try {
+				out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+				out.writeInt(FORMAT_VERSION);
+				writeString(out, fLocation);
+				out.writeLong(stamp);
+				out.writeInt(types.size());
+				for (Iterator<Entry<String, Map<String, String>>> iter= types.entrySet().iterator(); iter.hasNext();) {
+					Entry<String, Map<String, String>> type= iter.next();
+					writeString(out, type.getKey());
+					out.writeInt(type.getValue().size());
+					for (Iterator<Entry<String, String>> docIter= type.getValue().entrySet().iterator(); docIter.hasNext();) {
+						Entry<String, String> doc= docIter.next();
+						writeString(out, doc.getKey());
+						writeString(out, doc.getValue());
+					}
+				}
+				out.close();
+				out= null;
+
+				// renameTo() does not replace an existing file on all platforms
+				if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file)))
+					throw new IOException("Cannot replace " + file); //$NON-NLS-1$
+				written= true;
+			} finally {
+				close(out);
+				if (!written) {
+					temp.delete();
+					synchronized (this) {
+						fDirty= true;
+					}
+				}
+			}
+		}
+	}
+
+	private static int readCount(DataInputStream in, int max) throws IOException {
+		int count= in.readInt();
+		if (count < 0 || count > max)
+			throw new IOException("Corrupt count: " + count); //$NON-NLS-1$
+		return count;
+	}
+
+	private static String readString(DataInputStream in, int maxLength) throws IOException {
+		char[] chars= new char[readCount(in, maxLength)];
+		for (int i= 0; i < chars.length; i++)
+			chars[i]= in.readChar();
+		return new String(chars);
+	}
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		out.writeInt(string.length());
+		out.writeChars(string);
+	}
+
+	private static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+}
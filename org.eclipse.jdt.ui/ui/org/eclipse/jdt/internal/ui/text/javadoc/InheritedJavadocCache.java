@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.javadoc;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+
+
+/**
+ * Workbench-wide cache of the descriptions that replace <code>{&#64;inheritDoc}</code> tags.
+ * <p>
+ * A description is resolved by walking the super types of the method's declaring type and by
+ * parsing the Javadoc of the overridden methods. Each cached description therefore remembers the
+ * compilation units and class files of all types that have been visited while resolving it, and is
+ * removed from the cache when a Java element delta reports a change of one of them or of one of
+ * their ancestors. Added types can take part in the resolution of any description, so all
+ * descriptions are removed when a type, a type root or one of their ancestors is added.
+ * </p>
+ *
+ * @since 3.10
+ */
+public class InheritedJavadocCache implements IElementChangedListener {
+
+	/** The maximal number of descriptions kept; the least recently used ones are dropped first */
+	private static final int MAX_ENTRIES= 2000;
+
+
+	/**
+	 * A resolved description.
+	 */
+	public static final class Description {
+		private final String fDescription;
+		private final ITypeRoot[] fSources;
+
+		private Description(String description, ITypeRoot[] sources) {
+			fDescription= description;
+			fSources= sources;
+		}
+
+		/**
+		 * @return the description, or <code>null</code> if no description can be inherited
+		 */
+		public String getDescription() {
+			return fDescription;
+		}
+
+		/**
+		 * @return the type roots visited while resolving the description
+		 */
+		public ITypeRoot[] getSources() {
+			return fSources;
+		}
+	}
+
+	/**
+	 * The key of a description.
+	 */
+	private static final class Key {
+		final IMethod fMethod;
+		final String fFragment;
+
+		Key(IMethod method, String fragment) {
+			fMethod= method;
+			fFragment= fragment;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			return fFragment.equals(other.fFragment) && fMethod.equals(other.fMethod);
+		}
+
+		@Override
+		public int hashCode() {
+			return fMethod.hashCode() * 31 + fFragment.hashCode();
+		}
+	}
+
+	/** Key -> Description, in access order */
+	private final Map<Key, Description> fDescriptions= new LinkedHashMap<Key, Description>(256, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Description> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/** Incremented by every invalidation */
+	private long fStamp;
+
+	/**
+	 * Creates a new cache and starts listening to Java element deltas.
+	 */
+	public InheritedJavadocCache() {
+		JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+	}
+
+	/**
+	 * Stops listening and clears the cache.
+	 */
+	public void dispose() {
+		JavaCore.removeElementChangedListener(this);
+		synchronized (fDescriptions) {
+			fDescriptions.clear();
+			fStamp++;
+		}
+	}
+
+	/**
+	 * Returns the cached description of a fragment of the given method's Javadoc.
+	 *
+	 * @param method the method whose Javadoc inherits the fragment
+	 * @param fragment the identifier of the fragment, e.g. the main description or the
+	 *            description of a parameter
+	 * @return the description or <code>null</code> if it is not cached
+	 */
+	public Description get(IMethod method, String fragment) {
+		synchronized (fDescriptions) {
+			return fDescriptions.get(new Key(method, fragment));
+		}
+	}
+
+	/**
+	 * Returns the stamp to pass to {@link #put(IMethod, String, String, Set, long)} for a
+	 * description that is resolved from now on.
+	 *
+	 * @return the current stamp of the cache
+	 */
+	public long getStamp() {
+		synchronized (fDescriptions) {
+			return fStamp;
+		}
+	}
+
+	/**
+	 * Caches the description of a fragment of the given method's Javadoc. The description is not
+	 * cached if the cache has been invalidated since the given stamp has been taken.
+	 *
+	 * @param method the method whose Javadoc inherits the fragment
+	 * @param fragment the identifier of the fragment
+	 * @param description the description or <code>null</code> if none can be inherited
+	 * @param sources the type roots visited while resolving the description
+	 * @param stamp the stamp returned by {@link #getStamp()} before the description has been
+	 *            resolved
+	 */
+	public void put(IMethod method, String fragment, String description, Set<ITypeRoot> sources, long stamp) {
+		Description entry= new Description(description, sources.toArray(new ITypeRoot[sources.size()]));
+		synchronized (fDescriptions) {
+			if (stamp == fStamp)
+				fDescriptions.put(new Key(method, fragment), entry);
+		}
+	}
+
+	/*
+	 * @see org.eclipse.jdt.core.IElementChangedListener#elementChanged(org.eclipse.jdt.core.ElementChangedEvent)
+	 */
+	public void elementChanged(ElementChangedEvent event) {
+		Set<IJavaElement> changed= new HashSet<IJavaElement>();
+		boolean added= collectChangedElements(event.getDelta(), changed);
+		if (!added && changed.isEmpty())
+			return;
+
+		synchronized (fDescriptions) {
+			fStamp++;
+			if (added) {
+				fDescriptions.clear();
+				return;
+			}
+			for (Iterator<Description> iter= fDescriptions.values().iterator(); iter.hasNext();) {
+				if (isAffected(iter.next(), changed))
+					iter.remove();
+			}
+		}
+	}
+
+	private static boolean isAffected(Description description, Set<IJavaElement> changed) {
+		ITypeRoot[] sources= description.fSources;
+		for (int i= 0; i < sources.length; i++) {
+			for (IJavaElement element= sources[i]; element != null; element= element.getParent()) {
+				if (changed.contains(element))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Collects the changed elements. Changes inside a compilation unit or class file are reported
+	 * as changes of the type root.
+	 *
+	 * @param delta the delta
+	 * @param changed the set to add the elements to
+	 * @return <code>true</code> if a type, a type root or one of their ancestors has been added
+	 */
+	private static boolean collectChangedElements(IJavaElementDelta delta, Set<IJavaElement> changed) {
+		List<IJavaElementDelta> deltas= new ArrayList<IJavaElementDelta>();
+		JavaModelUtil.collectChangedDeltas(delta, IJavaElement.COMPILATION_UNIT, deltas);
+		boolean added= false;
+		for (int i= 0; i < deltas.size(); i++) {
+			IJavaElementDelta changedDelta= deltas.get(i);
+			IJavaElement element= changedDelta.getElement();
+			int type= element.getElementType();
+			if (type <= IJavaElement.TYPE && (changedDelta.getKind() == IJavaElementDelta.ADDED || (changedDelta.getFlags() & IJavaElementDelta.F_ADDED_TO_CLASSPATH) != 0))
+				return true;
+			if (type == IJavaElement.COMPILATION_UNIT || type == IJavaElement.CLASS_FILE) {
+				changed.add(element);
+				added|= hasAddedType(changedDelta);
+			} else if (type > IJavaElement.CLASS_FILE) { // an element inside a type root
+				IJavaElement typeRoot= element.getAncestor(IJavaElement.COMPILATION_UNIT);
+				if (typeRoot == null)
+					typeRoot= element.getAncestor(IJavaElement.CLASS_FILE);
+				if (typeRoot != null)
+					changed.add(typeRoot);
+				added|= hasAddedType(changedDelta);
+			} else {
+				changed.add(element);
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * Tells whether a type has been added inside a type root.
+	 *
+	 * @param delta the delta of the type root or of an element inside it
+	 * @return <code>true</code> if the delta reports an added type
+	 */
+	private static boolean hasAddedType(IJavaElementDelta delta) {
+		if (delta.getElement().getElementType() == IJavaElement.TYPE && delta.getKind() == IJavaElementDelta.ADDED)
+			return true;
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (hasAddedType(children[i]))
+				return true;
+		}
+		return false;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -34,6 +34,7 @@ final class JavaDocMessages extends NLS {
 	public static String JavaDoc2HTMLTextReader_since_section;
 	public static String JavaDoc2HTMLTextReader_specified_by_section;
 	public static String JavaDoc2HTMLTextReader_version_section;
+	public static String AttachedJavadocCache_prefetch_job;
 
 	static {
 		NLS.initializeMessages(BUNDLE_NAME, JavaDocMessages.class);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2013 IBM Corporation and others.
+ * Copyright (c) 2008, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,11 +22,14 @@ import java.net.URL;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -281,6 +284,10 @@ public class JavadocContentAccess2 {
 
 		private final IType fStartingType;
 		private final HashMap<IMethod, JavadocContentAccess2> fContentAccesses;
+		/**
+		 * The type roots visited by the descriptions being resolved, one set per nesting level.
+		 */
+		private final ArrayList<Set<ITypeRoot>> fSources;
 
 		private ITypeHierarchy fTypeHierarchy;
 		private MethodOverrideTester fOverrideTester;
@@ -289,6 +296,7 @@ public class JavadocContentAccess2 {
 		private JavadocLookup(IType startingType) {
 			fStartingType= startingType;
 			fContentAccesses= new HashMap<IMethod, JavadocContentAccess2>();
+			fSources= new ArrayList<Set<ITypeRoot>>();
 		}
 
 		/**
@@ -299,7 +307,7 @@ public class JavadocContentAccess2 {
 		 * 		or <code>null</code> if none could be found
 		 */
 		public CharSequence getInheritedMainDescription(IMethod method) {
-			return getInheritedDescription(method, new DescriptionGetter() {
+			return getInheritedDescription(method, "main", new DescriptionGetter() { //$NON-NLS-1$
 				public CharSequence getDescription(JavadocContentAccess2 contentAccess) {
 					return contentAccess.getMainDescription();
 				}
@@ -316,7 +324,7 @@ public class JavadocContentAccess2 {
 		 * 		or <code>null</code> if none could be found
 		 */
 		public CharSequence getInheritedParamDescription(IMethod method, final int paramIndex) {
-			return getInheritedDescription(method, new DescriptionGetter() {
+			return getInheritedDescription(method, "param:" + paramIndex, new DescriptionGetter() { //$NON-NLS-1$
 				public CharSequence getDescription(JavadocContentAccess2 contentAccess) throws JavaModelException {
 					return contentAccess.getInheritedParamDescription(paramIndex);
 				}
@@ -331,7 +339,7 @@ public class JavadocContentAccess2 {
 		 * 		or <code>null</code> if none could be found
 		 */
 		public CharSequence getInheritedReturnDescription(IMethod method) {
-			return getInheritedDescription(method, new DescriptionGetter() {
+			return getInheritedDescription(method, "return", new DescriptionGetter() { //$NON-NLS-1$
 				public CharSequence getDescription(JavadocContentAccess2 contentAccess) {
 					return contentAccess.getReturnDescription();
 				}
@@ -348,46 +356,89 @@ public class JavadocContentAccess2 {
 		 * 		or <code>null</code> if none could be found
 		 */
 		public CharSequence getInheritedExceptionDescription(IMethod method, final String simpleName) {
-			return getInheritedDescription(method, new DescriptionGetter() {
+			return getInheritedDescription(method, "throws:" + simpleName, new DescriptionGetter() { //$NON-NLS-1$
 				public CharSequence getDescription(JavadocContentAccess2 contentAccess) {
 					return contentAccess.getExceptionDescription(simpleName);
 				}
 			});
 		}
 
-		private CharSequence getInheritedDescription(final IMethod method, final DescriptionGetter descriptionGetter) {
-			try {
-				return (CharSequence) new InheritDocVisitor() {
-					@Override
-					public Object visit(IType currType) throws JavaModelException {
-						IMethod overridden= getOverrideTester().findOverriddenMethodInType(currType, method);
-						if (overridden == null)
-							return InheritDocVisitor.CONTINUE;
-
-						JavadocContentAccess2 contentAccess= getJavadocContentAccess(overridden);
-						if (contentAccess == null) {
-							if (overridden.getOpenable().getBuffer() == null) {
-								// Don't continue this branch when no source is available.
-								// We don't extract individual tags from Javadoc attachments,
-								// and it would be wrong to copy doc from further up the branch,
-								// thereby skipping doc from this overridden method.
-								return InheritDocVisitor.STOP_BRANCH;
-							} else {
-								return InheritDocVisitor.CONTINUE;
-							}
-						}
+		/**
+		 * Returns the description from an overridden method, either from the
+		 * {@link InheritedJavadocCache} or by resolving and caching it.
+		 *
+		 * @param method a method
+		 * @param fragment the identifier of the description in the cache
+		 * @param descriptionGetter the getter of the description
+		 * @return the description that replaces the <code>{&#64;inheritDoc}</code> tag,
+		 * 		or <code>null</code> if none could be found
+		 */
+		private CharSequence getInheritedDescription(IMethod method, String fragment, DescriptionGetter descriptionGetter) {
+			InheritedJavadocCache cache= JavaPlugin.getDefault().getInheritedJavadocCache();
+			InheritedJavadocCache.Description cached= cache.get(method, fragment);
+			if (cached != null) {
+				addSources(Arrays.asList(cached.getSources()));
+				return cached.getDescription();
+			}
 
-						CharSequence overriddenDescription= descriptionGetter.getDescription(contentAccess);
-						if (overriddenDescription != null)
-							return overriddenDescription;
-						else
-							return InheritDocVisitor.CONTINUE;
-					}
-				}.visitInheritDoc(method.getDeclaringType(), getTypeHierarchy());
+			long stamp= cache.getStamp();
+			Set<ITypeRoot> sources= new HashSet<ITypeRoot>();
+			sources.add(method.getTypeRoot());
+			fSources.add(sources);
+			String description;
+			try {
+				CharSequence resolved= resolveInheritedDescription(method, descriptionGetter);
+				description= resolved != null ? resolved.toString() : null;
 			} catch (JavaModelException e) {
 				JavaPlugin.log(e);
+				return null;
+			} finally {
+				fSources.remove(fSources.size() - 1);
+				addSources(sources);
 			}
-			return null;
+			cache.put(method, fragment, description, sources, stamp);
+			return description;
+		}
+
+		/**
+		 * Adds type roots to the sources of the description being resolved, if any.
+		 *
+		 * @param sources the visited type roots
+		 */
+		private void addSources(Collection<ITypeRoot> sources) {
+			if (!fSources.isEmpty())
+				fSources.get(fSources.size() - 1).addAll(sources);
+		}
+
+		private CharSequence resolveInheritedDescription(final IMethod method, final DescriptionGetter descriptionGetter) throws JavaModelException {
+			return (CharSequence) new InheritDocVisitor() {
+				@Override
+				public Object visit(IType currType) throws JavaModelException {
+					fSources.get(fSources.size() - 1).add(currType.getTypeRoot());
+					IMethod overridden= getOverrideTester().findOverriddenMethodInType(currType, method);
+					if (overridden == null)
+						return InheritDocVisitor.CONTINUE;
+
+					JavadocContentAccess2 contentAccess= getJavadocContentAccess(overridden);
+					if (contentAccess == null) {
+						if (overridden.getOpenable().getBuffer() == null) {
+							// Don't continue this branch when no source is available.
+							// We don't extract individual tags from Javadoc attachments,
+							// and it would be wrong to copy doc from further up the branch,
+							// thereby skipping doc from this overridden method.
+							return InheritDocVisitor.STOP_BRANCH;
+						} else {
+							return InheritDocVisitor.CONTINUE;
+						}
+					}
+
+					CharSequence overriddenDescription= descriptionGetter.getDescription(contentAccess);
+					if (overriddenDescription != null)
+						return overriddenDescription;
+					else
+						return InheritDocVisitor.CONTINUE;
+				}
+			}.visitInheritDoc(method.getDeclaringType(), getTypeHierarchy());
 		}
 
 		/**
@@ -496,7 +547,7 @@ public class JavadocContentAccess2 {
 		if (sourceJavadoc == null || sourceJavadoc.length() == 0 || sourceJavadoc.trim().equals("{@inheritDoc}")) { //$NON-NLS-1$
 			if (useAttachedJavadoc) {
 				if (member.getOpenable().getBuffer() == null) { // only if no source available
-					return member.getAttachedJavadoc(null);
+					return JavaPlugin.getDefault().getAttachedJavadocCache().getAttachedJavadoc(member);
 				}
 				if (canInheritJavadoc(member)) {
 					IMethod method= (IMethod) member;
@@ -739,7 +790,7 @@ public class JavadocContentAccess2 {
 				if (overridden.getOpenable().getBuffer() == null) { // only if no source available
 					//TODO: BaseURL for method can be wrong for attached Javadoc from overridden
 					// (e.g. when overridden is from rt.jar). Fix would be to add baseURL here.
-					String attachedJavadoc= overridden.getAttachedJavadoc(null);
+					String attachedJavadoc= JavaPlugin.getDefault().getAttachedJavadocCache().getAttachedJavadoc(overridden);
 					if (attachedJavadoc != null)
 						return attachedJavadoc;
 				}
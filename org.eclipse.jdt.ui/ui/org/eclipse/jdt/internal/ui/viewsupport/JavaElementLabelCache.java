@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.viewsupport;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+import org.eclipse.jface.viewers.StyledString;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+import org.eclipse.jdt.internal.corext.util.Strings;
+
+
+/**
+ * Cache of the labels of Java elements, keyed by element handle and rendering flags.
+ * <p>
+ * The labels of an element are removed from the cache when a Java element delta reports a
+ * change of the element or of one of its ancestors. All labels are removed when a preference
+ * of the Java UI plug-in changes, since preferences like the package name compression affect
+ * the labels.
+ * </p>
+ *
+ * @since 3.10
+ */
+public class JavaElementLabelCache implements IElementChangedListener, IPropertyChangeListener {
+
+	/** The maximal number of labels kept; the least recently used labels are dropped first */
+	private static final int MAX_ENTRIES= 10000;
+
+	/**
+	 * The key of a label. Resolved elements are equal to their unresolved handles and to other
+	 * parameterizations of the same element, so their binding key is part of the key.
+	 */
+	private static final class Key {
+		final IJavaElement fElement;
+		final String fResolvedKey;
+		final long fFlags;
+		final boolean fStyled;
+
+		Key(IJavaElement element, long flags, boolean styled) {
+			fElement= element;
+			fResolvedKey= getResolvedKey(element);
+			fFlags= flags;
+			fStyled= styled;
+		}
+
+		private static String getResolvedKey(IJavaElement element) {
+			switch (element.getElementType()) {
+				case IJavaElement.TYPE:
+					return ((IType) element).isResolved() ? ((IType) element).getKey() : null;
+				case IJavaElement.METHOD:
+					return ((IMethod) element).isResolved() ? ((IMethod) element).getKey() : null;
+				case IJavaElement.FIELD:
+					return ((IField) element).isResolved() ? ((IField) element).getKey() : null;
+				default:
+					return null;
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			return fFlags == other.fFlags && fStyled == other.fStyled && fElement.equals(other.fElement)
+					&& (fResolvedKey == null ? other.fResolvedKey == null : fResolvedKey.equals(other.fResolvedKey));
+		}
+
+		@Override
+		public int hashCode() {
+			int hashCode= fElement.hashCode() ^ (int) (fFlags ^ (fFlags >>> 32)) ^ (fStyled ? 1 : 0);
+			return fResolvedKey == null ? hashCode : hashCode * 31 + fResolvedKey.hashCode();
+		}
+	}
+
+	/** Key -> String or StyledString, in access order */
+	private final Map<Key, Object> fLabels= new LinkedHashMap<Key, Object>(256, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/**
+	 * The buffer reused for composing labels, or <code>null</code> while it is in use.
+	 */
+	private final ThreadLocal<StringBuilder> fBuffers= new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder();
+		}
+	};
+
+	private final IPreferenceStore fPreferenceStore;
+
+	/**
+	 * Creates a new cache and starts listening to Java element deltas and changes of the given
+	 * preference store.
+	 *
+	 * @param preferenceStore the preference store of the Java UI plug-in
+	 */
+	public JavaElementLabelCache(IPreferenceStore preferenceStore) {
+		fPreferenceStore= preferenceStore;
+		JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		fPreferenceStore.addPropertyChangeListener(this);
+	}
+
+	/**
+	 * Stops listening and clears the cache.
+	 */
+	public void dispose() {
+		JavaCore.removeElementChangedListener(this);
+		fPreferenceStore.removePropertyChangeListener(this);
+		clear();
+	}
+
+	/**
+	 * Returns the label of the given element, as returned by
+	 * {@link org.eclipse.jdt.ui.JavaElementLabels#getElementLabel(IJavaElement, long)}.
+	 *
+	 * @param element the element to render
+	 * @param flags the rendering flags
+	 * @return the label of the Java element
+	 */
+	public String getElementLabel(IJavaElement element, long flags) {
+		Key key= new Key(element, flags, false);
+		synchronized (fLabels) {
+			String label= (String) fLabels.get(key);
+			if (label != null)
+				return label;
+		}
+
+		StringBuilder buffer= fBuffers.get();
+		fBuffers.set(null); // composing may ask for labels again
+		if (buffer == null)
+			buffer= new StringBuilder();
+		String label;
+		try {
+			new JavaElementLabelComposer(buffer).appendElementLabel(element, flags);
+			label= Strings.markJavaElementLabelLTR(buffer.toString());
+		} finally {
+			buffer.setLength(0);
+			fBuffers.set(buffer);
+		}
+
+		synchronized (fLabels) {
+			fLabels.put(key, label);
+		}
+		return label;
+	}
+
+	/**
+	 * Returns the styled label of the given element, as returned by
+	 * {@link org.eclipse.jdt.ui.JavaElementLabels#getStyledElementLabel(IJavaElement, long)}.
+	 *
+	 * @param element the element to render
+	 * @param flags the rendering flags
+	 * @return a new styled string with the label of the Java element
+	 */
+	public StyledString getStyledElementLabel(IJavaElement element, long flags) {
+		Key key= new Key(element, flags, true);
+		StyledString label;
+		synchronized (fLabels) {
+			label= (StyledString) fLabels.get(key);
+		}
+		if (label == null) {
+			label= new StyledString();
+			new JavaElementLabelComposer(label).appendElementLabel(element, flags);
+			label= Strings.markJavaElementLabelLTR(label);
+			synchronized (fLabels) {
+				fLabels.put(key, label);
+			}
+		}
+		// styled strings are mutable, so clients get a copy
+		return new StyledString().append(label);
+	}
+
+	/**
+	 * Removes all labels from the cache.
+	 */
+	public void clear() {
+		synchronized (fLabels) {
+			fLabels.clear();
+		}
+	}
+
+	/*
+	 * @see org.eclipse.jdt.core.IElementChangedListener#elementChanged(org.eclipse.jdt.core.ElementChangedEvent)
+	 */
+	public void elementChanged(ElementChangedEvent event) {
+		Set<IJavaElement> changed= new HashSet<IJavaElement>();
+		collectChangedElements(event.getDelta(), changed);
+		if (changed.isEmpty())
+			return;
+
+		synchronized (fLabels) {
+			for (Iterator<Key> iter= fLabels.keySet().iterator(); iter.hasNext();) {
+				for (IJavaElement element= iter.next().fElement; element != null; element= element.getParent()) {
+					if (changed.contains(element)) {
+						iter.remove();
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collects the elements whose labels and the labels of whose descendants may have changed.
+	 *
+	 * @param delta the delta
+	 * @param changed the set to add the elements to
+	 */
+	private static void collectChangedElements(IJavaElementDelta delta, Set<IJavaElement> changed) {
+		List<IJavaElementDelta> deltas= new ArrayList<IJavaElementDelta>();
+		JavaModelUtil.collectChangedDeltas(delta, Integer.MAX_VALUE, deltas);
+		for (int i= 0; i < deltas.size(); i++)
+			changed.add(deltas.get(i).getElement());
+	}
+
+	/*
+	 * @see org.eclipse.jface.util.IPropertyChangeListener#propertyChange(org.eclipse.jface.util.PropertyChangeEvent)
+	 */
+	public void propertyChange(PropertyChangeEvent event) {
+		clear();
+	}
+}
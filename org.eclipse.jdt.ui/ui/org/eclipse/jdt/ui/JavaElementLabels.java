@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -44,6 +44,7 @@ import org.eclipse.jdt.internal.corext.util.Strings;
 
 import org.eclipse.jdt.launching.JavaRuntime;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.JavaUIMessages;
 import org.eclipse.jdt.internal.ui.packageview.ClassPathContainer;
 import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
@@ -487,8 +488,12 @@ public class JavaElementLabels {
 	 * @return the label of the Java element
 	 */
 	public static String getElementLabel(IJavaElement element, long flags) {
-		StringBuffer result= new StringBuffer();
-		getElementLabel(element, flags, result);
+		JavaPlugin plugin= JavaPlugin.getDefault();
+		if (plugin != null)
+			return plugin.getJavaElementLabelCache().getElementLabel(element, flags);
+
+		StringBuilder result= new StringBuilder();
+		new JavaElementLabelComposer(result).appendElementLabel(element, flags);
 		return Strings.markJavaElementLabelLTR(result.toString());
 	}
 
@@ -502,6 +507,10 @@ public class JavaElementLabels {
 	 * @since 3.4
 	 */
 	public static StyledString getStyledElementLabel(IJavaElement element, long flags) {
+		JavaPlugin plugin= JavaPlugin.getDefault();
+		if (plugin != null)
+			return plugin.getJavaElementLabelCache().getStyledElementLabel(element, flags);
+
 		StyledString result= new StyledString();
 		getElementLabel(element, flags, result);
 		return Strings.markJavaElementLabelLTR(result);
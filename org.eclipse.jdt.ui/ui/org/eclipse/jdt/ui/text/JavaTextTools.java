@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,7 @@ import org.eclipse.jface.text.rules.IPartitionTokenScanner;
 import org.eclipse.jface.text.rules.RuleBasedScanner;
 
 import org.eclipse.jdt.internal.ui.text.FastJavaPartitionScanner;
+import org.eclipse.jdt.internal.ui.text.FastJavaPartitioner;
 import org.eclipse.jdt.internal.ui.text.JavaColorManager;
 import org.eclipse.jdt.internal.ui.text.JavaCommentScanner;
 import org.eclipse.jdt.internal.ui.text.SingleTokenJavaScanner;
@@ -289,7 +290,10 @@ public class JavaTextTools {
 	 * @return a newly created Java document partitioner
 	 */
 	public IDocumentPartitioner createDocumentPartitioner() {
-		return new FastPartitioner(getPartitionScanner(), LEGAL_CONTENT_TYPES);
+		IPartitionTokenScanner scanner= getPartitionScanner();
+		if (scanner instanceof FastJavaPartitionScanner)
+			return new FastJavaPartitioner((FastJavaPartitionScanner) scanner, LEGAL_CONTENT_TYPES);
+		return new FastPartitioner(scanner, LEGAL_CONTENT_TYPES);
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -358,7 +358,8 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 
 				fUpdatingCount++;
 				try {
-					update(createContext(false));
+					if (!updateChangedMembers(delta))
+						update(createContext(false));
 				} finally {
 					fUpdatingCount--;
 				}
@@ -877,14 +878,145 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		if (ctx == null)
 			return;
 
+		computeFoldingStructure(ctx);
+		Map<JavaProjectionAnnotation, Position> newStructure= ctx.fMap;
+		Map<IJavaElement, List<Tuple>> oldStructure= computeCurrentStructure(ctx, null);
+
+		updateAnnotations(newStructure, oldStructure, ctx);
+
+		ctx.fScanner.setSource(null);
+	}
+
+	/**
+	 * Updates the folding structure of the members affected by the given delta. The members that
+	 * have been added or whose content has changed are folded again, and the annotations of these
+	 * and of the removed members are updated. The annotations of all other members are kept, as
+	 * their positions are updated with the document.
+	 * <p>
+	 * This is only possible for fine-grained deltas that do not change the top-level elements,
+	 * since these determine the header comment, and that report the changed members.
+	 * </p>
+	 *
+	 * @param delta the delta of the input element
+	 * @return <code>true</code> if the folding structure has been updated, <code>false</code> if
+	 *         the whole structure has to be computed
+	 * @since 3.10
+	 */
+	private boolean updateChangedMembers(IJavaElementDelta delta) {
+		if ((delta.getFlags() & IJavaElementDelta.F_FINE_GRAINED) == 0 || !(fInput instanceof ISourceReference))
+			return false;
+
+		List<IJavaElement> changed= new ArrayList<IJavaElement>();
+		List<IJavaElement> removed= new ArrayList<IJavaElement>();
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			IJavaElementDelta child= children[i];
+			if (child.getKind() != IJavaElementDelta.CHANGED || !(child.getElement() instanceof IType) || !isChildrenChange(child))
+				return false;
+			collectChangedMembers(child, changed, removed);
+		}
+
+		// edits of comments or method bodies may not report any member, but can still add or
+		// remove folding regions
+		if (changed.isEmpty() && removed.isEmpty())
+			return false;
+
+		FoldingStructureComputationContext ctx= createContext(false);
+		if (ctx == null)
+			return true;
+
+		try {
+			IType firstType= getFirstType();
+			String source= ((ISourceReference) fInput).getSource();
+			if (firstType == null || source == null)
+				return false;
+
+			// the header comment belongs to the first type, which is not folded again
+			ctx.setFirstType(firstType);
+			ctx.getScanner().setSource(source.toCharArray());
+			computeFoldingStructure(changed.toArray(new IJavaElement[changed.size()]), ctx);
+		} catch (JavaModelException x) {
+			return false;
+		}
+
+		Set<IJavaElement> affected= new HashSet<IJavaElement>(changed);
+		affected.addAll(removed);
+		updateAnnotations(ctx.fMap, computeCurrentStructure(ctx, affected), ctx);
+
+		ctx.fScanner.setSource(null);
+		return true;
+	}
+
+	/**
+	 * Tells whether the given delta only reports changes of the element's children.
+	 *
+	 * @param delta the delta
+	 * @return <code>true</code> if only children of the element have changed
+	 * @since 3.10
+	 */
+	private static boolean isChildrenChange(IJavaElementDelta delta) {
+		return (delta.getFlags() & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_FINE_GRAINED)) == 0;
+	}
+
+	/**
+	 * Collects the children of the delta's element that have been added or removed, or whose
+	 * content has changed. Children of which only the children have changed are descended into.
+	 *
+	 * @param delta the delta
+	 * @param changed the list to add the added and changed elements to
+	 * @param removed the list to add the removed elements to
+	 * @since 3.10
+	 */
+	private static void collectChangedMembers(IJavaElementDelta delta, List<IJavaElement> changed, List<IJavaElement> removed) {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			IJavaElementDelta child= children[i];
+			switch (child.getKind()) {
+				case IJavaElementDelta.ADDED:
+					changed.add(child.getElement());
+					break;
+				case IJavaElementDelta.REMOVED:
+					removed.add(child.getElement());
+					break;
+				default:
+					if (isChildrenChange(child))
+						collectChangedMembers(child, changed, removed);
+					else
+						changed.add(child.getElement());
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Returns the first type of the input element, which owns the header comment.
+	 *
+	 * @return the first type or <code>null</code> if there is none
+	 * @throws JavaModelException if the children of the input cannot be accessed
+	 * @since 3.10
+	 */
+	private IType getFirstType() throws JavaModelException {
+		IJavaElement[] children= ((IParent) fInput).getChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (children[i] instanceof IType)
+				return (IType) children[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Updates the projection annotations of the model from the old to the new structure.
+	 *
+	 * @param newStructure the new annotations and their positions
+	 * @param oldStructure the annotations of the model, by element
+	 * @param ctx the context
+	 * @since 3.10
+	 */
+	private void updateAnnotations(Map<JavaProjectionAnnotation, Position> newStructure, Map<IJavaElement, List<Tuple>> oldStructure, FoldingStructureComputationContext ctx) {
 		Map<JavaProjectionAnnotation, Position> additions= new HashMap<JavaProjectionAnnotation, Position>();
 		List<JavaProjectionAnnotation> deletions= new ArrayList<JavaProjectionAnnotation>();
 		List<JavaProjectionAnnotation> updates= new ArrayList<JavaProjectionAnnotation>();
 
-		computeFoldingStructure(ctx);
-		Map<JavaProjectionAnnotation, Position> newStructure= ctx.fMap;
-		Map<IJavaElement, List<Tuple>> oldStructure= computeCurrentStructure(ctx);
-
 		Iterator<JavaProjectionAnnotation> e= newStructure.keySet().iterator();
 		while (e.hasNext()) {
 			JavaProjectionAnnotation newAnnotation= e.next();
@@ -950,9 +1082,7 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		Annotation[] deletedArray= deletions.toArray(new Annotation[deletions.size()]);
 		Annotation[] changedArray= updates.toArray(new Annotation[updates.size()]);
 		ctx.getModel().modifyAnnotations(deletedArray, additions, changedArray);
-
-		ctx.fScanner.setSource(null);
-    }
+	}
 
 	private void computeFoldingStructure(FoldingStructureComputationContext ctx) {
 		IParent parent= (IParent) fInput;
@@ -1376,7 +1506,15 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		return null;
 	}
 
-	private Map<IJavaElement, List<Tuple>> computeCurrentStructure(FoldingStructureComputationContext ctx) {
+	/**
+	 * Returns the projection annotations of the model by element.
+	 *
+	 * @param ctx the context
+	 * @param elements the elements whose annotations and the annotations of their descendants are
+	 *            returned, or <code>null</code> to return all annotations
+	 * @return the annotations and their positions by element, sorted by offset
+	 */
+	private Map<IJavaElement, List<Tuple>> computeCurrentStructure(FoldingStructureComputationContext ctx, Set<IJavaElement> elements) {
 		Map<IJavaElement, List<Tuple>> map= new HashMap<IJavaElement, List<Tuple>>();
 		ProjectionAnnotationModel model= ctx.getModel();
 		Iterator<Annotation> e= model.getAnnotationIterator();
@@ -1384,6 +1522,8 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 			Object annotation= e.next();
 			if (annotation instanceof JavaProjectionAnnotation) {
 				JavaProjectionAnnotation java= (JavaProjectionAnnotation) annotation;
+				if (elements != null && !isDescendant(java.getElement(), elements))
+					continue;
 				Position position= model.getPosition(java);
 				Assert.isNotNull(position);
 				List<Tuple> list= map.get(java.getElement());
@@ -1407,6 +1547,22 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		return map;
 	}
 
+	/**
+	 * Tells whether the element is one of the given elements or a descendant of one.
+	 *
+	 * @param element the element
+	 * @param elements the elements
+	 * @return <code>true</code> if the element is contained in one of the elements
+	 * @since 3.10
+	 */
+	private static boolean isDescendant(IJavaElement element, Set<IJavaElement> elements) {
+		for (IJavaElement e= element; e != null; e= e.getParent()) {
+			if (elements.contains(e))
+				return true;
+		}
+		return false;
+	}
+
 	/*
 	 * @see IJavaFoldingStructureProviderExtension#collapseMembers()
 	 * @since 3.2
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.text.edits.DeleteEdit;
+import org.eclipse.text.edits.InsertEdit;
+import org.eclipse.text.edits.MoveSourceEdit;
+import org.eclipse.text.edits.MoveTargetEdit;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+import org.eclipse.text.edits.UndoEdit;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+
+import org.eclipse.ltk.internal.core.refactoring.SpilledUndoEdit;
+
+public class SpilledUndoEditTest extends TestCase {
+
+	private static final String CONTENT= "public class A {\n\tint fField;\n\tvoid foo() {\n\t\tfField= 1;\n\t}\n}\n";
+
+	private void assertCompactUndo(TextEdit edit) throws Exception {
+		IDocument document= new Document(CONTENT);
+		UndoEdit undo= edit.apply(document, TextEdit.CREATE_UNDO);
+		String modified= document.get();
+
+		ReplaceEdit[] edits= SpilledUndoEdit.compact(undo);
+		assertNotNull(edits);
+		for (int i= 1; i < edits.length; i++) {
+			assertTrue(edits[i - 1].getExclusiveEnd() < edits[i].getOffset());
+		}
+		MultiTextEdit compact= new MultiTextEdit();
+		for (int i= 0; i < edits.length; i++) {
+			compact.addChild(edits[i]);
+		}
+		UndoEdit redo= compact.apply(document, TextEdit.CREATE_UNDO);
+		assertEquals(CONTENT, document.get());
+
+		redo.apply(document);
+		assertEquals(modified, document.get());
+	}
+
+	public void testReplace() throws Exception {
+		assertCompactUndo(new ReplaceEdit(CONTENT.indexOf("fField"), 6, "fValue"));
+	}
+
+	public void testMultipleEdits() throws Exception {
+		MultiTextEdit root= new MultiTextEdit();
+		root.addChild(new InsertEdit(0, "/* header */\n"));
+		root.addChild(new ReplaceEdit(CONTENT.indexOf("A"), 1, "Renamed"));
+		root.addChild(new DeleteEdit(CONTENT.indexOf("\tint"), 13));
+		root.addChild(new InsertEdit(CONTENT.indexOf("\t\tfField"), "\t\tint local;\n"));
+		root.addChild(new ReplaceEdit(CONTENT.lastIndexOf("1"), 1, "42"));
+		root.addChild(new InsertEdit(CONTENT.length(), "// end\n"));
+		assertCompactUndo(root);
+	}
+
+	public void testAdjacentEdits() throws Exception {
+		int offset= CONTENT.indexOf("void");
+		MultiTextEdit root= new MultiTextEdit();
+		root.addChild(new InsertEdit(offset, "public "));
+		root.addChild(new ReplaceEdit(offset, 4, "int"));
+		root.addChild(new InsertEdit(offset + 4, " /* result */"));
+		assertCompactUndo(root);
+	}
+
+	public void testMove() throws Exception {
+		int start= CONTENT.indexOf("\tint");
+		MoveSourceEdit source= new MoveSourceEdit(start, CONTENT.indexOf('\n', start) + 1 - start);
+		MultiTextEdit root= new MultiTextEdit();
+		root.addChild(source);
+		root.addChild(new MoveTargetEdit(CONTENT.lastIndexOf('}'), source));
+		assertCompactUndo(root);
+	}
+
+	public void testEstimateSize() throws Exception {
+		IDocument document= new Document(CONTENT);
+		UndoEdit undo= new DeleteEdit(0, CONTENT.length()).apply(document, TextEdit.CREATE_UNDO);
+		assertTrue(SpilledUndoEdit.estimateSize(undo) >= 2 * CONTENT.length());
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.core.resources.IFile;
+
+import org.eclipse.text.edits.ReplaceEdit;
+
+import org.eclipse.ltk.core.refactoring.PerformChangeOperation;
+import org.eclipse.ltk.core.refactoring.TextFileChange;
+import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
+import org.eclipse.ltk.internal.core.refactoring.UndoManager2;
+
+public class UndoManager2Test extends TestCase {
+
+	private static final String CONTENT= "aaaaaaaaaa";
+	private static final int CHANGES= 3;
+
+	private SimpleTestProject fProject;
+	private IFile fFile;
+
+	protected void setUp() throws Exception {
+		fProject= new SimpleTestProject();
+		fFile= fProject.createFile(fProject.getProject(), "file.txt", CONTENT);
+		new UndoManager2().flush();
+	}
+
+	protected void tearDown() throws Exception {
+		new UndoManager2().flush();
+		fProject.delete();
+	}
+
+	private void performChange(UndoManager2 manager, int index) throws Exception {
+		TextFileChange change= new TextFileChange("change " + index, fFile);
+		change.setEdit(new ReplaceEdit(index, 1, "b"));
+		PerformChangeOperation operation= new PerformChangeOperation(change);
+		operation.setUndoManager(manager, "change " + index);
+		operation.run(new NullProgressMonitor());
+		assertTrue(operation.changeExecuted());
+	}
+
+	private static String getExpectedContent(int changes) {
+		StringBuffer result= new StringBuffer(CONTENT);
+		for (int i= 0; i < changes; i++) {
+			result.setCharAt(i, 'b');
+		}
+		return result.toString();
+	}
+
+	private long getRetainedSizeOfOneChange() throws Exception {
+		UndoManager2 manager= new UndoManager2(Long.MAX_VALUE);
+		performChange(manager, 0);
+		long size= manager.testGetRetainedSize();
+		manager.performUndo(null, new NullProgressMonitor());
+		manager.flush();
+		return size;
+	}
+
+	public void testWithinBudget() throws Exception {
+		long size= getRetainedSizeOfOneChange();
+		assertTrue(size > 0);
+
+		UndoManager2 manager= new UndoManager2(Long.MAX_VALUE);
+		for (int i= 0; i < CHANGES; i++) {
+			performChange(manager, i);
+		}
+		assertEquals(CHANGES * size, manager.testGetRetainedSize());
+	}
+
+	public void testSpillUndo() throws Exception {
+		long size= getRetainedSizeOfOneChange();
+
+		// only the changes on top of the undo and redo stacks stay in memory
+		UndoManager2 manager= new UndoManager2(0);
+		for (int i= 0; i < CHANGES; i++) {
+			performChange(manager, i);
+			assertEquals(size, manager.testGetRetainedSize());
+		}
+		assertEquals(getExpectedContent(CHANGES), fProject.getContent(fFile));
+
+		for (int i= CHANGES - 1; i >= 0; i--) {
+			manager.performUndo(null, new NullProgressMonitor());
+			assertEquals(getExpectedContent(i), fProject.getContent(fFile));
+		}
+		assertTrue(manager.testHasNumberOfRedos(CHANGES));
+		assertEquals(size, manager.testGetRetainedSize());
+
+		for (int i= 1; i <= CHANGES; i++) {
+			manager.performRedo(null, new NullProgressMonitor());
+			assertEquals(getExpectedContent(i), fProject.getContent(fFile));
+		}
+		assertTrue(manager.testHasNumberOfUndos(CHANGES));
+		assertEquals(size, manager.testGetRetainedSize());
+	}
+}
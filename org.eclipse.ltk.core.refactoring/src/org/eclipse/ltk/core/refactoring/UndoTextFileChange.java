@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.ltk.core.refactoring;
 
+import java.io.IOException;
+
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -36,8 +38,10 @@ import org.eclipse.jface.text.link.LinkedModeModel;
 import org.eclipse.ltk.internal.core.refactoring.BufferValidationState;
 import org.eclipse.ltk.internal.core.refactoring.Changes;
 import org.eclipse.ltk.internal.core.refactoring.ContentStamps;
+import org.eclipse.ltk.internal.core.refactoring.ISpillableChange;
 import org.eclipse.ltk.internal.core.refactoring.Lock;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
+import org.eclipse.ltk.internal.core.refactoring.SpilledUndoEdit;
 
 /**
  * A change to perform the reverse change of a {@link TextFileChange}.
@@ -55,6 +59,7 @@ public class UndoTextFileChange extends Change {
 
 	private String fName;
 	private UndoEdit fUndo;
+	private SpilledUndoEdit fSpilledUndo;
 	private IFile fFile;
 	private ContentStamp fContentStampToRestore;
 	private int fSaveMode;
@@ -142,6 +147,25 @@ public class UndoTextFileChange extends Change {
 		return new Object[] { modifiedElement };
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public Object getAdapter(Class adapter) {
+		if (ISpillableChange.class.equals(adapter)) {
+			return new ISpillableChange() {
+				public long getRetainedSize() {
+					synchronized (UndoTextFileChange.this) {
+						return fUndo != null ? SpilledUndoEdit.estimateSize(fUndo) : 0;
+					}
+				}
+				public boolean spill() {
+					return spillUndo();
+				}
+			};
+		}
+		return super.getAdapter(adapter);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -278,7 +302,7 @@ public class UndoTextFileChange extends Change {
 	private UndoEdit doPerformEdits(IDocument document, boolean[] setContentStampSuccess) throws MalformedTreeException, BadLocationException, CoreException {
 		// perform the changes
 		LinkedModeModel.closeAllModels(document);
-		UndoEdit redo= fUndo.apply(document, TextEdit.CREATE_UNDO);
+		UndoEdit redo= getUndoEdit().apply(document, TextEdit.CREATE_UNDO);
 
 		// try to restore the document content stamp
 		setContentStampSuccess[0]= ContentStamps.set(document, fContentStampToRestore);
@@ -292,6 +316,31 @@ public class UndoTextFileChange extends Change {
 		if (fValidationState != null) {
 			fValidationState.dispose();
 		}
+		synchronized (this) {
+			if (fSpilledUndo != null)
+				fSpilledUndo.delete();
+		}
+	}
+
+	private synchronized TextEdit getUndoEdit() throws CoreException {
+		if (fUndo != null)
+			return fUndo;
+		return fSpilledUndo.restore();
+	}
+
+	private synchronized boolean spillUndo() {
+		if (fUndo == null)
+			return false;
+		try {
+			fSpilledUndo= SpilledUndoEdit.spill(fUndo);
+		} catch (IOException e) {
+			RefactoringCorePlugin.log(e);
+			return false;
+		}
+		if (fSpilledUndo == null)
+			return false;
+		fUndo= null;
+		return true;
 	}
 
 	private boolean needsSaving() {
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring;
+
+/**
+ * Adapter for undo changes whose undo information can be moved out of memory.
+ * The {@link UndoManager2} uses it to keep the undo history within its memory budget.
+ * <p>
+ * Spilling must not change the behavior of the change. The undo information is read
+ * back when the change is performed.
+ * </p>
+ */
+public interface ISpillableChange {
+
+	/**
+	 * Returns an estimate of the memory retained by the undo information of the change.
+	 *
+	 * @return the estimated size in bytes, or <code>0</code> if the undo information
+	 *         has been spilled
+	 */
+	public long getRetainedSize();
+
+	/**
+	 * Moves the undo information of the change out of memory.
+	 *
+	 * @return <code>true</code> if the undo information has been spilled,
+	 *         <code>false</code> if it has to stay in memory
+	 */
+	public boolean spill();
+}
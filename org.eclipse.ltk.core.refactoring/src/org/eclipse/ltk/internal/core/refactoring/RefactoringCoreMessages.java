@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -234,6 +234,8 @@ public final class RefactoringCoreMessages extends NLS {
 
 	public static String Resources_outOfSyncResources;
 
+	public static String SpilledUndoEdit_read_error;
+
 	public static String TextChanges_error_content_changed;
 
 	public static String TextChanges_error_document_content_changed;
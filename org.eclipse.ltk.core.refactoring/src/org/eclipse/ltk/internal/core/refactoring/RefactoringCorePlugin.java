@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -112,6 +112,7 @@ public class RefactoringCorePlugin extends Plugin {
 
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
+		SpilledUndoEdit.deleteAll();
 		RefactoringContributionManager.getInstance().connect();
 		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
 		service.connect();
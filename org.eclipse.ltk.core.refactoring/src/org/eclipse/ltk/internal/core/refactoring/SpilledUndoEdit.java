@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+import org.eclipse.text.edits.InsertEdit;
+import org.eclipse.text.edits.MalformedTreeException;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+import org.eclipse.text.edits.UndoEdit;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+
+/**
+ * The compact on-disk form of an {@link UndoEdit}.
+ * <p>
+ * The replace edits of an undo edit are applied one after the other, each one in
+ * the coordinates of the document produced by the previous ones. Before an undo edit
+ * is written to disk, its replace edits are composed into a set of non-overlapping
+ * replace edits in the coordinates of the document the undo edit applies to. These
+ * edits are stored compressed in the state location of the plug-in and are read back
+ * as a {@link MultiTextEdit} on demand. Applying that edit with
+ * {@link TextEdit#CREATE_UNDO} yields an undo edit again, so a spilled undo edit can
+ * replace the original one without changing the behavior of the change holding it.
+ * </p>
+ */
+public final class SpilledUndoEdit {
+
+	private static final String NAME_SPILL_FOLDER= ".undo"; //$NON-NLS-1$
+	private static final String SPILL_FILE_PREFIX= "undo"; //$NON-NLS-1$
+	private static final String SPILL_FILE_SUFFIX= ".bin"; //$NON-NLS-1$
+
+	/** The approximate memory taken by a text edit object, excluding its text */
+	private static final int EDIT_OVERHEAD= 64;
+
+	/**
+	 * A piece of the document produced by composing replace edits: either a range of
+	 * the original document or text inserted by an edit.
+	 */
+	private static final class Piece {
+		int fStart;
+		int fEnd;
+		String fText;
+
+		Piece(int start, int end) {
+			fStart= start;
+			fEnd= end;
+		}
+
+		Piece(String text) {
+			fText= text;
+		}
+
+		long getLength() {
+			return fText != null ? fText.length() : (long) fEnd - fStart;
+		}
+
+		Piece splitAt(int position) {
+			if (fText != null) {
+				Piece tail= new Piece(fText.substring(position));
+				fText= fText.substring(0, position);
+				return tail;
+			}
+			Piece tail= new Piece(fStart + position, fEnd);
+			fEnd= fStart + position;
+			return tail;
+		}
+	}
+
+	private final File fFile;
+	private final long fSize;
+
+	private SpilledUndoEdit(File file, long size) {
+		fFile= file;
+		fSize= size;
+	}
+
+	/**
+	 * Returns an estimate of the memory retained by the given edit tree.
+	 *
+	 * @param edit the edit
+	 * @return the estimated size in bytes
+	 */
+	public static long estimateSize(TextEdit edit) {
+		long size= EDIT_OVERHEAD;
+		if (edit instanceof ReplaceEdit)
+			size+= 2L * ((ReplaceEdit) edit).getText().length();
+		else if (edit instanceof InsertEdit)
+			size+= 2L * ((InsertEdit) edit).getText().length();
+		TextEdit[] children= edit.getChildren();
+		for (int i= 0; i < children.length; i++) {
+			size+= estimateSize(children[i]);
+		}
+		return size;
+	}
+
+	/**
+	 * Writes the given undo edit to disk.
+	 *
+	 * @param undo the undo edit
+	 * @return the spilled undo edit, or <code>null</code> if the undo edit cannot be
+	 *         represented in the compact form
+	 * @throws IOException if the edit could not be written
+	 */
+	public static SpilledUndoEdit spill(UndoEdit undo) throws IOException {
+		ReplaceEdit[] edits= compact(undo);
+		if (edits == null)
+			return null;
+		File folder= getSpillFolder();
+		if (!folder.isDirectory() && !folder.mkdirs())
+			throw new IOException(folder.getAbsolutePath());
+		File file= File.createTempFile(SPILL_FILE_PREFIX, SPILL_FILE_SUFFIX, folder);
+		DataOutputStream stream= new DataOutputStream(new DeflaterOutputStream(new BufferedOutputStream(new FileOutputStream(file))));
+		boolean success= false;
+		try {
+			stream.writeInt(edits.length);
+			for (int i= 0; i < edits.length; i++) {
+				String text= edits[i].getText();
+				stream.writeInt(edits[i].getOffset());
+				stream.writeInt(edits[i].getLength());
+				stream.writeInt(text.length());
+				stream.writeChars(text);
+			}
+			success= true;
+		} finally {
+			stream.close();
+			if (!success)
+				file.delete();
+		}
+		return new SpilledUndoEdit(file, file.length());
+	}
+
+	/**
+	 * Composes the replace edits of the given undo edit into non-overlapping replace
+	 * edits which have the same effect when applied as a {@link MultiTextEdit}.
+	 *
+	 * @param undo the undo edit
+	 * @return the composed edits sorted by offset, or <code>null</code> if the undo edit
+	 *         contains edits other than replace edits
+	 */
+	public static ReplaceEdit[] compact(UndoEdit undo) {
+		TextEdit[] children= undo.getChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (!(children[i] instanceof ReplaceEdit) || children[i].hasChildren())
+				return null;
+		}
+		// The edits of an undo edit are performed last to first. Since that's an
+		// implementation detail of the text edit framework, verify the result and
+		// fall back to the other order.
+		ReplaceEdit[] result= compose(children, true);
+		if (isEquivalent(undo, children, result))
+			return result;
+		result= compose(children, false);
+		if (isEquivalent(undo, children, result))
+			return result;
+		return null;
+	}
+
+	private static ReplaceEdit[] compose(TextEdit[] children, boolean reverse) {
+		List pieces= new ArrayList();
+		pieces.add(new Piece(0, Integer.MAX_VALUE));
+		for (int i= 0; i < children.length; i++) {
+			ReplaceEdit edit= (ReplaceEdit) children[reverse ? children.length - 1 - i : i];
+			int start= split(pieces, edit.getOffset());
+			int end= split(pieces, edit.getExclusiveEnd());
+			for (int k= start; k < end; k++) {
+				pieces.remove(start);
+			}
+			if (edit.getText().length() > 0)
+				pieces.add(start, new Piece(edit.getText()));
+		}
+
+		List result= new ArrayList();
+		StringBuffer text= new StringBuffer();
+		int position= 0;
+		for (int i= 0; i < pieces.size(); i++) {
+			Piece piece= (Piece) pieces.get(i);
+			if (piece.fText != null) {
+				text.append(piece.fText);
+			} else {
+				if (piece.fStart != position || text.length() > 0)
+					result.add(new ReplaceEdit(position, piece.fStart - position, text.toString()));
+				position= piece.fEnd;
+				text.setLength(0);
+			}
+		}
+		return (ReplaceEdit[]) result.toArray(new ReplaceEdit[result.size()]);
+	}
+
+	/**
+	 * Splits the pieces at the given position.
+	 *
+	 * @param pieces the pieces
+	 * @param position the position in the composed document
+	 * @return the index of the first piece starting at or after <code>position</code>
+	 */
+	private static int split(List pieces, int position) {
+		long current= 0;
+		for (int i= 0; i < pieces.size(); i++) {
+			if (current == position)
+				return i;
+			Piece piece= (Piece) pieces.get(i);
+			long length= piece.getLength();
+			if (position < current + length) {
+				pieces.add(i + 1, piece.splitAt((int) (position - current)));
+				return i + 1;
+			}
+			current+= length;
+		}
+		return pieces.size();
+	}
+
+	private static boolean isEquivalent(UndoEdit undo, TextEdit[] children, ReplaceEdit[] edits) {
+		long length= 0;
+		int maxEnd= 0;
+		for (int i= 0; i < children.length; i++) {
+			length+= children[i].getLength();
+			maxEnd= Math.max(maxEnd, children[i].getExclusiveEnd());
+		}
+		length+= maxEnd;
+		if (length > Integer.MAX_VALUE)
+			return false;
+		char[] content= new char[(int) length];
+		for (int i= 0; i < content.length; i++) {
+			// mostly distinct characters, so that misplaced text is detected
+			content[i]= (char) ('\u4E00' + i % 0x5000);
+		}
+		String initial= new String(content);
+		try {
+			IDocument expected= new Document(initial);
+			undo.copy().apply(expected, TextEdit.NONE);
+			IDocument actual= new Document(initial);
+			MultiTextEdit root= new MultiTextEdit();
+			for (int i= 0; i < edits.length; i++) {
+				root.addChild(edits[i].copy());
+			}
+			root.apply(actual, TextEdit.NONE);
+			return expected.get().equals(actual.get());
+		} catch (MalformedTreeException e) {
+			return false;
+		} catch (BadLocationException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the edit back from disk. The returned edit can be applied to the same
+	 * document as the original undo edit.
+	 *
+	 * @return the edit
+	 * @throws CoreException if the edit could not be read
+	 */
+	public TextEdit restore() throws CoreException {
+		try {
+			DataInputStream stream= new DataInputStream(new InflaterInputStream(new BufferedInputStream(new FileInputStream(fFile))));
+			try {
+				MultiTextEdit result= new MultiTextEdit();
+				int count= stream.readInt();
+				for (int i= 0; i < count; i++) {
+					int offset= stream.readInt();
+					int length= stream.readInt();
+					char[] text= new char[stream.readInt()];
+					for (int k= 0; k < text.length; k++) {
+						text[k]= stream.readChar();
+					}
+					result.addChild(new ReplaceEdit(offset, length, new String(text)));
+				}
+				return result;
+			} finally {
+				stream.close();
+			}
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), IStatus.ERROR, RefactoringCoreMessages.SpilledUndoEdit_read_error, e));
+		}
+	}
+
+	/**
+	 * Returns the size of the compact form on disk.
+	 *
+	 * @return the size in bytes
+	 */
+	public long getSize() {
+		return fSize;
+	}
+
+	/**
+	 * Deletes the compact form from disk.
+	 */
+	public void delete() {
+		fFile.delete();
+	}
+
+	/**
+	 * Deletes all spilled undo edits, including the ones left behind by a previous session.
+	 */
+	public static void deleteAll() {
+		File[] files= getSpillFolder().listFiles();
+		if (files == null)
+			return;
+		for (int i= 0; i < files.length; i++) {
+			files[i].delete();
+		}
+	}
+
+	private static File getSpillFolder() {
+		return RefactoringCorePlugin.getDefault().getStateLocation().append(NAME_SPILL_FOLDER).toFile();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,10 @@
  *******************************************************************************/
 package org.eclipse.ltk.internal.core.refactoring;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.commands.operations.IOperationHistory;
 import org.eclipse.core.commands.operations.IOperationHistoryListener;
@@ -28,13 +32,28 @@ import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
 
 import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.CompositeChange;
 import org.eclipse.ltk.core.refactoring.IUndoManager;
 import org.eclipse.ltk.core.refactoring.IUndoManagerListener;
 import org.eclipse.ltk.core.refactoring.IValidationCheckResultQuery;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
 
+/**
+ * The refactoring undo manager. It is backed by the workbench operation history.
+ * <p>
+ * The undo information of text changes can get large. To keep the memory retained
+ * by the undo history within a budget, the undo information of older changes is
+ * moved to disk once the budget is exceeded and read back when the change is undone
+ * or redone. See {@link ISpillableChange}.
+ * </p>
+ */
 public class UndoManager2 implements IUndoManager {
 
+	/**
+	 * Default memory budget for the undo history: a twentieth of the maximum heap size.
+	 */
+	private static final long DEFAULT_BUDGET= Runtime.getRuntime().maxMemory() / 20;
+
 	private class OperationHistoryListener implements IOperationHistoryListener {
 		public void historyNotification(OperationHistoryEvent event) {
 			IUndoableOperation op= event.getOperation();
@@ -107,8 +126,20 @@ public class UndoManager2 implements IUndoManager {
 
 	private ListenerList fListeners;
 
+	private final long fBudget;
+
 	public UndoManager2() {
+		this(DEFAULT_BUDGET);
+	}
+
+	/**
+	 * Creates a new undo manager.
+	 *
+	 * @param budget the memory budget for the undo information in bytes
+	 */
+	public UndoManager2(long budget) {
 		fOperationHistory= OperationHistoryFactory.getOperationHistory();
+		fBudget= budget;
 	}
 
 	public void addListener(IUndoManagerListener listener) {
@@ -162,6 +193,7 @@ public class UndoManager2 implements IUndoManager {
 			operation.setLabel(name);
 			fOperationHistory.add(fActiveOperation);
 			fActiveOperation= null;
+			enforceBudget();
 		}
 	}
 
@@ -188,6 +220,8 @@ public class UndoManager2 implements IUndoManager {
 			fOperationHistory.undoOperation(undo, pm, new QueryAdapter(query));
 		} catch (ExecutionException e) {
 			handleException(e);
+		} finally {
+			enforceBudget();
 		}
 	}
 
@@ -214,10 +248,12 @@ public class UndoManager2 implements IUndoManager {
 			fOperationHistory.redoOperation(redo, pm, new QueryAdapter(query));
 		} catch (ExecutionException e) {
 			handleException(e);
+		} finally {
+			enforceBudget();
 		}
 	}
 
-	private UndoableOperation2ChangeAdapter getUnwrappedOperation(IUndoableOperation operation) {
+	private static UndoableOperation2ChangeAdapter getUnwrappedOperation(IUndoableOperation operation) {
 		IUndoableOperation result= operation;
 		if (result instanceof TriggeredOperations) {
 			result= ((TriggeredOperations)result).getTriggeringOperation();
@@ -250,6 +286,64 @@ public class UndoManager2 implements IUndoManager {
 		// nothing to do since we have a shared undo manager anyways.
 	}
 
+	//---- memory budget ---------------------------------------------------------
+
+	/**
+	 * Spills the undo information of the oldest changes until the retained size of
+	 * the undo history is within the budget. The changes on top of the undo and the
+	 * redo stack stay in memory since they are the most likely ones to be performed.
+	 */
+	private void enforceBudget() {
+		List candidates= new ArrayList();
+		long size= 0;
+		size+= collectSpillables(fOperationHistory.getUndoHistory(RefactoringCorePlugin.getUndoContext()), candidates);
+		size+= collectSpillables(fOperationHistory.getRedoHistory(RefactoringCorePlugin.getUndoContext()), candidates);
+		for (Iterator iter= candidates.iterator(); size > fBudget && iter.hasNext();) {
+			ISpillableChange change= (ISpillableChange) iter.next();
+			long retained= change.getRetainedSize();
+			if (change.spill())
+				size-= retained;
+		}
+	}
+
+	/**
+	 * Collects the spillable changes of all but the last of the given operations,
+	 * oldest first.
+	 *
+	 * @param operations the operations of the undo or redo history, oldest first
+	 * @param result the list to add the spillable changes of older operations to
+	 * @return the size retained by all spillable changes of the operations
+	 */
+	private static long collectSpillables(IUndoableOperation[] operations, List result) {
+		long size= 0;
+		for (int i= 0; i < operations.length; i++) {
+			UndoableOperation2ChangeAdapter operation= getUnwrappedOperation(operations[i]);
+			if (operation == null || operation.getChange() == null)
+				continue;
+			List spillables= new ArrayList();
+			collectSpillables(operation.getChange(), spillables);
+			for (Iterator iter= spillables.iterator(); iter.hasNext();) {
+				size+= ((ISpillableChange) iter.next()).getRetainedSize();
+			}
+			if (i < operations.length - 1)
+				result.addAll(spillables);
+		}
+		return size;
+	}
+
+	private static void collectSpillables(Change change, List result) {
+		if (change instanceof CompositeChange) {
+			Change[] children= ((CompositeChange) change).getChildren();
+			for (int i= 0; i < children.length; i++) {
+				collectSpillables(children[i], result);
+			}
+		} else {
+			ISpillableChange spillable= (ISpillableChange) change.getAdapter(ISpillableChange.class);
+			if (spillable != null)
+				result.add(spillable);
+		}
+	}
+
 	private void handleException(ExecutionException e) throws CoreException {
 		Throwable cause= e.getCause();
 		if (cause instanceof CoreException) {
@@ -341,4 +435,10 @@ public class UndoManager2 implements IUndoManager {
 	public boolean testHasNumberOfRedos(int number) {
 		return fOperationHistory.getRedoHistory(RefactoringCorePlugin.getUndoContext()).length == number;
 	}
+
+	public long testGetRetainedSize() {
+		List spillables= new ArrayList();
+		return collectSpillables(fOperationHistory.getUndoHistory(RefactoringCorePlugin.getUndoContext()), spillables)
+				+ collectSpillables(fOperationHistory.getRedoHistory(RefactoringCorePlugin.getUndoContext()), spillables);
+	}
 }